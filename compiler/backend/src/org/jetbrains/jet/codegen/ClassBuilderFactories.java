@@ -17,7 +17,9 @@
 package org.jetbrains.jet.codegen;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.codegen.optimization.OptimizationClassBuilder;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.util.TraceClassVisitor;
 
 import java.io.PrintWriter;
@@ -36,7 +38,7 @@ public class ClassBuilderFactories {
         }
 
         @Override
-        public ClassBuilder newClassBuilder() {
+        public ClassBuilder newClassBuilder(@NotNull CommonSuperClassResolver superClassResolver) {
             return new ClassBuilder.Concrete(new TraceClassVisitor(new PrintWriter(new StringWriter())));
         }
 
@@ -57,6 +59,13 @@ public class ClassBuilderFactories {
     };
 
     public static ClassBuilderFactory binaries(final boolean stubs) {
+        return binaries(stubs, false);
+    }
+
+    /**
+     * @param optimize run peephole and dead code optimizations over generated methods
+     */
+    public static ClassBuilderFactory binaries(final boolean stubs, final boolean optimize) {
         return new ClassBuilderFactory() {
             @NotNull
             @Override
@@ -65,10 +74,20 @@ public class ClassBuilderFactories {
             }
 
             @Override
-            public ClassBuilder newClassBuilder() {
-                return new ClassBuilder.Concrete(new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS){
+            public ClassBuilder newClassBuilder(@NotNull final CommonSuperClassResolver superClassResolver) {
+                ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+                    @Override
+                    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                        superClassResolver.registerGeneratedClass(name, superName, (access & Opcodes.ACC_INTERFACE) != 0);
+                        super.visit(version, access, name, signature, superName, interfaces);
+                    }
+
                     @Override
                     protected String getCommonSuperClass(String type1, String type2) {
+                        String result = superClassResolver.getCommonSuperClass(type1, type2);
+                        if (result != null) {
+                            return result;
+                        }
                         try {
                             return super.getCommonSuperClass(type1, type2);
                         }
@@ -77,7 +96,8 @@ public class ClassBuilderFactories {
                             return "java/lang/Object";
                         }
                     }
-                });
+                };
+                return optimize ? new OptimizationClassBuilder(writer) : new ClassBuilder.Concrete(writer);
             }
 
             @Override
@@ -29,7 +29,10 @@ import java.io.StringWriter;
 public interface ClassBuilderFactory {
     @NotNull
     ClassBuilderMode getClassBuilderMode();
-    ClassBuilder newClassBuilder();
+    /**
+     * @param superClassResolver answers common super class queries for frame computation, ignored by non-binary builders
+     */
+    ClassBuilder newClassBuilder(@NotNull CommonSuperClassResolver superClassResolver);
     String asText(ClassBuilder builder);
     byte[] asBytes(ClassBuilder builder);
 }
@@ -36,6 +36,7 @@ public class ClassFileFactory {
     private final Map<FqName, NamespaceCodegen> ns2codegen = new HashMap<FqName, NamespaceCodegen>();
     private final Map<String, ClassBuilder> generators = new LinkedHashMap<String, ClassBuilder>();
     private boolean isDone = false;
+    private CommonSuperClassResolver superClassResolver;
 
 
     @Inject
@@ -52,11 +53,19 @@ public class ClassFileFactory {
 
     ClassBuilder newVisitor(String filePath) {
         state.getProgress().log("Emitting: " + filePath);
-        final ClassBuilder answer = builderFactory.newClassBuilder();
+        final ClassBuilder answer = builderFactory.newClassBuilder(getSuperClassResolver());
         generators.put(filePath, answer);
         return answer;
     }
 
+    @NotNull
+    private CommonSuperClassResolver getSuperClassResolver() {
+        if (superClassResolver == null) {
+            superClassResolver = new CommonSuperClassResolver(state.getInjector().getJetTypeMapper());
+        }
+        return superClassResolver;
+    }
+
     ClassBuilder forAnonymousSubclass(@NotNull JvmClassName className) {
         return newVisitor(className.getInternalName() + ".class");
     }
@@ -29,7 +29,6 @@ import org.objectweb.asm.commons.InstructionAdapter;
 
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 
 /*
  * @author max
@@ -45,9 +44,6 @@ public abstract class CodegenContext {
     private final CodegenContext parentContext;
     public  final ObjectOrClosureCodegen closure;
     
-    HashMap<JetType,Integer> typeInfoConstants;
-    HashMap<Integer,JetType> reverseTypeInfoConstants;
-    int typeInfoConstantsCount;
     HashMap<DeclarationDescriptor, DeclarationDescriptor> accessors;
 
     protected StackValue outerExpression;
@@ -184,23 +180,6 @@ public abstract class CodegenContext {
         return cur == null ? null : typeMapper.mapType(((ClassDescriptor) cur.getContextDescriptor()).getDefaultType(), MapTypeMode.IMPL);
     }
     
-    public int getTypeInfoConstantIndex(JetType type) {
-        if (parentContext != CodegenContexts.STATIC) { return parentContext.getTypeInfoConstantIndex(type); }
-        
-        if (typeInfoConstants == null) {
-            typeInfoConstants = new LinkedHashMap<JetType, Integer>();
-            reverseTypeInfoConstants = new LinkedHashMap<Integer, JetType>();
-        }
-
-        Integer index = typeInfoConstants.get(type);
-        if (index == null) {
-            index = typeInfoConstantsCount++;
-            typeInfoConstants.put(type, index);
-            reverseTypeInfoConstants.put(index, type);
-        }
-        return index;
-    }
-    
     DeclarationDescriptor getAccessor(DeclarationDescriptor descriptor) {
         if (accessors == null) {
             accessors = new HashMap<DeclarationDescriptor,DeclarationDescriptor>();
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.codegen;
+
+import com.google.common.collect.Maps;
+import com.intellij.openapi.util.Pair;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
+import org.jetbrains.jet.lang.descriptors.ClassKind;
+import org.jetbrains.jet.lang.descriptors.ClassifierDescriptor;
+import org.jetbrains.jet.lang.types.JetType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers {@link org.objectweb.asm.ClassWriter#getCommonSuperClass} queries using the classes generated so far and
+ * the descriptors known to {@link JetTypeMapper} instead of loading classes into the compiler.
+ *
+ * @see ClassBuilderFactories#binaries(boolean, boolean)
+ */
+public class CommonSuperClassResolver {
+    private static final String OBJECT = JetTypeMapper.TYPE_OBJECT.getInternalName();
+
+    private static final class GeneratedClass {
+        private final String superName;
+        private final boolean isInterface;
+
+        private GeneratedClass(@Nullable String superName, boolean isInterface) {
+            this.superName = superName;
+            this.isInterface = isInterface;
+        }
+    }
+
+    @NotNull
+    private final JetTypeMapper typeMapper;
+    private final Map<String, GeneratedClass> generatedClasses = Maps.newHashMap();
+    private final Map<String, List<String>> superClassChains = Maps.newHashMap();
+    private final Map<Pair<String, String>, String> commonSuperClasses = Maps.newHashMap();
+
+    public CommonSuperClassResolver(@NotNull JetTypeMapper typeMapper) {
+        this.typeMapper = typeMapper;
+    }
+
+    public void registerGeneratedClass(@NotNull String internalName, @Nullable String superName, boolean isInterface) {
+        generatedClasses.put(internalName, new GeneratedClass(superName, isInterface));
+    }
+
+    /**
+     * @return internal name of the nearest common super class, or null if the hierarchy of one of the types is unknown
+     */
+    @Nullable
+    public String getCommonSuperClass(@NotNull String type1, @NotNull String type2) {
+        if (type1.equals(type2)) {
+            return type1;
+        }
+
+        Pair<String, String> key = Pair.create(type1, type2);
+        String result = commonSuperClasses.get(key);
+        if (result == null) {
+            result = computeCommonSuperClass(type1, type2);
+            if (result == null) {
+                return null;
+            }
+            commonSuperClasses.put(key, result);
+        }
+        return result;
+    }
+
+    @Nullable
+    private String computeCommonSuperClass(@NotNull String type1, @NotNull String type2) {
+        List<String> chain1 = getSuperClassChain(type1);
+        List<String> chain2 = getSuperClassChain(type2);
+        if (chain1 == null || chain2 == null) {
+            return null;
+        }
+
+        if (isInterface(type1) || isInterface(type2)) {
+            return OBJECT;
+        }
+
+        for (String superClass : chain2) {
+            if (chain1.contains(superClass)) {
+                return superClass;
+            }
+        }
+        return OBJECT;
+    }
+
+    private boolean isInterface(@NotNull String internalName) {
+        GeneratedClass generated = generatedClasses.get(internalName);
+        if (generated != null) {
+            return generated.isInterface;
+        }
+        ClassDescriptor descriptor = typeMapper.getClassDescriptorByInternalName(internalName);
+        return descriptor != null && isInterfaceKind(descriptor.getKind());
+    }
+
+    // annotation classes are compiled to interfaces as well as traits
+    private static boolean isInterfaceKind(@NotNull ClassKind kind) {
+        return kind == ClassKind.TRAIT || kind == ClassKind.ANNOTATION_CLASS;
+    }
+
+    /**
+     * @return the type itself followed by all its super classes up to java/lang/Object, or null if unknown
+     */
+    @Nullable
+    private List<String> getSuperClassChain(@NotNull String internalName) {
+        List<String> chain = superClassChains.get(internalName);
+        if (chain != null) {
+            return chain;
+        }
+
+        chain = new ArrayList<String>();
+        String current = internalName;
+        ClassDescriptor descriptor = null;
+        while (!OBJECT.equals(current)) {
+            chain.add(current);
+
+            GeneratedClass generated = generatedClasses.get(current);
+            if (generated != null) {
+                current = generated.superName != null ? generated.superName : OBJECT;
+                descriptor = null;
+                continue;
+            }
+
+            if (descriptor == null) {
+                descriptor = typeMapper.getClassDescriptorByInternalName(current);
+                if (descriptor == null) {
+                    return null;
+                }
+            }
+
+            JetType superClassType = getSuperClassType(descriptor);
+            if (superClassType == null) {
+                current = OBJECT;
+            }
+            else {
+                current = typeMapper.mapType(superClassType, MapTypeMode.VALUE).getInternalName();
+                descriptor = (ClassDescriptor) superClassType.getConstructor().getDeclarationDescriptor();
+            }
+        }
+        chain.add(OBJECT);
+
+        superClassChains.put(internalName, chain);
+        return chain;
+    }
+
+    @Nullable
+    private static JetType getSuperClassType(@NotNull ClassDescriptor descriptor) {
+        for (JetType supertype : descriptor.getTypeConstructor().getSupertypes()) {
+            ClassifierDescriptor classifier = supertype.getConstructor().getDeclarationDescriptor();
+            if (classifier instanceof ClassDescriptor && !isInterfaceKind(((ClassDescriptor) classifier).getKind())) {
+                return supertype;
+            }
+        }
+        return null;
+    }
+}
@@ -24,7 +24,9 @@ import com.intellij.psi.PsiMethod;
 import com.intellij.psi.tree.IElementType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.codegen.intrinsics.ArrayIndices;
 import org.jetbrains.jet.codegen.intrinsics.IntrinsicMethod;
+import org.jetbrains.jet.codegen.intrinsics.UpTo;
 import org.jetbrains.jet.codegen.signature.JvmPropertyAccessorSignature;
 import org.jetbrains.jet.lang.descriptors.*;
 import org.jetbrains.jet.lang.diagnostics.DiagnosticUtils;
@@ -37,8 +39,11 @@ import org.jetbrains.jet.lang.resolve.constants.CompileTimeConstant;
 import org.jetbrains.jet.lang.resolve.java.JvmClassName;
 import org.jetbrains.jet.lang.resolve.scopes.receivers.*;
 import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.lang.types.TypeUtils;
 import org.jetbrains.jet.lang.types.lang.JetStandardClasses;
 import org.jetbrains.jet.lang.types.lang.JetStandardLibraryNames;
+import org.jetbrains.jet.lang.types.lang.PrimitiveType;
+import org.jetbrains.jet.lang.types.ref.ClassName;
 import org.jetbrains.jet.lexer.JetTokens;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
@@ -339,8 +344,15 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
         else {
             assert expressionType != null;
             final DeclarationDescriptor descriptor = expressionType.getConstructor().getDeclarationDescriptor();
-            if (isClass(descriptor, "IntRange")) {       // TODO IntRange subclasses (now IntRange is final)
-                new ForInRangeLoopGenerator(expression, loopRangeType).invoke();
+            if (descriptor instanceof ClassDescriptor && isIntegralRangeClass((ClassDescriptor) descriptor) ||
+                getProgressionStepCall(loopRange) != null) {
+                new ForInProgressionLoopGenerator(expression).invoke();
+                return StackValue.none();
+            }
+
+            JetExpression iteratedArray = getIteratedArrayExpression(loopRange);
+            if (iteratedArray != null) {
+                new ForInArrayLoopGenerator(expression, iteratedArray).invoke();
                 return StackValue.none();
             }
 
@@ -349,6 +361,46 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
         }
     }
 
+    /**
+     * Returns the receiver of <tt>array.iterator()</tt> when it is the loop range, so that the loop can index
+     * the array directly instead of going through <tt>jet.runtime.ArrayIterator</tt>.
+     */
+    @Nullable
+    private JetExpression getIteratedArrayExpression(JetExpression loopRange) {
+        loopRange = JetPsiUtil.deparenthesize(loopRange);
+        if (!(loopRange instanceof JetDotQualifiedExpression)) {
+            return null;
+        }
+        JetDotQualifiedExpression qualified = (JetDotQualifiedExpression) loopRange;
+        JetExpression selector = qualified.getSelectorExpression();
+        if (!(selector instanceof JetCallExpression)) {
+            return null;
+        }
+        JetExpression callee = ((JetCallExpression) selector).getCalleeExpression();
+        if (!(callee instanceof JetSimpleNameExpression)) {
+            return null;
+        }
+        DeclarationDescriptor target = bindingContext.get(BindingContext.REFERENCE_TARGET, (JetSimpleNameExpression) callee);
+        if (!(target instanceof FunctionDescriptor) ||
+            !"iterator".equals(target.getName().getName()) ||
+            !((FunctionDescriptor) target).getValueParameters().isEmpty()) {
+            return null;
+        }
+        DeclarationDescriptor container = target.getContainingDeclaration().getOriginal();
+        if (!(container instanceof ClassDescriptor)) {
+            return null;
+        }
+        if (JetStandardLibraryNames.ARRAY.is((ClassDescriptor) container)) {
+            return qualified.getReceiverExpression();
+        }
+        for (PrimitiveType primitiveType : PrimitiveType.values()) {
+            if (primitiveType.getArrayClassName().is((ClassDescriptor) container)) {
+                return qualified.getReceiverExpression();
+            }
+        }
+        return null;
+    }
+
     @SuppressWarnings("ConstantConditions")
     private void generateForInIterable(JetForExpression expression, Type loopRangeType) {
         final JetExpression loopRange = expression.getLoopRange();
@@ -373,6 +425,12 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
         JetType paramType = parameterDescriptor.getType();
         Type asmParamType = asmType(paramType);
 
+        if (!iteratorDescriptor.getReceiverParameter().exists() && hasNextDescriptor instanceof FunctionDescriptor &&
+            isJavaUtilList(bindingContext.get(BindingContext.EXPRESSION_TYPE, loopRange))) {
+            generateForInJavaList(expression, loopRangeType, iteratorDescriptor, nextDescriptor, (FunctionDescriptor) hasNextDescriptor);
+            return;
+        }
+
         int iteratorVar = myFrameMap.enterTemp();
         gen(expression.getLoopRange(), boxType(loopRangeType));
         invokeFunctionNoParams(iteratorDescriptor, asmIterType, v);
@@ -425,6 +483,145 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
         blockStackElements.pop();
     }
 
+    private static final String JAVA_UTIL_LIST = "java.util.List";
+
+    private static boolean isJavaUtilList(@Nullable JetType type) {
+        if (type == null) {
+            return false;
+        }
+        if (isClassType(type, JAVA_UTIL_LIST)) {
+            return true;
+        }
+        for (JetType supertype : TypeUtils.getAllSupertypes(type)) {
+            if (isClassType(supertype, JAVA_UTIL_LIST)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isClassType(@NotNull JetType type, @NotNull String fqName) {
+        ClassifierDescriptor descriptor = type.getConstructor().getDeclarationDescriptor();
+        return descriptor instanceof ClassDescriptor && fqName.equals(DescriptorUtils.getFQName(descriptor).getFqName());
+    }
+
+    /**
+     * Iterates a <tt>java.util.List</tt>. Lists whose class is exactly <tt>java.util.ArrayList</tt> are walked by index
+     * with no iterator allocated; every other list, including subclasses and other <tt>RandomAccess</tt> lists whose
+     * iterators may behave differently, falls back to <tt>iterator()</tt>. Both paths share a single copy of the body:
+     * <tt>size</tt> is -1 in the iterator mode. The indexed path mirrors <tt>ArrayList.Itr</tt>: the loop ends when the
+     * index reaches the current size, and the next element is only read after checking that the size did not change.
+     * Modifications that keep the size are not detected, fail-fast behaviour is best-effort in the JDK as well.
+     */
+    private void generateForInJavaList(
+            JetForExpression expression,
+            Type loopRangeType,
+            FunctionDescriptor iteratorDescriptor,
+            FunctionDescriptor nextDescriptor,
+            FunctionDescriptor hasNextDescriptor
+    ) {
+        final JetParameter loopParameter = expression.getLoopParameter();
+        final VariableDescriptor parameterDescriptor = bindingContext.get(BindingContext.VALUE_PARAMETER, loopParameter);
+        Type asmParamType = asmType(parameterDescriptor.getType());
+        Type asmIterType = boxType(asmType(iteratorDescriptor.getReturnType()));
+        Type listType = Type.getObjectType("java/util/List");
+
+        int listVar = myFrameMap.enterTemp();
+        int iteratorVar = myFrameMap.enterTemp();
+        int sizeVar = myFrameMap.enterTemp();
+        int indexVar = myFrameMap.enterTemp();
+
+        Label end = new Label();
+        gen(expression.getLoopRange(), boxType(loopRangeType));
+        v.store(listVar, TYPE_OBJECT);
+        if (bindingContext.get(BindingContext.EXPRESSION_TYPE, expression.getLoopRange()).isNullable()) {
+            v.load(listVar, TYPE_OBJECT);
+            v.ifnull(end);
+        }
+
+        v.aconst(null);
+        v.store(iteratorVar, TYPE_OBJECT);
+        v.iconst(0);
+        v.store(indexVar, Type.INT_TYPE);
+
+        Label iteratorMode = new Label();
+        Label begin = new Label();
+        v.load(listVar, TYPE_OBJECT);
+        v.invokevirtual("java/lang/Object", "getClass", "()Ljava/lang/Class;");
+        v.aconst(Type.getObjectType("java/util/ArrayList"));
+        v.ifacmpne(iteratorMode);
+        v.load(listVar, TYPE_OBJECT);
+        v.invokeinterface(listType.getInternalName(), "size", "()I");
+        v.store(sizeVar, Type.INT_TYPE);
+        v.goTo(begin);
+
+        v.mark(iteratorMode);
+        v.iconst(-1);
+        v.store(sizeVar, Type.INT_TYPE);
+        v.load(listVar, TYPE_OBJECT);
+        v.checkcast(loopRangeType);
+        invokeFunctionNoParams(iteratorDescriptor, asmIterType, v);
+        v.store(iteratorVar, asmIterType);
+        if (iteratorDescriptor.getReturnType().isNullable()) {
+            v.load(iteratorVar, TYPE_OBJECT);
+            v.ifnull(end);
+        }
+
+        blockStackElements.push(new LoopBlockStackElement(end, begin, targetLabel(expression)));
+
+        v.mark(begin);
+        myFrameMap.enter(parameterDescriptor, asmParamType.getSize());
+        Label nextFromIterator = new Label();
+        Label store = new Label();
+        v.load(sizeVar, Type.INT_TYPE);
+        v.iflt(nextFromIterator);
+
+        v.load(indexVar, Type.INT_TYPE);
+        v.load(listVar, TYPE_OBJECT);
+        v.invokeinterface(listType.getInternalName(), "size", "()I");
+        v.ificmpeq(end);
+
+        Label notModified = new Label();
+        v.load(listVar, TYPE_OBJECT);
+        v.invokeinterface(listType.getInternalName(), "size", "()I");
+        v.load(sizeVar, Type.INT_TYPE);
+        v.ificmpeq(notModified);
+        throwNewException("java/util/ConcurrentModificationException");
+        v.mark(notModified);
+
+        v.load(listVar, TYPE_OBJECT);
+        v.load(indexVar, Type.INT_TYPE);
+        v.invokeinterface(listType.getInternalName(), "get", "(I)Ljava/lang/Object;");
+        v.iinc(indexVar, 1);
+        StackValue.onStack(TYPE_OBJECT).put(asmParamType, v);
+        v.goTo(store);
+
+        v.mark(nextFromIterator);
+        v.load(iteratorVar, asmIterType);
+        invokeFunctionNoParams(hasNextDescriptor, Type.BOOLEAN_TYPE, v);
+        v.ifeq(end);
+        v.load(iteratorVar, asmIterType);
+        invokeFunctionNoParams(nextDescriptor, asmParamType, v);
+        if (asmParamType.getSort() == Type.OBJECT && !"java.lang.Object".equals(asmParamType.getClassName())) {
+            v.checkcast(asmParamType);
+        }
+
+        v.mark(store);
+        v.store(lookupLocal(parameterDescriptor), asmParamType);
+
+        gen(expression.getBody(), Type.VOID_TYPE);
+
+        v.goTo(begin);
+        v.mark(end);
+
+        int paramIndex = myFrameMap.leave(parameterDescriptor);
+        //noinspection ConstantConditions
+        v.visitLocalVariable(loopParameter.getName(), asmParamType.getDescriptor(), null, begin, end, paramIndex);
+        myFrameMap.leaveTemp(4);
+
+        blockStackElements.pop();
+    }
+
     private OwnerKind contextKind() {
         return context.getContextKind();
     }
@@ -490,15 +687,25 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
         private int myArrayVar;
         private boolean localArrayVar;
 
+        private final JetExpression arrayExpression;
+
         public ForInArrayLoopGenerator(JetForExpression expression, Type loopRangeType) {
             super(expression, loopRangeType);
+            arrayExpression = expression.getLoopRange();
+        }
+
+        public ForInArrayLoopGenerator(JetForExpression expression, JetExpression arrayExpression) {
+            super(expression, null);
+            this.arrayExpression = arrayExpression;
+            expressionType = bindingContext.get(BindingContext.EXPRESSION_TYPE, arrayExpression);
+            loopRangeType = asmType(expressionType);
         }
 
         @Override
         protected void generatePrologue() {
             myIndexVar = myFrameMap.enterTemp();
 
-            StackValue value = gen(expression.getLoopRange());
+            StackValue value = gen(arrayExpression);
             if (value instanceof StackValue.Local) {
                 myArrayVar = ((StackValue.Local)value).index;
                 localArrayVar = true;
@@ -548,85 +755,357 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
         }
     }
 
-    private class ForInRangeLoopGenerator extends ForLoopGenerator {
-        private int myCountVar;
-        private int myDeltaVar;
+    /**
+     * Generates a counted loop for integral ranges and progressions: literal ranges, upto/downto, array indices,
+     * range values and step() over any of them. No range or iterator objects are allocated for literal forms.
+     * The index is compared with the precomputed last element before it is incremented, so it never overflows.
+     */
+    private class ForInProgressionLoopGenerator extends ForLoopGenerator {
+        private Type asmElementType;
+        private Type asmCounterType;
         private int myIndexVar;
+        private int myLastVar;
+        private int myStepVar;
+        private int myTempSize;
 
-        public ForInRangeLoopGenerator(JetForExpression expression, Type loopRangeType) {
-            super(expression, loopRangeType);
+        public ForInProgressionLoopGenerator(JetForExpression expression) {
+            super(expression, null);
         }
 
         @Override
         protected void generatePrologue() {
-            myIndexVar = lookupLocal(parameterDescriptor);
-            myCountVar = myFrameMap.enterTemp();
-            myDeltaVar = myFrameMap.enterTemp();
-            if (isIntRangeExpr(expression.getLoopRange())) {
-                JetBinaryExpression rangeExpression = (JetBinaryExpression) expression.getLoopRange();
-                //noinspection ConstantConditions
-                gen(rangeExpression.getLeft(), Type.INT_TYPE);
-                v.store(myIndexVar, Type.INT_TYPE);
-                gen(rangeExpression.getRight(), Type.INT_TYPE);
-                v.store(myCountVar, Type.INT_TYPE);
-
-                v.load(myCountVar, Type.INT_TYPE);
-                v.load(myIndexVar, Type.INT_TYPE);
-                v.sub(Type.INT_TYPE);
-                v.iconst(1);
-                v.add(Type.INT_TYPE);
-                v.store(myCountVar, Type.INT_TYPE);
-                
-                v.load(myCountVar, Type.INT_TYPE);
-                v.iflt(end);
+            JetExpression loopRange = expression.getLoopRange();
+            RangeCall stepCall = getProgressionStepCall(loopRange);
 
-                v.iconst(1);
-                v.store(myDeltaVar, Type.INT_TYPE);
+            JetExpression rangeExpression;
+            ClassDescriptor rangeClass;
+            if (stepCall != null) {
+                rangeExpression = stepCall.receiver;
+                rangeClass = (ClassDescriptor) stepCall.resolvedCall.getResultingDescriptor().getContainingDeclaration();
             }
             else {
-                gen(expression.getLoopRange(), loopRangeType);
-                v.dup();
-                v.dup();
+                rangeExpression = loopRange;
+                rangeClass = (ClassDescriptor) expressionType.getConstructor().getDeclarationDescriptor();
+            }
+
+            Type rangeType = typeMapper.mapType(rangeClass.getDefaultType(), MapTypeMode.VALUE);
+            asmElementType = rangeElementType(rangeType);
+            asmCounterType = asmElementType == Type.LONG_TYPE ? Type.LONG_TYPE : Type.INT_TYPE;
+
+            myIndexVar = enterTemp(asmCounterType);
+            myLastVar = enterTemp(asmCounterType);
+            myStepVar = enterTemp(asmCounterType);
 
-                v.invokevirtual("jet/IntRange", "getStart", "()I");
-                v.store(myIndexVar, Type.INT_TYPE);
-                v.invokevirtual("jet/IntRange", "getSize", "()I");
-                v.store(myCountVar, Type.INT_TYPE);
+            int direction = generateBounds(rangeExpression, rangeType);
 
-                v.invokevirtual("jet/IntRange", "getIsReversed", "()Z");
-                Label down = new Label();
+            if (stepCall != null) {
+                generateStep(stepCall.argument);
+                direction = 0;
+            }
+
+            generateEmptinessCheck(direction);
+        }
+
+        private int enterTemp(Type type) {
+            myTempSize += type.getSize();
+            return myFrameMap.enterTemp(type.getSize());
+        }
 
-                v.ifne(down);
+        private Type rangeElementType(Type rangeType) {
+            String internalName = rangeType.getInternalName();
+            if (internalName.equals("jet/LongRange")) return Type.LONG_TYPE;
+            if (internalName.equals("jet/ByteRange")) return Type.BYTE_TYPE;
+            if (internalName.equals("jet/ShortRange")) return Type.SHORT_TYPE;
+            if (internalName.equals("jet/CharRange")) return Type.CHAR_TYPE;
+            return Type.INT_TYPE;
+        }
+
+        /**
+         * Stores first element, last element and unit step (1 or -1) of the range into locals.
+         * Returns the direction of the range if it is known statically, 0 otherwise.
+         */
+        private int generateBounds(JetExpression rangeExpression, Type rangeType) {
+            RangeCall call = RangeCall.create(JetPsiUtil.deparenthesize(rangeExpression), bindingContext);
+            IntrinsicMethod intrinsic = call != null ? getIntrinsic(call.resolvedCall) : null;
+
+            if (intrinsic instanceof UpTo && call.argument != null) {
+                boolean forward = ((UpTo) intrinsic).isForward();
+                gen(call.receiver, asmElementType);
+                v.store(myIndexVar, asmCounterType);
+                gen(call.argument, asmElementType);
+                v.store(myLastVar, asmCounterType);
+                storeConstant(myStepVar, forward ? 1 : -1);
+                return forward ? 1 : -1;
+            }
+
+            if (intrinsic instanceof ArrayIndices && call.argument == null) {
+                storeConstant(myIndexVar, 0);
+                gen(call.receiver, expressionType(call.receiver));
+                v.arraylength();
                 v.iconst(1);
-                Label initEnd = new Label();
-                v.goTo(initEnd);
-                v.mark(down);
-                v.iconst(-1);
-                v.mark(initEnd);
-                v.store(myDeltaVar, Type.INT_TYPE);
+                v.sub(Type.INT_TYPE);
+                v.store(myLastVar, Type.INT_TYPE);
+                storeConstant(myStepVar, 1);
+                return 1;
+            }
+
+            String owner = rangeType.getInternalName();
+            int rangeVar = enterTemp(rangeType);
+            gen(rangeExpression, rangeType);
+            v.store(rangeVar, rangeType);
+
+            Label empty = new Label();
+            Label initialized = new Label();
+            JetType rangeJetType = bindingContext.get(BindingContext.EXPRESSION_TYPE, rangeExpression);
+            if (rangeJetType != null && rangeJetType.isNullable()) {
+                v.load(rangeVar, rangeType);
+                v.ifnull(empty);
+            }
+
+            v.load(rangeVar, rangeType);
+            v.invokevirtual(owner, "getSize", "()" + (asmCounterType == Type.LONG_TYPE ? "J" : "I"));
+            if (asmCounterType == Type.LONG_TYPE) {
+                v.lconst(0);
+                v.lcmp();
+            }
+            v.ifeq(empty);
+
+            v.load(rangeVar, rangeType);
+            v.invokevirtual(owner, "getStart", "()" + asmElementType.getDescriptor());
+            v.store(myIndexVar, asmCounterType);
+            v.load(rangeVar, rangeType);
+            v.invokevirtual(owner, "getEnd", "()" + asmElementType.getDescriptor());
+            v.store(myLastVar, asmCounterType);
+
+            v.load(rangeVar, rangeType);
+            v.invokevirtual(owner, "getIsReversed", "()Z");
+            Label reversed = new Label();
+            v.ifne(reversed);
+            storeConstant(myStepVar, 1);
+            v.goTo(initialized);
+            v.mark(reversed);
+            storeConstant(myStepVar, -1);
+            v.goTo(initialized);
+
+            // an empty range is represented as an empty forward progression
+            v.mark(empty);
+            storeConstant(myIndexVar, 1);
+            storeConstant(myLastVar, 0);
+            storeConstant(myStepVar, 1);
+
+            v.mark(initialized);
+            return 0;
+        }
+
+        /**
+         * step(n) starts from the first element for positive n and from the last one for negative n,
+         * the last element of the resulting progression is computed by the runtime.
+         */
+        private void generateStep(JetExpression stepExpression) {
+            int stepVar = enterTemp(asmCounterType);
+            gen(stepExpression, asmCounterType);
+            v.store(stepVar, asmCounterType);
+
+            v.load(stepVar, asmCounterType);
+            Label positive = new Label();
+            ifPositive(positive);
+            v.load(myIndexVar, asmCounterType);
+            v.load(myLastVar, asmCounterType);
+            v.store(myIndexVar, asmCounterType);
+            v.store(myLastVar, asmCounterType);
+            v.mark(positive);
+
+            v.load(myStepVar, asmCounterType);
+            v.load(stepVar, asmCounterType);
+            v.mul(asmCounterType);
+            v.store(myStepVar, asmCounterType);
+
+            String counterDescriptor = asmCounterType.getDescriptor();
+            v.load(myIndexVar, asmCounterType);
+            v.load(myLastVar, asmCounterType);
+            v.load(myStepVar, asmCounterType);
+            v.invokestatic("jet/runtime/Ranges", "getProgressionFinalElement",
+                           "(" + counterDescriptor + counterDescriptor + counterDescriptor + ")" + counterDescriptor);
+            v.store(myLastVar, asmCounterType);
+        }
+
+        private void generateEmptinessCheck(int direction) {
+            if (direction > 0) {
+                jumpIfIndexBeyondLast(true, end);
+            }
+            else if (direction < 0) {
+                jumpIfIndexBeyondLast(false, end);
+            }
+            else {
+                Label forward = new Label();
+                Label checked = new Label();
+                v.load(myStepVar, asmCounterType);
+                ifPositive(forward);
+                jumpIfIndexBeyondLast(false, end);
+                v.goTo(checked);
+                v.mark(forward);
+                jumpIfIndexBeyondLast(true, end);
+                v.mark(checked);
+            }
+        }
+
+        private void jumpIfIndexBeyondLast(boolean forward, Label label) {
+            v.load(myIndexVar, asmCounterType);
+            v.load(myLastVar, asmCounterType);
+            if (asmCounterType == Type.LONG_TYPE) {
+                v.lcmp();
+                if (forward) {
+                    v.ifgt(label);
+                }
+                else {
+                    v.iflt(label);
+                }
+            }
+            else {
+                if (forward) {
+                    v.ificmpgt(label);
+                }
+                else {
+                    v.ificmplt(label);
+                }
             }
         }
 
+        /** Consumes the counter on top of the stack and jumps if it is greater than zero */
+        private void ifPositive(Label label) {
+            if (asmCounterType == Type.LONG_TYPE) {
+                v.lconst(0);
+                v.lcmp();
+            }
+            v.ifgt(label);
+        }
+
+        private void storeConstant(int index, int value) {
+            if (asmCounterType == Type.LONG_TYPE) {
+                v.lconst(value);
+            }
+            else {
+                v.iconst(value);
+            }
+            v.store(index, asmCounterType);
+        }
+
         @Override
         protected void generateCondition(Type asmParamType, Label end) {
-            v.load(myCountVar, Type.INT_TYPE);
-            v.ifeq(end);
+            v.load(myIndexVar, asmCounterType);
+            StackValue.onStack(asmCounterType).put(asmElementType, v);
+            StackValue.onStack(asmElementType).put(asmParamType, v);
+            v.store(lookupLocal(parameterDescriptor), asmParamType);
         }
 
         @Override
         protected void generateIncrement() {
-            v.load(myIndexVar, Type.INT_TYPE);
-            v.load(myDeltaVar, Type.INT_TYPE);
-            v.add(Type.INT_TYPE);
-            v.store(myIndexVar, Type.INT_TYPE);
-            v.iinc(myCountVar, -1);
+            v.load(myIndexVar, asmCounterType);
+            v.load(myLastVar, asmCounterType);
+            if (asmCounterType == Type.LONG_TYPE) {
+                v.lcmp();
+                v.ifeq(end);
+            }
+            else {
+                v.ificmpeq(end);
+            }
+
+            v.load(myIndexVar, asmCounterType);
+            v.load(myStepVar, asmCounterType);
+            v.add(asmCounterType);
+            v.store(myIndexVar, asmCounterType);
         }
 
         @Override
         protected void cleanupTemp() {
-            myFrameMap.leaveTemp();
-            myFrameMap.leaveTemp();
+            myFrameMap.leaveTemp(myTempSize);
+        }
+    }
+
+    /**
+     * Receiver, single argument and resolved call of a call-like range expression:
+     * <code>a..b</code>, <code>a downto b</code>, <code>a.upto(b)</code>, <code>r.step(n)</code> or <code>a.indices</code>.
+     */
+    private static class RangeCall {
+        private final JetExpression receiver;
+        @Nullable
+        private final JetExpression argument;
+        private final ResolvedCall<? extends CallableDescriptor> resolvedCall;
+
+        private RangeCall(JetExpression receiver, @Nullable JetExpression argument, ResolvedCall<? extends CallableDescriptor> resolvedCall) {
+            this.receiver = receiver;
+            this.argument = argument;
+            this.resolvedCall = resolvedCall;
+        }
+
+        @Nullable
+        private static RangeCall create(@Nullable JetExpression expression, BindingContext bindingContext) {
+            if (expression instanceof JetBinaryExpression) {
+                JetBinaryExpression binaryExpression = (JetBinaryExpression) expression;
+                ResolvedCall<? extends CallableDescriptor> resolvedCall =
+                        bindingContext.get(BindingContext.RESOLVED_CALL, binaryExpression.getOperationReference());
+                if (resolvedCall == null || binaryExpression.getLeft() == null || binaryExpression.getRight() == null) {
+                    return null;
+                }
+                return new RangeCall(binaryExpression.getLeft(), binaryExpression.getRight(), resolvedCall);
+            }
+            if (expression instanceof JetDotQualifiedExpression) {
+                JetDotQualifiedExpression qualifiedExpression = (JetDotQualifiedExpression) expression;
+                JetExpression selector = qualifiedExpression.getSelectorExpression();
+                if (selector instanceof JetCallExpression) {
+                    JetCallExpression callExpression = (JetCallExpression) selector;
+                    List<? extends ValueArgument> arguments = callExpression.getValueArguments();
+                    ResolvedCall<? extends CallableDescriptor> resolvedCall =
+                            bindingContext.get(BindingContext.RESOLVED_CALL, callExpression.getCalleeExpression());
+                    if (resolvedCall == null || arguments.size() != 1 || !callExpression.getFunctionLiteralArguments().isEmpty()) {
+                        return null;
+                    }
+                    return new RangeCall(qualifiedExpression.getReceiverExpression(), arguments.get(0).getArgumentExpression(), resolvedCall);
+                }
+                if (selector instanceof JetSimpleNameExpression) {
+                    ResolvedCall<? extends CallableDescriptor> resolvedCall = bindingContext.get(BindingContext.RESOLVED_CALL, selector);
+                    if (resolvedCall == null) {
+                        return null;
+                    }
+                    return new RangeCall(qualifiedExpression.getReceiverExpression(), null, resolvedCall);
+                }
+            }
+            return null;
+        }
+    }
+
+    @Nullable
+    private IntrinsicMethod getIntrinsic(ResolvedCall<? extends CallableDescriptor> resolvedCall) {
+        CallableDescriptor descriptor = resolvedCall.getResultingDescriptor();
+        if (descriptor instanceof CallableMemberDescriptor) {
+            return state.getInjector().getIntrinsics().getIntrinsic((CallableMemberDescriptor) descriptor);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the call if the expression is <code>r.step(n)</code> or <code>r step n</code> over an integral range.
+     */
+    @Nullable
+    private RangeCall getProgressionStepCall(JetExpression expression) {
+        RangeCall call = RangeCall.create(JetPsiUtil.deparenthesize(expression), bindingContext);
+        if (call == null || call.argument == null) {
+            return null;
         }
+        CallableDescriptor descriptor = call.resolvedCall.getResultingDescriptor();
+        DeclarationDescriptor container = descriptor.getContainingDeclaration();
+        if (!descriptor.getName().getName().equals("step") || !(container instanceof ClassDescriptor)) {
+            return null;
+        }
+        return isIntegralRangeClass((ClassDescriptor) container) ? call : null;
+    }
+
+    private static boolean isIntegralRangeClass(ClassDescriptor descriptor) {
+        return JetStandardLibraryNames.INT_RANGE.is(descriptor) ||
+               JetStandardLibraryNames.LONG_RANGE.is(descriptor) ||
+               JetStandardLibraryNames.BYTE_RANGE.is(descriptor) ||
+               JetStandardLibraryNames.SHORT_RANGE.is(descriptor) ||
+               JetStandardLibraryNames.CHAR_RANGE.is(descriptor);
     }
 
     @Override
@@ -1713,28 +2192,36 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
                 gen(arguments.get(0).getArgumentExpression(), type);
             }
             else {
-                String owner = "jet/runtime/Intrinsics$SpreadBuilder";
+                boolean isPrimitive = elementType.getSort() != Type.OBJECT && elementType.getSort() != Type.ARRAY;
+                String owner = "jet/runtime/Intrinsics$" + (isPrimitive ? spreadBuilderPrefix(elementType) : "") + "SpreadBuilder";
                 v.anew(Type.getObjectType(owner));
                 v.dup();
-                v.invokespecial(owner, "<init>", "()V");
+                v.iconst(size);
+                v.invokespecial(owner, "<init>", "(I)V");
                 for(int i = 0; i != size; ++i) {
                     v.dup();
                     ValueArgument argument = arguments.get(i);
                     if (argument.getSpreadElement() != null) {
-                        gen(argument.getArgumentExpression(),JetTypeMapper.TYPE_OBJECT);
-                        v.invokevirtual(owner, "addSpread", "(Ljava/lang/Object;)V");
+                        Type spreadType = isPrimitive ? type : JetTypeMapper.TYPE_OBJECT;
+                        gen(argument.getArgumentExpression(), spreadType);
+                        v.invokevirtual(owner, "addSpread", "(" + spreadType.getDescriptor() + ")V");
                     }
                     else {
+                        Type addType = isPrimitive ? elementType : JetTypeMapper.TYPE_OBJECT;
                         gen(argument.getArgumentExpression(), elementType);
-                        v.invokevirtual(owner, "add", "(Ljava/lang/Object;)Z");
-                        v.pop();
+                        v.invokevirtual(owner, "add", "(" + addType.getDescriptor() + ")V");
                     }
                 }
-                v.dup();
-                v.invokevirtual(owner, "size", "()I");
-                v.newarray(elementType);
-                v.invokevirtual(owner, "toArray", "([Ljava/lang/Object;)[Ljava/lang/Object;");
-                v.checkcast(type);
+                if (isPrimitive) {
+                    v.invokevirtual(owner, "toArray", "()" + type.getDescriptor());
+                }
+                else {
+                    v.dup();
+                    v.invokevirtual(owner, "size", "()I");
+                    v.newarray(elementType);
+                    v.invokevirtual(owner, "toArray", "([Ljava/lang/Object;)[Ljava/lang/Object;");
+                    v.checkcast(type);
+                }
             }
         }
         else {
@@ -1749,6 +2236,20 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
         }
     }
 
+    private static String spreadBuilderPrefix(Type primitiveType) {
+        switch (primitiveType.getSort()) {
+            case Type.BOOLEAN: return "Boolean";
+            case Type.CHAR: return "Char";
+            case Type.BYTE: return "Byte";
+            case Type.SHORT: return "Short";
+            case Type.INT: return "Int";
+            case Type.FLOAT: return "Float";
+            case Type.LONG: return "Long";
+            case Type.DOUBLE: return "Double";
+            default: throw new IllegalArgumentException("Not a primitive type: " + primitiveType);
+        }
+    }
+
     public int pushMethodArguments(JetCallElement expression, List<Type> valueParameterTypes) {
         ResolvedCall<? extends CallableDescriptor> resolvedCall = bindingContext.get(BindingContext.RESOLVED_CALL, expression.getCalleeExpression());
         if (resolvedCall != null) {
@@ -1782,6 +2283,13 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
         return genQualified(StackValue.none(), expression.getSelectorExpression());
     }
 
+    /**
+     * @return true if the expression has a nullable type but data flow analysis proved its value is not null here
+     */
+    public boolean isKnownNotNull(@NotNull JetExpression expression) {
+        return bindingContext.get(BindingContext.KNOWN_NOT_NULL, expression);
+    }
+
     @Override
     public StackValue visitSafeQualifiedExpression(JetSafeQualifiedExpression expression, StackValue receiver) {
         JetExpression expr = expression.getReceiverExpression();
@@ -1789,7 +2297,7 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
         Type receiverType = asmType(receiverJetType);
         gen(expr, receiverType);
         assert receiverJetType != null;
-        if (!receiverJetType.isNullable()) {
+        if (!receiverJetType.isNullable() || isKnownNotNull(expr)) {
             StackValue propValue = genQualified(StackValue.onStack(receiverType), expression.getSelectorExpression());
             Type type = propValue.type;
             propValue.put(type, v);
@@ -1877,17 +2385,89 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
             getInIntRange(leftValue, rangeExpression, inverted);
         }
         else {
-            StackValue leftValue = gen(expr);
-            FunctionDescriptor op = (FunctionDescriptor) bindingContext.get(BindingContext.REFERENCE_TARGET, expression.getOperationReference());
-            assert op != null;
-            leftValue.put(asmType(op.getValueParameters().get(0).getType()), v);
-            genToJVMStack(expression.getRight());
-            v.swap();
-            invokeFunctionNoParams(op, Type.BOOLEAN_TYPE, v);
+            boolean inverted = expression.getOperationReference().getReferencedNameElementType() == JetTokens.NOT_IN;
+            JvmClassName primitiveRange = getPrimitiveRangeClass(expression.getRight(), expressionType(expr));
+            if (primitiveRange != null) {
+                // The element is evaluated first, as for any other binary expression
+                Type elementType = expressionType(expr);
+                if (elementType.getSize() == 1) {
+                    gen(expr, elementType);
+                    genToJVMStack(expression.getRight());
+                    v.swap();
+                }
+                else {
+                    int elementVar = myFrameMap.enterTemp(elementType.getSize());
+                    gen(expr, elementType);
+                    v.store(elementVar, elementType);
+                    genToJVMStack(expression.getRight());
+                    v.load(elementVar, elementType);
+                    myFrameMap.leaveTemp(elementType.getSize());
+                }
+                invokePrimitiveRangeContains(primitiveRange, elementType);
+            }
+            else {
+                StackValue leftValue = gen(expr);
+                FunctionDescriptor op = (FunctionDescriptor) bindingContext.get(BindingContext.REFERENCE_TARGET, expression.getOperationReference());
+                assert op != null;
+                leftValue.put(asmType(op.getValueParameters().get(0).getType()), v);
+                genToJVMStack(expression.getRight());
+                v.swap();
+                invokeFunctionNoParams(op, Type.BOOLEAN_TYPE, v);
+            }
+            if (inverted) {
+                v.iconst(1);
+                v.xor(Type.INT_TYPE);
+            }
         }
         return StackValue.onStack(Type.BOOLEAN_TYPE);
     }
 
+    /**
+     * @return the runtime class of the range if it has a contains method taking an element of the given type without boxing
+     */
+    @Nullable
+    private JvmClassName getPrimitiveRangeClass(@NotNull JetExpression rangeExpression, @NotNull Type elementType) {
+        JetType rangeType = bindingContext.get(BindingContext.EXPRESSION_TYPE, rangeExpression);
+        if (rangeType == null || rangeType.isNullable()) {
+            return null;
+        }
+        ClassName rangeClass;
+        switch (elementType.getSort()) {
+            case Type.INT:
+                rangeClass = JetStandardLibraryNames.INT_RANGE;
+                break;
+            case Type.LONG:
+                rangeClass = JetStandardLibraryNames.LONG_RANGE;
+                break;
+            case Type.BYTE:
+                rangeClass = JetStandardLibraryNames.BYTE_RANGE;
+                break;
+            case Type.SHORT:
+                rangeClass = JetStandardLibraryNames.SHORT_RANGE;
+                break;
+            case Type.CHAR:
+                rangeClass = JetStandardLibraryNames.CHAR_RANGE;
+                break;
+            case Type.FLOAT:
+                rangeClass = JetStandardLibraryNames.FLOAT_RANGE;
+                break;
+            case Type.DOUBLE:
+                rangeClass = JetStandardLibraryNames.DOUBLE_RANGE;
+                break;
+            default:
+                return null;
+        }
+        if (!rangeClass.is(rangeType)) {
+            return null;
+        }
+        return JvmClassName.byFqNameWithoutInnerClasses(rangeClass.getFqName());
+    }
+
+    // on entering the function, the range and the unboxed element are on stack
+    private void invokePrimitiveRangeContains(@NotNull JvmClassName rangeClass, @NotNull Type elementType) {
+        v.invokevirtual(rangeClass.getInternalName(), "contains", "(" + elementType.getDescriptor() + ")Z");
+    }
+
     private void getInIntRange(StackValue leftValue, JetBinaryExpression rangeExpression, boolean inverted) {
         v.iconst(1);
         // 1
@@ -2310,7 +2890,7 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> {
             JetExpression baseExpression = expression.getBaseExpression();
             JetType type = bindingContext.get(BindingContext.EXPRESSION_TYPE, baseExpression);
             StackValue base = genQualified(receiver, baseExpression);
-            if (type != null && type.isNullable()) {
+            if (type != null && type.isNullable() && !isKnownNotNull(baseExpression)) {
                 base.put(base.type, v);
                 v.dup();
                 Label ok = new Label();
@@ -3032,10 +3612,21 @@ The "returned" value of try expression with no finally is either the last expres
                 getInIntRange(new StackValue.Local(subjectLocal, subjectType), (JetBinaryExpression) rangeExpression, conditionInRange.getOperationReference().getReferencedNameElementType() == JetTokens.NOT_IN);
             }
             else {
-                FunctionDescriptor op = (FunctionDescriptor) bindingContext.get(BindingContext.REFERENCE_TARGET, conditionInRange.getOperationReference());
+                JvmClassName primitiveRange = getPrimitiveRangeClass(rangeExpression, subjectType);
                 genToJVMStack(rangeExpression);
-                new StackValue.Local(subjectLocal, subjectType).put(TYPE_OBJECT, v);
-                invokeFunctionNoParams(op, Type.BOOLEAN_TYPE, v);
+                if (primitiveRange != null && !subjectIsNullable) {
+                    new StackValue.Local(subjectLocal, subjectType).put(subjectType, v);
+                    invokePrimitiveRangeContains(primitiveRange, subjectType);
+                }
+                else {
+                    FunctionDescriptor op = (FunctionDescriptor) bindingContext.get(BindingContext.REFERENCE_TARGET, conditionInRange.getOperationReference());
+                    new StackValue.Local(subjectLocal, subjectType).put(TYPE_OBJECT, v);
+                    invokeFunctionNoParams(op, Type.BOOLEAN_TYPE, v);
+                }
+                if (conditionInRange.getOperationReference().getReferencedNameElementType() == JetTokens.NOT_IN) {
+                    v.iconst(1);
+                    v.xor(Type.INT_TYPE);
+                }
             }
             return StackValue.onStack(Type.BOOLEAN_TYPE);
         }
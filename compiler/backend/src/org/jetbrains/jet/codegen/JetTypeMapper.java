@@ -145,6 +145,7 @@ public class JetTypeMapper {
     }
 
     private final HashMap<KnownTypeKey, Type> knowTypes = Maps.newHashMap();
+    private final HashMap<String, ClassDescriptor> classesByInternalName = Maps.newHashMap();
 
 
     public static final Type TYPE_ITERATOR = Type.getObjectType("jet/Iterator");
@@ -508,6 +509,10 @@ public class JetTypeMapper {
                 JvmClassName name = getClassFQName((ClassDescriptor) descriptor);
                 asmType = Type.getObjectType(name.getInternalName() + (kind == MapTypeMode.TRAIT_IMPL ? JvmAbi.TRAIT_IMPL_SUFFIX : ""));
                 forceReal = isForceReal(name);
+
+                if (kind != MapTypeMode.TRAIT_IMPL) {
+                    rememberClass(name.getInternalName(), (ClassDescriptor) descriptor);
+                }
             }
 
             if (signatureVisitor != null) {
@@ -539,6 +544,25 @@ public class JetTypeMapper {
         throw new UnsupportedOperationException("Unknown type " + jetType);
     }
     
+    private void rememberClass(@NotNull String internalName, @NotNull ClassDescriptor descriptor) {
+        ClassKind classKind = descriptor.getKind();
+        if (classKind == ClassKind.ENUM_ENTRY || classKind == ClassKind.OBJECT) {
+            // these may share the internal name with the containing class
+            return;
+        }
+        if (!classesByInternalName.containsKey(internalName)) {
+            classesByInternalName.put(internalName, descriptor);
+        }
+    }
+
+    /**
+     * @return descriptor of a class which was mapped to the given internal name by this mapper, if any
+     */
+    @Nullable
+    public ClassDescriptor getClassDescriptorByInternalName(@NotNull String internalName) {
+        return classesByInternalName.get(internalName);
+    }
+
     private Type mapKnownAsmType(JetType jetType, Type asmType, @Nullable BothSignatureWriter signatureVisitor, boolean boxPrimitive) {
         if (boxPrimitive) {
             Type boxed = boxType(asmType);
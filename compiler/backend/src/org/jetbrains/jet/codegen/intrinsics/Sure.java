@@ -26,6 +26,8 @@ import org.jetbrains.jet.lang.psi.JetCallExpression;
 import org.jetbrains.jet.lang.psi.JetExpression;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.resolve.calls.ResolvedCall;
+import org.jetbrains.jet.lang.resolve.scopes.receivers.ExpressionReceiver;
+import org.jetbrains.jet.lang.resolve.scopes.receivers.ReceiverDescriptor;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.InstructionAdapter;
@@ -41,7 +43,10 @@ public class Sure implements IntrinsicMethod {
         JetCallExpression call = (JetCallExpression) element;
         ResolvedCall<? extends CallableDescriptor> resolvedCall = codegen.getBindingContext().get(BindingContext.RESOLVED_CALL, call.getCalleeExpression());
         assert resolvedCall != null;
-        if (resolvedCall.getReceiverArgument().getType().isNullable())  {
+        ReceiverDescriptor receiverArgument = resolvedCall.getReceiverArgument();
+        boolean knownNotNull = receiverArgument instanceof ExpressionReceiver
+                               && codegen.isKnownNotNull(((ExpressionReceiver) receiverArgument).getExpression());
+        if (receiverArgument.getType().isNullable() && !knownNotNull)  {
             receiver.put(receiver.type, v);
             v.dup();
             Label ok = new Label();
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.codegen.optimization;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.tree.*;
+
+import java.util.Set;
+
+/**
+ * Folds arithmetic on int and long constants, e.g. <code>ICONST_2 ICONST_3 IMUL</code> becomes <code>BIPUSH 6</code>.
+ */
+public class ConstantFoldingTransformer extends MethodTransformer {
+    @Override
+    public boolean transform(@NotNull MethodNode methodNode) {
+        Set<LabelNode> entryLabels = getEntryLabels(methodNode);
+        InsnList instructions = methodNode.instructions;
+        boolean changed = false;
+
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (fold(insn, entryLabels, instructions) != null) {
+                changed = true;
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    @Nullable
+    private static AbstractInsnNode fold(@NotNull AbstractInsnNode insn, @NotNull Set<LabelNode> entryLabels, @NotNull InsnList instructions) {
+        int opcode = insn.getOpcode();
+        AbstractInsnNode second = previousInStraightLine(insn, entryLabels);
+        if (second == null) return null;
+
+        if (opcode == INEG || opcode == I2L || opcode == LNEG || opcode == L2I) {
+            Number value = getConstant(second);
+            if (value == null) return null;
+            Number result;
+            switch (opcode) {
+                case INEG: result = -value.intValue(); break;
+                case I2L: result = (long) value.intValue(); break;
+                case LNEG: result = -value.longValue(); break;
+                default: result = (int) value.longValue(); break;
+            }
+            return replace(instructions, insn, result, second);
+        }
+
+        AbstractInsnNode first = previousInStraightLine(second, entryLabels);
+        if (first == null) return null;
+        Number left = getConstant(first);
+        Number right = getConstant(second);
+        if (left == null || right == null) return null;
+
+        Number result;
+        if (left instanceof Integer && right instanceof Integer) {
+            result = foldInt(opcode, left.intValue(), right.intValue());
+        }
+        else if (left instanceof Long && right instanceof Long) {
+            result = foldLong(opcode, left.longValue(), right.longValue());
+        }
+        else if (left instanceof Long && right instanceof Integer) {
+            result = foldLongShift(opcode, left.longValue(), right.intValue());
+        }
+        else {
+            return null;
+        }
+        return result != null ? replace(instructions, insn, result, first, second) : null;
+    }
+
+    @Nullable
+    private static Integer foldInt(int opcode, int left, int right) {
+        switch (opcode) {
+            case IADD: return left + right;
+            case ISUB: return left - right;
+            case IMUL: return left * right;
+            case IDIV: return right != 0 ? left / right : null;
+            case IREM: return right != 0 ? left % right : null;
+            case IAND: return left & right;
+            case IOR: return left | right;
+            case IXOR: return left ^ right;
+            case ISHL: return left << right;
+            case ISHR: return left >> right;
+            case IUSHR: return left >>> right;
+            default: return null;
+        }
+    }
+
+    @Nullable
+    private static Long foldLong(int opcode, long left, long right) {
+        switch (opcode) {
+            case LADD: return left + right;
+            case LSUB: return left - right;
+            case LMUL: return left * right;
+            case LDIV: return right != 0 ? left / right : null;
+            case LREM: return right != 0 ? left % right : null;
+            case LAND: return left & right;
+            case LOR: return left | right;
+            case LXOR: return left ^ right;
+            default: return null;
+        }
+    }
+
+    @Nullable
+    private static Long foldLongShift(int opcode, long left, int right) {
+        switch (opcode) {
+            case LSHL: return left << right;
+            case LSHR: return left >> right;
+            case LUSHR: return left >>> right;
+            default: return null;
+        }
+    }
+
+    @NotNull
+    private static AbstractInsnNode replace(@NotNull InsnList instructions, @NotNull AbstractInsnNode operation, @NotNull Number result, AbstractInsnNode... operands) {
+        AbstractInsnNode constant = createConstant(result);
+        instructions.set(operation, constant);
+        for (AbstractInsnNode operand : operands) {
+            instructions.remove(operand);
+        }
+        return constant;
+    }
+
+    @Nullable
+    static Number getConstant(@NotNull AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        if (opcode >= ICONST_M1 && opcode <= ICONST_5) {
+            return opcode - ICONST_0;
+        }
+        if (opcode == LCONST_0 || opcode == LCONST_1) {
+            return (long) (opcode - LCONST_0);
+        }
+        if (opcode == BIPUSH || opcode == SIPUSH) {
+            return ((IntInsnNode) insn).operand;
+        }
+        if (opcode == LDC) {
+            Object cst = ((LdcInsnNode) insn).cst;
+            if (cst instanceof Integer || cst instanceof Long) {
+                return (Number) cst;
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    static AbstractInsnNode createConstant(@NotNull Number value) {
+        if (value instanceof Long) {
+            long l = value.longValue();
+            if (l == 0 || l == 1) {
+                return new InsnNode(LCONST_0 + (int) l);
+            }
+            return new LdcInsnNode(l);
+        }
+        int i = value.intValue();
+        if (i >= -1 && i <= 5) {
+            return new InsnNode(ICONST_0 + i);
+        }
+        if (i >= Byte.MIN_VALUE && i <= Byte.MAX_VALUE) {
+            return new IntInsnNode(BIPUSH, i);
+        }
+        if (i >= Short.MIN_VALUE && i <= Short.MAX_VALUE) {
+            return new IntInsnNode(SIPUSH, i);
+        }
+        return new LdcInsnNode(i);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.codegen.optimization;
+
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.tree.*;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Removes instructions that can't be reached from the method entry,
+ * and exception table entries whose range became empty.
+ */
+public class DeadCodeEliminationTransformer extends MethodTransformer {
+    @Override
+    public boolean transform(@NotNull MethodNode methodNode) {
+        InsnList instructions = methodNode.instructions;
+        if (instructions.size() == 0) return false;
+
+        boolean[] reachable = computeReachable(methodNode);
+
+        boolean changed = false;
+        AbstractInsnNode[] insns = instructions.toArray();
+        for (int i = 0; i < insns.length; i++) {
+            if (!reachable[i] && isMeaningful(insns[i])) {
+                instructions.remove(insns[i]);
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            for (Iterator<?> iterator = methodNode.tryCatchBlocks.iterator(); iterator.hasNext(); ) {
+                TryCatchBlockNode block = (TryCatchBlockNode) iterator.next();
+                if (isEmptyRange(block.start, block.end)) {
+                    iterator.remove();
+                }
+            }
+        }
+        return changed;
+    }
+
+    @NotNull
+    private static boolean[] computeReachable(@NotNull MethodNode methodNode) {
+        InsnList instructions = methodNode.instructions;
+        boolean[] reachable = new boolean[instructions.size()];
+        LinkedList<Integer> queue = new LinkedList<Integer>();
+        queue.add(0);
+
+        boolean changed = true;
+        while (changed) {
+            while (!queue.isEmpty()) {
+                int index = queue.removeFirst();
+                if (index >= reachable.length || reachable[index]) continue;
+                reachable[index] = true;
+
+                AbstractInsnNode insn = instructions.get(index);
+                if (insn instanceof JumpInsnNode) {
+                    queue.add(instructions.indexOf(((JumpInsnNode) insn).label));
+                }
+                else if (insn instanceof TableSwitchInsnNode) {
+                    addTargets(queue, instructions, ((TableSwitchInsnNode) insn).dflt, ((TableSwitchInsnNode) insn).labels);
+                }
+                else if (insn instanceof LookupSwitchInsnNode) {
+                    addTargets(queue, instructions, ((LookupSwitchInsnNode) insn).dflt, ((LookupSwitchInsnNode) insn).labels);
+                }
+
+                if (!isUnconditionalTransfer(insn.getOpcode())) {
+                    queue.add(index + 1);
+                }
+            }
+
+            // a handler is reachable if any instruction of its range is
+            changed = false;
+            for (Object o : methodNode.tryCatchBlocks) {
+                TryCatchBlockNode block = (TryCatchBlockNode) o;
+                int handler = instructions.indexOf(block.handler);
+                if (reachable[handler]) continue;
+                int end = instructions.indexOf(block.end);
+                for (int i = instructions.indexOf(block.start); i < end; i++) {
+                    if (reachable[i]) {
+                        queue.add(handler);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return reachable;
+    }
+
+    private static void addTargets(@NotNull LinkedList<Integer> queue, @NotNull InsnList instructions, @NotNull LabelNode dflt, @NotNull List labels) {
+        queue.add(instructions.indexOf(dflt));
+        for (Object label : labels) {
+            queue.add(instructions.indexOf((LabelNode) label));
+        }
+    }
+
+    private static boolean isUnconditionalTransfer(int opcode) {
+        return opcode == GOTO || opcode == ATHROW || opcode == TABLESWITCH || opcode == LOOKUPSWITCH ||
+               opcode >= IRETURN && opcode <= RETURN;
+    }
+
+    private static boolean isEmptyRange(@NotNull LabelNode start, @NotNull LabelNode end) {
+        for (AbstractInsnNode insn = start; insn != null && insn != end; insn = insn.getNext()) {
+            if (isMeaningful(insn)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
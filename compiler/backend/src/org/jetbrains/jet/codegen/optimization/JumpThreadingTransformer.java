@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.codegen.optimization;
+
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.tree.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Retargets jumps and switches whose target is an unconditional <code>GOTO</code> to the final destination,
+ * replaces a <code>GOTO</code> to a return instruction with the return itself and removes jumps to the next instruction.
+ */
+public class JumpThreadingTransformer extends MethodTransformer {
+    @Override
+    public boolean transform(@NotNull MethodNode methodNode) {
+        InsnList instructions = methodNode.instructions;
+        boolean changed = false;
+
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (insn instanceof JumpInsnNode) {
+                JumpInsnNode jump = (JumpInsnNode) insn;
+                LabelNode target = getFinalTarget(jump.label);
+                if (target != jump.label) {
+                    jump.label = target;
+                    changed = true;
+                }
+
+                if (jump.getOpcode() == GOTO) {
+                    AbstractInsnNode targetInsn = firstInsnAfter(target);
+                    if (targetInsn != null && isReturn(targetInsn.getOpcode())) {
+                        instructions.set(jump, new InsnNode(targetInsn.getOpcode()));
+                        changed = true;
+                    }
+                    else if (isNextInsn(jump, target)) {
+                        instructions.remove(jump);
+                        changed = true;
+                    }
+                }
+            }
+            else if (insn instanceof TableSwitchInsnNode) {
+                TableSwitchInsnNode switchInsn = (TableSwitchInsnNode) insn;
+                LabelNode dflt = getFinalTarget(switchInsn.dflt);
+                changed |= dflt != switchInsn.dflt;
+                switchInsn.dflt = dflt;
+                changed |= retarget(switchInsn.labels);
+            }
+            else if (insn instanceof LookupSwitchInsnNode) {
+                LookupSwitchInsnNode switchInsn = (LookupSwitchInsnNode) insn;
+                LabelNode dflt = getFinalTarget(switchInsn.dflt);
+                changed |= dflt != switchInsn.dflt;
+                switchInsn.dflt = dflt;
+                changed |= retarget(switchInsn.labels);
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean retarget(@NotNull List labels) {
+        boolean changed = false;
+        for (int i = 0; i < labels.size(); i++) {
+            LabelNode label = (LabelNode) labels.get(i);
+            LabelNode target = getFinalTarget(label);
+            if (target != label) {
+                labels.set(i, target);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Follows a chain of unconditional jumps starting at the label. Cycles are left as they are.
+     */
+    @NotNull
+    private static LabelNode getFinalTarget(@NotNull LabelNode label) {
+        Set<LabelNode> visited = new HashSet<LabelNode>();
+        LabelNode current = label;
+        while (visited.add(current)) {
+            AbstractInsnNode insn = firstInsnAfter(current);
+            if (insn == null || insn.getOpcode() != GOTO) {
+                break;
+            }
+            current = ((JumpInsnNode) insn).label;
+        }
+        return current;
+    }
+
+    private static boolean isNextInsn(@NotNull AbstractInsnNode jump, @NotNull LabelNode target) {
+        for (AbstractInsnNode next = jump.getNext(); next != null && !isMeaningful(next); next = next.getNext()) {
+            if (next == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isReturn(int opcode) {
+        return opcode >= IRETURN && opcode <= RETURN;
+    }
+}
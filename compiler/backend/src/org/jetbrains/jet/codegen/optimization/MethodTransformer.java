@@ -0,0 +1,124 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.codegen.optimization;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A single optimization pass over the instructions of a buffered method.
+ */
+public abstract class MethodTransformer implements Opcodes {
+    /**
+     * @return true if the method has been changed
+     */
+    public abstract boolean transform(@NotNull MethodNode methodNode);
+
+    /**
+     * Labels where control can enter from somewhere else than the previous instruction:
+     * jump and switch targets and exception handlers.
+     */
+    @NotNull
+    protected static Set<LabelNode> getEntryLabels(@NotNull MethodNode methodNode) {
+        Set<LabelNode> result = new HashSet<LabelNode>();
+        for (AbstractInsnNode insn = methodNode.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn instanceof JumpInsnNode) {
+                result.add(((JumpInsnNode) insn).label);
+            }
+            else if (insn instanceof TableSwitchInsnNode) {
+                result.add(((TableSwitchInsnNode) insn).dflt);
+                addLabels(result, ((TableSwitchInsnNode) insn).labels);
+            }
+            else if (insn instanceof LookupSwitchInsnNode) {
+                result.add(((LookupSwitchInsnNode) insn).dflt);
+                addLabels(result, ((LookupSwitchInsnNode) insn).labels);
+            }
+        }
+        for (Object block : methodNode.tryCatchBlocks) {
+            result.add(((TryCatchBlockNode) block).handler);
+        }
+        return result;
+    }
+
+    private static void addLabels(@NotNull Set<LabelNode> result, @NotNull List labels) {
+        for (Object label : labels) {
+            result.add((LabelNode) label);
+        }
+    }
+
+    /**
+     * Returns the instruction executed right after the given one in straight-line code,
+     * or null if control can also enter between them.
+     */
+    @Nullable
+    protected static AbstractInsnNode nextInStraightLine(@NotNull AbstractInsnNode insn, @NotNull Set<LabelNode> entryLabels) {
+        for (AbstractInsnNode next = insn.getNext(); next != null; next = next.getNext()) {
+            if (entryLabels.contains(next)) {
+                return null;
+            }
+            if (isMeaningful(next)) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the instruction executed right before the given one in straight-line code,
+     * or null if control can also enter between them.
+     */
+    @Nullable
+    protected static AbstractInsnNode previousInStraightLine(@NotNull AbstractInsnNode insn, @NotNull Set<LabelNode> entryLabels) {
+        for (AbstractInsnNode previous = insn.getPrevious(); previous != null; previous = previous.getPrevious()) {
+            if (isMeaningful(previous)) {
+                return previous;
+            }
+            if (entryLabels.contains(previous)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first instruction executed after the label, skipping other labels and debug info.
+     */
+    @Nullable
+    protected static AbstractInsnNode firstInsnAfter(@NotNull LabelNode label) {
+        for (AbstractInsnNode next = label.getNext(); next != null; next = next.getNext()) {
+            if (isMeaningful(next)) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Labels, line numbers and frames are not executed.
+     */
+    protected static boolean isMeaningful(@NotNull AbstractInsnNode insn) {
+        int type = insn.getType();
+        return type != AbstractInsnNode.LABEL && type != AbstractInsnNode.LINE && type != AbstractInsnNode.FRAME;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.codegen.optimization;
+
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.codegen.ClassBuilder;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Class builder that runs peephole and dead code optimizations over every generated method.
+ */
+public class OptimizationClassBuilder extends ClassBuilder.Concrete {
+    public OptimizationClassBuilder(ClassVisitor v) {
+        super(v);
+    }
+
+    @Override
+    public MethodVisitor newMethod(@Nullable PsiElement origin,
+                                   int access,
+                                   String name,
+                                   String desc,
+                                   @Nullable String signature,
+                                   @Nullable String[] exceptions) {
+        MethodVisitor visitor = super.newMethod(origin, access, name, desc, signature, exceptions);
+        return new OptimizationMethodVisitor(visitor, access, name, desc, signature, exceptions);
+    }
+}
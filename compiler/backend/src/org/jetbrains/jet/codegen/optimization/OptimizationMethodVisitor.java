@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.codegen.optimization;
+
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.MethodAdapter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Buffers a method into a tree, runs the optimization passes over it and replays the result to the delegate.
+ * The code is flushed from visitMaxs() so that errors of frame computation are reported where they used to be.
+ */
+public class OptimizationMethodVisitor extends MethodNode {
+    private static final int MAX_ITERATIONS = 5;
+
+    private static final MethodTransformer[] TRANSFORMERS = new MethodTransformer[] {
+            new ConstantFoldingTransformer(),
+            new RedundantBoxingTransformer(),
+            new RedundantCheckCastTransformer(),
+            new JumpThreadingTransformer(),
+            new DeadCodeEliminationTransformer()
+    };
+
+    private final MethodVisitor delegate;
+    private boolean flushed;
+    private boolean ended;
+
+    public OptimizationMethodVisitor(@NotNull MethodVisitor delegate, int access, String name, String desc, String signature, String[] exceptions) {
+        super(access, name, desc, signature, exceptions);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void visitMaxs(int maxStack, int maxLocals) {
+        super.visitMaxs(maxStack, maxLocals);
+        optimize(this);
+        flush();
+    }
+
+    @Override
+    public void visitEnd() {
+        if (ended) return;
+        ended = true;
+
+        if (!flushed) {
+            flush();
+        }
+        delegate.visitEnd();
+    }
+
+    private void flush() {
+        flushed = true;
+        accept(new MethodAdapter(delegate) {
+            @Override
+            public void visitEnd() {
+                // delegate is ended by OptimizationMethodVisitor.visitEnd()
+            }
+        });
+    }
+
+    public static void optimize(@NotNull MethodNode methodNode) {
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            boolean changed = false;
+            for (MethodTransformer transformer : TRANSFORMERS) {
+                changed |= transformer.transform(methodNode);
+            }
+            if (!changed) break;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.codegen.optimization;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes a box immediately followed by an unbox, e.g. <code>Integer.valueOf(I)</code> followed by an optional
+ * <code>CHECKCAST java/lang/Number</code> and <code>Number.intValue()</code>. An unbox to another numeric type
+ * is replaced with the corresponding primitive conversion.
+ */
+public class RedundantBoxingTransformer extends MethodTransformer {
+    private static final String NUMBER = "java/lang/Number";
+    private static final String OBJECT = "java/lang/Object";
+
+    @Override
+    public boolean transform(@NotNull MethodNode methodNode) {
+        Set<LabelNode> entryLabels = getEntryLabels(methodNode);
+        InsnList instructions = methodNode.instructions;
+        boolean changed = false;
+
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            Type primitiveType = getBoxedPrimitive(insn);
+            if (primitiveType != null) {
+                String wrapper = ((MethodInsnNode) insn).owner;
+                List<AbstractInsnNode> casts = new ArrayList<AbstractInsnNode>();
+                AbstractInsnNode current = nextInStraightLine(insn, entryLabels);
+                while (current != null && current.getOpcode() == CHECKCAST && isSupertypeOfWrapper(((TypeInsnNode) current).desc, wrapper)) {
+                    casts.add(current);
+                    current = nextInStraightLine(current, entryLabels);
+                }
+
+                Type unboxedType = current != null ? getUnboxedPrimitive(current, wrapper) : null;
+                if (unboxedType != null && canConvert(primitiveType, unboxedType)) {
+                    next = current.getNext();
+                    for (AbstractInsnNode conversion : conversion(primitiveType, unboxedType)) {
+                        instructions.insertBefore(current, conversion);
+                    }
+                    instructions.remove(insn);
+                    for (AbstractInsnNode cast : casts) {
+                        instructions.remove(cast);
+                    }
+                    instructions.remove(current);
+                    changed = true;
+                }
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the primitive type boxed by <code>W.valueOf(p)</code>
+     */
+    @Nullable
+    private static Type getBoxedPrimitive(@NotNull AbstractInsnNode insn) {
+        if (insn.getOpcode() != INVOKESTATIC) return null;
+        MethodInsnNode methodInsn = (MethodInsnNode) insn;
+        if (!methodInsn.name.equals("valueOf") || !methodInsn.owner.startsWith("java/lang/")) return null;
+
+        Type[] argumentTypes = Type.getArgumentTypes(methodInsn.desc);
+        if (argumentTypes.length != 1 || !isPrimitive(argumentTypes[0])) return null;
+        if (!Type.getReturnType(methodInsn.desc).getInternalName().equals(methodInsn.owner)) return null;
+        return argumentTypes[0];
+    }
+
+    /**
+     * Returns the primitive type unboxed by <code>Number.xValue()</code> or <code>W.xValue()</code>
+     */
+    @Nullable
+    private static Type getUnboxedPrimitive(@NotNull AbstractInsnNode insn, @NotNull String wrapper) {
+        if (insn.getOpcode() != INVOKEVIRTUAL) return null;
+        MethodInsnNode methodInsn = (MethodInsnNode) insn;
+        if (!methodInsn.name.endsWith("Value") || Type.getArgumentTypes(methodInsn.desc).length != 0) return null;
+        if (!methodInsn.owner.equals(wrapper) && !(methodInsn.owner.equals(NUMBER) && isNumberWrapper(wrapper))) return null;
+
+        Type returnType = Type.getReturnType(methodInsn.desc);
+        return isPrimitive(returnType) ? returnType : null;
+    }
+
+    private static boolean isSupertypeOfWrapper(@NotNull String castType, @NotNull String wrapper) {
+        return castType.equals(wrapper) || castType.equals(OBJECT) || castType.equals(NUMBER) && isNumberWrapper(wrapper);
+    }
+
+    private static boolean isNumberWrapper(@NotNull String wrapper) {
+        return !wrapper.equals("java/lang/Boolean") && !wrapper.equals("java/lang/Character");
+    }
+
+    private static boolean isPrimitive(@NotNull Type type) {
+        return type.getSort() >= Type.BOOLEAN && type.getSort() <= Type.DOUBLE;
+    }
+
+    private static boolean canConvert(@NotNull Type from, @NotNull Type to) {
+        if (from.equals(to)) return true;
+        return from != Type.BOOLEAN_TYPE && from != Type.CHAR_TYPE && to != Type.BOOLEAN_TYPE && to != Type.CHAR_TYPE;
+    }
+
+    /**
+     * Same conversions as <code>InstructionAdapter.cast()</code>
+     */
+    @NotNull
+    private static List<AbstractInsnNode> conversion(@NotNull Type from, @NotNull Type to) {
+        List<AbstractInsnNode> result = new ArrayList<AbstractInsnNode>();
+        if (from.equals(to)) return result;
+
+        if (from == Type.DOUBLE_TYPE) {
+            if (to == Type.FLOAT_TYPE) {
+                result.add(new InsnNode(D2F));
+            }
+            else if (to == Type.LONG_TYPE) {
+                result.add(new InsnNode(D2L));
+            }
+            else {
+                result.add(new InsnNode(D2I));
+                addIntNarrowing(result, to);
+            }
+        }
+        else if (from == Type.FLOAT_TYPE) {
+            if (to == Type.DOUBLE_TYPE) {
+                result.add(new InsnNode(F2D));
+            }
+            else if (to == Type.LONG_TYPE) {
+                result.add(new InsnNode(F2L));
+            }
+            else {
+                result.add(new InsnNode(F2I));
+                addIntNarrowing(result, to);
+            }
+        }
+        else if (from == Type.LONG_TYPE) {
+            if (to == Type.DOUBLE_TYPE) {
+                result.add(new InsnNode(L2D));
+            }
+            else if (to == Type.FLOAT_TYPE) {
+                result.add(new InsnNode(L2F));
+            }
+            else {
+                result.add(new InsnNode(L2I));
+                addIntNarrowing(result, to);
+            }
+        }
+        else {
+            if (to == Type.DOUBLE_TYPE) {
+                result.add(new InsnNode(I2D));
+            }
+            else if (to == Type.FLOAT_TYPE) {
+                result.add(new InsnNode(I2F));
+            }
+            else if (to == Type.LONG_TYPE) {
+                result.add(new InsnNode(I2L));
+            }
+            else if (!isWiderIntType(to, from)) {
+                addIntNarrowing(result, to);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isWiderIntType(@NotNull Type wider, @NotNull Type narrower) {
+        if (wider == Type.INT_TYPE) return true;
+        if (wider == Type.SHORT_TYPE) return narrower == Type.BYTE_TYPE;
+        return false;
+    }
+
+    private static void addIntNarrowing(@NotNull List<AbstractInsnNode> result, @NotNull Type to) {
+        if (to == Type.BYTE_TYPE) {
+            result.add(new InsnNode(I2B));
+        }
+        else if (to == Type.SHORT_TYPE) {
+            result.add(new InsnNode(I2S));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.codegen.optimization;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import java.util.Set;
+
+/**
+ * Removes <code>CHECKCAST</code>s to <code>java/lang/Object</code> and casts of a value whose static type
+ * is already the target type: the result of the same cast, of a method call or a field read of that type,
+ * or a string constant.
+ */
+public class RedundantCheckCastTransformer extends MethodTransformer {
+    @Override
+    public boolean transform(@NotNull MethodNode methodNode) {
+        Set<LabelNode> entryLabels = getEntryLabels(methodNode);
+        InsnList instructions = methodNode.instructions;
+        boolean changed = false;
+
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (insn.getOpcode() == CHECKCAST) {
+                Type castType = getCastType((TypeInsnNode) insn);
+                AbstractInsnNode previous = previousInStraightLine(insn, entryLabels);
+                if (castType.getInternalName().equals("java/lang/Object") ||
+                    previous != null && castType.equals(getProducedType(previous))) {
+                    instructions.remove(insn);
+                    changed = true;
+                }
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    @NotNull
+    private static Type getCastType(@NotNull TypeInsnNode insn) {
+        return insn.desc.startsWith("[") ? Type.getType(insn.desc) : Type.getObjectType(insn.desc);
+    }
+
+    /**
+     * Returns the exact static type of the reference pushed by the instruction if it is known
+     */
+    @Nullable
+    private static Type getProducedType(@NotNull AbstractInsnNode insn) {
+        switch (insn.getOpcode()) {
+            case CHECKCAST:
+                return getCastType((TypeInsnNode) insn);
+            case INVOKEVIRTUAL:
+            case INVOKESPECIAL:
+            case INVOKESTATIC:
+            case INVOKEINTERFACE:
+                return Type.getReturnType(((MethodInsnNode) insn).desc);
+            case GETFIELD:
+            case GETSTATIC:
+                return Type.getType(((FieldInsnNode) insn).desc);
+            case LDC:
+                return ((LdcInsnNode) insn).cst instanceof String ? Type.getObjectType("java/lang/String") : null;
+            default:
+                return null;
+        }
+    }
+}
@@ -43,6 +43,7 @@ import org.jetbrains.k2js.facade.MainCallParameters;
 import org.jetbrains.k2js.utils.JetFileUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
@@ -88,19 +89,55 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments, K2JSCompile
             reportCompiledSourcesList(messageCollector, environmentForJS);
         }
 
-        Config config = getConfig(arguments, project);
-        if (analyzeAndReportErrors(messageCollector, environmentForJS.getSourceFiles(), config)) {
-            return ExitCode.COMPILATION_ERROR;
-        }
-
         String outputFile = arguments.outputFile;
         if (outputFile == null) {
             messageCollector.report(CompilerMessageSeverity.ERROR, "Specify output file via -output", CompilerMessageLocation.NO_LOCATION);
             return ExitCode.INTERNAL_ERROR;
         }
 
+        // library sources are analyzed once and shared by error reporting and translation
+        Config config = PreanalyzedLibraryConfig.wrap(getConfig(arguments, project));
+        config.setDeadCodeEliminationEnabled(arguments.eliminateDeadCode);
+        config.setMinificationEnabled(arguments.minify);
+        config.setSourceMapEnabled(arguments.sourcemap);
+        if (arguments.outputPrefix != null) {
+            try {
+                config.setOutputPrefix(FileUtil.loadFile(new File(arguments.outputPrefix)));
+            }
+            catch (IOException e) {
+                messageCollector.report(CompilerMessageSeverity.ERROR, "Could not read the output prefix: " + e.getMessage(),
+                                        CompilerMessageLocation.NO_LOCATION);
+                return ExitCode.INTERNAL_ERROR;
+            }
+        }
+
+        K2JSOutputCache outputCache = null;
+        if (arguments.incremental) {
+            outputCache = new K2JSOutputCache(outputFile, environmentForJS.getSourceFiles(), config, arguments);
+            if (outputCache.isUpToDate()) {
+                messageCollector.report(CompilerMessageSeverity.LOGGING, "Output is up to date: " + outputFile,
+                                        CompilerMessageLocation.NO_LOCATION);
+                return ExitCode.OK;
+            }
+            outputCache.invalidate();
+        }
+
+        if (analyzeAndReportErrors(messageCollector, environmentForJS.getSourceFiles(), config)) {
+            return ExitCode.COMPILATION_ERROR;
+        }
+
         MainCallParameters mainCallParameters = arguments.createMainCallParameters();
-        return translateAndGenerateOutputFile(mainCallParameters, messageCollector, environmentForJS, config, outputFile);
+        ExitCode exitCode = translateAndGenerateOutputFile(mainCallParameters, messageCollector, environmentForJS, config, outputFile);
+        if (exitCode == ExitCode.OK && outputCache != null) {
+            try {
+                outputCache.update();
+            }
+            catch (IOException e) {
+                messageCollector.report(CompilerMessageSeverity.WARNING, "Could not save the output digest: " + e.getMessage(),
+                                        CompilerMessageLocation.NO_LOCATION);
+            }
+        }
+        return exitCode;
     }
 
     private static void reportCompiledSourcesList(@NotNull PrintingMessageCollector messageCollector,
@@ -127,7 +164,12 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments, K2JSCompile
             @NotNull PrintingMessageCollector messageCollector,
             @NotNull JetCoreEnvironment environmentForJS, @NotNull Config config, @NotNull String outputFile) {
         try {
-            K2JSTranslator.translateWithMainCallParametersAndSaveToFile(mainCall, environmentForJS.getSourceFiles(), outputFile, config);
+            int eliminatedCodeSize =
+                    K2JSTranslator.translateWithMainCallParametersAndSaveToFile(mainCall, environmentForJS.getSourceFiles(), outputFile, config);
+            if (config.isDeadCodeEliminationEnabled()) {
+                messageCollector.report(CompilerMessageSeverity.LOGGING, "Dead code elimination removed " + eliminatedCodeSize + " bytes",
+                                        CompilerMessageLocation.NO_LOCATION);
+            }
         }
         catch (Exception e) {
             messageCollector.report(CompilerMessageSeverity.ERROR, "Exception while translating:\n" + e.getMessage(),
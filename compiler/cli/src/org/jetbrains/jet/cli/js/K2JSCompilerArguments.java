@@ -59,6 +59,21 @@ public class K2JSCompilerArguments extends CompilerArguments {
     @Argument(value = "main", description = "Whether a main function should be called; either 'call' or 'noCall', default 'call' (main function will be auto detected)")
     public String main;
 
+    @Argument(value = "eliminateDeadCode", description = "Remove declarations which are not reachable from the main function, including those exported by the module")
+    public boolean eliminateDeadCode;
+
+    @Argument(value = "minify", description = "Shorten local names and omit whitespace in the output, the name map is written next to it")
+    public boolean minify;
+
+    @Argument(value = "sourcemap", description = "Write a source map mapping the output to Kotlin sources next to it")
+    public boolean sourcemap;
+
+    @Argument(value = "outputPrefix", description = "Path to a file whose content is written at the beginning of the output file")
+    public String outputPrefix;
+
+    @Argument(value = "incremental", description = "Skip compilation when the sources, libraries and options are unchanged since the previous run")
+    public boolean incremental;
+
     @Argument(value = "help", alias = "h", description = "Show help")
     public boolean help;
 
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.cli.js;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.cli.common.CompilerVersion;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.k2js.config.Config;
+import org.jetbrains.k2js.config.MetaInfServices;
+import org.jetbrains.k2js.facade.K2JSTranslator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Remembers a digest of everything the JS output depends on: the compiled sources, the library sources,
+ * the translation options, the translator itself and the Kotlin JS runtime the output is written against. The digest is stored next to the output file, so that a subsequent
+ * compilation with identical inputs can skip analysis and translation altogether.
+ * <p/>
+ * The output is produced by a whole-program translation, hence the output is reused only as a whole: a change to any
+ * input recompiles everything. The output digest covers the name map and the source map written next to the output
+ * file, so a missing or modified sidecar file also triggers a recompilation. The output prefix is part of the output,
+ * so the digest is recorded after the whole file is written.
+ */
+public final class K2JSOutputCache {
+    public static final String DIGEST_FILE_SUFFIX = ".digest";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final List<String> RUNTIME_FILES = Arrays.asList("kotlin-lib.js", "kotlin-lib-ecma3.js", "kotlin-lib-ecma5.js");
+
+    @NotNull
+    private final List<File> outputFiles;
+    @NotNull
+    private final File digestFile;
+    @NotNull
+    private final String inputsDigest;
+
+    public K2JSOutputCache(@NotNull String outputFile, @NotNull List<JetFile> sources, @NotNull Config config,
+            @NotNull K2JSCompilerArguments arguments) {
+        this.outputFiles = getOutputFiles(outputFile, config);
+        this.digestFile = new File(outputFile + DIGEST_FILE_SUFFIX);
+        this.inputsDigest = computeInputsDigest(sources, config, arguments);
+    }
+
+    public boolean isUpToDate() {
+        if (!digestFile.isFile()) {
+            return false;
+        }
+        String outputDigest = computeOutputDigest();
+        if (outputDigest == null) {
+            return false;
+        }
+        try {
+            return (inputsDigest + "\n" + outputDigest).equals(FileUtil.loadFile(digestFile, UTF_8.name()).trim());
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    public void update() throws IOException {
+        String outputDigest = computeOutputDigest();
+        if (outputDigest == null) {
+            invalidate();
+            return;
+        }
+        FileUtil.writeToFile(digestFile, (inputsDigest + "\n" + outputDigest).getBytes(UTF_8));
+    }
+
+    public void invalidate() {
+        FileUtil.delete(digestFile);
+    }
+
+    @NotNull
+    private static List<File> getOutputFiles(@NotNull String outputFile, @NotNull Config config) {
+        List<File> result = new ArrayList<File>();
+        result.add(new File(outputFile));
+        if (config.isMinificationEnabled()) {
+            result.add(new File(outputFile + K2JSTranslator.NAME_MAP_SUFFIX));
+        }
+        if (config.isSourceMapEnabled()) {
+            result.add(new File(outputFile + K2JSTranslator.SOURCE_MAP_SUFFIX));
+        }
+        return result;
+    }
+
+    @NotNull
+    private static String computeInputsDigest(@NotNull List<JetFile> sources, @NotNull Config config,
+            @NotNull K2JSCompilerArguments arguments) {
+        MessageDigest digest = createDigest();
+        updateWithTranslatorVersion(digest);
+        updateWithRuntime(digest);
+        update(digest, config.getTarget().name());
+        update(digest, config.getModuleId());
+        update(digest, String.valueOf(arguments.main));
+        update(digest, String.valueOf(config.isDeadCodeEliminationEnabled()));
+        update(digest, String.valueOf(config.isMinificationEnabled()));
+        update(digest, String.valueOf(config.isSourceMapEnabled()));
+        update(digest, String.valueOf(config.getOutputPrefix()));
+        updateWithFiles(digest, sources);
+        updateWithFiles(digest, config.getLibFiles());
+        return toHexString(digest.digest());
+    }
+
+    @Nullable
+    private String computeOutputDigest() {
+        try {
+            MessageDigest digest = createDigest();
+            for (File file : outputFiles) {
+                if (!file.isFile()) {
+                    return null;
+                }
+                update(digest, file.getName());
+                byte[] bytes = FileUtil.loadFileBytes(file);
+                update(digest, String.valueOf(bytes.length));
+                digest.update(bytes);
+            }
+            return toHexString(digest.digest());
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Snapshot builds share a version, so the location and timestamp of the translator classes are taken into account too.
+     */
+    private static void updateWithTranslatorVersion(@NotNull MessageDigest digest) {
+        update(digest, CompilerVersion.VERSION);
+        CodeSource codeSource = K2JSTranslator.class.getProtectionDomain().getCodeSource();
+        URL location = codeSource != null ? codeSource.getLocation() : null;
+        update(digest, String.valueOf(location));
+        if (location != null && "file".equals(location.getProtocol())) {
+            try {
+                File file = new File(location.toURI());
+                update(digest, String.valueOf(file.length()));
+                update(digest, String.valueOf(file.lastModified()));
+            }
+            catch (URISyntaxException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * The generated code calls into the runtime, e.g. the array factories, so a different runtime on the classpath
+     * invalidates the output.
+     */
+    private static void updateWithRuntime(@NotNull MessageDigest digest) {
+        for (String runtimeFile : RUNTIME_FILES) {
+            update(digest, runtimeFile);
+            InputStream stream = MetaInfServices.loadClasspathResource(runtimeFile);
+            if (stream == null) {
+                update(digest, "");
+                continue;
+            }
+            try {
+                update(digest, FileUtil.loadTextAndClose(stream));
+            }
+            catch (IOException e) {
+                throw new IllegalStateException("Could not read " + runtimeFile, e);
+            }
+        }
+    }
+
+    private static void updateWithFiles(@NotNull MessageDigest digest, @NotNull List<JetFile> files) {
+        update(digest, String.valueOf(files.size()));
+        for (JetFile file : files) {
+            update(digest, file.getName());
+            update(digest, file.getText());
+        }
+    }
+
+    private static void update(@NotNull MessageDigest digest, @NotNull String value) {
+        byte[] bytes = value.getBytes(UTF_8);
+        // the length prefix keeps adjacent values from running into each other
+        digest.update(String.valueOf(bytes.length).getBytes(UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    @NotNull
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NotNull
+    private static String toHexString(@NotNull byte[] bytes) {
+        char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            result[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            result[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(result);
+    }
+}
@@ -75,6 +75,9 @@ public class K2JVMCompilerArguments extends CompilerArguments {
     @Argument(value = "script", description = "evaluate script")
     public boolean script;
 
+    @Argument(value = "optimize", description = "optimize generated bytecode")
+    public boolean optimize;
+
     @Argument(value = "tags", description = "Demarcate each compilation message (error, warning, etc) with an open and close tag")
     public boolean tags;
 
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.cli.jvm.compiler;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.resolve.java.ClasspathIndex;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * {@link ClasspathIndex} over the roots added to {@link JetCoreEnvironment}.
+ *
+ * Jars are indexed by {@link JarClassIndex}: a package maps to the jars that contain it, and a class is then
+ * looked up in the tables of these jars only. Directories are not indexed, they are checked with the file system.
+ */
+public class CliClasspathIndex extends ClasspathIndex {
+    private final Map<String, List<JarClassIndex>> packageToJars = new HashMap<String, List<JarClassIndex>>();
+    private final List<File> directories = new ArrayList<File>();
+    private boolean hasUnindexedJars = false;
+
+    public void addRoot(@NotNull File root) {
+        if (root.isDirectory()) {
+            directories.add(root);
+            return;
+        }
+        JarClassIndex index = root.isFile() ? JarClassIndex.load(root) : null;
+        if (index == null) {
+            if (root.exists()) {
+                hasUnindexedJars = true;
+            }
+            return;
+        }
+        for (String packageName : index.getPackages()) {
+            List<JarClassIndex> jars = packageToJars.get(packageName);
+            if (jars == null) {
+                jars = new ArrayList<JarClassIndex>(1);
+                packageToJars.put(packageName, jars);
+            }
+            jars.add(index);
+        }
+    }
+
+    @Override
+    public boolean mayContainPackage(@NotNull String qualifiedName) {
+        if (hasUnindexedJars || qualifiedName.isEmpty() || packageToJars.containsKey(qualifiedName)) {
+            return true;
+        }
+        String path = qualifiedName.replace('.', '/');
+        for (File directory : directories) {
+            if (new File(directory, path).isDirectory()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean mayContainClass(@NotNull String qualifiedName) {
+        if (hasUnindexedJars) {
+            return true;
+        }
+        // for a nested class the package is not known: try every split into a package and a top level class
+        int dot = qualifiedName.lastIndexOf('.');
+        while (true) {
+            String packageName = dot > 0 ? qualifiedName.substring(0, dot) : "";
+            String relativeName = qualifiedName.substring(dot + 1);
+            int nestedDot = relativeName.indexOf('.');
+            String topLevelName = nestedDot >= 0 ? relativeName.substring(0, nestedDot) : relativeName;
+            if (!topLevelName.isEmpty() && mayContainTopLevelClass(packageName, topLevelName)) {
+                return true;
+            }
+            if (dot <= 0) {
+                return false;
+            }
+            dot = qualifiedName.lastIndexOf('.', dot - 1);
+        }
+    }
+
+    private boolean mayContainTopLevelClass(@NotNull String packageName, @NotNull String className) {
+        String packagePath = packageName.replace('.', '/');
+        String entryName = packagePath.isEmpty() ? className : packagePath + "/" + className;
+
+        List<JarClassIndex> jars = packageToJars.get(packageName);
+        if (jars != null) {
+            for (JarClassIndex jar : jars) {
+                if (jar.hasSources() || jar.findClassEntry(entryName) >= 0) {
+                    return true;
+                }
+            }
+        }
+
+        for (File directory : directories) {
+            if (new File(directory, entryName + ".class").isFile() || new File(directory, entryName + ".java").isFile()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
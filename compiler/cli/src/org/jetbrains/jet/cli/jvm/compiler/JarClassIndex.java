@@ -0,0 +1,412 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.cli.jvm.compiler;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Index of one jar: the packages it contains and a hash table from class entry name to the offset of its local header.
+ *
+ * The index is persisted next to the jar as <tt>&lt;jar&gt;.kindex</tt>, checked against the length and
+ * the timestamp of the jar, and memory-mapped, so that a lookup is one probe in the mapped table.
+ * A checksum of the index protects against a truncated or otherwise damaged file, which is rebuilt.
+ * When the index can not be written (e.g. the jar is in a read-only directory) it is kept in memory.
+ */
+class JarClassIndex {
+    public static final String INDEX_SUFFIX = ".kindex";
+
+    private static final int MAGIC = 0x4B494458; // "KIDX"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+    private static final int CHECKSUM_POSITION = HEADER_SIZE - 4;
+    private static final int FLAG_HAS_SOURCES = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int CENTRAL_ENTRY_SIGNATURE = 0x02014b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int MAX_ZIP_COMMENT = 0xFFFF;
+
+    private final ByteBuffer buffer;
+    private final boolean hasSources;
+    private final Set<String> packages;
+    private final int tableStart;
+    private final int tableSize;
+
+    private JarClassIndex(@NotNull ByteBuffer buffer) {
+        this.buffer = buffer;
+        buffer.position(HEADER_SIZE);
+        hasSources = (buffer.getInt() & FLAG_HAS_SOURCES) != 0;
+        int packageCount = buffer.getInt();
+        packages = new HashSet<String>(packageCount * 2);
+        for (int i = 0; i < packageCount; i++) {
+            packages.add(readString(buffer, buffer.position()));
+            buffer.position(buffer.position() + 2 + (buffer.getShort(buffer.position()) & 0xFFFF));
+        }
+        tableSize = buffer.getInt();
+        tableStart = buffer.position();
+        checkTable();
+    }
+
+    /**
+     * Makes sure that a lookup can neither leave the buffer nor loop forever.
+     */
+    private void checkTable() {
+        if (tableSize <= 0 || Integer.bitCount(tableSize) != 1 || tableSize > (buffer.limit() - tableStart) / 4) {
+            throw new IllegalStateException("Malformed class index table");
+        }
+        int recordsStart = tableStart + tableSize * 4;
+        boolean hasEmptySlot = false;
+        for (int slot = 0; slot < tableSize; slot++) {
+            int record = buffer.getInt(tableStart + slot * 4);
+            if (record == 0) {
+                hasEmptySlot = true;
+            }
+            else if (record < recordsStart || record > buffer.limit() - 6 ||
+                     record + 6 + (buffer.getShort(record + 4) & 0xFFFF) > buffer.limit()) {
+                throw new IllegalStateException("Malformed class index record at " + record);
+            }
+        }
+        if (!hasEmptySlot) {
+            throw new IllegalStateException("Class index table is full");
+        }
+    }
+
+    /**
+     * Qualified names of all packages in the jar, including the ones that only contain other packages.
+     * The default package is included only if it has classes.
+     */
+    @NotNull
+    public Set<String> getPackages() {
+        return packages;
+    }
+
+    /**
+     * If the jar has Java sources, classes are not only found by their class file names.
+     */
+    public boolean hasSources() {
+        return hasSources;
+    }
+
+    /**
+     * @param entryName internal class name, such as <tt>java/util/Map$Entry</tt>
+     * @return offset of the local header of the class entry, or -1 if there is no such class in the jar
+     */
+    public long findClassEntry(@NotNull String entryName) {
+        byte[] name = entryName.getBytes(UTF_8);
+        int mask = tableSize - 1;
+        for (int slot = hash(entryName) & mask; ; slot = (slot + 1) & mask) {
+            int record = buffer.getInt(tableStart + slot * 4);
+            if (record == 0) {
+                return -1;
+            }
+            if (nameEquals(record + 4, name)) {
+                return buffer.getInt(record) & 0xFFFFFFFFL;
+            }
+        }
+    }
+
+    private boolean nameEquals(int position, byte[] name) {
+        int length = buffer.getShort(position) & 0xFFFF;
+        if (length != name.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(position + 2 + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(String entryName) {
+        int h = entryName.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static String readString(ByteBuffer buffer, int position) {
+        int length = buffer.getShort(position) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + 2 + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * @return <code>null</code> if the jar can not be read as a zip file, e.g. it has a zip64 directory
+     */
+    @Nullable
+    public static JarClassIndex load(@NotNull File jar) {
+        File indexFile = new File(jar.getPath() + INDEX_SUFFIX);
+        if (indexFile.isFile()) {
+            try {
+                ByteBuffer mapped = map(indexFile);
+                if (isUpToDate(mapped, jar)) {
+                    return new JarClassIndex(mapped);
+                }
+            }
+            catch (IOException e) {
+                // rebuild
+            }
+            catch (RuntimeException e) {
+                // damaged index, rebuild
+            }
+        }
+
+        byte[] index;
+        try {
+            index = build(jar);
+        }
+        catch (IOException e) {
+            return null;
+        }
+        if (index == null) {
+            return null;
+        }
+        save(indexFile, index);
+        return new JarClassIndex(ByteBuffer.wrap(index));
+    }
+
+    private static void save(@NotNull File indexFile, @NotNull byte[] index) {
+        File temp = null;
+        try {
+            // a unique name lets parallel builds index the same jar, the same directory keeps the rename atomic
+            temp = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getAbsoluteFile().getParentFile());
+            FileOutputStream out = new FileOutputStream(temp);
+            try {
+                out.write(index);
+            }
+            finally {
+                out.close();
+            }
+            if (!temp.renameTo(indexFile) && indexFile.delete()) {
+                //noinspection ResultOfMethodCallIgnored
+                temp.renameTo(indexFile);
+            }
+        }
+        catch (IOException e) {
+            // not writable, keep it in memory
+        }
+        finally {
+            if (temp != null && temp.exists()) {
+                //noinspection ResultOfMethodCallIgnored
+                temp.delete();
+            }
+        }
+    }
+
+    private static boolean isUpToDate(ByteBuffer index, File jar) {
+        return index.limit() >= HEADER_SIZE + 4 + 4 + 4 &&
+               index.getInt(0) == MAGIC &&
+               index.getInt(4) == VERSION &&
+               index.getLong(8) == jar.length() &&
+               index.getLong(16) == jar.lastModified() &&
+               index.getInt(CHECKSUM_POSITION) == checksum(index);
+    }
+
+    private static int checksum(@NotNull ByteBuffer index) {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[8192];
+        ByteBuffer body = index.duplicate();
+        body.position(HEADER_SIZE);
+        while (body.hasRemaining()) {
+            int length = Math.min(chunk.length, body.remaining());
+            body.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+        }
+        return (int) crc.getValue();
+    }
+
+    @NotNull
+    private static ByteBuffer map(@NotNull File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Reads only the end of central directory record and the central directory of the jar, not the whole file.
+     */
+    @Nullable
+    private static byte[] build(@NotNull File jar) throws IOException {
+        ByteBuffer directory;
+        int entryCount;
+        RandomAccessFile randomAccessFile = new RandomAccessFile(jar, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            if (size < EOCD_SIZE) {
+                return null;
+            }
+
+            long tailStart = Math.max(0, size - EOCD_SIZE - MAX_ZIP_COMMENT);
+            ByteBuffer tail = read(channel, tailStart, (int) (size - tailStart));
+            int eocd = -1;
+            for (int position = tail.limit() - EOCD_SIZE; position >= 0; position--) {
+                if (tail.getInt(position) == EOCD_SIGNATURE) {
+                    eocd = position;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                return null;
+            }
+            entryCount = tail.getShort(eocd + 10) & 0xFFFF;
+            long directorySize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+            long directoryOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+            if (entryCount == 0xFFFF || directoryOffset == 0xFFFFFFFFL || directoryOffset + directorySize > tailStart + eocd) {
+                return null;
+            }
+            directory = read(channel, directoryOffset, (int) directorySize);
+        }
+        finally {
+            randomAccessFile.close();
+        }
+
+        Set<String> packages = new LinkedHashSet<String>();
+        List<String> classNames = new ArrayList<String>();
+        List<Long> classOffsets = new ArrayList<Long>();
+        boolean hasSources = false;
+
+        int position = 0;
+        for (int i = 0; i < entryCount; i++) {
+            if (position + 46 > directory.limit() || directory.getInt(position) != CENTRAL_ENTRY_SIGNATURE) {
+                return null;
+            }
+            int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            long localHeaderOffset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+            if (position + 46 + nameLength > directory.limit()) {
+                return null;
+            }
+            byte[] nameBytes = new byte[nameLength];
+            for (int j = 0; j < nameLength; j++) {
+                nameBytes[j] = directory.get(position + 46 + j);
+            }
+            String name = new String(nameBytes, UTF_8);
+            position += 46 + nameLength + extraLength + commentLength;
+
+            addPackages(packages, name);
+            if (name.endsWith(".class")) {
+                if (name.indexOf('/') < 0) {
+                    packages.add("");
+                }
+                classNames.add(name.substring(0, name.length() - ".class".length()));
+                classOffsets.add(localHeaderOffset);
+            }
+            else if (name.endsWith(".java")) {
+                if (name.indexOf('/') < 0) {
+                    packages.add("");
+                }
+                hasSources = true;
+            }
+        }
+
+        return write(jar, hasSources, packages, classNames, classOffsets);
+    }
+
+    @NotNull
+    private static ByteBuffer read(@NotNull FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer result = ByteBuffer.allocate(length);
+        while (result.hasRemaining()) {
+            if (channel.read(result, position + result.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        result.flip();
+        result.order(ByteOrder.LITTLE_ENDIAN);
+        return result;
+    }
+
+    private static void addPackages(Set<String> packages, String entryName) {
+        int end = entryName.lastIndexOf('/');
+        while (end > 0) {
+            if (!packages.add(entryName.substring(0, end).replace('/', '.'))) {
+                return;
+            }
+            end = entryName.lastIndexOf('/', end - 1);
+        }
+    }
+
+    private static byte[] write(File jar, boolean hasSources, Set<String> packages, List<String> classNames, List<Long> classOffsets)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(jar.length());
+        out.writeLong(jar.lastModified());
+        out.writeInt(0); // checksum, filled in below
+        out.writeInt(hasSources ? FLAG_HAS_SOURCES : 0);
+        out.writeInt(packages.size());
+        for (String packageName : packages) {
+            writeString(out, packageName);
+        }
+
+        int tableSize = Integer.highestOneBit(Math.max(classNames.size(), 1) * 2) * 2;
+        int tableStart = out.size() + 4;
+        int recordsStart = tableStart + tableSize * 4;
+
+        int[] table = new int[tableSize];
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        for (int i = 0; i < classNames.size(); i++) {
+            String className = classNames.get(i);
+            int slot = hash(className) & (tableSize - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (tableSize - 1);
+            }
+            table[slot] = recordsStart + records.size();
+            records.writeInt((int) classOffsets.get(i).longValue());
+            writeString(records, className);
+        }
+
+        out.writeInt(tableSize);
+        for (int record : table) {
+            out.writeInt(record);
+        }
+        records.flush();
+        recordBytes.writeTo(out);
+        out.flush();
+        byte[] result = bytes.toByteArray();
+        ByteBuffer.wrap(result).putInt(CHECKSUM_POSITION, checksum(ByteBuffer.wrap(result)));
+        return result;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -32,6 +32,7 @@ import org.jetbrains.jet.config.CompilerConfiguration;
 import org.jetbrains.jet.lang.parsing.JetParser;
 import org.jetbrains.jet.lang.parsing.JetParserDefinition;
 import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.java.ClasspathIndex;
 import org.jetbrains.jet.lang.resolve.java.JetFilesProvider;
 import org.jetbrains.jet.lang.resolve.java.extAnnotations.CoreAnnotationsProvider;
 import org.jetbrains.jet.lang.resolve.java.extAnnotations.ExternalAnnotationsProvider;
@@ -51,6 +52,8 @@ import java.util.List;
 public class JetCoreEnvironment extends JavaCoreEnvironment {
     private final List<JetFile> sourceFiles = new ArrayList<JetFile>();
     private final CoreAnnotationsProvider annotationsProvider;
+    // no initializer: may be created by addToClasspath() called from the super constructor
+    private CliClasspathIndex classpathIndex;
 
     @NotNull
     public static JetCoreEnvironment createCoreEnvironmentForJS(Disposable disposable) {
@@ -81,12 +84,27 @@ public class JetCoreEnvironment extends JavaCoreEnvironment {
 
         annotationsProvider = new CoreAnnotationsProvider();
         myProject.registerService(ExternalAnnotationsProvider.class, annotationsProvider);
+        myProject.registerService(ClasspathIndex.class, getClasspathIndex());
 
         configure(configuration);
 
         JetStandardLibrary.initialize(getProject());
     }
 
+    @NotNull
+    private CliClasspathIndex getClasspathIndex() {
+        if (classpathIndex == null) {
+            classpathIndex = new CliClasspathIndex();
+        }
+        return classpathIndex;
+    }
+
+    @Override
+    public void addToClasspath(File path) {
+        super.addToClasspath(path);
+        getClasspathIndex().addRoot(path);
+    }
+
     public void addExternalAnnotationsRoot(VirtualFile root) {
         annotationsProvider.addExternalAnnotationsRoot(root);
     }
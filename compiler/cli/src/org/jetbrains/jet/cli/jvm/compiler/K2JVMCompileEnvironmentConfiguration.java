@@ -32,6 +32,7 @@ public class K2JVMCompileEnvironmentConfiguration extends CompileEnvironmentConf
     private final BuiltinsScopeExtensionMode builtinsScopeExtensionMode;
     private final boolean stubs;
     private final BuiltinToJavaTypesMapping builtinToJavaTypesMapping;
+    private final boolean optimize;
 
     /**
      * NOTE: It's very important to call dispose for every object of this class or there will be memory leaks.
@@ -40,12 +41,19 @@ public class K2JVMCompileEnvironmentConfiguration extends CompileEnvironmentConf
      */
     public K2JVMCompileEnvironmentConfiguration(@NotNull JetCoreEnvironment environment, @NotNull MessageCollector messageCollector,
             boolean script, BuiltinsScopeExtensionMode builtinsScopeExtensionMode, boolean stubs, BuiltinToJavaTypesMapping builtinToJavaTypesMapping) {
+        this(environment, messageCollector, script, builtinsScopeExtensionMode, stubs, builtinToJavaTypesMapping, false);
+    }
+
+    public K2JVMCompileEnvironmentConfiguration(@NotNull JetCoreEnvironment environment, @NotNull MessageCollector messageCollector,
+            boolean script, BuiltinsScopeExtensionMode builtinsScopeExtensionMode, boolean stubs, BuiltinToJavaTypesMapping builtinToJavaTypesMapping,
+            boolean optimize) {
         super(messageCollector);
         this.environment = environment;
         this.script = script;
         this.builtinsScopeExtensionMode = builtinsScopeExtensionMode;
         this.stubs = stubs;
         this.builtinToJavaTypesMapping = builtinToJavaTypesMapping;
+        this.optimize = optimize;
     }
 
     public JetCoreEnvironment getEnvironment() {
@@ -68,4 +76,8 @@ public class K2JVMCompileEnvironmentConfiguration extends CompileEnvironmentConf
     public BuiltinToJavaTypesMapping getBuiltinToJavaTypesMapping() {
         return builtinToJavaTypesMapping;
     }
+
+    public boolean isOptimize() {
+        return optimize;
+    }
 }
@@ -34,6 +34,7 @@ import org.jetbrains.jet.cli.common.messages.AnalyzerWithCompilerReport;
 import org.jetbrains.jet.cli.common.messages.CompilerMessageLocation;
 import org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity;
 import org.jetbrains.jet.codegen.*;
+import org.jetbrains.jet.lang.BuiltinsScopeExtensionMode;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.psi.JetPsiUtil;
 import org.jetbrains.jet.lang.resolve.AnalyzerScriptParameter;
@@ -62,6 +63,14 @@ import java.util.List;
  */
 public class KotlinToJVMBytecodeCompiler {
 
+    /**
+     * Stubs are generated from declarations resolved lazily (see AnalyzerFacadeForJVM#analyzeHeadersLazily), unless this
+     * property is set to "false" or the builtins are compiled, which need a different builtins scope than the lazy session has.
+     * Only stubs generated through this class take that path: light classes (jet.as.java.psi) and the REPL still run
+     * the top-down analysis.
+     */
+    public static final String LAZY_STUBS_RESOLVE_PROPERTY = "kotlin.stubs.lazy.resolve";
+
     private KotlinToJVMBytecodeCompiler() {
     }
 
@@ -287,11 +296,18 @@ public class KotlinToJVMBytecodeCompiler {
                 stubs ? Predicates.<PsiFile>alwaysFalse() : Predicates.<PsiFile>alwaysTrue();
         final List<AnalyzerScriptParameter> scriptParameters =
                 script ? CommandLineScriptUtils.scriptParameters() : Collections.<AnalyzerScriptParameter>emptyList();
+        // Stubs need no bodies, so their headers can be resolved on demand instead of running the whole top-down analysis
+        final boolean lazyHeaders = stubs && !script &&
+                                    configuration.getBuiltinsScopeExtensionMode() == BuiltinsScopeExtensionMode.ALL &&
+                                    !"false".equals(System.getProperty(LAZY_STUBS_RESOLVE_PROPERTY));
         analyzerWithCompilerReport.analyzeAndReport(
                 new Function0<AnalyzeExhaust>() {
                     @NotNull
                     @Override
                     public AnalyzeExhaust invoke() {
+                        if (lazyHeaders) {
+                            return AnalyzerFacadeForJVM.analyzeHeadersLazily(environment.getProject(), environment.getSourceFiles());
+                        }
                         return AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegration(
                                 environment.getProject(),
                                 environment.getSourceFiles(),
@@ -318,7 +334,7 @@ public class KotlinToJVMBytecodeCompiler {
                 configuration.getMessageCollector().report(CompilerMessageSeverity.LOGGING, message, CompilerMessageLocation.NO_LOCATION);
             }
         };
-        GenerationState generationState = new GenerationState(project, ClassBuilderFactories.binaries(stubs), backendProgress,
+        GenerationState generationState = new GenerationState(project, ClassBuilderFactories.binaries(stubs, configuration.isOptimize()), backendProgress,
                                                               exhaust, environment.getSourceFiles(),
                                                               configuration.getBuiltinToJavaTypesMapping());
         generationState.compileCorrectFiles(CompilationErrorHandler.THROW_EXCEPTION);
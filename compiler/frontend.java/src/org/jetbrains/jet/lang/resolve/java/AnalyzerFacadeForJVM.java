@@ -18,18 +18,31 @@ package org.jetbrains.jet.lang.resolve.java;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.Sets;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
 import com.intellij.psi.PsiFile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.analyzer.AnalyzeExhaust;
 import org.jetbrains.jet.analyzer.AnalyzerFacade;
 import org.jetbrains.jet.analyzer.AnalyzerFacadeForEverything;
 import org.jetbrains.jet.di.InjectorForTopDownAnalyzerForJvm;
+import org.jetbrains.jet.di.InjectorForJavaDescriptorResolver;
 import org.jetbrains.jet.lang.BuiltinsScopeExtensionMode;
+import org.jetbrains.jet.lang.DefaultModuleConfiguration;
+import org.jetbrains.jet.lang.ModuleConfiguration;
+import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
 import org.jetbrains.jet.lang.descriptors.ModuleDescriptor;
-import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.descriptors.NamespaceDescriptor;
+import org.jetbrains.jet.lang.psi.*;
 import org.jetbrains.jet.lang.resolve.*;
+import org.jetbrains.jet.lang.resolve.lazy.FileBasedDeclarationProviderFactory;
+import org.jetbrains.jet.lang.resolve.lazy.ForceResolveUtil;
+import org.jetbrains.jet.lang.resolve.lazy.ResolveSession;
+import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.resolve.scopes.WritableScope;
+import org.jetbrains.jet.lang.types.lang.JetStandardLibrary;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -142,4 +155,132 @@ public enum AnalyzerFacadeForJVM implements AnalyzerFacade {
                 files, Collections.<AnalyzerScriptParameter>emptyList(), Predicates.<PsiFile>alwaysFalse(),
                 builtinsScopeExtensionMode);
     }
+
+    /**
+     * Creates a session that builds descriptors for the given files on demand, with Java classes and the standard
+     * library visible in the same way as for the top-down analysis.
+     */
+    @NotNull
+    public static ResolveSession createLazyResolveSession(@NotNull final Project project, @NotNull Collection<JetFile> files) {
+        ModuleDescriptor javaModule = new ModuleDescriptor(Name.special("<java module>"));
+
+        InjectorForJavaDescriptorResolver injector =
+                new InjectorForJavaDescriptorResolver(project, new BindingTraceContext(), javaModule, BuiltinsScopeExtensionMode.ALL);
+        final PsiClassFinder psiClassFinder = injector.getPsiClassFinder();
+        final JavaDescriptorResolver javaDescriptorResolver = injector.getJavaDescriptorResolver();
+
+        FileBasedDeclarationProviderFactory declarationProviderFactory = new FileBasedDeclarationProviderFactory(files, new Predicate<FqName>() {
+            @Override
+            public boolean apply(FqName fqName) {
+                return hasJavaPackage(javaDescriptorResolver, psiClassFinder, fqName) || new FqName("jet").equals(fqName);
+            }
+        });
+
+        ModuleConfiguration moduleConfiguration = new ModuleConfiguration() {
+            @Override
+            public void addDefaultImports(@NotNull Collection<JetImportDirective> directives) {
+                directives.add(JetPsiFactory.createImportDirective(project, new ImportPath("java.lang.*")));
+                for (ImportPath defaultJetImport : DefaultModuleConfiguration.DEFAULT_JET_IMPORTS) {
+                    directives.add(JetPsiFactory.createImportDirective(project, defaultJetImport));
+                }
+            }
+
+            @Override
+            public void extendNamespaceScope(
+                    @NotNull BindingTrace trace,
+                    @NotNull NamespaceDescriptor namespaceDescriptor,
+                    @NotNull WritableScope namespaceMemberScope
+            ) {
+                FqName fqName = DescriptorUtils.getFQName(namespaceDescriptor).toSafe();
+                if (new FqName("jet").equals(fqName)) {
+                    namespaceMemberScope.importScope(JetStandardLibrary.getInstance().getLibraryScope());
+                }
+                if (hasJavaPackage(javaDescriptorResolver, psiClassFinder, fqName)) {
+                    JavaPackageScope javaPackageScope = javaDescriptorResolver.getJavaPackageScope(fqName, namespaceDescriptor);
+                    namespaceMemberScope.importScope(javaPackageScope);
+                }
+            }
+        };
+
+        ModuleDescriptor lazyModule = new ModuleDescriptor(Name.special("<lazy module>"));
+        return new ResolveSession(project, lazyModule, moduleConfiguration, declarationProviderFactory);
+    }
+
+    // The session may be used from several threads, Java lookups take turns with the Java resolution
+    private static boolean hasJavaPackage(
+            @NotNull JavaDescriptorResolver javaDescriptorResolver,
+            @NotNull final PsiClassFinder psiClassFinder,
+            @NotNull final FqName fqName
+    ) {
+        return javaDescriptorResolver.runLocked(new Computable<Boolean>() {
+            @Override
+            public Boolean compute() {
+                return psiClassFinder.findPsiPackage(fqName) != null;
+            }
+        });
+    }
+
+    /**
+     * Resolves the headers of all declarations in the given files through a lazy session. Bodies are only resolved where
+     * a type has to be inferred from them, so the result is enough for stubs but not for full code generation.
+     * Scripts are not supported.
+     */
+    @NotNull
+    public static AnalyzeExhaust analyzeHeadersLazily(@NotNull Project project, @NotNull Collection<JetFile> files) {
+        ResolveSession session = createLazyResolveSession(project, files);
+        BindingTrace trace = new DelegatingBindingTrace(session.getBindingContext());
+
+        for (JetFile file : files) {
+            NamespaceDescriptor namespaceDescriptor = session.getPackageDescriptorByFqName(JetPsiUtil.getFQName(file));
+            assert namespaceDescriptor != null : "No package descriptor for " + file.getName();
+
+            // The top-down analyzer records these while creating namespaces, the backend looks files up by them
+            trace.record(BindingContext.FILE_TO_NAMESPACE, file, namespaceDescriptor);
+            Collection<JetFile> namespaceFiles = trace.get(BindingContext.NAMESPACE_TO_FILES, namespaceDescriptor);
+            if (namespaceFiles == null) {
+                namespaceFiles = Sets.newIdentityHashSet();
+            }
+            namespaceFiles.add(file);
+            trace.record(BindingContext.NAMESPACE_TO_FILES, namespaceDescriptor, namespaceFiles);
+
+            forceResolveDeclarations(session, trace, file.getDeclarations());
+        }
+
+        return AnalyzeExhaust.success(trace.getBindingContext(), null);
+    }
+
+    private static void forceResolveDeclarations(
+            @NotNull ResolveSession session,
+            @NotNull BindingTrace trace,
+            @NotNull List<JetDeclaration> declarations
+    ) {
+        for (JetDeclaration declaration : declarations) {
+            if (declaration instanceof JetClassObject) {
+                JetObjectDeclaration objectDeclaration = ((JetClassObject) declaration).getObjectDeclaration();
+                if (objectDeclaration != null) {
+                    forceResolveClassOrObject(session, trace, objectDeclaration);
+                }
+            }
+            else if (declaration instanceof JetClassOrObject) {
+                forceResolveClassOrObject(session, trace, (JetClassOrObject) declaration);
+            }
+            else if (declaration instanceof JetNamedFunction || declaration instanceof JetProperty) {
+                ForceResolveUtil.forceResolveAllContents(session.resolveToDescriptor(declaration));
+            }
+        }
+    }
+
+    private static void forceResolveClassOrObject(
+            @NotNull ResolveSession session,
+            @NotNull BindingTrace trace,
+            @NotNull JetClassOrObject classOrObject
+    ) {
+        ClassDescriptor classDescriptor = (ClassDescriptor) session.resolveToDescriptor((JetDeclaration) classOrObject);
+        // Lazy descriptors are not registered in the trace, but the backend finds classes by their declarations
+        if (trace.get(BindingContext.CLASS, classOrObject) == null) {
+            trace.record(BindingContext.CLASS, classOrObject, classDescriptor);
+        }
+        ForceResolveUtil.forceResolveAllContents(classDescriptor);
+        forceResolveDeclarations(session, trace, classOrObject.getDeclarations());
+    }
 }
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.lang.resolve.java;
+
+import jet.typeinfo.TypeInfoVariance;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.rt.signature.JetSignatureReader;
+import org.jetbrains.jet.rt.signature.JetSignatureVariance;
+import org.jetbrains.jet.rt.signature.JetSignatureVisitor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses every distinct Kotlin signature string once and replays the parsed tree to visitors.
+ *
+ * The same strings (<tt>Ljava/lang/String;</tt>, common generic shapes) are read over and over
+ * when classes compiled by Kotlin are loaded from the classpath. The tree is recorded by a visitor,
+ * so {@link JetSignatureReader} stays the only parser and the replay order is the same as a direct parse.
+ * Each kind of parse keeps at most {@value #MAX_CACHED_SIGNATURES} signatures, the least recently used ones are dropped.
+ *
+ * @see JetSignatureReader
+ */
+public class CachedJetSignatures {
+
+    private static final int MAX_CACHED_SIGNATURES = 20000;
+
+    private enum Mode {
+        CLASS_OR_METHOD,
+        FORMAL_TYPE_PARAMETERS_ONLY,
+        TYPE,
+        TYPE_ONLY
+    }
+
+    // guarded by the map itself
+    private static final Map<String, Recording>[] caches = createCaches();
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Recording>[] createCaches() {
+        Map<String, Recording>[] result = new Map[Mode.values().length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new LinkedHashMap<String, Recording>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Recording> eldest) {
+                    return size() > MAX_CACHED_SIGNATURES;
+                }
+            };
+        }
+        return result;
+    }
+
+    private CachedJetSignatures() {
+    }
+
+    /**
+     * @see JetSignatureReader#accept(JetSignatureVisitor)
+     */
+    public static void accept(@NotNull String signature, @NotNull JetSignatureVisitor v) {
+        getRecording(signature, Mode.CLASS_OR_METHOD).replay(v);
+    }
+
+    /**
+     * @see JetSignatureReader#acceptFormalTypeParametersOnly(JetSignatureVisitor)
+     */
+    public static void acceptFormalTypeParametersOnly(@NotNull String signature, @NotNull JetSignatureVisitor v) {
+        getRecording(signature, Mode.FORMAL_TYPE_PARAMETERS_ONLY).replay(v);
+    }
+
+    /**
+     * Like {@link JetSignatureReader#acceptType(JetSignatureVisitor)}, ignores anything after the type.
+     */
+    public static void acceptType(@NotNull String signature, @NotNull JetSignatureVisitor v) {
+        getRecording(signature, Mode.TYPE).replay(v);
+    }
+
+    /**
+     * @see JetSignatureReader#acceptTypeOnly(JetSignatureVisitor)
+     */
+    public static void acceptTypeOnly(@NotNull String signature, @NotNull JetSignatureVisitor v) {
+        getRecording(signature, Mode.TYPE_ONLY).replay(v);
+    }
+
+    @NotNull
+    private static Recording getRecording(@NotNull String signature, @NotNull Mode mode) {
+        Map<String, Recording> cache = caches[mode.ordinal()];
+        Recording recording;
+        synchronized (cache) {
+            recording = cache.get(signature);
+        }
+        if (recording != null) {
+            return recording;
+        }
+
+        // parsed outside of the lock, a signature parsed twice concurrently is cached once
+
+        recording = new Recording();
+        JetSignatureReader reader = new JetSignatureReader(signature);
+        switch (mode) {
+            case CLASS_OR_METHOD:
+                reader.accept(recording);
+                break;
+            case FORMAL_TYPE_PARAMETERS_ONLY:
+                reader.acceptFormalTypeParametersOnly(recording);
+                break;
+            case TYPE:
+                reader.acceptType(recording);
+                break;
+            case TYPE_ONLY:
+                reader.acceptTypeOnly(recording);
+                break;
+            default:
+                throw new IllegalStateException("Unknown mode: " + mode);
+        }
+
+        synchronized (cache) {
+            Recording existing = cache.get(signature);
+            if (existing != null) {
+                return existing;
+            }
+            cache.put(signature, recording);
+        }
+        return recording;
+    }
+
+    private enum EventKind {
+        FORMAL_TYPE_PARAMETER,
+        FORMAL_TYPE_PARAMETER_END,
+        CLASS_BOUND,
+        INTERFACE_BOUND,
+        SUPERCLASS,
+        INTERFACE,
+        PARAMETER_TYPE,
+        RETURN_TYPE,
+        EXCEPTION_TYPE,
+        BASE_TYPE,
+        TYPE_VARIABLE,
+        ARRAY_TYPE,
+        CLASS_TYPE,
+        INNER_CLASS_TYPE,
+        UNBOUNDED_TYPE_ARGUMENT,
+        TYPE_ARGUMENT,
+        END
+    }
+
+    private static final class Event {
+        private final EventKind kind;
+        private final String name;
+        private final char descriptor;
+        private final boolean nullable;
+        private final boolean flag;
+        private final TypeInfoVariance variance;
+        private final JetSignatureVariance wildcard;
+        private final Recording nested;
+
+        private Event(
+                EventKind kind, String name, char descriptor, boolean nullable, boolean flag,
+                TypeInfoVariance variance, JetSignatureVariance wildcard, Recording nested
+        ) {
+            this.kind = kind;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.nullable = nullable;
+            this.flag = flag;
+            this.variance = variance;
+            this.wildcard = wildcard;
+            this.nested = nested;
+        }
+    }
+
+    /**
+     * Records the calls made by {@link JetSignatureReader}. Nested visitors are recorded separately,
+     * so that the calls go to whatever visitor the replay target returns. Never modified once recorded.
+     */
+    private static final class Recording implements JetSignatureVisitor {
+        private final List<Event> events = new ArrayList<Event>(4);
+
+        private void add(EventKind kind) {
+            events.add(new Event(kind, null, '\0', false, false, null, null, null));
+        }
+
+        private Recording addNested(EventKind kind) {
+            Recording nested = new Recording();
+            events.add(new Event(kind, null, '\0', false, false, null, null, nested));
+            return nested;
+        }
+
+        public void replay(@NotNull JetSignatureVisitor v) {
+            for (Event e : events) {
+                switch (e.kind) {
+                    case FORMAL_TYPE_PARAMETER:
+                        e.nested.replay(v.visitFormalTypeParameter(e.name, e.variance, e.flag));
+                        break;
+                    case FORMAL_TYPE_PARAMETER_END:
+                        v.visitFormalTypeParameterEnd();
+                        break;
+                    case CLASS_BOUND:
+                        e.nested.replay(v.visitClassBound());
+                        break;
+                    case INTERFACE_BOUND:
+                        e.nested.replay(v.visitInterfaceBound());
+                        break;
+                    case SUPERCLASS:
+                        e.nested.replay(v.visitSuperclass());
+                        break;
+                    case INTERFACE:
+                        e.nested.replay(v.visitInterface());
+                        break;
+                    case PARAMETER_TYPE:
+                        e.nested.replay(v.visitParameterType());
+                        break;
+                    case RETURN_TYPE:
+                        e.nested.replay(v.visitReturnType());
+                        break;
+                    case EXCEPTION_TYPE:
+                        e.nested.replay(v.visitExceptionType());
+                        break;
+                    case BASE_TYPE:
+                        v.visitBaseType(e.descriptor, e.nullable);
+                        break;
+                    case TYPE_VARIABLE:
+                        v.visitTypeVariable(e.name, e.nullable);
+                        break;
+                    case ARRAY_TYPE:
+                        e.nested.replay(v.visitArrayType(e.nullable));
+                        break;
+                    case CLASS_TYPE:
+                        v.visitClassType(e.name, e.nullable, e.flag);
+                        break;
+                    case INNER_CLASS_TYPE:
+                        v.visitInnerClassType(e.name, e.nullable);
+                        break;
+                    case UNBOUNDED_TYPE_ARGUMENT:
+                        v.visitTypeArgument();
+                        break;
+                    case TYPE_ARGUMENT:
+                        e.nested.replay(v.visitTypeArgument(e.wildcard));
+                        break;
+                    case END:
+                        v.visitEnd();
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown event: " + e.kind);
+                }
+            }
+        }
+
+        @Override
+        public JetSignatureVisitor visitFormalTypeParameter(String name, TypeInfoVariance variance, boolean reified) {
+            Recording nested = new Recording();
+            events.add(new Event(EventKind.FORMAL_TYPE_PARAMETER, name, '\0', false, reified, variance, null, nested));
+            return nested;
+        }
+
+        @Override
+        public void visitFormalTypeParameterEnd() {
+            add(EventKind.FORMAL_TYPE_PARAMETER_END);
+        }
+
+        @Override
+        public JetSignatureVisitor visitClassBound() {
+            return addNested(EventKind.CLASS_BOUND);
+        }
+
+        @Override
+        public JetSignatureVisitor visitInterfaceBound() {
+            return addNested(EventKind.INTERFACE_BOUND);
+        }
+
+        @Override
+        public JetSignatureVisitor visitSuperclass() {
+            return addNested(EventKind.SUPERCLASS);
+        }
+
+        @Override
+        public JetSignatureVisitor visitInterface() {
+            return addNested(EventKind.INTERFACE);
+        }
+
+        @Override
+        public JetSignatureVisitor visitParameterType() {
+            return addNested(EventKind.PARAMETER_TYPE);
+        }
+
+        @Override
+        public JetSignatureVisitor visitReturnType() {
+            return addNested(EventKind.RETURN_TYPE);
+        }
+
+        @Override
+        public JetSignatureVisitor visitExceptionType() {
+            return addNested(EventKind.EXCEPTION_TYPE);
+        }
+
+        @Override
+        public void visitBaseType(char descriptor, boolean nullable) {
+            events.add(new Event(EventKind.BASE_TYPE, null, descriptor, nullable, false, null, null, null));
+        }
+
+        @Override
+        public void visitTypeVariable(String name, boolean nullable) {
+            events.add(new Event(EventKind.TYPE_VARIABLE, name, '\0', nullable, false, null, null, null));
+        }
+
+        @Override
+        public JetSignatureVisitor visitArrayType(boolean nullable) {
+            Recording nested = new Recording();
+            events.add(new Event(EventKind.ARRAY_TYPE, null, '\0', nullable, false, null, null, nested));
+            return nested;
+        }
+
+        @Override
+        public void visitClassType(String name, boolean nullable, boolean forceReal) {
+            events.add(new Event(EventKind.CLASS_TYPE, name, '\0', nullable, forceReal, null, null, null));
+        }
+
+        @Override
+        public void visitInnerClassType(String name, boolean nullable) {
+            events.add(new Event(EventKind.INNER_CLASS_TYPE, name, '\0', nullable, false, null, null, null));
+        }
+
+        @Override
+        public void visitTypeArgument() {
+            add(EventKind.UNBOUNDED_TYPE_ARGUMENT);
+        }
+
+        @Override
+        public JetSignatureVisitor visitTypeArgument(JetSignatureVariance wildcard) {
+            Recording nested = new Recording();
+            events.add(new Event(EventKind.TYPE_ARGUMENT, null, '\0', false, false, null, wildcard, nested));
+            return nested;
+        }
+
+        @Override
+        public void visitEnd() {
+            add(EventKind.END);
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.jetbrains.jet.lang.resolve.java;
 
 import com.google.common.collect.Lists;
+import com.intellij.openapi.util.Computable;
 import com.intellij.psi.PsiClass;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.lang.descriptors.ClassKind;
@@ -63,9 +64,14 @@ public class ClassDescriptorFromJvmBytecode extends MutableClassDescriptorLite {
     @NotNull
     @Override
     public Collection<ConstructorDescriptor> getConstructors() {
-        if (constructors == null) {
-            this.constructors = javaDescriptorResolver.resolveConstructors(resolverBinaryClassData);
-        }
-        return constructors;
+        return javaDescriptorResolver.runLocked(new Computable<Collection<ConstructorDescriptor>>() {
+            @Override
+            public Collection<ConstructorDescriptor> compute() {
+                if (constructors == null) {
+                    constructors = javaDescriptorResolver.resolveConstructors(resolverBinaryClassData);
+                }
+                return constructors;
+            }
+        });
     }
 }
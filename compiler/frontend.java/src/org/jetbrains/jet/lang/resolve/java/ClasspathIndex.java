@@ -0,0 +1,41 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.lang.resolve.java;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Answers whether a class or a package may be on the classpath, without probing the classpath roots.
+ * A negative answer must be exact: it lets {@link JavaPsiFacadeKotlinHacks} skip the lookup in the roots.
+ */
+public abstract class ClasspathIndex {
+    public abstract boolean mayContainPackage(@NotNull String qualifiedName);
+
+    public abstract boolean mayContainClass(@NotNull String qualifiedName);
+
+    /**
+     * @return <code>null</code> when no index is registered, e.g. in the IDE
+     */
+    @Nullable
+    public static ClasspathIndex getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, ClasspathIndex.class);
+    }
+}
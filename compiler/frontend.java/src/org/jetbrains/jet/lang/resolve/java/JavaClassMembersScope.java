@@ -17,6 +17,7 @@
 package org.jetbrains.jet.lang.resolve.java;
 
 import com.google.common.collect.Maps;
+import com.intellij.openapi.util.Computable;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiModifier;
 import org.jetbrains.annotations.NotNull;
@@ -63,13 +64,18 @@ public class JavaClassMembersScope extends JavaClassOrPackageScope {
     }
 
     @Override
-    public ClassifierDescriptor getClassifier(@NotNull Name name) {
-        ClassifierDescriptor classifierDescriptor = classifiers.get(name);
-        if (classifierDescriptor == null) {
-            classifierDescriptor = doGetClassifierDescriptor(name);
-            classifiers.put(name, classifierDescriptor);
-        }
-        return classifierDescriptor;
+    public ClassifierDescriptor getClassifier(@NotNull final Name name) {
+        return semanticServices.getDescriptorResolver().runLocked(new Computable<ClassifierDescriptor>() {
+            @Override
+            public ClassifierDescriptor compute() {
+                ClassifierDescriptor classifierDescriptor = classifiers.get(name);
+                if (classifierDescriptor == null) {
+                    classifierDescriptor = doGetClassifierDescriptor(name);
+                    classifiers.put(name, classifierDescriptor);
+                }
+                return classifierDescriptor;
+            }
+        });
     }
 
     @Override
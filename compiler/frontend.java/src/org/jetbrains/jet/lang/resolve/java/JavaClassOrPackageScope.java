@@ -17,6 +17,7 @@
 package org.jetbrains.jet.lang.resolve.java;
 
 import com.google.common.collect.Sets;
+import com.intellij.openapi.util.Computable;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiModifier;
 import com.intellij.psi.PsiPackage;
@@ -70,6 +71,16 @@ public abstract class JavaClassOrPackageScope extends JetScopeImpl {
     @NotNull
     @Override
     public Collection<DeclarationDescriptor> getAllDescriptors() {
+        return semanticServices.getDescriptorResolver().runLocked(new Computable<Collection<DeclarationDescriptor>>() {
+            @Override
+            public Collection<DeclarationDescriptor> compute() {
+                return computeAllDescriptors();
+            }
+        });
+    }
+
+    @NotNull
+    private Collection<DeclarationDescriptor> computeAllDescriptors() {
         if (allDescriptors == null) {
             allDescriptors = Sets.newHashSet();
 
@@ -19,7 +19,9 @@ package org.jetbrains.jet.lang.resolve.java;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Pair;
 import com.intellij.psi.*;
 import jet.typeinfo.TypeInfoVariance;
@@ -41,7 +43,6 @@ import org.jetbrains.jet.lang.types.lang.JetStandardClasses;
 import org.jetbrains.jet.lang.types.lang.JetStandardLibrary;
 import org.jetbrains.jet.rt.signature.JetSignatureAdapter;
 import org.jetbrains.jet.rt.signature.JetSignatureExceptionsAdapter;
-import org.jetbrains.jet.rt.signature.JetSignatureReader;
 import org.jetbrains.jet.rt.signature.JetSignatureVisitor;
 import org.jetbrains.jet.utils.ExceptionUtils;
 
@@ -133,7 +134,10 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
             }
         }
 
+        /** All member groups, built on the first request for all members */
         private Map<Name, NamedMembers> namedMembersMap;
+        /** Groups collected one name at a time until {@link #namedMembersMap} is built; null value means no such members */
+        private Map<Name, NamedMembers> namedMembersByName;
 
         public void addAlternativeSignatureError(@NotNull String errorMessage) {
             if (alternativeSignatureErrors == null) {
@@ -202,9 +206,12 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
         }
     }
 
+    // Guarded by lock, as well as the member groups of ResolverScopeData and the descriptors under construction
     protected final Map<FqName, ResolverBinaryClassData> classDescriptorCache = Maps.newHashMap();
     protected final Map<FqName, ResolverNamespaceData> namespaceDescriptorCacheByFqn = Maps.newHashMap();
 
+    private final Object lock = new Object();
+
     protected Project project;
     protected JavaSemanticServices semanticServices;
     private NamespaceFactory namespaceFactory;
@@ -243,6 +250,23 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
     }
 
 
+    /**
+     * Java resolution is single-threaded: it fills the caches above and publishes descriptors before they are complete,
+     * so every entry point runs the resolution under one lock, and in a read action since it reads PSI. Threads sharing
+     * a lazy resolve session take turns here. Java resolution never waits for lazy Kotlin values, hence the lock can not
+     * make two threads wait for each other.
+     */
+    <T> T runLocked(@NotNull final Computable<T> computation) {
+        return ApplicationManager.getApplication().runReadAction(new Computable<T>() {
+            @Override
+            public T compute() {
+                synchronized (lock) {
+                    return computation.compute();
+                }
+            }
+        });
+    }
+
     @Nullable
     private ClassDescriptor resolveJavaLangObject() {
         ClassDescriptor clazz = resolveClass(JdkNames.JL_OBJECT.getFqName(), DescriptorSearchRule.IGNORE_IF_FOUND_IN_KOTLIN);
@@ -253,7 +277,17 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
     }
 
     @Nullable
-    public ClassDescriptor resolveClass(@NotNull FqName qualifiedName, @NotNull DescriptorSearchRule searchRule) {
+    public ClassDescriptor resolveClass(@NotNull final FqName qualifiedName, @NotNull final DescriptorSearchRule searchRule) {
+        return runLocked(new Computable<ClassDescriptor>() {
+            @Override
+            public ClassDescriptor compute() {
+                return doResolveClass(qualifiedName, searchRule);
+            }
+        });
+    }
+
+    @Nullable
+    private ClassDescriptor doResolveClass(@NotNull FqName qualifiedName, @NotNull DescriptorSearchRule searchRule) {
         List<Runnable> tasks = Lists.newArrayList();
         ClassDescriptor clazz = resolveClass(qualifiedName, searchRule, tasks);
         for (Runnable task : tasks) {
@@ -378,7 +412,17 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
     }
 
     @NotNull
-    public Collection<ConstructorDescriptor> resolveConstructors(@NotNull ResolverBinaryClassData classData) {
+    public Collection<ConstructorDescriptor> resolveConstructors(@NotNull final ResolverBinaryClassData classData) {
+        return runLocked(new Computable<Collection<ConstructorDescriptor>>() {
+            @Override
+            public Collection<ConstructorDescriptor> compute() {
+                return doResolveConstructors(classData);
+            }
+        });
+    }
+
+    @NotNull
+    private Collection<ConstructorDescriptor> doResolveConstructors(@NotNull ResolverBinaryClassData classData) {
         Collection<ConstructorDescriptor> constructors = Lists.newArrayList();
 
         PsiClass psiClass = classData.psiClass;
@@ -582,7 +626,7 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
         if (psiClass.getJetClass().signature().length() > 0) {
             final TypeVariableResolver typeVariableResolver = TypeVariableResolvers.typeVariableResolverFromTypeParameters(typeParameters, classDescriptor, context);
             
-            new JetSignatureReader(psiClass.getJetClass().signature()).accept(new JetSignatureExceptionsAdapter() {
+            CachedJetSignatures.accept(psiClass.getJetClass().signature(), new JetSignatureExceptionsAdapter() {
                 @Override
                 public JetSignatureVisitor visitFormalTypeParameter(String name, TypeInfoVariance variance, boolean reified) {
                     // TODO: collect
@@ -659,7 +703,17 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
     }
 
     @Nullable
-    public NamespaceDescriptor resolveNamespace(@NotNull FqName qualifiedName, @NotNull DescriptorSearchRule searchRule) {
+    public NamespaceDescriptor resolveNamespace(@NotNull final FqName qualifiedName, @NotNull final DescriptorSearchRule searchRule) {
+        return runLocked(new Computable<NamespaceDescriptor>() {
+            @Override
+            public NamespaceDescriptor compute() {
+                return doResolveNamespace(qualifiedName, searchRule);
+            }
+        });
+    }
+
+    @Nullable
+    private NamespaceDescriptor doResolveNamespace(@NotNull FqName qualifiedName, @NotNull DescriptorSearchRule searchRule) {
         // First, let's check that there is no Kotlin package:
         NamespaceDescriptor kotlinNamespaceDescriptor = semanticServices.getKotlinNamespaceDescriptor(qualifiedName);
         if (kotlinNamespaceDescriptor != null) {
@@ -760,7 +814,17 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
     }
 
     @Nullable
-    public JavaPackageScope getJavaPackageScope(@NotNull FqName fqName, @NotNull NamespaceDescriptor ns) {
+    public JavaPackageScope getJavaPackageScope(@NotNull final FqName fqName, @NotNull final NamespaceDescriptor ns) {
+        return runLocked(new Computable<JavaPackageScope>() {
+            @Override
+            public JavaPackageScope compute() {
+                return doGetJavaPackageScope(fqName, ns);
+            }
+        });
+    }
+
+    @Nullable
+    private JavaPackageScope doGetJavaPackageScope(@NotNull FqName fqName, @NotNull NamespaceDescriptor ns) {
         ResolverNamespaceData resolverNamespaceData = namespaceDescriptorCacheByFqn.get(fqName);
         if (resolverNamespaceData == null) {
             resolverNamespaceData = createNamespaceResolverScopeData(fqName, ns);
@@ -891,15 +955,22 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
         }
     }
 
-    public Set<VariableDescriptor> resolveFieldGroupByName(@NotNull Name fieldName, @NotNull ResolverScopeData scopeData) {
+    public Set<VariableDescriptor> resolveFieldGroupByName(@NotNull final Name fieldName, @NotNull final ResolverScopeData scopeData) {
+        return runLocked(new Computable<Set<VariableDescriptor>>() {
+            @Override
+            public Set<VariableDescriptor> compute() {
+                return doResolveFieldGroupByName(fieldName, scopeData);
+            }
+        });
+    }
+
+    private Set<VariableDescriptor> doResolveFieldGroupByName(@NotNull Name fieldName, @NotNull ResolverScopeData scopeData) {
 
         if (scopeData.psiClass == null) {
             return Collections.emptySet();
         }
 
-        getResolverScopeData(scopeData);
-
-        NamedMembers namedMembers = scopeData.namedMembersMap.get(fieldName);
+        NamedMembers namedMembers = getNamedMembers(scopeData, fieldName);
         if (namedMembers == null) {
             return Collections.emptySet();
         }
@@ -911,7 +982,17 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
     }
     
     @NotNull
-    public Set<VariableDescriptor> resolveFieldGroup(@NotNull ResolverScopeData scopeData) {
+    public Set<VariableDescriptor> resolveFieldGroup(@NotNull final ResolverScopeData scopeData) {
+        return runLocked(new Computable<Set<VariableDescriptor>>() {
+            @Override
+            public Set<VariableDescriptor> compute() {
+                return doResolveFieldGroup(scopeData);
+            }
+        });
+    }
+
+    @NotNull
+    private Set<VariableDescriptor> doResolveFieldGroup(@NotNull ResolverScopeData scopeData) {
 
         getResolverScopeData(scopeData);
 
@@ -966,8 +1047,6 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
             @NotNull ResolverScopeData scopeData,
             @NotNull NamedMembers namedMembers, @NotNull Name propertyName,
             @NotNull String context) {
-        getResolverScopeData(scopeData);
-
         if (namedMembers.propertyDescriptors != null) {
             return;
         }
@@ -1286,18 +1365,52 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
 
     private void getResolverScopeData(@NotNull ResolverScopeData scopeData) {
         if (scopeData.namedMembersMap == null) {
-            scopeData.namedMembersMap = JavaDescriptorResolverHelper.getNamedMembers(scopeData);
+            Map<Name, NamedMembers> namedMembersMap = JavaDescriptorResolverHelper.getNamedMembers(scopeData);
+            if (scopeData.namedMembersByName != null) {
+                // reuse groups already resolved by name, so that their descriptors are not created twice
+                for (Map.Entry<Name, NamedMembers> entry : scopeData.namedMembersByName.entrySet()) {
+                    if (entry.getValue() != null) {
+                        namedMembersMap.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                scopeData.namedMembersByName = null;
+            }
+            scopeData.namedMembersMap = namedMembersMap;
         }
     }
 
-    @NotNull
-    public Set<FunctionDescriptor> resolveFunctionGroup(@NotNull Name methodName, @NotNull ResolverScopeData scopeData) {
+    @Nullable
+    private static NamedMembers getNamedMembers(@NotNull ResolverScopeData scopeData, @NotNull Name name) {
+        if (scopeData.namedMembersMap != null) {
+            return scopeData.namedMembersMap.get(name);
+        }
 
-        getResolverScopeData(scopeData);
+        if (scopeData.namedMembersByName == null) {
+            scopeData.namedMembersByName = new HashMap<Name, NamedMembers>();
+        }
+        else if (scopeData.namedMembersByName.containsKey(name)) {
+            return scopeData.namedMembersByName.get(name);
+        }
 
-        Map<Name, NamedMembers> namedMembersMap = scopeData.namedMembersMap;
+        NamedMembers namedMembers = JavaDescriptorResolverHelper.getNamedMembers(scopeData, name);
+        scopeData.namedMembersByName.put(name, namedMembers);
+        return namedMembers;
+    }
 
-        NamedMembers namedMembers = namedMembersMap.get(methodName);
+    @NotNull
+    public Set<FunctionDescriptor> resolveFunctionGroup(@NotNull final Name methodName, @NotNull final ResolverScopeData scopeData) {
+        return runLocked(new Computable<Set<FunctionDescriptor>>() {
+            @Override
+            public Set<FunctionDescriptor> compute() {
+                return doResolveFunctionGroup(methodName, scopeData);
+            }
+        });
+    }
+
+    @NotNull
+    private Set<FunctionDescriptor> doResolveFunctionGroup(@NotNull Name methodName, @NotNull ResolverScopeData scopeData) {
+
+        NamedMembers namedMembers = getNamedMembers(scopeData, methodName);
         if (namedMembers != null && namedMembers.methods != null) {
             TypeSubstitutor typeSubstitutor = typeSubstitutorForGenericSupertypes(scopeData);
 
@@ -1352,8 +1465,6 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
             @NotNull final PsiClass psiClass, final PsiMethodWrapper method,
             @NotNull ResolverScopeData scopeData, BindingTrace tempTrace) {
 
-        getResolverScopeData(scopeData);
-
         PsiType returnPsiType = method.getReturnType();
         if (returnPsiType == null) {
             return null;
@@ -1493,7 +1604,16 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
         return annotation;
     }
 
-    public List<FunctionDescriptor> resolveMethods(@NotNull ResolverScopeData scopeData) {
+    public List<FunctionDescriptor> resolveMethods(@NotNull final ResolverScopeData scopeData) {
+        return runLocked(new Computable<List<FunctionDescriptor>>() {
+            @Override
+            public List<FunctionDescriptor> compute() {
+                return doResolveMethods(scopeData);
+            }
+        });
+    }
+
+    private List<FunctionDescriptor> doResolveMethods(@NotNull ResolverScopeData scopeData) {
 
         getResolverScopeData(scopeData);
 
@@ -1588,7 +1708,16 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
                  PACKAGE_VISIBILITY));
     }
 
-    public List<ClassDescriptor> resolveInnerClasses(DeclarationDescriptor owner, PsiClass psiClass, boolean staticMembers) {
+    public List<ClassDescriptor> resolveInnerClasses(final DeclarationDescriptor owner, final PsiClass psiClass, final boolean staticMembers) {
+        return runLocked(new Computable<List<ClassDescriptor>>() {
+            @Override
+            public List<ClassDescriptor> compute() {
+                return doResolveInnerClasses(owner, psiClass, staticMembers);
+            }
+        });
+    }
+
+    private List<ClassDescriptor> doResolveInnerClasses(DeclarationDescriptor owner, PsiClass psiClass, boolean staticMembers) {
         if (staticMembers) {
             return new ArrayList<ClassDescriptor>(0);
         }
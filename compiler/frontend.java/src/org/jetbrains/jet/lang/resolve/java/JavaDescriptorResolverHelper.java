@@ -16,17 +16,22 @@
 
 package org.jetbrains.jet.lang.resolve.java;
 
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiField;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiParameter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.resolve.java.prop.PropertyNameUtils;
 import org.jetbrains.jet.lang.resolve.java.prop.PropertyParseResult;
 import org.jetbrains.jet.lang.resolve.name.Name;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Stepan Koltsov
@@ -79,24 +84,64 @@ class JavaDescriptorResolverHelper {
             return true;
         }
         
-        private void processFields() {
+        /**
+         * Collects members named {@code name} only: the field, the methods with that name and the property accessors
+         * for it. Produces the same group as {@link #run()} would for this name.
+         */
+        public void runForName(@NotNull String name) {
+            PsiClass aClass = psiClass.getPsiClass();
+
             if (!kotlin) {
-                for (PsiField field0 : psiClass.getPsiClass().getAllFields()) {
-                    PsiFieldWrapper field = new PsiFieldWrapper(field0);
+                PsiField field = aClass.findFieldByName(name, true);
+                if (field != null) {
+                    processField(field);
+                }
+            }
 
-                    // group must be created even for excluded field
-                    NamedMembers namedMembers = getNamedMembers(Name.identifier(field.getName()));
+            for (String methodName : methodNamesForMember(name)) {
+                if (aClass.findMethodsByName(methodName, true).length == 0) {
+                    continue;
+                }
 
-                    if (!includeMember(field)) {
+                if (methodName.equals(name)) {
+                    getNamedMembers(Name.identifier(name));
+                }
+                else {
+                    PropertyParseResult propertyParseResult = PropertyNameUtils.parseMethodToProperty(methodName);
+                    if (propertyParseResult == null || !propertyParseResult.getPropertyName().equals(name)) {
                         continue;
                     }
+                    getNamedMembers(Name.identifier(name));
+                }
 
-                    TypeSource type = new TypeSource("", field.getType(), field0);
-                    namedMembers.addPropertyAccessor(new PropertyAccessorData(field, type, null));
+                for (PsiMethod method : aClass.findMethodsByName(methodName, false)) {
+                    processMethod(new PsiMethodWrapper(method));
                 }
             }
         }
 
+        private void processFields() {
+            if (!kotlin) {
+                for (PsiField field0 : psiClass.getPsiClass().getAllFields()) {
+                    processField(field0);
+                }
+            }
+        }
+
+        private void processField(PsiField field0) {
+            PsiFieldWrapper field = new PsiFieldWrapper(field0);
+
+            // group must be created even for excluded field
+            NamedMembers namedMembers = getNamedMembers(Name.identifier(field.getName()));
+
+            if (!includeMember(field)) {
+                return;
+            }
+
+            TypeSource type = new TypeSource("", field.getType(), field0);
+            namedMembers.addPropertyAccessor(new PropertyAccessorData(field, type, null));
+        }
+
         private void processMethods() {
             
             for (PsiMethod method : psiClass.getPsiClass().getAllMethods()) {
@@ -110,108 +155,127 @@ class JavaDescriptorResolverHelper {
 
             
             for (PsiMethod method0 : psiClass.getPsiClass().getMethods()) {
-                PsiMethodWrapper method = new PsiMethodWrapper(method0);
-                
-                if (!includeMember(method)) {
-                    continue;
-                }
-
-                PropertyParseResult propertyParseResult = PropertyNameUtils.parseMethodToProperty(method.getName());
-
-                // TODO: remove getJavaClass
-                if (propertyParseResult != null && propertyParseResult.isGetter()) {
+                processMethod(new PsiMethodWrapper(method0));
+            }
+        }
 
-                    String propertyName = propertyParseResult.getPropertyName();
-                    NamedMembers members = getNamedMembers(Name.identifier(propertyName));
+        private void processMethod(PsiMethodWrapper method) {
+            PsiMethod method0 = method.getPsiMethod();
 
-                    // TODO: some java properties too
-                    if (method.getJetMethod().flags().get(JvmStdlibNames.FLAG_PROPERTY_BIT)) {
+            if (!includeMember(method)) {
+                return;
+            }
 
-                        int i = 0;
+            PropertyParseResult propertyParseResult = PropertyNameUtils.parseMethodToProperty(method.getName());
 
-                        TypeSource receiverType;
-                        if (i < method.getParameters().size() && method.getParameter(i).getJetValueParameter().receiver()) {
-                            PsiParameterWrapper receiverParameter = method.getParameter(i);
-                            receiverType = new TypeSource(receiverParameter.getJetValueParameter().type(), receiverParameter.getPsiParameter().getType(), receiverParameter.getPsiParameter());
-                            ++i;
-                        }
-                        else {
-                            receiverType = null;
-                        }
+            // TODO: remove getJavaClass
+            if (propertyParseResult != null && propertyParseResult.isGetter()) {
 
-                        while (i < method.getParameters().size() && method.getParameter(i).getJetTypeParameter().isDefined()) {
-                            // TODO: store is reified
-                            ++i;
-                        }
+                String propertyName = propertyParseResult.getPropertyName();
+                NamedMembers members = getNamedMembers(Name.identifier(propertyName));
 
-                        if (i != method.getParameters().size()) {
-                            // TODO: report error properly
-                            throw new IllegalStateException("something is wrong with method " + method0);
-                        }
+                // TODO: some java properties too
+                if (method.getJetMethod().flags().get(JvmStdlibNames.FLAG_PROPERTY_BIT)) {
 
-                        // TODO: what if returnType == null?
-                        TypeSource propertyType = new TypeSource(method.getJetMethod().propertyType(), method.getReturnType(), method.getPsiMethod());
+                    int i = 0;
 
-                        members.addPropertyAccessor(new PropertyAccessorData(method, true, propertyType, receiverType));
+                    TypeSource receiverType;
+                    if (i < method.getParameters().size() && method.getParameter(i).getJetValueParameter().receiver()) {
+                        PsiParameterWrapper receiverParameter = method.getParameter(i);
+                        receiverType = new TypeSource(receiverParameter.getJetValueParameter().type(), receiverParameter.getPsiParameter().getType(), receiverParameter.getPsiParameter());
+                        ++i;
                     }
-                    else if (!kotlin && false) {
-                        if (method.getParameters().size() == 0) {
-                            TypeSource propertyType = new TypeSource("", method.getReturnType(), method.getPsiMethod());
-                            members.addPropertyAccessor(new PropertyAccessorData(method, true, propertyType, null));
-                        }
+                    else {
+                        receiverType = null;
                     }
 
-                }
-                else if (propertyParseResult != null && !propertyParseResult.isGetter()) {
+                    while (i < method.getParameters().size() && method.getParameter(i).getJetTypeParameter().isDefined()) {
+                        // TODO: store is reified
+                        ++i;
+                    }
 
-                    String propertyName = propertyParseResult.getPropertyName();
-                    NamedMembers members = getNamedMembers(Name.identifier(propertyName));
+                    if (i != method.getParameters().size()) {
+                        // TODO: report error properly
+                        throw new IllegalStateException("something is wrong with method " + method0);
+                    }
 
-                    if (method.getJetMethod().flags().get(JvmStdlibNames.FLAG_PROPERTY_BIT)) {
-                        if (method.getParameters().size() == 0) {
-                            // TODO: report error properly
-                            throw new IllegalStateException();
-                        }
+                    // TODO: what if returnType == null?
+                    TypeSource propertyType = new TypeSource(method.getJetMethod().propertyType(), method.getReturnType(), method.getPsiMethod());
 
-                        int i = 0;
+                    members.addPropertyAccessor(new PropertyAccessorData(method, true, propertyType, receiverType));
+                }
+                else if (!kotlin && false) {
+                    if (method.getParameters().size() == 0) {
+                        TypeSource propertyType = new TypeSource("", method.getReturnType(), method.getPsiMethod());
+                        members.addPropertyAccessor(new PropertyAccessorData(method, true, propertyType, null));
+                    }
+                }
+
+            }
+            else if (propertyParseResult != null && !propertyParseResult.isGetter()) {
 
-                        TypeSource receiverType = null;
-                        PsiParameterWrapper p1 = method.getParameter(0);
-                        if (p1.getJetValueParameter().receiver()) {
-                            receiverType = new TypeSource(p1.getJetValueParameter().type(), p1.getPsiParameter().getType(), p1.getPsiParameter());
-                            ++i;
-                        }
+                String propertyName = propertyParseResult.getPropertyName();
+                NamedMembers members = getNamedMembers(Name.identifier(propertyName));
 
-                        while (i < method.getParameters().size() && method.getParameter(i).getJetTypeParameter().isDefined()) {
-                            ++i;
-                        }
+                if (method.getJetMethod().flags().get(JvmStdlibNames.FLAG_PROPERTY_BIT)) {
+                    if (method.getParameters().size() == 0) {
+                        // TODO: report error properly
+                        throw new IllegalStateException();
+                    }
 
-                        if (i + 1 != method.getParameters().size()) {
-                            throw new IllegalStateException();
-                        }
+                    int i = 0;
 
-                        PsiParameterWrapper propertyTypeParameter = method.getParameter(i);
-                        TypeSource propertyType = new TypeSource(method.getJetMethod().propertyType(), propertyTypeParameter.getPsiParameter().getType(), propertyTypeParameter.getPsiParameter());
+                    TypeSource receiverType = null;
+                    PsiParameterWrapper p1 = method.getParameter(0);
+                    if (p1.getJetValueParameter().receiver()) {
+                        receiverType = new TypeSource(p1.getJetValueParameter().type(), p1.getPsiParameter().getType(), p1.getPsiParameter());
+                        ++i;
+                    }
 
-                        members.addPropertyAccessor(new PropertyAccessorData(method, false, propertyType, receiverType));
+                    while (i < method.getParameters().size() && method.getParameter(i).getJetTypeParameter().isDefined()) {
+                        ++i;
                     }
-                    else if (!kotlin && false) {
-                        if (method.getParameters().size() == 1) {
-                            PsiParameter psiParameter = method.getParameters().get(0).getPsiParameter();
-                            TypeSource propertyType = new TypeSource("", psiParameter.getType(), psiParameter);
-                            members.addPropertyAccessor(new PropertyAccessorData(method, false, propertyType, null));
-                        }
+
+                    if (i + 1 != method.getParameters().size()) {
+                        throw new IllegalStateException();
                     }
+
+                    PsiParameterWrapper propertyTypeParameter = method.getParameter(i);
+                    TypeSource propertyType = new TypeSource(method.getJetMethod().propertyType(), propertyTypeParameter.getPsiParameter().getType(), propertyTypeParameter.getPsiParameter());
+
+                    members.addPropertyAccessor(new PropertyAccessorData(method, false, propertyType, receiverType));
                 }
-                
-                if (!method.getJetMethod().flags().get(JvmStdlibNames.FLAG_PROPERTY_BIT)) {
-                    NamedMembers namedMembers = getNamedMembers(Name.identifier(method.getName()));
-                    namedMembers.addMethod(method);
+                else if (!kotlin && false) {
+                    if (method.getParameters().size() == 1) {
+                        PsiParameter psiParameter = method.getParameters().get(0).getPsiParameter();
+                        TypeSource propertyType = new TypeSource("", psiParameter.getType(), psiParameter);
+                        members.addPropertyAccessor(new PropertyAccessorData(method, false, propertyType, null));
+                    }
                 }
             }
+            
+            if (!method.getJetMethod().flags().get(JvmStdlibNames.FLAG_PROPERTY_BIT)) {
+                NamedMembers namedMembers = getNamedMembers(Name.identifier(method.getName()));
+                namedMembers.addMethod(method);
+            }
         }
     }
 
+    /**
+     * Method names that may contribute to the group of member {@code name}: the name itself and its getter and setter
+     * names, both as written and capitalized.
+     */
+    @NotNull
+    private static Set<String> methodNamesForMember(@NotNull String name) {
+        Set<String> result = new LinkedHashSet<String>(5);
+        result.add(name);
+        for (String prefix : new String[] { JvmAbi.GETTER_PREFIX, JvmAbi.SETTER_PREFIX }) {
+            result.add(prefix + name);
+            result.add(prefix + StringUtil.capitalize(name));
+        }
+        return result;
+    }
+
 
     @NotNull
     static Map<Name, NamedMembers> getNamedMembers(@NotNull JavaDescriptorResolver.ResolverScopeData resolverScopeData) {
@@ -225,5 +289,18 @@ class JavaDescriptorResolverHelper {
         }
     }
 
+    /**
+     * Same as {@code getNamedMembers(resolverScopeData).get(name)}, but does not look at members with other names.
+     */
+    @Nullable
+    static NamedMembers getNamedMembers(@NotNull JavaDescriptorResolver.ResolverScopeData resolverScopeData, @NotNull Name name) {
+        if (resolverScopeData.psiClass == null || name.isSpecial()) {
+            return null;
+        }
+        Builder builder = new Builder(new PsiClassWrapper(resolverScopeData.psiClass), resolverScopeData.staticMembers, resolverScopeData.kotlin);
+        builder.runForName(name.getName());
+        return builder.namedMembersMap.get(name);
+    }
+
 
 }
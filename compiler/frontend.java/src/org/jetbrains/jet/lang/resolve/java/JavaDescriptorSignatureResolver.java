@@ -38,7 +38,6 @@ import org.jetbrains.jet.lang.types.lang.JetStandardClasses;
 import org.jetbrains.jet.lang.types.lang.JetStandardLibrary;
 import org.jetbrains.jet.rt.signature.JetSignatureAdapter;
 import org.jetbrains.jet.rt.signature.JetSignatureExceptionsAdapter;
-import org.jetbrains.jet.rt.signature.JetSignatureReader;
 import org.jetbrains.jet.rt.signature.JetSignatureVisitor;
 
 import javax.inject.Inject;
@@ -243,7 +242,7 @@ public class JavaDescriptorSignatureResolver {
                 return new JetSignatureAdapter();
             }
         };
-        new JetSignatureReader(jetSignature).accept(jetSignatureTypeParametersVisitor);
+        CachedJetSignatures.accept(jetSignature, jetSignatureTypeParametersVisitor);
         return jetSignatureTypeParametersVisitor.r;
     }
 
@@ -363,7 +362,7 @@ public class JavaDescriptorSignatureResolver {
     {
         String context = "method " + method.getName() + " in class " + method.getContainingClass().getQualifiedName();
         JetSignatureTypeParametersVisitor jetSignatureTypeParametersVisitor = new JetSignatureTypeParametersVisitor(functionDescriptor, method, context);
-        new JetSignatureReader(jetSignature).acceptFormalTypeParametersOnly(jetSignatureTypeParametersVisitor);
+        CachedJetSignatures.acceptFormalTypeParametersOnly(jetSignature, jetSignatureTypeParametersVisitor);
         return jetSignatureTypeParametersVisitor.r;
     }
 
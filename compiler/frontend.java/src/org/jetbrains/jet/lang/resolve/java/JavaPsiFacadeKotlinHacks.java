@@ -43,9 +43,12 @@ public class JavaPsiFacadeKotlinHacks {
 
     private final JavaFileManager javaFileManager;
     private final List<PsiElementFinder> extensionPsiElementFinders;
+    @Nullable
+    private final ClasspathIndex classpathIndex;
 
     public JavaPsiFacadeKotlinHacks(@NotNull Project project) {
         this.javaFileManager = findJavaFileManager(project);
+        this.classpathIndex = ClasspathIndex.getInstance(project);
         this.extensionPsiElementFinders = Lists.newArrayList();
         for (PsiElementFinder finder : project.getExtensions(PsiElementFinder.EP_NAME)) {
             if (!(finder instanceof KotlinFinderMarker)) {
@@ -70,9 +73,12 @@ public class JavaPsiFacadeKotlinHacks {
 
     @Nullable
     public PsiPackage findPackage(@NotNull String qualifiedName) {
-        PsiPackage psiPackage = javaFileManager.findPackage(qualifiedName);
-        if (psiPackage != null) {
-            return psiPackage;
+        PsiPackage psiPackage = null;
+        if (classpathIndex == null || classpathIndex.mayContainPackage(qualifiedName)) {
+            psiPackage = javaFileManager.findPackage(qualifiedName);
+            if (psiPackage != null) {
+                return psiPackage;
+            }
         }
 
         for (PsiElementFinder finder : extensionPsiElementFinders) {
@@ -87,9 +93,12 @@ public class JavaPsiFacadeKotlinHacks {
     public PsiClass findClass(@NotNull final String qualifiedName, @NotNull GlobalSearchScope scope) {
         ProgressIndicatorProvider.checkCanceled(); // We hope this method is being called often enough to cancel daemon processes smoothly
 
-        PsiClass aClass = javaFileManager.findClass(qualifiedName, scope);
-        if (aClass != null) {
-            return aClass;
+        PsiClass aClass;
+        if (classpathIndex == null || classpathIndex.mayContainClass(qualifiedName)) {
+            aClass = javaFileManager.findClass(qualifiedName, scope);
+            if (aClass != null) {
+                return aClass;
+            }
         }
 
         for (PsiElementFinder finder : extensionPsiElementFinders) {
@@ -30,7 +30,6 @@ import org.jetbrains.jet.lang.types.checker.JetTypeChecker;
 import org.jetbrains.jet.lang.types.lang.JetStandardClasses;
 import org.jetbrains.jet.lang.types.lang.JetStandardLibrary;
 import org.jetbrains.jet.lang.types.lang.PrimitiveType;
-import org.jetbrains.jet.rt.signature.JetSignatureReader;
 
 import javax.inject.Inject;
 import java.util.*;
@@ -105,7 +104,7 @@ public class JavaTypeTransformer {
                 r[0] = jetType;
             }
         };
-        new JetSignatureReader(kotlinSignature).acceptType(reader);
+        CachedJetSignatures.acceptType(kotlinSignature, reader);
         return r[0];
     }
 
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.lang.resolve.java.kt;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.util.TypeConversionUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.JvmClassName;
+import org.jetbrains.jet.lang.resolve.java.JvmStdlibNames;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.EmptyVisitor;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Kotlin metadata annotations (<tt>@JetClass</tt>, <tt>@JetMethod</tt>, <tt>@JetConstructor</tt>,
+ * <tt>@JetValueParameter</tt>, <tt>@JetTypeParameter</tt>) read straight from a class file with ASM.
+ *
+ * Reading them through compiled PSI builds annotation PSI for every member; here the class file is
+ * scanned once, without code, and only the attributes of these annotations are kept.
+ * The data is cached on the class file and is read on the first request. Classes whose compiled PSI has no annotations
+ * at all are not read: they can not carry Kotlin metadata.
+ *
+ * A method is looked up by its name and number of parameters, which compiled PSI knows without resolving
+ * anything. Parameter types are erased, which resolves them, only for overloads with the same number of parameters.
+ */
+public class ClassFileAnnotations {
+
+    private static final Key<ClassFileAnnotations> CLASS_FILE_ANNOTATIONS = Key.create("CLASS_FILE_ANNOTATIONS");
+
+    private static final Set<String> KOTLIN_ANNOTATIONS = new HashSet<String>(Arrays.asList(
+            JvmStdlibNames.JET_CLASS.getDescriptor(),
+            JvmStdlibNames.JET_METHOD.getDescriptor(),
+            JvmStdlibNames.JET_CONSTRUCTOR.getDescriptor(),
+            JvmStdlibNames.JET_VALUE_PARAMETER.getDescriptor(),
+            JvmStdlibNames.JET_TYPE_PARAMETER.getDescriptor()));
+
+    /**
+     * Annotations of a class, a method or a method parameter, by annotation descriptor.
+     */
+    public static class MemberAnnotations {
+        public static final MemberAnnotations EMPTY = new MemberAnnotations();
+
+        private Map<String, Map<String, Object>> annotations = Collections.emptyMap();
+
+        @Nullable
+        public Map<String, Object> get(@NotNull JvmClassName annotation) {
+            return annotations.get(annotation.getDescriptor());
+        }
+
+        Map<String, Object> add(String desc) {
+            if (annotations.isEmpty()) {
+                annotations = new HashMap<String, Map<String, Object>>(2);
+            }
+            Map<String, Object> attributes = new HashMap<String, Object>();
+            annotations.put(desc, attributes);
+            return attributes;
+        }
+    }
+
+    public static class MethodAnnotations extends MemberAnnotations {
+        public static final MethodAnnotations EMPTY = new MethodAnnotations(0);
+
+        private final MemberAnnotations[] parameters;
+
+        private MethodAnnotations(int parameterCount) {
+            parameters = new MemberAnnotations[parameterCount];
+        }
+
+        @NotNull
+        public MemberAnnotations getParameter(int index) {
+            MemberAnnotations parameter = index < parameters.length ? parameters[index] : null;
+            return parameter != null ? parameter : MemberAnnotations.EMPTY;
+        }
+    }
+
+    private final long modificationStamp;
+    private final MemberAnnotations classAnnotations = new MemberAnnotations();
+    @Nullable
+    private Map<String, MethodAnnotations> methods = new HashMap<String, MethodAnnotations>();
+    private final Set<String> ambiguousMethods = new HashSet<String>();
+    private final Map<String, MethodAnnotations> methodsByArity = new HashMap<String, MethodAnnotations>();
+    private final Set<String> overloadedArities = new HashSet<String>();
+    // constructors of inner classes and enums take synthetic parameters, which compiled PSI may not show
+    private boolean constructorsHaveSyntheticParameters = false;
+
+    private ClassFileAnnotations(long modificationStamp) {
+        this.modificationStamp = modificationStamp;
+    }
+
+    @NotNull
+    public MemberAnnotations getClassAnnotations() {
+        return classAnnotations;
+    }
+
+    /**
+     * @return <code>null</code> if the method can not be told apart from the others in the class file
+     */
+    @Nullable
+    private MethodAnnotations getMethod(@NotNull PsiMethod psiMethod) {
+        if (methods == null) {
+            // nothing in this class file is annotated
+            return MethodAnnotations.EMPTY;
+        }
+        if (psiMethod.isConstructor() && constructorsHaveSyntheticParameters) {
+            return null;
+        }
+        String arityKey = arityKey(psiMethod.isConstructor() ? "<init>" : psiMethod.getName(),
+                                   psiMethod.getParameterList().getParametersCount());
+        if (!overloadedArities.contains(arityKey)) {
+            return methodsByArity.get(arityKey);
+        }
+        return methods.get(methodKey(psiMethod));
+    }
+
+    /**
+     * @return <code>null</code> if the class is not compiled or its class file can not be read
+     */
+    @Nullable
+    public static ClassFileAnnotations forClass(@NotNull PsiClass psiClass) {
+        if (!(psiClass instanceof PsiCompiledElement)) {
+            return null;
+        }
+        VirtualFile classFile = findClassFile(psiClass);
+        if (classFile == null) {
+            return null;
+        }
+
+        ClassFileAnnotations annotations = classFile.getUserData(CLASS_FILE_ANNOTATIONS);
+        if (annotations != null && annotations.modificationStamp == classFile.getModificationStamp()) {
+            return annotations;
+        }
+
+        annotations = new ClassFileAnnotations(classFile.getModificationStamp());
+        if (hasAnnotations(psiClass)) {
+            try {
+                new ClassReader(classFile.contentsToByteArray())
+                        .accept(annotations.new Reader(), ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            }
+            catch (IOException e) {
+                return null;
+            }
+        }
+        annotations.dropIfNotAnnotated();
+        classFile.putUserData(CLASS_FILE_ANNOTATIONS, annotations);
+        return annotations;
+    }
+
+    /**
+     * @return <code>null</code> if the annotations should be read from PSI
+     */
+    @Nullable
+    public static MethodAnnotations forMethod(@NotNull PsiMethod psiMethod) {
+        PsiClass containingClass = psiMethod.getContainingClass();
+        if (containingClass == null) {
+            return null;
+        }
+        ClassFileAnnotations classFile = forClass(containingClass);
+        if (classFile == null) {
+            return null;
+        }
+        return classFile.getMethod(psiMethod);
+    }
+
+    /**
+     * @return <code>null</code> if the annotations should be read from PSI
+     */
+    @Nullable
+    public static MemberAnnotations forParameter(@NotNull PsiParameter psiParameter) {
+        PsiElement scope = psiParameter.getDeclarationScope();
+        if (!(scope instanceof PsiMethod)) {
+            return null;
+        }
+        PsiMethod psiMethod = (PsiMethod) scope;
+        MethodAnnotations method = forMethod(psiMethod);
+        if (method == null) {
+            return null;
+        }
+        return method.getParameter(psiMethod.getParameterList().getParameterIndex(psiParameter));
+    }
+
+    /**
+     * Compiled PSI keeps the annotations in its stubs, so a class without any annotations, as most library classes are,
+     * is told apart without reading its class file again.
+     */
+    private static boolean hasAnnotations(@NotNull PsiClass psiClass) {
+        if (hasAnnotations(psiClass.getModifierList())) {
+            return true;
+        }
+        for (PsiMethod method : psiClass.getMethods()) {
+            if (hasAnnotations(method.getModifierList())) {
+                return true;
+            }
+            for (PsiParameter parameter : method.getParameterList().getParameters()) {
+                if (hasAnnotations(parameter.getModifierList())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasAnnotations(@Nullable PsiModifierList modifierList) {
+        return modifierList != null && modifierList.getAnnotations().length > 0;
+    }
+
+    @Nullable
+    private static VirtualFile findClassFile(@NotNull PsiClass psiClass) {
+        StringBuilder binaryName = new StringBuilder(psiClass.getName());
+        PsiClass topLevelClass = psiClass;
+        while (topLevelClass.getContainingClass() != null) {
+            topLevelClass = topLevelClass.getContainingClass();
+            binaryName.insert(0, '$').insert(0, topLevelClass.getName());
+        }
+
+        PsiFile file = topLevelClass.getContainingFile();
+        VirtualFile virtualFile = file != null ? file.getVirtualFile() : null;
+        if (virtualFile == null || topLevelClass == psiClass) {
+            return virtualFile;
+        }
+        VirtualFile directory = virtualFile.getParent();
+        return directory != null ? directory.findChild(binaryName + ".class") : null;
+    }
+
+    @NotNull
+    private static String methodKey(@NotNull PsiMethod psiMethod) {
+        StringBuilder key = new StringBuilder(psiMethod.isConstructor() ? "<init>" : psiMethod.getName()).append('(');
+        for (PsiParameter parameter : psiMethod.getParameterList().getParameters()) {
+            PsiType type = parameter.getType();
+            if (type instanceof PsiEllipsisType) {
+                type = ((PsiEllipsisType) type).toArrayType();
+            }
+            key.append(TypeConversionUtil.erasure(type).getCanonicalText().replace('$', '.')).append(',');
+        }
+        return key.append(')').toString();
+    }
+
+    @NotNull
+    private static String arityKey(@NotNull String name, int parameterCount) {
+        return name + '/' + parameterCount;
+    }
+
+    @NotNull
+    private static String methodKey(@NotNull String name, @NotNull Type[] argumentTypes) {
+        StringBuilder key = new StringBuilder(name).append('(');
+        for (Type type : argumentTypes) {
+            key.append(type.getClassName().replace('$', '.')).append(',');
+        }
+        return key.append(')').toString();
+    }
+
+    private void dropIfNotAnnotated() {
+        if (classAnnotations.annotations.isEmpty() && ambiguousMethods.isEmpty() && methods != null) {
+            for (MethodAnnotations method : methods.values()) {
+                if (method != MethodAnnotations.EMPTY) {
+                    return;
+                }
+            }
+            methods = null;
+            methodsByArity.clear();
+            overloadedArities.clear();
+        }
+    }
+
+    @NotNull
+    public static <T> T getAttribute(@Nullable Map<String, Object> attributes, @NotNull String name, @NotNull T defaultValue) {
+        Object value = attributes != null ? attributes.get(name) : null;
+        if (value != null && value.getClass() == defaultValue.getClass()) {
+            //noinspection unchecked
+            return (T) value;
+        }
+        return defaultValue;
+    }
+
+    private static class AttributesReader extends EmptyVisitor {
+        private final Map<String, Object> attributes;
+
+        private AttributesReader(Map<String, Object> attributes) {
+            this.attributes = attributes;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            attributes.put(name, value);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc) {
+            return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            return null;
+        }
+    }
+
+    private class Reader extends EmptyVisitor {
+        private final Set<String> arities = new HashSet<String>();
+        private String className;
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            className = name;
+            if ((access & Opcodes.ACC_ENUM) != 0) {
+                constructorsHaveSyntheticParameters = true;
+            }
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (name.equals(className) && (access & Opcodes.ACC_STATIC) == 0) {
+                constructorsHaveSyntheticParameters = true;
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+            if (!KOTLIN_ANNOTATIONS.contains(desc)) {
+                return null;
+            }
+            return new AttributesReader(classAnnotations.add(desc));
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+            if ("<clinit>".equals(name)) {
+                return null;
+            }
+            Type[] argumentTypes = Type.getArgumentTypes(desc);
+            final int parameterCount = argumentTypes.length;
+            final String arityKey = arityKey(name, parameterCount);
+            // synthetic methods are counted too, in case compiled PSI shows them
+            if (!arities.add(arityKey)) {
+                overloadedArities.add(arityKey);
+            }
+            if ((access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0) {
+                return null;
+            }
+            final String key = methodKey(name, argumentTypes);
+            if (methods.containsKey(key) || ambiguousMethods.contains(key)) {
+                // differs only in the return type: leave it to PSI
+                methods.remove(key);
+                ambiguousMethods.add(key);
+                return null;
+            }
+            methods.put(key, MethodAnnotations.EMPTY);
+            methodsByArity.put(arityKey, MethodAnnotations.EMPTY);
+
+            return new EmptyVisitor() {
+                private MethodAnnotations method;
+
+                private MethodAnnotations getOrCreateMethod() {
+                    if (method == null) {
+                        method = new MethodAnnotations(parameterCount);
+                        methods.put(key, method);
+                        methodsByArity.put(arityKey, method);
+                    }
+                    return method;
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    if (!KOTLIN_ANNOTATIONS.contains(desc)) {
+                        return null;
+                    }
+                    return new AttributesReader(getOrCreateMethod().add(desc));
+                }
+
+                @Override
+                public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
+                    if (!KOTLIN_ANNOTATIONS.contains(desc) || parameter >= parameterCount) {
+                        return null;
+                    }
+                    MethodAnnotations method = getOrCreateMethod();
+                    if (method.parameters[parameter] == null) {
+                        method.parameters[parameter] = new MemberAnnotations();
+                    }
+                    return new AttributesReader(method.parameters[parameter].add(desc));
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotationDefault() {
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            return null;
+        }
+    }
+}
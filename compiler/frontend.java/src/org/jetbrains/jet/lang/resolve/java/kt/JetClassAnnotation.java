@@ -25,6 +25,7 @@ import org.jetbrains.jet.lang.resolve.java.JvmStdlibNames;
 import org.jetbrains.jet.utils.BitSetUtils;
 
 import java.util.BitSet;
+import java.util.Map;
 
 /**
  * @author Stepan Koltsov
@@ -34,6 +35,10 @@ public class JetClassAnnotation extends PsiAnnotationWithFlags {
     public JetClassAnnotation(@Nullable PsiAnnotation psiAnnotation) {
         super(psiAnnotation);
     }
+
+    public JetClassAnnotation(@Nullable Map<String, Object> classFileAttributes) {
+        super(classFileAttributes);
+    }
     
     private String signature;
     public String signature() {
@@ -55,6 +60,10 @@ public class JetClassAnnotation extends PsiAnnotationWithFlags {
     
     @NotNull
     public static JetClassAnnotation get(PsiClass psiClass) {
+        ClassFileAnnotations classFile = ClassFileAnnotations.forClass(psiClass);
+        if (classFile != null) {
+            return new JetClassAnnotation(classFile.getClassAnnotations().get(JvmStdlibNames.JET_CLASS));
+        }
         return new JetClassAnnotation(JavaDescriptorResolver.findAnnotation(psiClass, JvmStdlibNames.JET_CLASS.getFqName().getFqName()));
     }
 }
@@ -25,6 +25,7 @@ import org.jetbrains.jet.lang.resolve.java.JvmStdlibNames;
 import org.jetbrains.jet.utils.BitSetUtils;
 
 import java.util.BitSet;
+import java.util.Map;
 
 /**
  * @author Stepan Koltsov
@@ -35,6 +36,10 @@ public class JetConstructorAnnotation extends PsiAnnotationWithFlags {
         super(psiAnnotation);
     }
 
+    public JetConstructorAnnotation(@Nullable Map<String, Object> classFileAttributes) {
+        super(classFileAttributes);
+    }
+
     private boolean hidden;
     private boolean hiddenInitialized = false;
     /** @deprecated */
@@ -57,6 +62,10 @@ public class JetConstructorAnnotation extends PsiAnnotationWithFlags {
     }
     
     public static JetConstructorAnnotation get(PsiMethod constructor) {
+        ClassFileAnnotations.MethodAnnotations classFileMethod = ClassFileAnnotations.forMethod(constructor);
+        if (classFileMethod != null) {
+            return new JetConstructorAnnotation(classFileMethod.get(JvmStdlibNames.JET_CONSTRUCTOR));
+        }
         return new JetConstructorAnnotation(JavaDescriptorResolver.findAnnotation(constructor, JvmStdlibNames.JET_CONSTRUCTOR.getFqName().getFqName()));
     }
 }
@@ -25,6 +25,7 @@ import org.jetbrains.jet.lang.resolve.java.JvmStdlibNames;
 import org.jetbrains.jet.utils.BitSetUtils;
 
 import java.util.BitSet;
+import java.util.Map;
 
 /**
  * @author Stepan Koltsov
@@ -34,6 +35,10 @@ public class JetMethodAnnotation extends PsiAnnotationWithFlags {
     public JetMethodAnnotation(@Nullable PsiAnnotation psiAnnotation) {
         super(psiAnnotation);
     }
+
+    public JetMethodAnnotation(@Nullable Map<String, Object> classFileAttributes) {
+        super(classFileAttributes);
+    }
     
     private BitSet flags = null;
     @NotNull
@@ -89,6 +94,10 @@ public class JetMethodAnnotation extends PsiAnnotationWithFlags {
     }
 
     public static JetMethodAnnotation get(PsiMethod psiMethod) {
+        ClassFileAnnotations.MethodAnnotations classFileMethod = ClassFileAnnotations.forMethod(psiMethod);
+        if (classFileMethod != null) {
+            return new JetMethodAnnotation(classFileMethod.get(JvmStdlibNames.JET_METHOD));
+        }
         return new JetMethodAnnotation(JavaDescriptorResolver.findAnnotation(psiMethod, JvmStdlibNames.JET_METHOD.getFqName().getFqName()));
     }
 }
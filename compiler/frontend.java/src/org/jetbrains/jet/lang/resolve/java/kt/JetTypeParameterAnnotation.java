@@ -23,6 +23,8 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.resolve.java.JavaDescriptorResolver;
 import org.jetbrains.jet.lang.resolve.java.JvmStdlibNames;
 
+import java.util.Map;
+
 /**
  * @author Stepan Koltsov
  */
@@ -32,8 +34,16 @@ public class JetTypeParameterAnnotation extends PsiAnnotationWrapper {
         super(psiAnnotation);
     }
 
+    protected JetTypeParameterAnnotation(@Nullable Map<String, Object> classFileAttributes) {
+        super(classFileAttributes);
+    }
+
     @NotNull
     public static JetTypeParameterAnnotation get(@NotNull PsiParameter psiParameter) {
+        ClassFileAnnotations.MemberAnnotations classFileParameter = ClassFileAnnotations.forParameter(psiParameter);
+        if (classFileParameter != null) {
+            return new JetTypeParameterAnnotation(classFileParameter.get(JvmStdlibNames.JET_TYPE_PARAMETER));
+        }
         return new JetTypeParameterAnnotation(
                 JavaDescriptorResolver.findAnnotation(psiParameter, JvmStdlibNames.JET_TYPE_PARAMETER.getFqName().getFqName()));
     }
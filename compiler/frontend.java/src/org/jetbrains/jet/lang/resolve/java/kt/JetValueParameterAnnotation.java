@@ -23,6 +23,8 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.resolve.java.JavaDescriptorResolver;
 import org.jetbrains.jet.lang.resolve.java.JvmStdlibNames;
 
+import java.util.Map;
+
 /**
  * @author Stepan Koltsov
  */
@@ -31,6 +33,10 @@ public class JetValueParameterAnnotation extends PsiAnnotationWrapper {
     public JetValueParameterAnnotation(@Nullable PsiAnnotation psiAnnotation) {
         super(psiAnnotation);
     }
+
+    public JetValueParameterAnnotation(@Nullable Map<String, Object> classFileAttributes) {
+        super(classFileAttributes);
+    }
     
     private String name;
     @NotNull
@@ -81,6 +87,10 @@ public class JetValueParameterAnnotation extends PsiAnnotationWrapper {
     }
     
     public static JetValueParameterAnnotation get(PsiParameter psiParameter) {
+        ClassFileAnnotations.MemberAnnotations classFileParameter = ClassFileAnnotations.forParameter(psiParameter);
+        if (classFileParameter != null) {
+            return new JetValueParameterAnnotation(classFileParameter.get(JvmStdlibNames.JET_VALUE_PARAMETER));
+        }
         return new JetValueParameterAnnotation(
                 JavaDescriptorResolver.findAnnotation(psiParameter, JvmStdlibNames.JET_VALUE_PARAMETER.getFqName().getFqName()));
     }
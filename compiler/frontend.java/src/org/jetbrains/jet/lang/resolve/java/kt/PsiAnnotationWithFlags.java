@@ -21,6 +21,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.BitSet;
+import java.util.Map;
 
 /**
  * @author Evgeny Gerashchenko
@@ -31,6 +32,10 @@ public abstract class PsiAnnotationWithFlags extends PsiAnnotationWrapper {
         super(psiAnnotation);
     }
 
+    protected PsiAnnotationWithFlags(@Nullable Map<String, Object> classFileAttributes) {
+        super(classFileAttributes);
+    }
+
     @NotNull
     public abstract BitSet flags();
 }
@@ -20,6 +20,8 @@ import com.intellij.psi.PsiAnnotation;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Map;
+
 /**
  * @author Stepan Koltsov
  */
@@ -28,29 +30,48 @@ public abstract class PsiAnnotationWrapper {
     @Nullable
     private PsiAnnotation psiAnnotation;
 
+    /**
+     * Attributes read from the class file by {@link ClassFileAnnotations}, used instead of {@link #psiAnnotation}
+     */
+    @Nullable
+    private Map<String, Object> classFileAttributes;
+
     protected PsiAnnotationWrapper(@Nullable PsiAnnotation psiAnnotation) {
         this.psiAnnotation = psiAnnotation;
     }
 
+    protected PsiAnnotationWrapper(@Nullable Map<String, Object> classFileAttributes) {
+        this.classFileAttributes = classFileAttributes;
+    }
+
     @Nullable
     public PsiAnnotation getPsiAnnotation() {
         return psiAnnotation;
     }
 
     public boolean isDefined() {
-        return psiAnnotation != null;
+        return psiAnnotation != null || classFileAttributes != null;
     }
     
     @NotNull
     protected String getStringAttribute(String name, String defaultValue) {
+        if (classFileAttributes != null) {
+            return ClassFileAnnotations.getAttribute(classFileAttributes, name, defaultValue);
+        }
         return PsiAnnotationUtils.getStringAttribute(psiAnnotation, name, defaultValue);
     }
     
     protected boolean getBooleanAttribute(String name, boolean defaultValue) {
+        if (classFileAttributes != null) {
+            return ClassFileAnnotations.getAttribute(classFileAttributes, name, defaultValue);
+        }
         return PsiAnnotationUtils.getBooleanAttribute(psiAnnotation, name, defaultValue);
     }
 
     protected int getIntAttribute(String name, int defaultValue) {
+        if (classFileAttributes != null) {
+            return ClassFileAnnotations.getAttribute(classFileAttributes, name, defaultValue);
+        }
         return PsiAnnotationUtils.getIntAttribute(psiAnnotation, name, defaultValue);
     }
 
@@ -88,6 +88,9 @@ public interface BindingContext {
 
     WritableSlice<JetExpression, JetType> AUTOCAST = Slices.createSimpleSlice();
 
+    /** Expressions of nullable type whose value is proven to be not null by data flow analysis */
+    WritableSlice<JetExpression, Boolean> KNOWN_NOT_NULL = Slices.createSimpleSetSlice();
+
     /** A scope where type of expression has been resolved */
     WritableSlice<JetTypeReference, JetScope> TYPE_RESOLUTION_SCOPE = Slices.createSimpleSlice();
     WritableSlice<JetExpression, JetScope> RESOLUTION_SCOPE = Slices.createSimpleSlice();
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.util.slicedmap.ReadOnlySlice;
+import org.jetbrains.jet.util.slicedmap.WritableSlice;
+
+import java.util.Collection;
+
+/**
+ * Serializes all access to the original trace, so that it can be shared by threads resolving lazily.
+ * Collections are returned as snapshots. Rewrite checks of the original trace run under the lock, so values recorded
+ * here should not need lazy computations of other threads to be compared.
+ */
+public class LockProtectedTrace implements BindingTrace {
+    private final BindingTrace originalTrace;
+    private final Object lock = new Object();
+
+    private final BindingContext bindingContext = new BindingContext() {
+        @Override
+        public Collection<Diagnostic> getDiagnostics() {
+            synchronized (lock) {
+                return Lists.newArrayList(originalTrace.getBindingContext().getDiagnostics());
+            }
+        }
+
+        @Override
+        public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+            return LockProtectedTrace.this.get(slice, key);
+        }
+
+        @NotNull
+        @Override
+        public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
+            return LockProtectedTrace.this.getKeys(slice);
+        }
+    };
+
+    public LockProtectedTrace(@NotNull BindingTrace originalTrace) {
+        this.originalTrace = originalTrace;
+    }
+
+    @Override
+    public BindingContext getBindingContext() {
+        return bindingContext;
+    }
+
+    @Override
+    public void report(@NotNull Diagnostic diagnostic) {
+        synchronized (lock) {
+            originalTrace.report(diagnostic);
+        }
+    }
+
+    @Override
+    public <K, V> void record(WritableSlice<K, V> slice, K key, V value) {
+        synchronized (lock) {
+            originalTrace.record(slice, key, value);
+        }
+    }
+
+    @Override
+    public <K> void record(WritableSlice<K, Boolean> slice, K key) {
+        record(slice, key, true);
+    }
+
+    @Override
+    public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+        synchronized (lock) {
+            return originalTrace.get(slice, key);
+        }
+    }
+
+    @NotNull
+    @Override
+    public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
+        synchronized (lock) {
+            return Lists.newArrayList(originalTrace.getKeys(slice));
+        }
+    }
+}
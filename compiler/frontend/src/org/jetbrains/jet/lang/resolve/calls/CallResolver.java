@@ -30,6 +30,8 @@ import org.jetbrains.jet.lang.psi.*;
 import org.jetbrains.jet.lang.resolve.*;
 import org.jetbrains.jet.lang.resolve.calls.autocasts.AutoCastServiceImpl;
 import org.jetbrains.jet.lang.resolve.calls.autocasts.DataFlowInfo;
+import org.jetbrains.jet.lang.resolve.calls.autocasts.DataFlowValue;
+import org.jetbrains.jet.lang.resolve.calls.autocasts.DataFlowValueFactory;
 import org.jetbrains.jet.lang.resolve.calls.inference.ConstraintSystem;
 import org.jetbrains.jet.lang.resolve.calls.inference.ConstraintSystemSolution;
 import org.jetbrains.jet.lang.resolve.calls.inference.ConstraintSystemWithPriorities;
@@ -746,7 +748,8 @@ public class CallResolver {
             boolean safeAccess = isExplicitReceiver && !implicitInvokeCheck && candidateCall.isSafeCall();
             JetType receiverArgumentType = receiverArgument.getType();
             AutoCastServiceImpl autoCastService = new AutoCastServiceImpl(context.dataFlowInfo, context.candidateCall.getTrace().getBindingContext());
-            if (!safeAccess && !receiverParameter.getType().isNullable() && !autoCastService.isNotNull(receiverArgument)) {
+            boolean receiverIsNotNull = autoCastService.isNotNull(receiverArgument);
+            if (!safeAccess && !receiverParameter.getType().isNullable() && !receiverIsNotNull) {
 
                 context.tracing.unsafeCall(context.candidateCall.getTrace(), receiverArgumentType, implicitInvokeCheck);
                 result = UNSAFE_CALL_ERROR;
@@ -763,10 +766,22 @@ public class CallResolver {
             if (safeAccess && !receiverArgumentType.isNullable()) {
                 context.tracing.unnecessarySafeCall(context.candidateCall.getTrace(), receiverArgumentType);
             }
+            if (receiverIsNotNull && receiverArgumentType.isNullable()) {
+                recordKnownNotNull(receiverArgument, context.candidateCall.getTrace());
+            }
         }
         return result;
     }
 
+    private static void recordKnownNotNull(ReceiverDescriptor receiver, BindingTrace trace) {
+        if (!(receiver instanceof ExpressionReceiver)) return;
+        JetExpression expression = ((ExpressionReceiver) receiver).getExpression();
+        DataFlowValue dataFlowValue = DataFlowValueFactory.INSTANCE.createDataFlowValue(expression, receiver.getType(), trace.getBindingContext());
+        if (dataFlowValue.isStableIdentifier()) {
+            trace.record(KNOWN_NOT_NULL, expression);
+        }
+    }
+
     private <D extends CallableDescriptor, F extends D> ResolutionStatus checkValueArgumentTypes(CallResolutionContext<D, F> context) {
         ResolutionStatus result = SUCCESS;
         DataFlowInfo dataFlowInfo = context.dataFlowInfo;
@@ -17,7 +17,6 @@
 package org.jetbrains.jet.lang.resolve.lazy;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -28,8 +27,11 @@ import org.jetbrains.jet.lang.resolve.name.LabelName;
 import org.jetbrains.jet.lang.resolve.name.Name;
 import org.jetbrains.jet.lang.resolve.scopes.JetScope;
 import org.jetbrains.jet.lang.resolve.scopes.receivers.ReceiverDescriptor;
+import org.jetbrains.jet.util.lazy.LazyValue;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author abreslav
@@ -39,13 +41,14 @@ public abstract class AbstractLazyMemberScope<D extends DeclarationDescriptor, D
     protected final DP declarationProvider;
     protected final D thisDescriptor;
 
-    protected boolean allDescriptorsComputed = false;
+    protected volatile boolean allDescriptorsComputed = false;
 
-    private final Map<Name, ClassDescriptor> classDescriptors = Maps.newHashMap();
-    private final Map<Name, Set<FunctionDescriptor>> functionDescriptors = Maps.newHashMap();
-    private final Map<Name, Set<VariableDescriptor>> propertyDescriptors = Maps.newHashMap();
+    // Descriptors are created once per name even when the scope is queried from several threads
+    private final ConcurrentMap<Name, LazyValue<ClassDescriptor>> classDescriptors = new ConcurrentHashMap<Name, LazyValue<ClassDescriptor>>();
+    private final ConcurrentMap<Name, LazyValue<Set<FunctionDescriptor>>> functionDescriptors = new ConcurrentHashMap<Name, LazyValue<Set<FunctionDescriptor>>>();
+    private final ConcurrentMap<Name, LazyValue<Set<VariableDescriptor>>> propertyDescriptors = new ConcurrentHashMap<Name, LazyValue<Set<VariableDescriptor>>>();
 
-    protected final List<DeclarationDescriptor> allDescriptors = Lists.newArrayList();
+    protected final List<DeclarationDescriptor> allDescriptors = Collections.synchronizedList(Lists.<DeclarationDescriptor>newArrayList());
 
     protected AbstractLazyMemberScope(
             @NotNull ResolveSession resolveSession,
@@ -57,25 +60,63 @@ public abstract class AbstractLazyMemberScope<D extends DeclarationDescriptor, D
         this.thisDescriptor = thisDescriptor;
     }
 
+    /**
+     * Returns the value cached for the name, computing it once if absent. Empty collections are not cached unless keepEmpty is set.
+     */
+    protected static <T> T computeOnce(
+            @NotNull ConcurrentMap<Name, LazyValue<T>> cache,
+            @NotNull Name name,
+            @NotNull LazyValue<T> computation,
+            boolean keepEmpty
+    ) {
+        LazyValue<T> known = cache.putIfAbsent(name, computation);
+        LazyValue<T> lazyValue = known != null ? known : computation;
+        T value;
+        try {
+            value = lazyValue.get();
+        }
+        catch (RuntimeException e) {
+            forgetFailed(cache, name, lazyValue);
+            throw e;
+        }
+        catch (Error e) {
+            forgetFailed(cache, name, lazyValue);
+            throw e;
+        }
+        if (!keepEmpty && value instanceof Collection && ((Collection) value).isEmpty()) {
+            cache.remove(name, lazyValue);
+        }
+        return value;
+    }
+
+    private static <T> void forgetFailed(@NotNull ConcurrentMap<Name, LazyValue<T>> cache, @NotNull Name name, @NotNull LazyValue<T> lazyValue) {
+        // Values that failed to compute (but did not reenter) are created anew on the next query
+        if (!lazyValue.isComputed()) {
+            cache.remove(name, lazyValue);
+        }
+    }
+
     @Nullable
-    private ClassDescriptor getClassOrObjectDescriptor(@NotNull Name name, boolean object) {
-        ClassDescriptor known = classDescriptors.get(name);
-        if (known != null) return known;
+    private ClassDescriptor getClassOrObjectDescriptor(@NotNull final Name name, boolean object) {
+        LazyValue<ClassDescriptor> known = classDescriptors.get(name);
+        if (known != null) return known.get();
 
         if (allDescriptorsComputed) return null;
 
-        JetClassOrObject classOrObjectDeclaration = declarationProvider.getClassOrObjectDeclaration(name);
+        final JetClassOrObject classOrObjectDeclaration = declarationProvider.getClassOrObjectDeclaration(name);
         if (classOrObjectDeclaration == null) return null;
 
         if (object != classOrObjectDeclaration instanceof JetObjectDeclaration) return null;
 
-        ClassDescriptor classDescriptor = new LazyClassDescriptor(resolveSession, thisDescriptor, name,
-                                                                  JetClassInfoUtil.createClassLikeInfo(classOrObjectDeclaration));
-
-        classDescriptors.put(name, classDescriptor);
-        allDescriptors.add(classDescriptor);
-
-        return classDescriptor;
+        return computeOnce(classDescriptors, name, new LazyValue<ClassDescriptor>() {
+            @Override
+            protected ClassDescriptor compute() {
+                ClassDescriptor classDescriptor = new LazyClassDescriptor(resolveSession, thisDescriptor, name,
+                                                                          JetClassInfoUtil.createClassLikeInfo(classOrObjectDeclaration));
+                allDescriptors.add(classDescriptor);
+                return classDescriptor;
+            }
+        }, true);
     }
 
     @Override
@@ -91,13 +132,23 @@ public abstract class AbstractLazyMemberScope<D extends DeclarationDescriptor, D
 
     @NotNull
     @Override
-    public Set<FunctionDescriptor> getFunctions(@NotNull Name name) {
-        Set<FunctionDescriptor> known = functionDescriptors.get(name);
-        if (known != null) return known;
+    public Set<FunctionDescriptor> getFunctions(@NotNull final Name name) {
+        LazyValue<Set<FunctionDescriptor>> known = functionDescriptors.get(name);
+        if (known != null) return known.get();
 
         // If all descriptors are already computed, we are
         if (allDescriptorsComputed) return Collections.emptySet();
 
+        return computeOnce(functionDescriptors, name, new LazyValue<Set<FunctionDescriptor>>() {
+            @Override
+            protected Set<FunctionDescriptor> compute() {
+                return computeFunctions(name);
+            }
+        }, false);
+    }
+
+    @NotNull
+    private Set<FunctionDescriptor> computeFunctions(@NotNull Name name) {
         Set<FunctionDescriptor> result = Sets.newLinkedHashSet();
 
         Collection<JetNamedFunction> declarations = declarationProvider.getFunctionDeclarations(name);
@@ -110,10 +161,7 @@ public abstract class AbstractLazyMemberScope<D extends DeclarationDescriptor, D
 
         getNonDeclaredFunctions(name, result);
 
-        if (!result.isEmpty()) {
-            functionDescriptors.put(name, result);
-            allDescriptors.addAll(result);
-        }
+        allDescriptors.addAll(result);
         return result;
     }
 
@@ -124,13 +172,23 @@ public abstract class AbstractLazyMemberScope<D extends DeclarationDescriptor, D
 
     @NotNull
     @Override
-    public Set<VariableDescriptor> getProperties(@NotNull Name name) {
-        Set<VariableDescriptor> known = propertyDescriptors.get(name);
-        if (known != null) return known;
+    public Set<VariableDescriptor> getProperties(@NotNull final Name name) {
+        LazyValue<Set<VariableDescriptor>> known = propertyDescriptors.get(name);
+        if (known != null) return known.get();
 
         // If all descriptors are already computed, we are
         if (allDescriptorsComputed) return Collections.emptySet();
 
+        return computeOnce(propertyDescriptors, name, new LazyValue<Set<VariableDescriptor>>() {
+            @Override
+            protected Set<VariableDescriptor> compute() {
+                return computeProperties(name);
+            }
+        }, false);
+    }
+
+    @NotNull
+    private Set<VariableDescriptor> computeProperties(@NotNull Name name) {
         Set<VariableDescriptor> result = Sets.newLinkedHashSet();
 
         Collection<JetProperty> declarations = declarationProvider.getPropertyDeclarations(name);
@@ -156,10 +214,7 @@ public abstract class AbstractLazyMemberScope<D extends DeclarationDescriptor, D
 
         getNonDeclaredProperties(name, result);
 
-        if (!result.isEmpty()) {
-            propertyDescriptors.put(name, result);
-            allDescriptors.addAll(result);
-        }
+        allDescriptors.addAll(result);
         return result;
     }
 
@@ -232,7 +287,9 @@ public abstract class AbstractLazyMemberScope<D extends DeclarationDescriptor, D
         }
         addExtraDescriptors();
         allDescriptorsComputed = true;
-        return allDescriptors;
+        synchronized (allDescriptors) {
+            return Lists.newArrayList(allDescriptors);
+        }
     }
 
     protected abstract void addExtraDescriptors();
@@ -36,13 +36,17 @@ public abstract class AbstractPsiBasedDeclarationProvider implements Declaration
     private final Multimap<Name, JetProperty> properties = HashMultimap.create();
     private final Map<Name, JetClassOrObject> classesAndObjects = Maps.newHashMap();
 
-    private boolean indexCreated = false;
+    // The index is filled once, under the lock, and only read after the flag is seen set
+    private volatile boolean indexCreated = false;
 
     protected final void createIndex() {
         if (indexCreated) return;
-        indexCreated = true;
+        synchronized (this) {
+            if (indexCreated) return;
 
-        doCreateIndex();
+            doCreateIndex();
+            indexCreated = true;
+        }
     }
 
     protected abstract void doCreateIndex();
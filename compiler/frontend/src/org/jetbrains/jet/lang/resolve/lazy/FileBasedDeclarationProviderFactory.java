@@ -26,8 +26,9 @@ import org.jetbrains.jet.lang.resolve.lazy.data.JetClassLikeInfo;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 
 import java.util.Collection;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author abreslav
@@ -38,12 +39,14 @@ public class FileBasedDeclarationProviderFactory implements DeclarationProviderF
 
     private final Multimap<FqName, JetFile> filesByPackage = HashMultimap.create();
     private final Set<FqName> declaredPackages = Sets.newHashSet();
-    private final Map<FqName, PackageMemberDeclarationProvider> packageDeclarationProviders = Maps.newHashMap();
+    private final ConcurrentMap<FqName, PackageMemberDeclarationProvider> packageDeclarationProviders =
+            new ConcurrentHashMap<FqName, PackageMemberDeclarationProvider>();
     //private final Map<JetClassOrObject, ClassMemberDeclarationProvider> classMemberDeclarationProviders = Maps.newHashMap();
 
     private final Predicate<FqName> isPackageDeclaredExternally;
 
-    private boolean indexed = false;
+    // The index is filled once, under the lock, and only read after the flag is seen set
+    private volatile boolean indexed = false;
 
     public FileBasedDeclarationProviderFactory(@NotNull Collection<JetFile> files) {
         this(files, Predicates.<FqName>alwaysFalse());
@@ -56,17 +59,20 @@ public class FileBasedDeclarationProviderFactory implements DeclarationProviderF
 
     private void createIndex() {
         if (indexed) return;
-        indexed = true;
-
-        for (JetFile file : allFiles) {
-            JetNamespaceHeader header = file.getNamespaceHeader();
-            if (header == null) {
-                throw new IllegalArgumentException("Scripts are not supported");
+        synchronized (this) {
+            if (indexed) return;
+
+            for (JetFile file : allFiles) {
+                JetNamespaceHeader header = file.getNamespaceHeader();
+                if (header == null) {
+                    throw new IllegalArgumentException("Scripts are not supported");
+                }
+
+                FqName packageFqName = new FqName(header.getQualifiedName());
+                addMeAndParentPackages(packageFqName);
+                filesByPackage.put(packageFqName, file);
             }
-
-            FqName packageFqName = new FqName(header.getQualifiedName());
-            addMeAndParentPackages(packageFqName);
-            filesByPackage.put(packageFqName, file);
+            indexed = true;
         }
     }
 
@@ -87,6 +93,7 @@ public class FileBasedDeclarationProviderFactory implements DeclarationProviderF
     }
 
     /*package*/ Collection<FqName> getAllDeclaredSubPackagesOf(@NotNull final FqName parent) {
+        createIndex();
         return Collections2.filter(declaredPackages, new Predicate<FqName>() {
             @Override
             public boolean apply(FqName fqName) {
@@ -113,9 +120,9 @@ public class FileBasedDeclarationProviderFactory implements DeclarationProviderF
 
         FileBasedPackageMemberDeclarationProvider provider =
                 new FileBasedPackageMemberDeclarationProvider(packageFqName, this, filesByPackage.get(packageFqName));
-        packageDeclarationProviders.put(packageFqName, provider);
+        PackageMemberDeclarationProvider existing = packageDeclarationProviders.putIfAbsent(packageFqName, provider);
 
-        return provider;
+        return existing != null ? existing : provider;
     }
 
     @NotNull
@@ -31,7 +31,7 @@ public class FileBasedPackageMemberDeclarationProvider extends AbstractPsiBasedD
     private final FqName fqName;
     private final FileBasedDeclarationProviderFactory factory;
     private final Collection<JetFile> allFiles;
-    private Collection<FqName> allDeclaredPackages;
+    private volatile Collection<FqName> allDeclaredPackages;
 
 
     /*package*/ FileBasedPackageMemberDeclarationProvider(
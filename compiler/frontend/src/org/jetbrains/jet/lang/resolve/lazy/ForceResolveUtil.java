@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.lang.resolve.lazy;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.types.DeferredType;
+import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.lang.types.TypeProjection;
+
+import java.util.Collection;
+
+/**
+ * Forces the computation of everything a lazily resolved declaration exposes in its header
+ * (supertypes, signatures, bounds, member lists). Bodies are not resolved, except for
+ * those needed to infer a declared type.
+ */
+public class ForceResolveUtil {
+
+    private ForceResolveUtil() {
+    }
+
+    public static void forceResolveAllContents(@NotNull DeclarationDescriptor descriptor) {
+        if (descriptor instanceof ClassDescriptor) {
+            forceResolveClass((ClassDescriptor) descriptor);
+        }
+        else if (descriptor instanceof CallableDescriptor) {
+            forceResolveCallable((CallableDescriptor) descriptor);
+        }
+        else if (descriptor instanceof TypeParameterDescriptor) {
+            forceResolveTypes(((TypeParameterDescriptor) descriptor).getUpperBounds());
+        }
+    }
+
+    private static void forceResolveClass(@NotNull ClassDescriptor classDescriptor) {
+        classDescriptor.getAnnotations();
+        forceResolveTypes(classDescriptor.getTypeConstructor().getSupertypes());
+        forceResolveTypeParameters(classDescriptor.getTypeConstructor().getParameters());
+        for (ConstructorDescriptor constructor : classDescriptor.getConstructors()) {
+            forceResolveCallable(constructor);
+        }
+        ClassDescriptor classObjectDescriptor = classDescriptor.getClassObjectDescriptor();
+        if (classObjectDescriptor != null) {
+            forceResolveClass(classObjectDescriptor);
+        }
+        // Fake overrides are only known once the whole member scope is built
+        for (DeclarationDescriptor member : classDescriptor.getDefaultType().getMemberScope().getAllDescriptors()) {
+            if (member instanceof CallableDescriptor) {
+                forceResolveCallable((CallableDescriptor) member);
+            }
+        }
+    }
+
+    private static void forceResolveCallable(@NotNull CallableDescriptor callable) {
+        forceResolveTypeParameters(callable.getTypeParameters());
+        if (callable.getReceiverParameter().exists()) {
+            forceResolveType(callable.getReceiverParameter().getType());
+        }
+        for (ValueParameterDescriptor parameter : callable.getValueParameters()) {
+            forceResolveType(parameter.getType());
+        }
+        JetType returnType = callable.getReturnType();
+        if (returnType != null) {
+            forceResolveType(returnType);
+        }
+    }
+
+    private static void forceResolveTypeParameters(@NotNull Collection<TypeParameterDescriptor> typeParameters) {
+        for (TypeParameterDescriptor typeParameter : typeParameters) {
+            forceResolveTypes(typeParameter.getUpperBounds());
+        }
+    }
+
+    private static void forceResolveTypes(@NotNull Collection<JetType> types) {
+        for (JetType type : types) {
+            forceResolveType(type);
+        }
+    }
+
+    private static void forceResolveType(@NotNull JetType type) {
+        if (type instanceof DeferredType) {
+            // Computes the inferred type, resolving the initializer or body it depends on
+            forceResolveType(((DeferredType) type).getActualType());
+            return;
+        }
+        for (TypeProjection projection : type.getArguments()) {
+            forceResolveType(projection.getType());
+        }
+    }
+}
@@ -38,6 +38,7 @@ import org.jetbrains.jet.lang.types.ErrorUtils;
 import org.jetbrains.jet.lang.types.JetType;
 import org.jetbrains.jet.lang.types.TypeConstructor;
 import org.jetbrains.jet.lang.types.TypeUtils;
+import org.jetbrains.jet.util.lazy.LazyValue;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -67,17 +68,46 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements ClassDes
     private final Visibility visibility;
     private final ClassKind kind;
 
-    private ClassReceiver implicitReceiver;
-    private List<AnnotationDescriptor> annotations;
-    private ClassDescriptor classObjectDescriptor;
-    private boolean classObjectDescriptorResolved = false;
+    private final LazyValue<ClassReceiver> implicitReceiver = new LazyValue<ClassReceiver>() {
+        @Override
+        protected ClassReceiver compute() {
+            return new ClassReceiver(LazyClassDescriptor.this);
+        }
+    };
+    private final LazyValue<List<AnnotationDescriptor>> annotations = new LazyValue<List<AnnotationDescriptor>>() {
+        @Override
+        protected List<AnnotationDescriptor> compute() {
+            return resolveAnnotations();
+        }
+    };
+    private final LazyValue<ClassDescriptor> classObjectDescriptor = new LazyValue<ClassDescriptor>() {
+        @Override
+        protected ClassDescriptor compute() {
+            return createClassObjectDescriptor();
+        }
+    };
 
     private final LazyClassMemberScope unsubstitutedMemberScope;
     private final JetScope unsubstitutedInnerClassesScope;
 
-    private JetScope scopeForClassHeaderResolution;
-    private JetScope scopeForMemberDeclarationResolution;
-    private JetScope scopeForPropertyInitializerResolution;
+    private final LazyValue<JetScope> scopeForClassHeaderResolution = new LazyValue<JetScope>() {
+        @Override
+        protected JetScope compute() {
+            return computeScopeForClassHeaderResolution();
+        }
+    };
+    private final LazyValue<JetScope> scopeForMemberDeclarationResolution = new LazyValue<JetScope>() {
+        @Override
+        protected JetScope compute() {
+            return computeScopeForMemberDeclarationResolution();
+        }
+    };
+    private final LazyValue<JetScope> scopeForPropertyInitializerResolution = new LazyValue<JetScope>() {
+        @Override
+        protected JetScope compute() {
+            return computeScopeForPropertyInitializerResolution();
+        }
+    };
 
 
     public LazyClassDescriptor(
@@ -118,47 +148,53 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements ClassDes
 
     @NotNull
     public JetScope getScopeForClassHeaderResolution() {
-        if (scopeForClassHeaderResolution == null) {
-            WritableScopeImpl scope = new WritableScopeImpl(
-                    resolveSession.getResolutionScope(declarationProvider.getOwnerInfo().getScopeAnchor()), this, RedeclarationHandler.DO_NOTHING, "Class Header Resolution");
-            for (TypeParameterDescriptor typeParameterDescriptor : getTypeConstructor().getParameters()) {
-                scope.addClassifierDescriptor(typeParameterDescriptor);
-            }
-            scope.changeLockLevel(WritableScope.LockLevel.READING);
-            scopeForClassHeaderResolution = scope;
+        return scopeForClassHeaderResolution.get();
+    }
+
+    @NotNull
+    private JetScope computeScopeForClassHeaderResolution() {
+        WritableScopeImpl scope = new WritableScopeImpl(
+                resolveSession.getResolutionScope(declarationProvider.getOwnerInfo().getScopeAnchor()), this, RedeclarationHandler.DO_NOTHING, "Class Header Resolution");
+        for (TypeParameterDescriptor typeParameterDescriptor : getTypeConstructor().getParameters()) {
+            scope.addClassifierDescriptor(typeParameterDescriptor);
         }
-        return scopeForClassHeaderResolution;
+        scope.changeLockLevel(WritableScope.LockLevel.READING);
+        return scope;
     }
 
     public JetScope getScopeForMemberDeclarationResolution() {
-        if (scopeForMemberDeclarationResolution == null) {
-            WritableScopeImpl scope = new WritableScopeImpl(
-                    getScopeForClassHeaderResolution(), this, RedeclarationHandler.DO_NOTHING, "Member Declaration Resolution");
-            scope.importScope(getScopeForMemberLookup());
+        return scopeForMemberDeclarationResolution.get();
+    }
 
-            scope.changeLockLevel(WritableScope.LockLevel.READING);
-            scopeForMemberDeclarationResolution = scope;
-        }
-        return scopeForMemberDeclarationResolution;
+    @NotNull
+    private JetScope computeScopeForMemberDeclarationResolution() {
+        WritableScopeImpl scope = new WritableScopeImpl(
+                getScopeForClassHeaderResolution(), this, RedeclarationHandler.DO_NOTHING, "Member Declaration Resolution");
+        scope.importScope(getScopeForMemberLookup());
+
+        scope.changeLockLevel(WritableScope.LockLevel.READING);
+        return scope;
     }
 
     public JetScope getScopeForPropertyInitializerResolution() {
+        return scopeForPropertyInitializerResolution.get();
+    }
+
+    @NotNull
+    private JetScope computeScopeForPropertyInitializerResolution() {
         ConstructorDescriptor primaryConstructor = getUnsubstitutedPrimaryConstructor();
         if (primaryConstructor == null) return getScopeForMemberDeclarationResolution();
 
-        if (scopeForPropertyInitializerResolution == null) {
-            WritableScopeImpl scope = new WritableScopeImpl(
-                    getScopeForMemberDeclarationResolution(), this, RedeclarationHandler.DO_NOTHING, "Property Initializer Resolution");
-
-            List<ValueParameterDescriptor> parameters = primaryConstructor.getValueParameters();
-            for (ValueParameterDescriptor valueParameterDescriptor : parameters) {
-                scope.addVariableDescriptor(valueParameterDescriptor);
-            }
+        WritableScopeImpl scope = new WritableScopeImpl(
+                getScopeForMemberDeclarationResolution(), this, RedeclarationHandler.DO_NOTHING, "Property Initializer Resolution");
 
-            scope.changeLockLevel(WritableScope.LockLevel.READING);
-            scopeForPropertyInitializerResolution = scope;
+        List<ValueParameterDescriptor> parameters = primaryConstructor.getValueParameters();
+        for (ValueParameterDescriptor valueParameterDescriptor : parameters) {
+            scope.addVariableDescriptor(valueParameterDescriptor);
         }
-        return scopeForPropertyInitializerResolution;
+
+        scope.changeLockLevel(WritableScope.LockLevel.READING);
+        return scope;
     }
 
     @NotNull
@@ -203,19 +239,21 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements ClassDes
 
     @Override
     public ClassDescriptor getClassObjectDescriptor() {
-        if (!classObjectDescriptorResolved) {
-            JetClassObject classObject = declarationProvider.getOwnerInfo().getClassObject();
-
-            JetClassLikeInfo classObjectInfo = getClassObjectInfo(classObject);
-            if (classObjectInfo != null) {
-                Name classObjectName = getKind() == ClassKind.ENUM_CLASS
-                                       ? Name.special("<class-object-for-" + getName() + ">")
-                                       : JetPsiUtil.NO_NAME_PROVIDED;
-                classObjectDescriptor = new LazyClassDescriptor(resolveSession, this, classObjectName, classObjectInfo);
-            }
-            classObjectDescriptorResolved = true;
+        return classObjectDescriptor.get();
+    }
+
+    @Nullable
+    private ClassDescriptor createClassObjectDescriptor() {
+        JetClassObject classObject = declarationProvider.getOwnerInfo().getClassObject();
+
+        JetClassLikeInfo classObjectInfo = getClassObjectInfo(classObject);
+        if (classObjectInfo == null) {
+            return null;
         }
-        return classObjectDescriptor;
+        Name classObjectName = getKind() == ClassKind.ENUM_CLASS
+                               ? Name.special("<class-object-for-" + getName() + ">")
+                               : JetPsiUtil.NO_NAME_PROVIDED;
+        return new LazyClassDescriptor(resolveSession, this, classObjectName, classObjectInfo);
     }
 
     @Nullable
@@ -256,27 +294,26 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements ClassDes
     @NotNull
     @Override
     public ReceiverDescriptor getImplicitReceiver() {
-        if (implicitReceiver == null) {
-            implicitReceiver = new ClassReceiver(this);
-        }
-        return implicitReceiver;
+        return implicitReceiver.get();
     }
 
     @Override
     public List<AnnotationDescriptor> getAnnotations() {
-        if (annotations == null) {
-            JetClassLikeInfo classInfo = declarationProvider.getOwnerInfo();
-            JetModifierList modifierList = classInfo.getModifierList();
-            if (modifierList != null) {
-                AnnotationResolver annotationResolver = resolveSession.getInjector().getAnnotationResolver();
-                annotations = annotationResolver
-                        .resolveAnnotations(resolveSession.getResolutionScope(classInfo.getScopeAnchor()), modifierList, resolveSession.getTrace());
-            }
-            else {
-                annotations = Collections.emptyList();
-            }
+        return annotations.get();
+    }
+
+    @NotNull
+    private List<AnnotationDescriptor> resolveAnnotations() {
+        JetClassLikeInfo classInfo = declarationProvider.getOwnerInfo();
+        JetModifierList modifierList = classInfo.getModifierList();
+        if (modifierList != null) {
+            AnnotationResolver annotationResolver = resolveSession.getInjector().getAnnotationResolver();
+            return annotationResolver
+                    .resolveAnnotations(resolveSession.getResolutionScope(classInfo.getScopeAnchor()), modifierList, resolveSession.getTrace());
+        }
+        else {
+            return Collections.emptyList();
         }
-        return annotations;
     }
 
     @NotNull
@@ -291,20 +328,33 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements ClassDes
     }
 
     private class LazyClassTypeConstructor implements TypeConstructor {
-        private Collection<JetType> supertypes = null;
-        private List<TypeParameterDescriptor> parameters = null;
+        private final LazyValue<Collection<JetType>> supertypes = new LazyValue<Collection<JetType>>() {
+            @Override
+            protected Collection<JetType> compute() {
+                return resolveSupertypes();
+            }
+        };
+        private final LazyValue<List<TypeParameterDescriptor>> parameters = new LazyValue<List<TypeParameterDescriptor>>() {
+            @Override
+            protected List<TypeParameterDescriptor> compute() {
+                return createParameters();
+            }
+        };
 
         @NotNull
         @Override
         public List<TypeParameterDescriptor> getParameters() {
-            if (parameters == null) {
-                JetClassLikeInfo classInfo = declarationProvider.getOwnerInfo();
-                List<JetTypeParameter> typeParameters = classInfo.getTypeParameters();
-                parameters = new ArrayList<TypeParameterDescriptor>(typeParameters.size());
-
-                for (int i = 0; i < typeParameters.size(); i++) {
-                    parameters.add(new LazyTypeParameterDescriptor(resolveSession, LazyClassDescriptor.this, typeParameters.get(i), i));
-                }
+            return parameters.get();
+        }
+
+        @NotNull
+        private List<TypeParameterDescriptor> createParameters() {
+            JetClassLikeInfo classInfo = declarationProvider.getOwnerInfo();
+            List<JetTypeParameter> typeParameters = classInfo.getTypeParameters();
+            List<TypeParameterDescriptor> parameters = new ArrayList<TypeParameterDescriptor>(typeParameters.size());
+
+            for (int i = 0; i < typeParameters.size(); i++) {
+                parameters.add(new LazyTypeParameterDescriptor(resolveSession, LazyClassDescriptor.this, typeParameters.get(i), i));
             }
             return parameters;
         }
@@ -312,25 +362,23 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements ClassDes
         @NotNull
         @Override
         public Collection<? extends JetType> getSupertypes() {
-            if (supertypes == null) {
-                if (resolveSession.isClassSpecial(DescriptorUtils.getFQName(LazyClassDescriptor.this))) {
-                    this.supertypes = Collections.emptyList();
-                }
-                else {
-                    JetClassOrObject classOrObject = declarationProvider.getOwnerInfo().getCorrespondingClassOrObject();
-                    if (classOrObject == null) {
-                        this.supertypes = Collections.emptyList();
-                    }
-                    else {
-                        List<JetType> allSupertypes = resolveSession.getInjector().getDescriptorResolver()
-                                .resolveSupertypes(getScopeForClassHeaderResolution(),
-                                                   classOrObject,
-                                                   resolveSession.getTrace());
-                        this.supertypes = Collections2.filter(allSupertypes, VALID_SUPERTYPE);
-                    }
-                }
+            return supertypes.get();
+        }
+
+        @NotNull
+        private Collection<JetType> resolveSupertypes() {
+            if (resolveSession.isClassSpecial(DescriptorUtils.getFQName(LazyClassDescriptor.this))) {
+                return Collections.emptyList();
+            }
+            JetClassOrObject classOrObject = declarationProvider.getOwnerInfo().getCorrespondingClassOrObject();
+            if (classOrObject == null) {
+                return Collections.emptyList();
             }
-            return supertypes;
+            List<JetType> allSupertypes = resolveSession.getInjector().getDescriptorResolver()
+                    .resolveSupertypes(getScopeForClassHeaderResolution(),
+                                       classOrObject,
+                                       resolveSession.getTrace());
+            return Collections2.filter(allSupertypes, VALID_SUPERTYPE);
         }
 
         @Override
@@ -42,8 +42,12 @@ import java.util.*;
 */
 public class LazyClassMemberScope extends AbstractLazyMemberScope<LazyClassDescriptor, ClassMemberDeclarationProvider> {
 
-    private ConstructorDescriptor primaryConstructor;
-    private boolean primaryConstructorResolved = false;
+    private final LazyValue<ConstructorDescriptor> primaryConstructor = new LazyValue<ConstructorDescriptor>() {
+        @Override
+        protected ConstructorDescriptor compute() {
+            return resolvePrimaryConstructor();
+        }
+    };
 
     public LazyClassMemberScope(
             @NotNull ResolveSession resolveSession,
@@ -221,29 +225,29 @@ public class LazyClassMemberScope extends AbstractLazyMemberScope<LazyClassDescr
 
     @Nullable
     public ConstructorDescriptor getPrimaryConstructor() {
-        if (!primaryConstructorResolved) {
-            if (EnumSet.of(ClassKind.CLASS, ClassKind.ANNOTATION_CLASS, ClassKind.OBJECT, ClassKind.ENUM_CLASS).contains(thisDescriptor.getKind())) {
-                JetClassOrObject classOrObject = declarationProvider.getOwnerInfo().getCorrespondingClassOrObject();
-                if (thisDescriptor.getKind() != ClassKind.OBJECT) {
-                    JetClass jetClass = (JetClass) classOrObject;
-                    ConstructorDescriptorImpl constructor = resolveSession.getInjector().getDescriptorResolver()
-                            .resolvePrimaryConstructorDescriptor(thisDescriptor.getScopeForClassHeaderResolution(),
-                                                                 thisDescriptor,
-                                                                 jetClass,
-                                                                 resolveSession.getTrace());
-                    primaryConstructor = constructor;
-                    setDeferredReturnType(constructor);
-                }
-                else {
-                    ConstructorDescriptorImpl constructor =
-                            DescriptorResolver.createPrimaryConstructorForObject(classOrObject, thisDescriptor, resolveSession.getTrace());
-                    setDeferredReturnType(constructor);
-                    primaryConstructor = constructor;
-                }
-            }
-            primaryConstructorResolved = true;
+        return primaryConstructor.get();
+    }
+
+    @Nullable
+    private ConstructorDescriptor resolvePrimaryConstructor() {
+        if (!EnumSet.of(ClassKind.CLASS, ClassKind.ANNOTATION_CLASS, ClassKind.OBJECT, ClassKind.ENUM_CLASS).contains(thisDescriptor.getKind())) {
+            return null;
+        }
+        JetClassOrObject classOrObject = declarationProvider.getOwnerInfo().getCorrespondingClassOrObject();
+        ConstructorDescriptorImpl constructor;
+        if (thisDescriptor.getKind() != ClassKind.OBJECT) {
+            JetClass jetClass = (JetClass) classOrObject;
+            constructor = resolveSession.getInjector().getDescriptorResolver()
+                    .resolvePrimaryConstructorDescriptor(thisDescriptor.getScopeForClassHeaderResolution(),
+                                                         thisDescriptor,
+                                                         jetClass,
+                                                         resolveSession.getTrace());
+        }
+        else {
+            constructor = DescriptorResolver.createPrimaryConstructorForObject(classOrObject, thisDescriptor, resolveSession.getTrace());
         }
-        return primaryConstructor;
+        setDeferredReturnType(constructor);
+        return constructor;
     }
 
     private void setDeferredReturnType(@NotNull ConstructorDescriptorImpl descriptor) {
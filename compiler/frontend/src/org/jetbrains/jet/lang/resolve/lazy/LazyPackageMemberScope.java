@@ -16,7 +16,6 @@
 
 package org.jetbrains.jet.lang.resolve.lazy;
 
-import com.google.common.collect.Maps;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.lang.descriptors.ClassifierDescriptor;
 import org.jetbrains.jet.lang.descriptors.FunctionDescriptor;
@@ -29,16 +28,18 @@ import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.Name;
 import org.jetbrains.jet.lang.resolve.scopes.JetScope;
 import org.jetbrains.jet.lang.resolve.scopes.receivers.ReceiverDescriptor;
+import org.jetbrains.jet.util.lazy.LazyValue;
 
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
 * @author abreslav
 */
 public class LazyPackageMemberScope extends AbstractLazyMemberScope<NamespaceDescriptor, PackageMemberDeclarationProvider> {
 
-    private final Map<Name, NamespaceDescriptor> packageDescriptors = Maps.newHashMap();
+    private final ConcurrentMap<Name, LazyValue<NamespaceDescriptor>> packageDescriptors = new ConcurrentHashMap<Name, LazyValue<NamespaceDescriptor>>();
 
     public LazyPackageMemberScope(@NotNull ResolveSession resolveSession,
             @NotNull PackageMemberDeclarationProvider declarationProvider,
@@ -47,19 +48,28 @@ public class LazyPackageMemberScope extends AbstractLazyMemberScope<NamespaceDes
     }
 
     @Override
-    public NamespaceDescriptor getNamespace(@NotNull Name name) {
-        NamespaceDescriptor known = packageDescriptors.get(name);
-        if (known != null) return known;
+    public NamespaceDescriptor getNamespace(@NotNull final Name name) {
+        LazyValue<NamespaceDescriptor> known = packageDescriptors.get(name);
+        if (known != null) return known.get();
         if (allDescriptorsComputed) return null;
 
         if (!declarationProvider.isPackageDeclared(name)) return null;
 
+        return computeOnce(packageDescriptors, name, new LazyValue<NamespaceDescriptor>() {
+            @Override
+            protected NamespaceDescriptor compute() {
+                return createPackageDescriptor(name);
+            }
+        }, true);
+    }
+
+    @NotNull
+    private NamespaceDescriptor createPackageDescriptor(@NotNull Name name) {
         PackageMemberDeclarationProvider packageMemberDeclarationProvider = resolveSession.getDeclarationProviderFactory().getPackageMemberDeclarationProvider(
                 DescriptorUtils.getFQName(thisDescriptor).child(name).toSafe());
         assert packageMemberDeclarationProvider != null : "Package is declared, but declaration provider is not found: " + name;
         NamespaceDescriptor namespaceDescriptor = new LazyPackageDescriptor(thisDescriptor, name, resolveSession, packageMemberDeclarationProvider);
 
-        packageDescriptors.put(name, namespaceDescriptor);
         allDescriptors.add(namespaceDescriptor);
 
         return namespaceDescriptor;
@@ -52,11 +52,31 @@ public class LazyTypeParameterDescriptor implements TypeParameterDescriptor {
     private final LazyClassDescriptor containingDeclaration;
     private final Name name;
 
-    private TypeConstructor typeConstructor;
-    private JetType defaultType;
+    private final LazyValue<TypeConstructor> typeConstructor = new LazyValue<TypeConstructor>() {
+        @Override
+        protected TypeConstructor compute() {
+            return createTypeConstructor();
+        }
+    };
+    private final LazyValue<JetType> defaultType = new LazyValue<JetType>() {
+        @Override
+        protected JetType compute() {
+            return createDefaultType();
+        }
+    };
 
-    private Set<JetType> upperBounds;
-    private JetType upperBoundsAsType;
+    private final LazyValue<Set<JetType>> upperBounds = new LazyValue<Set<JetType>>() {
+        @Override
+        protected Set<JetType> compute() {
+            return resolveUpperBounds();
+        }
+    };
+    private final LazyValue<JetType> upperBoundsAsType = new LazyValue<JetType>() {
+        @Override
+        protected JetType compute() {
+            return computeUpperBoundsAsType();
+        }
+    };
 
     private Set<JetType> classObjectBounds;
     private JetType classObjectBoundsAsType;
@@ -90,21 +110,24 @@ public class LazyTypeParameterDescriptor implements TypeParameterDescriptor {
     @NotNull
     @Override
     public Set<JetType> getUpperBounds() {
-        if (upperBounds == null) {
-            upperBounds = Sets.newLinkedHashSet();
+        return upperBounds.get();
+    }
 
-            JetTypeParameter jetTypeParameter = getElement();
+    @NotNull
+    private Set<JetType> resolveUpperBounds() {
+        Set<JetType> upperBounds = Sets.newLinkedHashSet();
 
-            resolveUpperBoundsFromWhereClause(upperBounds, false);
+        JetTypeParameter jetTypeParameter = getElement();
 
-            JetTypeReference extendsBound = jetTypeParameter.getExtendsBound();
-            if (extendsBound != null) {
-                upperBounds.add(resolveBoundType(extendsBound));
-            }
+        resolveUpperBoundsFromWhereClause(upperBounds, false);
 
-            if (upperBounds.isEmpty()) {
-                upperBounds.add(JetStandardClasses.getDefaultBound());
-            }
+        JetTypeReference extendsBound = jetTypeParameter.getExtendsBound();
+        if (extendsBound != null) {
+            upperBounds.add(resolveBoundType(extendsBound));
+        }
+
+        if (upperBounds.isEmpty()) {
+            upperBounds.add(JetStandardClasses.getDefaultBound());
         }
         return upperBounds;
     }
@@ -150,13 +173,16 @@ public class LazyTypeParameterDescriptor implements TypeParameterDescriptor {
     @NotNull
     @Override
     public JetType getUpperBoundsAsType() {
+        return upperBoundsAsType.get();
+    }
+
+    @NotNull
+    private JetType computeUpperBoundsAsType() {
+        Set<JetType> upperBounds = getUpperBounds();
+        assert upperBounds.size() > 0 : "Upper bound list is empty in " + getName();
+        JetType upperBoundsAsType = TypeUtils.intersect(JetTypeChecker.INSTANCE, upperBounds);
         if (upperBoundsAsType == null) {
-            Set<JetType> upperBounds = getUpperBounds();
-            assert upperBounds.size() > 0 : "Upper bound list is empty in " + getName();
-            upperBoundsAsType = TypeUtils.intersect(JetTypeChecker.INSTANCE, upperBounds);
-            if (upperBoundsAsType == null) {
-                upperBoundsAsType = JetStandardClasses.getNothingType();
-            }
+            upperBoundsAsType = JetStandardClasses.getNothingType();
         }
         return upperBoundsAsType;
     }
@@ -176,56 +202,60 @@ public class LazyTypeParameterDescriptor implements TypeParameterDescriptor {
     @NotNull
     @Override
     public TypeConstructor getTypeConstructor() {
-        if (typeConstructor == null) {
-            typeConstructor = new TypeConstructor() {
-                @NotNull
-                @Override
-                public Collection<? extends JetType> getSupertypes() {
-                    return LazyTypeParameterDescriptor.this.getUpperBounds();
-                }
+        return typeConstructor.get();
+    }
 
-                @NotNull
-                @Override
-                public List<TypeParameterDescriptor> getParameters() {
-                    return Collections.emptyList();
-                }
+    @NotNull
+    private TypeConstructor createTypeConstructor() {
+        return new TypeConstructor() {
+            @NotNull
+            @Override
+            public Collection<? extends JetType> getSupertypes() {
+                return LazyTypeParameterDescriptor.this.getUpperBounds();
+            }
 
-                @Override
-                public boolean isSealed() {
-                    return false;
-                }
+            @NotNull
+            @Override
+            public List<TypeParameterDescriptor> getParameters() {
+                return Collections.emptyList();
+            }
 
-                @Override
-                public ClassifierDescriptor getDeclarationDescriptor() {
-                    return LazyTypeParameterDescriptor.this;
-                }
+            @Override
+            public boolean isSealed() {
+                return false;
+            }
 
-                @Override
-                public List<AnnotationDescriptor> getAnnotations() {
-                    return LazyTypeParameterDescriptor.this.getAnnotations();
-                }
+            @Override
+            public ClassifierDescriptor getDeclarationDescriptor() {
+                return LazyTypeParameterDescriptor.this;
+            }
 
-                @Override
-                public String toString() {
-                    return getName().toString();
-                }
-            };
-        }
-        return typeConstructor;
+            @Override
+            public List<AnnotationDescriptor> getAnnotations() {
+                return LazyTypeParameterDescriptor.this.getAnnotations();
+            }
+
+            @Override
+            public String toString() {
+                return getName().toString();
+            }
+        };
     }
 
     @NotNull
     @Override
     public JetType getDefaultType() {
-        if (defaultType == null) {
-            defaultType = new JetTypeImpl(getTypeConstructor(), new LazyScopeAdapter(new LazyValue<JetScope>() {
-                @Override
-                protected JetScope compute() {
-                    return getUpperBoundsAsType().getMemberScope();
-                }
-            }));
-        }
-        return defaultType;
+        return defaultType.get();
+    }
+
+    @NotNull
+    private JetType createDefaultType() {
+        return new JetTypeImpl(getTypeConstructor(), new LazyScopeAdapter(new LazyValue<JetScope>() {
+            @Override
+            protected JetScope compute() {
+                return getUpperBoundsAsType().getMemberScope();
+            }
+        }));
     }
 
     @Override
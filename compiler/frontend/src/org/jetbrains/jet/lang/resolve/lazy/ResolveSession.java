@@ -18,7 +18,6 @@ package org.jetbrains.jet.lang.resolve.lazy;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
-import com.google.common.collect.Maps;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.util.PsiTreeUtil;
@@ -32,15 +31,18 @@ import org.jetbrains.jet.lang.psi.*;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.resolve.BindingTrace;
 import org.jetbrains.jet.lang.resolve.BindingTraceContext;
+import org.jetbrains.jet.lang.resolve.LockProtectedTrace;
 import org.jetbrains.jet.lang.resolve.lazy.data.JetClassInfoUtil;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.FqNameUnsafe;
 import org.jetbrains.jet.lang.resolve.name.Name;
 import org.jetbrains.jet.lang.resolve.scopes.InnerClassesScopeWrapper;
 import org.jetbrains.jet.lang.resolve.scopes.JetScope;
+import org.jetbrains.jet.util.lazy.LazyValue;
 
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author abreslav
@@ -57,7 +59,7 @@ public class ResolveSession {
     private final ModuleDescriptor module;
     private final LazyPackageDescriptor rootPackage;
 
-    private final BindingTrace trace = new BindingTraceContext();
+    private final BindingTrace trace = new LockProtectedTrace(new BindingTraceContext());
     private final DeclarationProviderFactory declarationProviderFactory;
 
     private final Predicate<FqNameUnsafe> specialClasses;
@@ -66,7 +68,8 @@ public class ResolveSession {
     private final InjectorForLazyResolve injector;
     private final ModuleConfiguration moduleConfiguration;
 
-    private final Map<JetEnumEntry, ClassDescriptor> enumEntryClassDescriptorCache = Maps.newHashMap();
+    private final ConcurrentMap<JetEnumEntry, LazyValue<ClassDescriptor>> enumEntryClassDescriptorCache =
+            new ConcurrentHashMap<JetEnumEntry, LazyValue<ClassDescriptor>>();
     private final Function<FqName, Name> classifierAliases;
 
     public ResolveSession(
@@ -109,6 +112,11 @@ public class ResolveSession {
         return specialClasses.apply(fqName);
     }
 
+    @NotNull
+    public ModuleDescriptor getRootModuleDescriptor() {
+        return module;
+    }
+
     @NotNull
     public ModuleConfiguration getModuleConfiguration() {
         return moduleConfiguration;
@@ -151,19 +159,30 @@ public class ResolveSession {
     }
 
     @NotNull
-    private ClassDescriptor getEnumEntryClassDescriptor(@NotNull JetEnumEntry jetEnumEntry) {
-        ClassDescriptor classDescriptor = enumEntryClassDescriptorCache.get(jetEnumEntry);
-        if (classDescriptor != null) {
-            return classDescriptor;
+    private ClassDescriptor getEnumEntryClassDescriptor(@NotNull final JetEnumEntry jetEnumEntry) {
+        LazyValue<ClassDescriptor> known = enumEntryClassDescriptorCache.get(jetEnumEntry);
+        if (known != null) {
+            return known.get();
         }
 
+        LazyValue<ClassDescriptor> computation = new LazyValue<ClassDescriptor>() {
+            @Override
+            protected ClassDescriptor compute() {
+                return createEnumEntryClassDescriptor(jetEnumEntry);
+            }
+        };
+        known = enumEntryClassDescriptorCache.putIfAbsent(jetEnumEntry, computation);
+        return (known != null ? known : computation).get();
+    }
+
+    @NotNull
+    private ClassDescriptor createEnumEntryClassDescriptor(@NotNull JetEnumEntry jetEnumEntry) {
         DeclarationDescriptor containingDeclaration = getInjector().getScopeProvider().getResolutionScopeForDeclaration(jetEnumEntry)
                 .getContainingDeclaration();
         LazyClassDescriptor newClassDescriptor = new LazyClassDescriptor(this,
                                                                          containingDeclaration,
                                                                          jetEnumEntry.getNameAsName(),
                                                                          JetClassInfoUtil.createClassLikeInfo(jetEnumEntry));
-        enumEntryClassDescriptorCache.put(jetEnumEntry, newClassDescriptor);
         return newClassDescriptor;
     }
 
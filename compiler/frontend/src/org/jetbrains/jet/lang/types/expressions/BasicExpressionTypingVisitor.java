@@ -809,11 +809,14 @@ public class BasicExpressionTypingVisitor extends ExpressionTypingVisitor {
 
         // Special case for expr!!
         if (operationType == JetTokens.EXCLEXCL) {
+            DataFlowValue value = DataFlowValueFactory.INSTANCE.createDataFlowValue(baseExpression, type, context.trace.getBindingContext());
             if (isKnownToBeNotNull(baseExpression, context)) {
                 context.trace.report(UNNECESSARY_NOT_NULL_ASSERTION.on(operationSign, type));
+                if (type.isNullable() && value.isStableIdentifier()) {
+                    context.trace.record(KNOWN_NOT_NULL, baseExpression);
+                }
             }
             else {
-                DataFlowValue value = DataFlowValueFactory.INSTANCE.createDataFlowValue(baseExpression, type, context.trace.getBindingContext());
                 dataFlowInfo = dataFlowInfo.disequate(value, DataFlowValue.NULL);
             }
             return DataFlowUtils.checkType(TypeUtils.makeNotNullable(type), expression, context, dataFlowInfo);
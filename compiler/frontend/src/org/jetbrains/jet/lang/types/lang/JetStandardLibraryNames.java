@@ -42,4 +42,12 @@ public class JetStandardLibraryNames {
     public static final ClassName NUMBER = classIn("Number", 0);
     public static final ClassName THROWABLE = classIn("Throwable", 0);
 
+    public static final ClassName INT_RANGE = classIn("IntRange", 0);
+    public static final ClassName LONG_RANGE = classIn("LongRange", 0);
+    public static final ClassName BYTE_RANGE = classIn("ByteRange", 0);
+    public static final ClassName SHORT_RANGE = classIn("ShortRange", 0);
+    public static final ClassName CHAR_RANGE = classIn("CharRange", 0);
+    public static final ClassName FLOAT_RANGE = classIn("FloatRange", 0);
+    public static final ClassName DOUBLE_RANGE = classIn("DoubleRange", 0);
+
 }
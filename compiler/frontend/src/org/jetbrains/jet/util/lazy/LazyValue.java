@@ -16,7 +16,18 @@
 
 package org.jetbrains.jet.util.lazy;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
+ * A value computed on the first call to {@link #get()}.
+ *
+ * Safe to share between threads: the value is computed once, other threads wait for it and then see it fully
+ * published. A computation that (directly or through other lazy values) needs its own result is reported with
+ * {@link ReenteringLazyValueComputationException}, both when it happens on one thread and when two threads wait
+ * for each other's values. If the computation throws anything else, the value stays not computed and the next call
+ * tries again.
+ *
  * @author abreslav
  */
 public abstract class LazyValue<T> {
@@ -28,8 +39,13 @@ public abstract class LazyValue<T> {
         ERROR
     }
 
-    private State state = State.NOT_COMPUTED;
+    // The lazy value each blocked thread is waiting for, to find cycles between threads
+    private static final ConcurrentMap<Thread, LazyValue<?>> WAITING_FOR = new ConcurrentHashMap<Thread, LazyValue<?>>();
+
+    private volatile State state = State.NOT_COMPUTED;
+    // Written before state is set to COMPUTED, read after it is seen
     private T value;
+    private volatile Thread computingThread;
 
     protected abstract T compute();
 
@@ -38,27 +54,108 @@ public abstract class LazyValue<T> {
     }
 
     public boolean isComputed() {
+        State state = this.state;
         return state == State.ERROR || state == State.COMPUTED;
     }
 
     public final T get() {
-        switch (state) {
-            case NOT_COMPUTED:
-                state = State.BEING_COMPUTED;
-                value = compute();
-                state = State.COMPUTED;
-                return value;
-            case BEING_COMPUTED:
-                state = State.ERROR;
-                throw new ReenteringLazyValueComputationException();
-            case COMPUTED:
+        State state = this.state;
+        if (state == State.COMPUTED) {
+            return value;
+        }
+        if (state == State.ERROR) {
+            return getValueOnErrorReentry();
+        }
+        return getSlow();
+    }
+
+    private T getSlow() {
+        Thread currentThread = Thread.currentThread();
+        synchronized (this) {
+            while (state == State.BEING_COMPUTED) {
+                if (computingThread == currentThread) {
+                    state = State.ERROR;
+                    throw new ReenteringLazyValueComputationException();
+                }
+                awaitComputation(currentThread);
+            }
+            if (state == State.COMPUTED) {
                 return value;
-            case ERROR:
-                return getValueOnErrorReentry();
+            }
+            if (state == State.NOT_COMPUTED) {
+                state = State.BEING_COMPUTED;
+                computingThread = currentThread;
+            }
         }
-        throw new IllegalStateException("Unreachable");
+
+        if (computingThread != currentThread) {
+            // The computation failed or reentered on another thread
+            return getValueOnErrorReentry();
+        }
+
+        T result;
+        try {
+            result = compute();
+        }
+        catch (RuntimeException e) {
+            abandonComputation();
+            throw e;
+        }
+        catch (Error e) {
+            abandonComputation();
+            throw e;
+        }
+
+        synchronized (this) {
+            value = result;
+            state = State.COMPUTED;
+            computingThread = null;
+            notifyAll();
+        }
+        return result;
     }
 
+    // Must hold the monitor of this
+    private void awaitComputation(Thread currentThread) {
+        WAITING_FOR.put(currentThread, this);
+        try {
+            if (waitsFor(computingThread, currentThread)) {
+                throw new ReenteringLazyValueComputationException();
+            }
+            wait();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a lazy value", e);
+        }
+        finally {
+            WAITING_FOR.remove(currentThread);
+        }
+    }
 
+    // Whether thread, through the chain of lazy values being waited for, waits for target
+    private static boolean waitsFor(Thread thread, Thread target) {
+        // Bounded: a cycle among other threads is not ours to report
+        for (int steps = WAITING_FOR.size() + 1; thread != null && steps >= 0; steps--) {
+            if (thread == target) {
+                return true;
+            }
+            LazyValue<?> awaited = WAITING_FOR.get(thread);
+            if (awaited == null) {
+                return false;
+            }
+            thread = awaited.computingThread;
+        }
+        return false;
+    }
 
+    private synchronized void abandonComputation() {
+        // A value that reentered itself stays in error; any other failure (e.g. a cancelled computation) is retried
+        // by the next call, possibly on one of the waiting threads
+        if (state != State.ERROR) {
+            state = State.NOT_COMPUTED;
+        }
+        computingThread = null;
+        notifyAll();
+    }
 }
@@ -151,7 +151,7 @@ public class JetLightClass extends AbstractLightClass implements JetJavaMirrorMa
             }
 
             @Override
-            public ClassBuilder newClassBuilder() {
+            public ClassBuilder newClassBuilder(@NotNull CommonSuperClassResolver superClassResolver) {
                 return new StubClassBuilder(stubStack);
             }
 
@@ -0,0 +1,108 @@
+import java.util.ArrayList
+import java.util.LinkedList
+import java.util.List
+import java.util.RandomAccess
+import java.util.concurrent.CopyOnWriteArrayList
+
+class EverySecondElementList() : ArrayList<Int>(), RandomAccess {
+    override fun iterator() : java.util.Iterator<Int>? {
+        val result = ArrayList<Int>()
+        var i = 0
+        while (i < size()) {
+            result.add(get(i)!!)
+            i += 2
+        }
+        return result.iterator()
+    }
+}
+
+fun sum(list: List<Int>): Int {
+    var result = 0
+    for (x in list) {
+        if (x < 0) continue
+        if (x > 100) break
+        result += x
+    }
+    return result
+}
+
+fun concat(list: ArrayList<String>?): String {
+    var result = ""
+    for (s in list) {
+        result += s
+    }
+    return result
+}
+
+fun sumArray(array: IntArray): Int {
+    var result = 0
+    for (x in array.iterator()) {
+        result += x
+    }
+    return result
+}
+
+fun box(): String {
+    val arrayList = ArrayList<Int>()
+    arrayList.add(1)
+    arrayList.add(-5)
+    arrayList.add(2)
+    arrayList.add(200)
+    arrayList.add(3)
+    if (sum(arrayList) != 3) return "fail 1"
+
+    val linkedList = LinkedList<Int>()
+    linkedList.addAll(arrayList)
+    if (sum(linkedList) != 3) return "fail 2"
+
+    val strings = ArrayList<String>()
+    strings.add("O")
+    strings.add("K")
+    if (concat(null) != "") return "fail 3"
+    val ints = IntArray(3)
+    ints[0] = 1
+    ints[1] = 2
+    ints[2] = 3
+    if (sumArray(ints) != 6) return "fail 4"
+
+    try {
+        for (x in arrayList) {
+            arrayList.add(x)
+        }
+        return "fail 5"
+    }
+    catch (e: java.util.ConcurrentModificationException) {
+    }
+
+    val copyOnWrite = CopyOnWriteArrayList<Int>()
+    copyOnWrite.add(1)
+    copyOnWrite.add(2)
+    var copyOnWriteSum = 0
+    for (x in copyOnWrite) {
+        copyOnWrite.add(x)
+        copyOnWriteSum += x
+    }
+    if (copyOnWriteSum != 3 || copyOnWrite.size() != 4) return "fail 6"
+
+    val everySecond = EverySecondElementList()
+    everySecond.addAll(arrayList)
+    if (sum(everySecond) != 6) return "fail 7"
+    var everySecondCount = 0
+    for (x in everySecond) {
+        everySecondCount++
+    }
+    if (everySecondCount != 3) return "fail 8"
+
+    val shrinking = ArrayList<Int>()
+    shrinking.add(1)
+    shrinking.add(2)
+    shrinking.add(3)
+    var visited = 0
+    for (x in shrinking) {
+        visited++
+        if (x == 2) shrinking.remove(shrinking.size() - 2)
+    }
+    if (visited != 2 || shrinking.size() != 2) return "fail 9"
+
+    return concat(strings)
+}
@@ -0,0 +1,58 @@
+fun box() : String {
+    var s = ""
+    for (i in 1..3) s += i
+    if (s != "123") return "upto: $s"
+
+    s = ""
+    for (i in 3 downto 1) s += i
+    if (s != "321") return "downto: $s"
+
+    s = ""
+    for (i in 2 downto 2) s += i
+    if (s != "2") return "downto single: $s"
+
+    s = ""
+    for (i in 3..1) s += i
+    if (s != "") return "empty: $s"
+
+    s = ""
+    val range = 4..6
+    for (i in range) s += i
+    if (s != "456") return "range value: $s"
+
+    s = ""
+    val reversed = 6 downto 4
+    for (i in reversed) s += i
+    if (s != "654") return "reversed value: $s"
+
+    s = ""
+    for (i in (1..10).step(3)) s += i
+    if (s != "14710") return "step: $s"
+
+    s = ""
+    for (i in (1..10).step(-3)) s += i
+    if (s != "10741") return "negative step: $s"
+
+    s = ""
+    for (i in (10 downto 1).step(4)) s += i
+    if (s != "1062") return "downto step: $s"
+
+    s = ""
+    val a = IntArray(4)
+    for (i in a.indices) s += i
+    if (s != "0123") return "indices: $s"
+
+    s = ""
+    for (c in 'a'..'d') s += c
+    if (s != "abcd") return "chars: $s"
+
+    var sum = 0.toLong()
+    for (l in 1.toLong()..4.toLong()) sum += l
+    if (sum != 10.toLong()) return "longs: $sum"
+
+    var count = 0
+    for (i in (2147483647 - 2)..2147483647) count++
+    if (count != 3) return "overflow: $count"
+
+    return "OK"
+}
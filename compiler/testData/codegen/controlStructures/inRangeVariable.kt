@@ -0,0 +1,49 @@
+fun inRange(x: Int, range: IntRange) = x in range
+
+fun notInRange(x: Long, range: LongRange) = x !in range
+
+fun charKind(c: Char, digits: CharRange): String {
+    return when (c) {
+        in digits -> "digit"
+        !in digits -> "other"
+        else -> "fail"
+    }
+}
+
+var log = ""
+
+fun element(x: Int): Int {
+    log += "e"
+    return x
+}
+
+fun rangeOf(range: IntRange): IntRange {
+    log += "r"
+    return range
+}
+
+fun longElement(x: Long): Long {
+    log += "e"
+    return x
+}
+
+fun longRangeOf(range: LongRange): LongRange {
+    log += "r"
+    return range
+}
+
+fun box(): String {
+    val range = 1..10
+    if (!inRange(1, range) || !inRange(10, range) || inRange(11, range)) return "fail 1"
+    if (inRange(3, 5..4)) return "fail 2"
+    if (!inRange(7, 7..7)) return "fail 3"
+    if (!inRange(3, 5 downTo 1) || inRange(6, 5 downTo 1)) return "fail 4"
+    if (notInRange(5.toLong(), 1.toLong()..10.toLong()) || !notInRange(0.toLong(), 1.toLong()..10.toLong())) return "fail 5"
+    if (charKind('5', '0'..'9') != "digit" || charKind('x', '0'..'9') != "other") return "fail 6"
+
+    log = ""
+    if (element(5) !in rangeOf(range) || log != "er") return "fail 7"
+    log = ""
+    if (longElement(5.toLong()) in longRangeOf(1.toLong()..3.toLong()) || log != "er") return "fail 8"
+    return "OK"
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.cli.jvm.compiler;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.jet.test.TestCaseWithTmpdir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class CliClasspathIndexTest extends TestCaseWithTmpdir {
+
+    private File createJar(String... entries) throws IOException {
+        return createJar(null, entries);
+    }
+
+    private File createJar(String comment, String... entries) throws IOException {
+        File jar = new File(tmpdir, "lib.jar");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            if (comment != null) {
+                out.setComment(comment);
+            }
+            for (String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.write(new byte[] {1, 2, 3});
+                out.closeEntry();
+            }
+        }
+        finally {
+            out.close();
+        }
+        return jar;
+    }
+
+    private static void assertLookups(CliClasspathIndex index) {
+        assertTrue(index.mayContainPackage("a"));
+        assertTrue(index.mayContainPackage("a.b"));
+        assertFalse(index.mayContainPackage("a.c"));
+
+        assertTrue(index.mayContainClass("a.b.C"));
+        assertTrue(index.mayContainClass("a.b.C.D"));
+        assertTrue(index.mayContainClass("Top"));
+        assertFalse(index.mayContainClass("a.b.E"));
+        assertFalse(index.mayContainClass("a.C"));
+        assertFalse(index.mayContainClass("x.Y"));
+    }
+
+    public void testJar() throws IOException {
+        File jar = createJar("a/b/C.class", "a/b/C$D.class", "Top.class", "META-INF/res.txt");
+
+        CliClasspathIndex index = new CliClasspathIndex();
+        index.addRoot(jar);
+        assertLookups(index);
+
+        File indexFile = new File(jar.getPath() + JarClassIndex.INDEX_SUFFIX);
+        assertTrue(indexFile.isFile());
+        long indexTimestamp = indexFile.lastModified();
+
+        CliClasspathIndex reloaded = new CliClasspathIndex();
+        reloaded.addRoot(jar);
+        assertLookups(reloaded);
+        assertEquals(indexTimestamp, indexFile.lastModified());
+    }
+
+    public void testJarWithComment() throws IOException {
+        // the end of central directory record is looked for before the comment
+        File jar = createJar("comment", "a/b/C.class", "a/b/C$D.class", "Top.class", "META-INF/res.txt");
+
+        CliClasspathIndex index = new CliClasspathIndex();
+        index.addRoot(jar);
+        assertLookups(index);
+        assertTrue(new File(jar.getPath() + JarClassIndex.INDEX_SUFFIX).isFile());
+    }
+
+    public void testDamagedIndexIsRebuilt() throws IOException {
+        File jar = createJar("a/b/C.class", "a/b/C$D.class", "Top.class", "META-INF/res.txt");
+        new CliClasspathIndex().addRoot(jar);
+        File indexFile = new File(jar.getPath() + JarClassIndex.INDEX_SUFFIX);
+        byte[] index = FileUtil.loadFileBytes(indexFile);
+
+        // the header still matches the jar, the table does not
+        byte[] damaged = index.clone();
+        Arrays.fill(damaged, damaged.length / 2, damaged.length, (byte) 0xFF);
+        FileUtil.writeToFile(indexFile, damaged);
+        CliClasspathIndex reloaded = new CliClasspathIndex();
+        reloaded.addRoot(jar);
+        assertLookups(reloaded);
+        assertTrue(Arrays.equals(index, FileUtil.loadFileBytes(indexFile)));
+
+        FileUtil.writeToFile(indexFile, Arrays.copyOf(index, index.length / 2));
+        reloaded = new CliClasspathIndex();
+        reloaded.addRoot(jar);
+        assertLookups(reloaded);
+        assertTrue(Arrays.equals(index, FileUtil.loadFileBytes(indexFile)));
+
+        // no temporary files are left behind
+        assertEquals(2, tmpdir.list().length);
+    }
+
+    public void testDirectory() throws IOException {
+        File dir = new File(tmpdir, "classes");
+        assertTrue(new File(dir, "p").mkdirs());
+        assertTrue(new File(dir, "p/K.class").createNewFile());
+
+        CliClasspathIndex index = new CliClasspathIndex();
+        index.addRoot(dir);
+        assertTrue(index.mayContainPackage("p"));
+        assertTrue(index.mayContainClass("p.K"));
+        assertFalse(index.mayContainClass("p.L"));
+        assertFalse(index.mayContainPackage("q"));
+    }
+}
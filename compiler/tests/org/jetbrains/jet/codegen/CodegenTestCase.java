@@ -310,8 +310,7 @@ public abstract class CodegenTestCase extends UsefulTestCase {
     private GenerationState generateClassesInFileGetState() {
         GenerationState generationState;
         try {
-            ClassBuilderFactory classBuilderFactory = ClassBuilderFactories.binaries(false);
-            generationState = generateCommon(classBuilderFactory);
+            generationState = generateCommon(getClassBuilderFactory());
 
             if (DxChecker.RUN_DX_CHECKER) {
                 DxChecker.check(generationState.getFactory());
@@ -324,6 +323,11 @@ public abstract class CodegenTestCase extends UsefulTestCase {
         return generationState;
     }
 
+    @NotNull
+    protected ClassBuilderFactory getClassBuilderFactory() {
+        return ClassBuilderFactories.binaries(false);
+    }
+
     protected Method generateFunction() {
         Class aClass = generateNamespaceClass();
         try {
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import org.jetbrains.annotations.NotNull;
+
+public class CommonSuperClassResolverTest extends CodegenTestCase {
+
+    private static final String SOURCE =
+            "open class Base()\n" +
+            "class First() : Base()\n" +
+            "class Second() : Base()\n" +
+            "trait Trait\n" +
+            "class WithTrait() : Base(), Trait\n" +
+            "annotation class Ann\n" +
+            "class KotlinList() : java.util.ArrayList<String>()\n" +
+            "fun use(first : First, second : Second, withTrait : WithTrait, trait : Trait, ann : Ann, kotlinList : KotlinList,\n" +
+            "        arrayList : java.util.ArrayList<String>, linkedList : java.util.LinkedList<String>) {}\n";
+
+    private CommonSuperClassResolver resolver;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        // the mock JDK has no java.util.LinkedList
+        createEnvironmentWithFullJdk();
+        loadText(SOURCE);
+        GenerationState state = GenerationUtils.compileFileGetGenerationStateForTest(myFiles.getPsiFile());
+        resolver = new CommonSuperClassResolver(state.getInjector().getJetTypeMapper());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        resolver = null;
+        super.tearDown();
+    }
+
+    public void testClassAndClass() {
+        assertCommonSuperClass("Base", "First", "Second");
+        assertCommonSuperClass("Base", "First", "Base");
+        assertCommonSuperClass("Base", "WithTrait", "First");
+    }
+
+    public void testClassAndInterface() {
+        assertCommonSuperClass("java/lang/Object", "First", "Trait");
+        assertCommonSuperClass("java/lang/Object", "Trait", "WithTrait");
+        assertCommonSuperClass("java/lang/Object", "First", "Ann");
+        assertCommonSuperClass("java/lang/Object", "Ann", "Trait");
+    }
+
+    public void testJavaAndKotlin() {
+        assertCommonSuperClass("java/util/ArrayList", "KotlinList", "java/util/ArrayList");
+        assertCommonSuperClass("java/util/AbstractList", "KotlinList", "java/util/LinkedList");
+        assertCommonSuperClass("java/lang/Object", "KotlinList", "First");
+    }
+
+    public void testGeneratedClass() {
+        resolver.registerGeneratedClass("Generated", "First", false);
+        assertCommonSuperClass("Base", "Generated", "Second");
+        resolver.registerGeneratedClass("GeneratedInterface", "java/lang/Object", true);
+        assertCommonSuperClass("java/lang/Object", "GeneratedInterface", "First");
+    }
+
+    public void testUnknownClass() {
+        assertNull(resolver.getCommonSuperClass("First", "NotGenerated"));
+    }
+
+    private void assertCommonSuperClass(@NotNull String expected, @NotNull String type1, @NotNull String type2) {
+        assertEquals(expected, resolver.getCommonSuperClass(type1, type2));
+        assertEquals(expected, resolver.getCommonSuperClass(type2, type1));
+    }
+}
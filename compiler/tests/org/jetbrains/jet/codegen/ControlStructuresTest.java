@@ -207,6 +207,11 @@ public class ControlStructuresTest extends CodegenTestCase {
         blackBoxFile("controlStructures/forIntRange.jet");
     }
 
+    public void testForInProgressions() {
+        createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY);
+        blackBoxFile("controlStructures/forInProgressions.kt");
+    }
+
     public void testKt237() throws Exception {
         createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY);
         blackBoxFile("regressions/kt237.jet");
@@ -361,4 +366,14 @@ public class ControlStructuresTest extends CodegenTestCase {
         createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY);
         blackBoxFile("regressions/kt1688.kt");
     }
+
+    public void testInRangeVariable() {
+        createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY);
+        blackBoxFile("controlStructures/inRangeVariable.kt");
+    }
+
+    public void testForInJavaList() {
+        createEnvironmentWithFullJdk();
+        blackBoxFile("controlStructures/forInJavaList.kt");
+    }
 }
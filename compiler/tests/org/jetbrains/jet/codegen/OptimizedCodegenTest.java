@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+
+/**
+ * Runs some black box tests with bytecode optimizations enabled.
+ */
+public class OptimizedCodegenTest extends CodegenTestCase {
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY);
+    }
+
+    @NotNull
+    @Override
+    protected ClassBuilderFactory getClassBuilderFactory() {
+        return ClassBuilderFactories.binaries(false, true);
+    }
+
+    public void testForInProgressions() {
+        blackBoxFile("controlStructures/forInProgressions.kt");
+    }
+
+    public void testQuicksort() {
+        blackBoxFile("controlStructures/quicksort.jet");
+    }
+
+    public void testClosureWithParameterAndBoxing() {
+        blackBoxFile("classes/closureWithParameterAndBoxing.jet");
+    }
+
+    public void testPatternMatching() {
+        blackBoxFile("patternMatching/is.jet");
+    }
+
+    public void testNullableWhen() {
+        blackBoxFile("patternMatching/nullableWhen.kt");
+    }
+
+    public void testTuples() {
+        blackBoxFile("tuples/basic.jet");
+    }
+
+    public void testSafeCall() {
+        blackBoxFile("regressions/kt245.jet");
+    }
+}
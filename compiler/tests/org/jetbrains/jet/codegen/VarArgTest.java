@@ -21,6 +21,7 @@ import org.jetbrains.jet.ConfigurationKind;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 
 /**
  * @author alex.tkachman
@@ -127,6 +128,15 @@ public class VarArgTest extends CodegenTestCase {
         assertEquals("papa", Array.get(invoke, 1));
     }
 
+    public void testPrimitiveArrayAsVararg () throws InvocationTargetException, IllegalAccessException {
+        createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY);
+        loadText("private fun asList(vararg elems: Int) = elems; fun test(ts1: IntArray, ts2: IntArray) = asList(1, *ts1, 4, *ts2); ");
+        final Method main = generateFunction("test");
+        Object invoke = main.invoke(null, new Object[] {new int[] {2, 3}, new int[] {5} });
+        assertInstanceOf(invoke, int[].class);
+        assertTrue(Arrays.equals(new int[] {1, 2, 3, 4, 5}, (int[]) invoke));
+    }
+
     public void testKt1978() {
         createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY);
         blackBoxFile("regressions/kt1978.kt");
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen.optimization;
+
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Runs the optimization passes over hand-written methods, checks the resulting instructions
+ * and that the optimized method still computes the same result.
+ *
+ * @see org.jetbrains.jet.codegen.OptimizedCodegenTest
+ */
+public class MethodTransformersTest extends TestCase implements Opcodes {
+    private static final String METHOD_NAME = "test";
+
+    public void testBoxUnboxInStraightLineIsRemoved() throws Exception {
+        MethodNode method = createMethod("(I)J");
+        InsnList insns = method.instructions;
+        insns.add(new VarInsnNode(ILOAD, 0));
+        insns.add(box());
+        insns.add(new TypeInsnNode(CHECKCAST, "java/lang/Number"));
+        insns.add(new MethodInsnNode(INVOKEVIRTUAL, "java/lang/Number", "longValue", "()J"));
+        insns.add(new InsnNode(LRETURN));
+
+        OptimizationMethodVisitor.optimize(method);
+
+        assertEquals(0, count(method, INVOKESTATIC) + count(method, INVOKEVIRTUAL) + count(method, CHECKCAST));
+        assertEquals(1, count(method, I2L));
+        assertEquals(-5L, invoke(method, -5));
+    }
+
+    public void testBoxUnboxAcrossBranchesIsKept() throws Exception {
+        // the unbox is reached both from the box and from the jump, where an arbitrary Integer is on the stack
+        MethodNode method = createMethod("(ZILjava/lang/Object;)I");
+        LabelNode join = new LabelNode();
+        InsnList insns = method.instructions;
+        insns.add(new VarInsnNode(ALOAD, 2));
+        insns.add(new TypeInsnNode(CHECKCAST, "java/lang/Integer"));
+        insns.add(new VarInsnNode(ILOAD, 0));
+        insns.add(new JumpInsnNode(IFNE, join));
+        insns.add(new InsnNode(POP));
+        insns.add(new VarInsnNode(ILOAD, 1));
+        insns.add(box());
+        insns.add(join);
+        insns.add(unbox());
+        insns.add(new InsnNode(IRETURN));
+
+        OptimizationMethodVisitor.optimize(method);
+
+        assertEquals(1, count(method, INVOKESTATIC));
+        assertEquals(1, count(method, INVOKEVIRTUAL));
+        assertEquals(42, invoke(method, true, 1, 42));
+        assertEquals(1, invoke(method, false, 1, 42));
+    }
+
+    public void testBoxUnboxInsideBranchIsRemoved() throws Exception {
+        MethodNode method = createMethod("(ZI)I");
+        LabelNode otherwise = new LabelNode();
+        InsnList insns = method.instructions;
+        insns.add(new VarInsnNode(ILOAD, 0));
+        insns.add(new JumpInsnNode(IFEQ, otherwise));
+        insns.add(new VarInsnNode(ILOAD, 1));
+        insns.add(box());
+        insns.add(unbox());
+        insns.add(new InsnNode(IRETURN));
+        insns.add(otherwise);
+        insns.add(new InsnNode(ICONST_M1));
+        insns.add(new InsnNode(IRETURN));
+
+        OptimizationMethodVisitor.optimize(method);
+
+        assertEquals(0, count(method, INVOKESTATIC) + count(method, INVOKEVIRTUAL));
+        assertEquals(7, invoke(method, true, 7));
+        assertEquals(-1, invoke(method, false, 7));
+    }
+
+    public void testNeededCheckCastIsKept() throws Exception {
+        MethodNode method = createMethod("(Ljava/lang/Object;)Ljava/lang/String;");
+        InsnList insns = method.instructions;
+        insns.add(new VarInsnNode(ALOAD, 0));
+        insns.add(new TypeInsnNode(CHECKCAST, "java/lang/String"));
+        insns.add(new InsnNode(ARETURN));
+
+        OptimizationMethodVisitor.optimize(method);
+
+        assertEquals(1, count(method, CHECKCAST));
+        assertEquals("a", invoke(method, "a"));
+        assertThrows(ClassCastException.class, method, 1);
+    }
+
+    public void testCheckCastAfterJoinIsKept() throws Exception {
+        // the string constant is not the only value that can reach the cast
+        MethodNode method = createMethod("(ZLjava/lang/Object;)Ljava/lang/String;");
+        LabelNode join = new LabelNode();
+        InsnList insns = method.instructions;
+        insns.add(new VarInsnNode(ALOAD, 1));
+        insns.add(new VarInsnNode(ILOAD, 0));
+        insns.add(new JumpInsnNode(IFEQ, join));
+        insns.add(new InsnNode(POP));
+        insns.add(new LdcInsnNode("a"));
+        insns.add(join);
+        insns.add(new TypeInsnNode(CHECKCAST, "java/lang/String"));
+        insns.add(new InsnNode(ARETURN));
+
+        OptimizationMethodVisitor.optimize(method);
+
+        assertEquals(1, count(method, CHECKCAST));
+        assertEquals("a", invoke(method, true, 1));
+        assertThrows(ClassCastException.class, method, false, 1);
+    }
+
+    public void testRedundantCheckCastIsRemoved() throws Exception {
+        MethodNode method = createMethod("(Ljava/lang/Object;)Ljava/lang/String;");
+        InsnList insns = method.instructions;
+        insns.add(new VarInsnNode(ALOAD, 0));
+        insns.add(new MethodInsnNode(INVOKEVIRTUAL, "java/lang/Object", "toString", "()Ljava/lang/String;"));
+        insns.add(new TypeInsnNode(CHECKCAST, "java/lang/String"));
+        insns.add(new InsnNode(ARETURN));
+
+        OptimizationMethodVisitor.optimize(method);
+
+        assertEquals(0, count(method, CHECKCAST));
+        assertEquals("1", invoke(method, 1));
+    }
+
+    public void testJumpThreadingLeavesNoChains() throws Exception {
+        MethodNode method = createMethod("(II)I");
+        LabelNode first = new LabelNode();
+        LabelNode second = new LabelNode();
+        LabelNode third = new LabelNode();
+        LabelNode end = new LabelNode();
+        InsnList insns = method.instructions;
+        insns.add(new VarInsnNode(ILOAD, 0));
+        insns.add(new JumpInsnNode(IFEQ, first));
+        insns.add(new VarInsnNode(ILOAD, 1));
+        insns.add(new JumpInsnNode(IFNE, second));
+        insns.add(new InsnNode(ICONST_1));
+        insns.add(new VarInsnNode(ISTORE, 1));
+        insns.add(new JumpInsnNode(GOTO, third));
+        insns.add(first);
+        insns.add(new JumpInsnNode(GOTO, second));
+        insns.add(second);
+        insns.add(new JumpInsnNode(GOTO, third));
+        insns.add(third);
+        insns.add(new JumpInsnNode(GOTO, end));
+        insns.add(end);
+        insns.add(new VarInsnNode(ILOAD, 1));
+        insns.add(new InsnNode(IRETURN));
+
+        OptimizationMethodVisitor.optimize(method);
+
+        for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn instanceof JumpInsnNode) {
+                LabelNode target = ((JumpInsnNode) insn).label;
+                AbstractInsnNode targetInsn = MethodTransformer.firstInsnAfter(target);
+                assertTrue("jump to a jump is left", targetInsn == null || targetInsn.getOpcode() != GOTO);
+                assertTrue("backward jump is introduced", method.instructions.indexOf(target) > method.instructions.indexOf(insn));
+            }
+        }
+        assertEquals(0, count(method, GOTO));
+        assertEquals(5, invoke(method, 0, 5));
+        assertEquals(5, invoke(method, 1, 5));
+        assertEquals(1, invoke(method, 1, 0));
+    }
+
+    public void testJumpThreadingKeepsCycle() throws Exception {
+        // a jump into a cycle of GOTOs is retargeted into the cycle, the cycle itself is left as it is
+        MethodNode method = createMethod("(I)I");
+        LabelNode entry = new LabelNode();
+        LabelNode first = new LabelNode();
+        LabelNode second = new LabelNode();
+        InsnList insns = method.instructions;
+        insns.add(new VarInsnNode(ILOAD, 0));
+        JumpInsnNode toEntry = new JumpInsnNode(IFNE, entry);
+        insns.add(toEntry);
+        insns.add(new InsnNode(ICONST_0));
+        insns.add(new InsnNode(IRETURN));
+        insns.add(entry);
+        insns.add(new JumpInsnNode(GOTO, first));
+        insns.add(first);
+        JumpInsnNode toSecond = new JumpInsnNode(GOTO, second);
+        insns.add(toSecond);
+        insns.add(new InsnNode(ICONST_1));
+        insns.add(new InsnNode(IRETURN));
+        insns.add(second);
+        JumpInsnNode toFirst = new JumpInsnNode(GOTO, first);
+        insns.add(toFirst);
+
+        assertTrue(new JumpThreadingTransformer().transform(method));
+        assertSame(first, toEntry.label);
+        assertSame(second, toSecond.label);
+        assertSame(first, toFirst.label);
+
+        OptimizationMethodVisitor.optimize(method);
+
+        assertEquals(0, count(method, ICONST_1));
+        assertEquals(1, count(method, GOTO));
+        assertEquals(0, invoke(method, 0));
+    }
+
+    public void testIntFoldingOverflows() throws Exception {
+        assertFoldedInt(Integer.MIN_VALUE, new LdcInsnNode(Integer.MAX_VALUE), new InsnNode(ICONST_1), new InsnNode(IADD));
+        assertFoldedInt(Integer.MAX_VALUE, new LdcInsnNode(Integer.MIN_VALUE), new InsnNode(ICONST_1), new InsnNode(ISUB));
+        assertFoldedInt(0, new LdcInsnNode(65536), new LdcInsnNode(65536), new InsnNode(IMUL));
+        assertFoldedInt(Integer.MIN_VALUE, new LdcInsnNode(Integer.MIN_VALUE), new InsnNode(INEG));
+        assertFoldedInt(Integer.MIN_VALUE, new LdcInsnNode(Integer.MIN_VALUE), new InsnNode(ICONST_M1), new InsnNode(IDIV));
+        assertFoldedInt(-1, new LdcInsnNode(0xFFFFFFFFL), new InsnNode(L2I));
+        assertFoldedInt(Integer.MIN_VALUE, new InsnNode(ICONST_1), new IntInsnNode(BIPUSH, 31), new InsnNode(ISHL));
+    }
+
+    public void testLongFoldingOverflows() throws Exception {
+        assertFoldedLong(Long.MIN_VALUE, new LdcInsnNode(Long.MAX_VALUE), new InsnNode(LCONST_1), new InsnNode(LADD));
+        assertFoldedLong(Long.MAX_VALUE * 3, new LdcInsnNode(Long.MAX_VALUE), new LdcInsnNode(3L), new InsnNode(LMUL));
+        assertFoldedLong(Long.MIN_VALUE, new LdcInsnNode(Long.MIN_VALUE), new InsnNode(LNEG));
+        assertFoldedLong(Long.MIN_VALUE, new InsnNode(LCONST_1), new IntInsnNode(BIPUSH, 63), new InsnNode(LSHL));
+    }
+
+    public void testDivisionByZeroIsNotFolded() throws Exception {
+        MethodNode method = createMethod("()I");
+        method.instructions.add(new InsnNode(ICONST_1));
+        method.instructions.add(new InsnNode(ICONST_0));
+        method.instructions.add(new InsnNode(IDIV));
+        method.instructions.add(new InsnNode(IRETURN));
+
+        OptimizationMethodVisitor.optimize(method);
+
+        assertEquals(1, count(method, IDIV));
+        assertThrows(ArithmeticException.class, method);
+    }
+
+    private static void assertFoldedInt(int expected, @NotNull AbstractInsnNode... operation) throws Exception {
+        MethodNode method = fold("()I", IRETURN, operation);
+        assertEquals(expected, ConstantFoldingTransformer.getConstant(method.instructions.getFirst()));
+        assertEquals(expected, invoke(method));
+    }
+
+    private static void assertFoldedLong(long expected, @NotNull AbstractInsnNode... operation) throws Exception {
+        MethodNode method = fold("()J", LRETURN, operation);
+        assertEquals(expected, ConstantFoldingTransformer.getConstant(method.instructions.getFirst()));
+        assertEquals(expected, invoke(method));
+    }
+
+    @NotNull
+    private static MethodNode fold(@NotNull String desc, int returnOpcode, @NotNull AbstractInsnNode... operation) {
+        MethodNode method = createMethod(desc);
+        for (AbstractInsnNode insn : operation) {
+            method.instructions.add(insn);
+        }
+        method.instructions.add(new InsnNode(returnOpcode));
+
+        OptimizationMethodVisitor.optimize(method);
+
+        assertEquals("constant and return are expected", 2, method.instructions.size());
+        return method;
+    }
+
+    @NotNull
+    private static MethodNode createMethod(@NotNull String desc) {
+        return new MethodNode(ACC_PUBLIC | ACC_STATIC, METHOD_NAME, desc, null, null);
+    }
+
+    @NotNull
+    private static AbstractInsnNode box() {
+        return new MethodInsnNode(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+    }
+
+    @NotNull
+    private static AbstractInsnNode unbox() {
+        return new MethodInsnNode(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I");
+    }
+
+    private static int count(@NotNull MethodNode method, int opcode) {
+        int result = 0;
+        for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn.getOpcode() == opcode) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private static void assertThrows(@NotNull Class<? extends Throwable> exceptionClass, @NotNull MethodNode method, Object... args)
+            throws Exception {
+        try {
+            invoke(method, args);
+            fail(exceptionClass.getName() + " expected");
+        }
+        catch (InvocationTargetException e) {
+            assertEquals(exceptionClass, e.getTargetException().getClass());
+        }
+    }
+
+    private static Object invoke(@NotNull MethodNode method, Object... args) throws Exception {
+        Class<?> aClass = new TestClassLoader().define(method);
+        for (Method declaredMethod : aClass.getDeclaredMethods()) {
+            if (declaredMethod.getName().equals(METHOD_NAME)) {
+                return declaredMethod.invoke(null, args);
+            }
+        }
+        throw new AssertionError("no method " + METHOD_NAME + " in " + aClass);
+    }
+
+    private static class TestClassLoader extends ClassLoader {
+        private static final String CLASS_NAME = "Optimized";
+
+        TestClassLoader() {
+            super(MethodTransformersTest.class.getClassLoader());
+        }
+
+        @NotNull
+        Class<?> define(@NotNull MethodNode method) {
+            // version 1.5 class files don't need stack map frames
+            ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            writer.visit(V1_5, ACC_PUBLIC | ACC_SUPER, CLASS_NAME, null, "java/lang/Object", null);
+            method.accept(writer);
+            writer.visitEnd();
+            byte[] bytes = writer.toByteArray();
+            return defineClass(CLASS_NAME, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.jvm.compiler;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.resolve.java.JvmClassName;
+import org.jetbrains.jet.lang.resolve.java.JvmStdlibNames;
+import org.jetbrains.jet.lang.resolve.java.kt.ClassFileAnnotations;
+import org.jetbrains.jet.test.TestCaseWithTmpdir;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+public class ClassFileAnnotationsTest extends TestCaseWithTmpdir {
+
+    public void testInnerClassConstructors() throws Exception {
+        ClassWriter outer = startClass("Outer", Opcodes.ACC_PUBLIC);
+        outer.visitInnerClass("Outer$Inner", "Outer", "Inner", Opcodes.ACC_PUBLIC);
+        outer.visitInnerClass("Outer$Nested", "Outer", "Nested", Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC);
+        addConstructor(outer, "()V", null, 0);
+        writeClass("Outer", outer);
+
+        ClassWriter inner = startClass("Outer$Inner", Opcodes.ACC_PUBLIC);
+        inner.visitInnerClass("Outer$Inner", "Outer", "Inner", Opcodes.ACC_PUBLIC);
+        addConstructor(inner, "(LOuter;)V", JvmStdlibNames.JET_CONSTRUCTOR, 1);
+        addConstructor(inner, "(LOuter;I)V", JvmStdlibNames.JET_CONSTRUCTOR, 2);
+        writeClass("Outer$Inner", inner);
+
+        ClassWriter nested = startClass("Outer$Nested", Opcodes.ACC_PUBLIC);
+        nested.visitInnerClass("Outer$Nested", "Outer", "Nested", Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC);
+        addConstructor(nested, "(I)V", JvmStdlibNames.JET_CONSTRUCTOR, 3);
+        writeClass("Outer$Nested", nested);
+
+        Project project = createProject();
+        // the outer instance parameter does not let the constructors of an inner class be matched reliably
+        for (PsiMethod constructor : findClass(project, "Outer.Inner").getConstructors()) {
+            assertNull(ClassFileAnnotations.forMethod(constructor));
+        }
+        PsiMethod[] nestedConstructors = findClass(project, "Outer.Nested").getConstructors();
+        assertEquals(1, nestedConstructors.length);
+        assertEquals(3, getFlags(ClassFileAnnotations.forMethod(nestedConstructors[0]), JvmStdlibNames.JET_CONSTRUCTOR));
+    }
+
+    public void testOverloadsDifferingOnlyInReturnType() throws Exception {
+        ClassWriter writer = startClass("Overloads", Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+        addConstructor(writer, "()V", null, 0);
+        addAbstractMethod(writer, "foo", "()I", 1);
+        addAbstractMethod(writer, "foo", "()Ljava/lang/String;", 2);
+        addAbstractMethod(writer, "bar", "(I)V", 3);
+        addAbstractMethod(writer, "bar", "(Ljava/lang/String;)V", 4);
+        addAbstractMethod(writer, "baz", "(J)V", 5);
+        writeClass("Overloads", writer);
+
+        PsiClass psiClass = findClass(createProject(), "Overloads");
+        PsiMethod[] foos = psiClass.findMethodsByName("foo", false);
+        assertEquals(2, foos.length);
+        for (PsiMethod foo : foos) {
+            assertNull(ClassFileAnnotations.forMethod(foo));
+        }
+        for (PsiMethod bar : psiClass.findMethodsByName("bar", false)) {
+            PsiType parameterType = bar.getParameterList().getParameters()[0].getType();
+            int expectedFlags = parameterType == PsiType.INT ? 3 : 4;
+            assertEquals(expectedFlags, getFlags(ClassFileAnnotations.forMethod(bar), JvmStdlibNames.JET_METHOD));
+        }
+        PsiMethod baz = psiClass.findMethodsByName("baz", false)[0];
+        assertEquals(5, getFlags(ClassFileAnnotations.forMethod(baz), JvmStdlibNames.JET_METHOD));
+    }
+
+    public void testClassWithoutKotlinAnnotations() throws Exception {
+        ClassWriter writer = startClass("Plain", Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+        addConstructor(writer, "()V", null, 0);
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "qux", "(Ljava/lang/String;)V", null, null);
+        method.visitAnnotation("Ljava/lang/Deprecated;", true).visitEnd();
+        method.visitEnd();
+        writeClass("Plain", writer);
+
+        PsiClass psiClass = findClass(createProject(), "Plain");
+        ClassFileAnnotations annotations = ClassFileAnnotations.forClass(psiClass);
+        assertNotNull(annotations);
+        assertNull(annotations.getClassAnnotations().get(JvmStdlibNames.JET_CLASS));
+        assertSame(ClassFileAnnotations.MethodAnnotations.EMPTY, ClassFileAnnotations.forMethod(psiClass.getConstructors()[0]));
+        assertSame(ClassFileAnnotations.MethodAnnotations.EMPTY,
+                   ClassFileAnnotations.forMethod(psiClass.findMethodsByName("qux", false)[0]));
+    }
+
+    public void testClassWithoutAnnotationsIsNotRead() throws Exception {
+        ClassWriter writer = startClass("Unannotated", Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+        addConstructor(writer, "()V", null, 0);
+        writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "qux", "(I)V", null, null).visitEnd();
+        writeClass("Unannotated", writer);
+
+        PsiClass psiClass = findClass(createProject(), "Unannotated");
+        PsiMethod qux = psiClass.findMethodsByName("qux", false)[0];
+        // compiled PSI is built already; the class file itself must not be parsed again
+        FileUtil.writeToFile(new File(tmpdir, "Unannotated.class"), new byte[] {1, 2, 3});
+
+        assertNotNull(ClassFileAnnotations.forClass(psiClass));
+        assertSame(ClassFileAnnotations.MethodAnnotations.EMPTY, ClassFileAnnotations.forMethod(qux));
+    }
+
+    private static int getFlags(@Nullable ClassFileAnnotations.MethodAnnotations method, @NotNull JvmClassName annotation) {
+        assertNotNull(method);
+        Map<String, Object> attributes = method.get(annotation);
+        assertNotNull(attributes);
+        return (Integer) attributes.get(JvmStdlibNames.JET_METHOD_FLAGS_FIELD);
+    }
+
+    @NotNull
+    private static ClassWriter startClass(@NotNull String internalName, int access) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_6, access | Opcodes.ACC_SUPER, internalName, null, "java/lang/Object", null);
+        return writer;
+    }
+
+    private static void addConstructor(@NotNull ClassWriter writer, @NotNull String desc, @Nullable JvmClassName annotation, int flags) {
+        MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", desc, null, null);
+        if (annotation != null) {
+            annotate(constructor, annotation, flags);
+        }
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+    }
+
+    private static void addAbstractMethod(@NotNull ClassWriter writer, @NotNull String name, @NotNull String desc, int flags) {
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, name, desc, null, null);
+        annotate(method, JvmStdlibNames.JET_METHOD, flags);
+        method.visitEnd();
+    }
+
+    private static void annotate(@NotNull MethodVisitor method, @NotNull JvmClassName annotation, int flags) {
+        AnnotationVisitor annotationVisitor = method.visitAnnotation(annotation.getDescriptor(), true);
+        // constructors and methods name their flags attribute the same way
+        annotationVisitor.visit(JvmStdlibNames.JET_METHOD_FLAGS_FIELD, flags);
+        annotationVisitor.visitEnd();
+    }
+
+    private void writeClass(@NotNull String internalName, @NotNull ClassWriter writer) throws IOException {
+        writer.visitEnd();
+        FileUtil.writeToFile(new File(tmpdir, internalName + ".class"), writer.toByteArray());
+    }
+
+    @NotNull
+    private Project createProject() {
+        JetCoreEnvironment environment = JetTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(
+                myTestRootDisposable, ConfigurationKind.JDK_ONLY);
+        environment.addToClasspath(tmpdir);
+        return environment.getProject();
+    }
+
+    @NotNull
+    private static PsiClass findClass(@NotNull Project project, @NotNull String qualifiedName) {
+        PsiClass psiClass = JavaPsiFacade.getInstance(project).findClass(qualifiedName, GlobalSearchScope.allScope(project));
+        assertNotNull(qualifiedName, psiClass);
+        return psiClass;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.jvm.compiler;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.JetTestCaseBuilder;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.cli.common.messages.MessageCollector;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.cli.jvm.compiler.K2JVMCompileEnvironmentConfiguration;
+import org.jetbrains.jet.cli.jvm.compiler.KotlinToJVMBytecodeCompiler;
+import org.jetbrains.jet.codegen.BuiltinToJavaTypesMapping;
+import org.jetbrains.jet.codegen.ClassFileFactory;
+import org.jetbrains.jet.codegen.GenerationState;
+import org.jetbrains.jet.lang.BuiltinsScopeExtensionMode;
+import org.jetbrains.jet.test.TestCaseWithTmpdir;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.util.TraceClassVisitor;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks that stubs generated from lazily resolved headers (see {@link KotlinToJVMBytecodeCompiler#LAZY_STUBS_RESOLVE_PROPERTY})
+ * are the same as the stubs generated after the usual top-down analysis.
+ *
+ * @see CompileJavaAgainstKotlinTest
+ */
+public class LazyStubsGenerationTest extends TestCaseWithTmpdir {
+
+    private final File ktFile;
+
+    public LazyStubsGenerationTest(@NotNull File ktFile) {
+        this.ktFile = ktFile;
+    }
+
+    @Override
+    public String getName() {
+        return ktFile.getName();
+    }
+
+    @Override
+    protected void runTest() throws Throwable {
+        String eagerStubs = generateStubs(false);
+        String lazyStubs = generateStubs(true);
+        assertEquals(eagerStubs, lazyStubs);
+    }
+
+    @NotNull
+    private String generateStubs(boolean lazy) {
+        String property = KotlinToJVMBytecodeCompiler.LAZY_STUBS_RESOLVE_PROPERTY;
+        String oldValue = System.getProperty(property);
+        System.setProperty(property, String.valueOf(lazy));
+        try {
+            JetCoreEnvironment environment = JetTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(myTestRootDisposable);
+            environment.addSources(ktFile.getPath());
+            GenerationState state = KotlinToJVMBytecodeCompiler.analyzeAndGenerate(
+                    new K2JVMCompileEnvironmentConfiguration(environment, MessageCollector.PLAIN_TEXT_TO_SYSTEM_ERR, false,
+                                                             BuiltinsScopeExtensionMode.ALL, true, BuiltinToJavaTypesMapping.ENABLED),
+                    true);
+            assertNotNull("stubs were not generated for " + ktFile, state);
+            return stubsAsText(state.getFactory());
+        }
+        finally {
+            if (oldValue != null) {
+                System.setProperty(property, oldValue);
+            }
+            else {
+                System.clearProperty(property);
+            }
+        }
+    }
+
+    @NotNull
+    private static String stubsAsText(@NotNull ClassFileFactory factory) {
+        List<String> files = factory.files();
+        Collections.sort(files);
+        StringWriter result = new StringWriter();
+        PrintWriter writer = new PrintWriter(result);
+        for (String file : files) {
+            writer.println("// " + file);
+            new ClassReader(factory.asBytes(file)).accept(new TraceClassVisitor(writer), 0);
+        }
+        writer.flush();
+        return result.toString();
+    }
+
+    public static Test suite() {
+        TestSuite suite = new TestSuite(LazyStubsGenerationTest.class.getSimpleName());
+        JetTestCaseBuilder.NamedTestFactory factory = new JetTestCaseBuilder.NamedTestFactory() {
+            @NotNull
+            @Override
+            public Test createTest(@NotNull String dataPath, @NotNull String name, @NotNull File file) {
+                return new LazyStubsGenerationTest(file);
+            }
+        };
+        // the stubs Java sources are compiled against, and the light classes of the IDE
+        suite.addTest(JetTestCaseBuilder.suiteForDirectory(JetTestCaseBuilder.getTestDataPathBase(), "/compileJavaAgainstKotlin", true,
+                                                           factory));
+        suite.addTest(JetTestCaseBuilder.suiteForDirectory(JetTestCaseBuilder.getHomeDirectory() + "/idea/testData", "/javaFacade", true,
+                                                           factory));
+        return suite;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.lang.resolve.java;
+
+import org.jetbrains.jet.rt.signature.JetSignatureWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CachedJetSignaturesTest {
+
+    private static void assertMethodOrClassRoundTrip(String signature) {
+        for (int i = 0; i < 2; i++) {
+            JetSignatureWriter writer = new JetSignatureWriter();
+            CachedJetSignatures.accept(signature, writer);
+            Assert.assertEquals(signature, writer.toString());
+        }
+    }
+
+    private static void assertTypeRoundTrip(String signature) {
+        for (int i = 0; i < 2; i++) {
+            JetSignatureWriter writer = new JetSignatureWriter();
+            CachedJetSignatures.acceptTypeOnly(signature, writer);
+            Assert.assertEquals(signature, writer.toString());
+        }
+    }
+
+    @Test
+    public void type() {
+        assertTypeRoundTrip("Ljava/lang/String;");
+        assertTypeRoundTrip("?Ljava/util/List<+?Ljava/lang/String;>;");
+        assertTypeRoundTrip("[I");
+        assertTypeRoundTrip("TT;");
+        assertTypeRoundTrip("Ljava/util/Map<*TK;>;");
+    }
+
+    @Test
+    public void typeIgnoresTrailingCharacters() {
+        String signature = "Ljava/lang/String;Ljava/lang/Integer;";
+        for (int i = 0; i < 2; i++) {
+            JetSignatureWriter writer = new JetSignatureWriter();
+            CachedJetSignatures.acceptType(signature, writer);
+            Assert.assertEquals("Ljava/lang/String;", writer.toString());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void typeOnlyRejectsTrailingCharacters() {
+        CachedJetSignatures.acceptTypeOnly("Ljava/lang/String;Ljava/lang/Integer;", new JetSignatureWriter());
+    }
+
+    @Test
+    public void method() {
+        assertMethodOrClassRoundTrip("<T:?Ljava/lang/Object;>(TT;I)Ljava/util/List<TT;>;");
+        assertMethodOrClassRoundTrip("(Ljava/lang/String;)V");
+    }
+
+    @Test
+    public void klass() {
+        assertMethodOrClassRoundTrip("<out T:?Ljava/lang/Object;>Ljava/lang/Object;Ljava/lang/Comparable<TT;>;");
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.lazy;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.psi.JetDeclaration;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetPsiFactory;
+import org.jetbrains.jet.lang.resolve.DescriptorUtils;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+import org.jetbrains.jet.lang.resolve.name.FqNameUnsafe;
+import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.lang.types.TypeProjection;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Resolves the same declarations through one session from several threads, each in its own order, and checks that
+ * all threads see the same descriptors, both for the Kotlin declarations and for the Java classes they use.
+ */
+public class LazyResolveConcurrencyTest extends KotlinTestWithEnvironment {
+    private static final int THREADS = 8;
+
+    private static final String TEXT =
+            "package p\n" +
+            "import java.util.*\n" +
+            "open class A : ArrayList<String>() {\n" +
+            "    fun a(list: List<Int>): Map<String, Int> = HashMap<String, Int>()\n" +
+            "}\n" +
+            "class B : A(), Runnable {\n" +
+            "    override fun run() {}\n" +
+            "    val b: StringBuilder? = null\n" +
+            "}\n" +
+            "trait T : Comparator<A>\n" +
+            "fun f(a: A, b: B): Collection<Date>? = null\n" +
+            "val v: Thread? = null\n";
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testOneSessionFromSeveralThreads() throws Exception {
+        JetFile file = JetPsiFactory.createFile(getProject(), "p.kt", TEXT);
+        final ResolveSession session = AnalyzerFacadeForJVM.createLazyResolveSession(getProject(), Collections.singletonList(file));
+        final List<JetDeclaration> declarations = file.getDeclarations();
+
+        final CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Map<Object, DeclarationDescriptor>>> results = Lists.newArrayList();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                final long seed = i;
+                results.add(executor.submit(new Callable<Map<Object, DeclarationDescriptor>>() {
+                    @Override
+                    public Map<Object, DeclarationDescriptor> call() throws Exception {
+                        List<JetDeclaration> order = Lists.newArrayList(declarations);
+                        Collections.shuffle(order, new Random(seed));
+                        start.await();
+                        Map<Object, DeclarationDescriptor> seen = Maps.newHashMap();
+                        for (JetDeclaration declaration : order) {
+                            DeclarationDescriptor descriptor = session.resolveToDescriptor(declaration);
+                            seen.put(declaration, descriptor);
+                            collectUsedClasses(descriptor, seen);
+                        }
+                        return seen;
+                    }
+                }));
+            }
+
+            Map<Object, DeclarationDescriptor> expected = results.get(0).get(60, TimeUnit.SECONDS);
+            assertTrue(expected.containsKey(new FqNameUnsafe("java.util.ArrayList")));
+            assertTrue(expected.containsKey(new FqNameUnsafe("java.util.Comparator")));
+            for (Future<Map<Object, DeclarationDescriptor>> result : results) {
+                Map<Object, DeclarationDescriptor> actual = result.get(60, TimeUnit.SECONDS);
+                assertEquals(expected.keySet(), actual.keySet());
+                for (Map.Entry<Object, DeclarationDescriptor> entry : expected.entrySet()) {
+                    assertSame(String.valueOf(entry.getKey()), entry.getValue(), actual.get(entry.getKey()));
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void collectUsedClasses(DeclarationDescriptor descriptor, Map<Object, DeclarationDescriptor> seen) {
+        if (descriptor instanceof ClassDescriptor) {
+            ClassDescriptor classDescriptor = (ClassDescriptor) descriptor;
+            classDescriptor.getDefaultType().getMemberScope().getAllDescriptors();
+            for (JetType supertype : classDescriptor.getTypeConstructor().getSupertypes()) {
+                collectUsedClasses(supertype, seen);
+            }
+        }
+        else if (descriptor instanceof CallableDescriptor) {
+            CallableDescriptor callable = (CallableDescriptor) descriptor;
+            for (ValueParameterDescriptor parameter : callable.getValueParameters()) {
+                collectUsedClasses(parameter.getType(), seen);
+            }
+            JetType returnType = callable.getReturnType();
+            if (returnType != null) {
+                collectUsedClasses(returnType, seen);
+            }
+        }
+    }
+
+    private static void collectUsedClasses(JetType type, Map<Object, DeclarationDescriptor> seen) {
+        ClassifierDescriptor classifier = type.getConstructor().getDeclarationDescriptor();
+        if (!(classifier instanceof ClassDescriptor) || seen.containsKey(DescriptorUtils.getFQName(classifier))) {
+            return;
+        }
+        ClassDescriptor classDescriptor = (ClassDescriptor) classifier;
+        seen.put(DescriptorUtils.getFQName(classDescriptor), classDescriptor);
+        // member scopes and constructors of Java classes are resolved lazily too
+        classDescriptor.getDefaultType().getMemberScope().getAllDescriptors();
+        classDescriptor.getConstructors();
+        for (TypeProjection argument : type.getArguments()) {
+            collectUsedClasses(argument.getType(), seen);
+        }
+    }
+}
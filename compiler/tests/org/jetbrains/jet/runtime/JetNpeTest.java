@@ -53,4 +53,11 @@ public class JetNpeTest extends CodegenTestCase {
         Method box = generateFunction("box");
         assertThrows(box, NullPointerException.class, null);
     }
+
+    public void testKnownNotNull() throws Exception {
+        loadText("fun foo(s: String?): Int { if (s == null) return 0; return s!!.length + s.sure().length + (s?.length ?: 10) }\n" +
+                 "fun box() = if (foo(\"OK\") == 6 && foo(null) == 0) \"OK\" else \"fail\"");
+        assertFalse(generateToText().contains("throwNpe"));
+        blackBox();
+    }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.util.lazy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LazyValueTest {
+
+    @Test
+    public void computedOnce() {
+        final AtomicInteger count = new AtomicInteger();
+        LazyValue<String> value = new LazyValue<String>() {
+            @Override
+            protected String compute() {
+                count.incrementAndGet();
+                return "OK";
+            }
+        };
+        Assert.assertFalse(value.isComputed());
+        Assert.assertEquals("OK", value.get());
+        Assert.assertEquals("OK", value.get());
+        Assert.assertTrue(value.isComputed());
+        Assert.assertEquals(1, count.get());
+    }
+
+    @Test
+    public void failedComputationIsRetried() {
+        final AtomicInteger count = new AtomicInteger();
+        LazyValue<String> value = new LazyValue<String>() {
+            @Override
+            protected String compute() {
+                if (count.incrementAndGet() == 1) {
+                    throw new IllegalStateException("cancelled");
+                }
+                return "OK";
+            }
+        };
+        try {
+            value.get();
+            Assert.fail("The first computation should fail");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals("cancelled", e.getMessage());
+        }
+        Assert.assertFalse(value.isComputed());
+        Assert.assertEquals("OK", value.get());
+        Assert.assertEquals("OK", value.get());
+        Assert.assertEquals(2, count.get());
+    }
+
+    @Test
+    public void reentryOnOneThread() {
+        final AtomicReference<LazyValue<String>> self = new AtomicReference<LazyValue<String>>();
+        LazyValue<String> value = new LazyValueWithDefault<String>("default") {
+            @Override
+            protected String compute() {
+                try {
+                    return self.get().get();
+                }
+                catch (ReenteringLazyValueComputationException e) {
+                    return "recovered";
+                }
+            }
+        };
+        self.set(value);
+        Assert.assertEquals("recovered", value.get());
+        Assert.assertEquals("recovered", value.get());
+    }
+
+    @Test
+    public void concurrentGetComputesOnce() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final LazyValue<Integer> value = new LazyValue<Integer>() {
+            @Override
+            protected Integer compute() {
+                started.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return count.incrementAndGet();
+            }
+        };
+
+        final Integer[] results = new Integer[4];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    results[index] = value.get();
+                }
+            };
+            threads[i].start();
+        }
+        started.await();
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(1, count.get());
+        for (Integer result : results) {
+            Assert.assertEquals(Integer.valueOf(1), result);
+        }
+    }
+
+    @Test
+    public void cycleBetweenThreadsIsReportedAsReentry() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final LazyValue<?>[] values = new LazyValue<?>[2];
+        for (int i = 0; i < 2; i++) {
+            final int other = 1 - i;
+            values[i] = new LazyValueWithDefault<String>("default") {
+                @Override
+                protected String compute() {
+                    bothStarted.countDown();
+                    try {
+                        bothStarted.await();
+                    }
+                    catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    try {
+                        return "via " + values[other].get();
+                    }
+                    catch (ReenteringLazyValueComputationException e) {
+                        return "cycle";
+                    }
+                }
+            };
+        }
+
+        final Object[] results = new Object[2];
+        Thread[] threads = new Thread[2];
+        for (int i = 0; i < 2; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    results[index] = values[index].get();
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join(10000);
+            Assert.assertFalse("Threads waiting for each other's lazy values are deadlocked", thread.isAlive());
+        }
+
+        Assert.assertTrue("cycle".equals(results[0]) || "cycle".equals(results[1]));
+    }
+}
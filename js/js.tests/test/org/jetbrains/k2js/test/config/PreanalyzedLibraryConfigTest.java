@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.test.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.jet.lang.types.lang.JetStandardLibrary;
+import org.jetbrains.k2js.config.Config;
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.config.PreanalyzedLibraryConfig;
+import org.jetbrains.k2js.utils.JetFileUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class PreanalyzedLibraryConfigTest extends KotlinTestWithEnvironment {
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return JetCoreEnvironment.createCoreEnvironmentForJS(getTestRootDisposable());
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        JetStandardLibrary.initialize(getProject());
+    }
+
+    public void testLibraryIsAnalyzedOncePerProject() {
+        Config first = PreanalyzedLibraryConfig.wrap(createConfig("fun foo() = 1"));
+        Config second = PreanalyzedLibraryConfig.wrap(createConfig("fun foo() = 1"));
+        BindingContext context = first.getLibraryBindingContext();
+        assertNotNull(context);
+        assertSame(context, second.getLibraryBindingContext());
+        assertSame(first.getLibFiles(), second.getLibFiles());
+
+        Config changed = PreanalyzedLibraryConfig.wrap(createConfig("fun foo() = 2"));
+        assertNotSame(context, changed.getLibraryBindingContext());
+        assertEquals("package lib\nfun foo() = 2", changed.getLibFiles().get(0).getText());
+    }
+
+    public void testFlagsAreDelegated() {
+        Config delegate = createConfig("fun foo() = 1");
+        delegate.setOutputPrefix("prefix");
+        Config config = PreanalyzedLibraryConfig.wrap(delegate);
+        assertEquals("prefix", config.getOutputPrefix());
+
+        config.setDeadCodeEliminationEnabled(true);
+        config.setMinificationEnabled(true);
+        config.setSourceMapEnabled(true);
+        assertTrue(delegate.isDeadCodeEliminationEnabled());
+        assertTrue(delegate.isMinificationEnabled());
+        assertTrue(delegate.isSourceMapEnabled());
+
+        delegate.setMinificationEnabled(false);
+        assertFalse(config.isMinificationEnabled());
+    }
+
+    @NotNull
+    private Config createConfig(@NotNull final String libraryText) {
+        return new Config(getProject(), "main", EcmaVersion.defaultVersion()) {
+            @NotNull
+            @Override
+            protected List<JetFile> generateLibFiles() {
+                return Collections.singletonList(JetFileUtils.createPsiFile("lib", "package lib\n" + libraryText, getProject()));
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.test.rhino;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import static org.jetbrains.k2js.test.rhino.RhinoUtils.flushSystemOut;
+
+/**
+ * Calls the function repeatedly, first to warm up the engine and then measuring the time spent, and reports
+ * the number of calls per second. The result of the last call is checked like {@link RhinoFunctionResultChecker} does.
+ * <p/>
+ * Results are printed only for real measurements, i.e. when the "benchmark.report" or the "benchmark.iterations"
+ * system property is set. If "benchmark.report" is set, results are also appended to that file as tab separated lines
+ * together with the "benchmark.label" property, so that runs with different translator versions can be compared.
+ */
+public final class RhinoBenchmarkChecker extends RhinoFunctionResultChecker {
+
+    @NotNull
+    private final String benchmarkName;
+    private final int warmupIterations;
+    private final int measuredIterations;
+
+    public RhinoBenchmarkChecker(@NotNull String benchmarkName, @Nullable String namespaceName, @NotNull String functionName,
+            @NotNull Object expectedResult, int warmupIterations, int measuredIterations) {
+        super(namespaceName, functionName, expectedResult);
+        assert measuredIterations > 0;
+        this.benchmarkName = benchmarkName;
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+    }
+
+    @Override
+    public void runChecks(Context context, Scriptable scope) throws Exception {
+        Script call = context.compileString(functionCallString(), "benchmark call", 0, null);
+        for (int i = 0; i < warmupIterations; i++) {
+            call.exec(context, scope);
+        }
+        Object result = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            result = call.exec(context, scope);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        flushSystemOut(context, scope);
+        assertResultValid(result, context);
+        report(context, (double) measuredIterations * 1e9 / Math.max(elapsedNanos, 1));
+    }
+
+    private void report(@NotNull Context context, double operationsPerSecond) throws IOException {
+        String reportFile = System.getProperty("benchmark.report");
+        if (reportFile == null && System.getProperty("benchmark.iterations") == null) {
+            return;
+        }
+
+        String ecmaVersion = context.getLanguageVersion() == Context.VERSION_1_8 ? "ecma5" : "ecma3";
+        System.out.println(String.format("Benchmark %s (%s): %.1f ops/sec", benchmarkName, ecmaVersion, operationsPerSecond));
+        if (reportFile == null) {
+            return;
+        }
+        Writer writer = new FileWriter(reportFile, true);
+        try {
+            String label = System.getProperty("benchmark.label", "current");
+            writer.write(String.format("%s\t%s\t%s\t%.1f\n", label, benchmarkName, ecmaVersion, operationsPerSecond));
+        }
+        finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.test.semantics;
+
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.facade.MainCallParameters;
+import org.jetbrains.k2js.test.SingleFileTranslationTest;
+import org.jetbrains.k2js.test.rhino.RhinoBenchmarkChecker;
+
+/**
+ * Measures the speed of the generated code. The iteration counts are kept small so that the benchmarks also run
+ * as ordinary tests, use the "benchmark.warmup" and "benchmark.iterations" system properties for real measurements.
+ */
+public final class BenchmarkTest extends SingleFileTranslationTest {
+
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("benchmark.warmup", 3);
+    private static final int MEASURED_ITERATIONS = Integer.getInteger("benchmark.iterations", 5);
+
+    public BenchmarkTest() {
+        super("benchmark/");
+    }
+
+    public void testLoops() throws Exception {
+        runBenchmark();
+    }
+
+    public void testCollections() throws Exception {
+        runBenchmark();
+    }
+
+    public void testStringBuilding() throws Exception {
+        runBenchmark();
+    }
+
+    public void testClosures() throws Exception {
+        runBenchmark();
+    }
+
+    private void runBenchmark() throws Exception {
+        String benchmarkName = getTestName(true);
+        String filename = benchmarkName + ".kt";
+        generateJavaScriptFiles(filename, MainCallParameters.noCall(), EcmaVersion.all());
+        runRhinoTests(filename, EcmaVersion.all(),
+                      new RhinoBenchmarkChecker(benchmarkName, "foo", "box", true, WARMUP_ITERATIONS, MEASURED_ITERATIONS));
+    }
+}
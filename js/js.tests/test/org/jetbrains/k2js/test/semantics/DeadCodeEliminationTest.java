@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.test.semantics;
+
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.facade.MainCallParameters;
+import org.jetbrains.k2js.test.SingleFileTranslationTest;
+import org.jetbrains.k2js.test.config.TestConfig;
+import org.jetbrains.k2js.test.config.TestConfigFactory;
+import org.jetbrains.k2js.test.rhino.RhinoSystemOutputChecker;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.jetbrains.k2js.test.utils.JsTestUtils.readFile;
+
+public final class DeadCodeEliminationTest extends SingleFileTranslationTest {
+
+    private static final TestConfigFactory FACTORY_WITH_DEAD_CODE_ELIMINATION = new TestConfigFactory() {
+        @Override
+        public TestConfig create(@NotNull Project project,
+                @NotNull EcmaVersion version,
+                @NotNull List<JetFile> files,
+                @NotNull BindingContext context) {
+            TestConfig config = new TestConfig(project, version, files, context);
+            config.setDeadCodeEliminationEnabled(true);
+            return config;
+        }
+    };
+
+    public DeadCodeEliminationTest() {
+        super("deadCodeElimination/");
+    }
+
+    public void testUnusedDeclarations() throws Exception {
+        String filename = "unusedDeclarations.kt";
+        generateJavaScriptFiles(Collections.singletonList(getInputFilePath(filename)), filename,
+                                MainCallParameters.mainWithoutArguments(), EcmaVersion.all(), FACTORY_WITH_DEAD_CODE_ELIMINATION);
+        runRhinoTests(filename, EcmaVersion.all(), new RhinoSystemOutputChecker("used class"));
+        for (EcmaVersion version : EcmaVersion.all()) {
+            String generatedCode = readFile(getOutputFilePath(filename, version));
+            assertTrue(generatedCode.contains("greet"));
+            assertFalse(generatedCode.contains("unusedFunction"));
+            assertFalse(generatedCode.contains("unusedMember"));
+        }
+    }
+
+    public void testExportedMemberUnreachableFromMain() throws Exception {
+        String filename = "exportedMember.kt";
+        generateJavaScriptFiles(Collections.singletonList(getInputFilePath(filename)), filename,
+                                MainCallParameters.mainWithoutArguments(), EcmaVersion.all(), FACTORY_WITH_DEAD_CODE_ELIMINATION);
+        runRhinoTests(filename, EcmaVersion.all(), new RhinoSystemOutputChecker("main"));
+        for (EcmaVersion version : EcmaVersion.all()) {
+            String generatedCode = readFile(getOutputFilePath(filename, version));
+            // the module is still defined, but members reachable only through it are not kept
+            assertTrue(generatedCode.contains("defineModule"));
+            assertFalse(generatedCode.contains("exportedButUnused"));
+        }
+    }
+}
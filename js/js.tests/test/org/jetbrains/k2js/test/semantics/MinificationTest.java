@@ -0,0 +1,90 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.test.semantics;
+
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.facade.K2JSTranslator;
+import org.jetbrains.k2js.facade.MainCallParameters;
+import org.jetbrains.k2js.test.SingleFileTranslationTest;
+import org.jetbrains.k2js.test.config.TestConfig;
+import org.jetbrains.k2js.test.config.TestConfigFactory;
+import org.jetbrains.k2js.test.rhino.RhinoSystemOutputChecker;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import static org.jetbrains.k2js.test.utils.JsTestUtils.readFile;
+
+public final class MinificationTest extends SingleFileTranslationTest {
+
+    private static final TestConfigFactory FACTORY_WITH_MINIFICATION = new TestConfigFactory() {
+        @Override
+        public TestConfig create(@NotNull Project project,
+                @NotNull EcmaVersion version,
+                @NotNull List<JetFile> files,
+                @NotNull BindingContext context) {
+            TestConfig config = new TestConfig(project, version, files, context);
+            config.setMinificationEnabled(true);
+            return config;
+        }
+    };
+
+    public MinificationTest() {
+        super("minification/");
+    }
+
+    public void testLocalNames() throws Exception {
+        String filename = "localNames.kt";
+        generateJavaScriptFiles(Collections.singletonList(getInputFilePath(filename)), filename,
+                                MainCallParameters.mainWithoutArguments(), EcmaVersion.all(), FACTORY_WITH_MINIFICATION);
+        runRhinoTests(filename, EcmaVersion.all(), new RhinoSystemOutputChecker("14"));
+        for (EcmaVersion version : EcmaVersion.all()) {
+            String outputFile = getOutputFilePath(filename, version);
+            String generatedCode = readFile(outputFile);
+            assertTrue(generatedCode.contains("sumOfSquares"));
+            assertFalse(generatedCode.contains("accumulatedValue"));
+            assertFalse(generatedCode.contains("numbersToSum"));
+
+            String nameMap = readFile(outputFile + K2JSTranslator.NAME_MAP_SUFFIX);
+            assertTrue(nameMap.contains("accumulatedValue"));
+            assertTrue(new File(outputFile + K2JSTranslator.NAME_MAP_SUFFIX).delete());
+        }
+    }
+
+    public void testPrivateMembers() throws Exception {
+        String filename = "privateMembers.kt";
+        generateJavaScriptFiles(Collections.singletonList(getInputFilePath(filename)), filename,
+                                MainCallParameters.mainWithoutArguments(), EcmaVersion.all(), FACTORY_WITH_MINIFICATION);
+        runRhinoTests(filename, EcmaVersion.all(), new RhinoSystemOutputChecker("305"));
+        for (EcmaVersion version : EcmaVersion.all()) {
+            String outputFile = getOutputFilePath(filename, version);
+            String generatedCode = readFile(outputFile);
+            assertTrue(generatedCode.contains("incrementBoth"));
+            assertFalse(generatedCode.contains("incrementedCount"));
+
+            String nameMap = readFile(outputFile + K2JSTranslator.NAME_MAP_SUFFIX);
+            assertTrue(nameMap.contains("incrementedCount"));
+            assertTrue(new File(outputFile + K2JSTranslator.NAME_MAP_SUFFIX).delete());
+        }
+    }
+}
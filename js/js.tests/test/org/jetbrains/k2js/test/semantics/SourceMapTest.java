@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.test.semantics;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.facade.K2JSTranslator;
+import org.jetbrains.k2js.facade.MainCallParameters;
+import org.jetbrains.k2js.test.SingleFileTranslationTest;
+import org.jetbrains.k2js.test.config.TestConfig;
+import org.jetbrains.k2js.test.config.TestConfigFactory;
+import org.jetbrains.k2js.test.rhino.RhinoSystemOutputChecker;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.jetbrains.k2js.test.utils.JsTestUtils.readFile;
+
+public final class SourceMapTest extends SingleFileTranslationTest {
+
+    private static final TestConfigFactory FACTORY_WITH_SOURCE_MAP = new TestConfigFactory() {
+        @Override
+        public TestConfig create(@NotNull Project project,
+                @NotNull EcmaVersion version,
+                @NotNull List<JetFile> files,
+                @NotNull BindingContext context) {
+            TestConfig config = new TestConfig(project, version, files, context);
+            config.setSourceMapEnabled(true);
+            return config;
+        }
+    };
+
+    public SourceMapTest() {
+        super("sourceMap/");
+    }
+
+    public void testMappedFunctions() throws Exception {
+        String filename = "mappedFunctions.kt";
+        generateJavaScriptFiles(Collections.singletonList(getInputFilePath(filename)), filename,
+                                MainCallParameters.mainWithoutArguments(), EcmaVersion.all(), FACTORY_WITH_SOURCE_MAP);
+        runRhinoTests(filename, EcmaVersion.all(), new RhinoSystemOutputChecker("49"));
+        for (EcmaVersion version : EcmaVersion.all()) {
+            String outputFile = getOutputFilePath(filename, version);
+            String generatedCode = readFile(outputFile);
+            String sourceMapName = new File(outputFile).getName() + K2JSTranslator.SOURCE_MAP_SUFFIX;
+            assertTrue(generatedCode.contains("//# sourceMappingURL=" + sourceMapName));
+
+            String sourceMap = readFile(outputFile + K2JSTranslator.SOURCE_MAP_SUFFIX);
+            assertTrue(sourceMap.contains("\"version\":3"));
+            // sources are relative to the map
+            File input = new File(getInputFilePath(filename)).getAbsoluteFile();
+            String relativeInput = FileUtil.getRelativePath(new File(outputFile).getAbsoluteFile().getParentFile(), input);
+            assertNotNull(relativeInput);
+            assertTrue(sourceMap.contains("\"sources\":[\"" + FileUtil.toSystemIndependentName(relativeInput) + "\"]"));
+            assertFalse(sourceMap.contains(FileUtil.toSystemIndependentName(input.getPath())));
+            assertFalse(getMappings(sourceMap).isEmpty());
+            assertTrue(new File(outputFile + K2JSTranslator.SOURCE_MAP_SUFFIX).delete());
+        }
+    }
+
+    public void testMappingsAreShiftedByOutputPrefix() throws Exception {
+        String filename = "mappedFunctions.kt";
+        EcmaVersion version = EcmaVersion.defaultVersion();
+        String outputFile = getOutputFilePath(filename, version);
+        List<String> files = Collections.singletonList(getInputFilePath(filename));
+
+        generateJavaScriptFiles(files, filename, MainCallParameters.mainWithoutArguments(), EnumSet.of(version),
+                                FACTORY_WITH_SOURCE_MAP);
+        String mappings = getMappings(readFile(outputFile + K2JSTranslator.SOURCE_MAP_SUFFIX));
+
+        generateJavaScriptFiles(files, filename, MainCallParameters.mainWithoutArguments(), EnumSet.of(version),
+                                new TestConfigFactory() {
+                                    @Override
+                                    public TestConfig create(@NotNull Project project,
+                                            @NotNull EcmaVersion version,
+                                            @NotNull List<JetFile> files,
+                                            @NotNull BindingContext context) {
+                                        TestConfig config = FACTORY_WITH_SOURCE_MAP.create(project, version, files, context);
+                                        config.setOutputPrefix("// first line\n// second line");
+                                        return config;
+                                    }
+                                });
+        assertTrue(readFile(outputFile).startsWith("// first line\n// second line\n"));
+        assertEquals(";;" + mappings, getMappings(readFile(outputFile + K2JSTranslator.SOURCE_MAP_SUFFIX)));
+        assertTrue(new File(outputFile + K2JSTranslator.SOURCE_MAP_SUFFIX).delete());
+    }
+
+    @NotNull
+    private static String getMappings(@NotNull String sourceMap) {
+        Matcher matcher = Pattern.compile("\"mappings\":\"([^\"]*)\"").matcher(sourceMap);
+        assertTrue(sourceMap, matcher.find());
+        return matcher.group(1);
+    }
+
+    public void testNoSourceMapUnlessRequested() throws Exception {
+        String filename = "mappedFunctions.kt";
+        generateJavaScriptFiles(Collections.singletonList(getInputFilePath(filename)), filename,
+                                MainCallParameters.mainWithoutArguments(), EcmaVersion.all());
+        for (EcmaVersion version : EcmaVersion.all()) {
+            String outputFile = getOutputFilePath(filename, version);
+            assertFalse(readFile(outputFile).contains("sourceMappingURL"));
+            assertFalse(new File(outputFile + K2JSTranslator.SOURCE_MAP_SUFFIX).exists());
+        }
+    }
+}
@@ -16,8 +16,13 @@
 
 package org.jetbrains.k2js.test.semantics;
 
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.k2js.config.EcmaVersion;
 import org.jetbrains.k2js.test.SingleFileTranslationTest;
 
+import java.io.File;
+import java.util.regex.Pattern;
+
 /**
  * @author Pavel Talanov
  */
@@ -62,4 +67,19 @@ public final class StandardClassesTest extends SingleFileTranslationTest {
     public void testArraysIterator() throws Exception {
         fooBoxTest();
     }
+
+
+    // Rhino has no typed arrays, so the box test runs against the fallback and the generated code is checked separately
+    public void testPrimitiveArrays() throws Exception {
+        fooBoxTest();
+        String outputFileText = FileUtil.loadFile(new File(getOutputFilePath("primitiveArrays.kt", EcmaVersion.defaultVersion())));
+        for (String factory : new String[] {"intArrayOfSize(3)", "doubleArrayOfSize(2)", "byteArrayOfSize(1)",
+                "longArrayOfSize(2)", "booleanArrayOfSize(2)"}) {
+            assertTrue(factory, outputFileText.contains("Kotlin." + factory));
+        }
+        // element access and size go straight to the typed array
+        assertTrue(Pattern.compile("ints[\\w$]*\\[0\\] = 1").matcher(outputFileText).find());
+        assertTrue(Pattern.compile("ints[\\w$]*\\.length").matcher(outputFileText).find());
+        assertFalse(outputFileText.contains("Kotlin.arrayFromFun"));
+    }
 }
\ No newline at end of file
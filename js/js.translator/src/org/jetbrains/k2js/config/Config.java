@@ -146,6 +146,12 @@ public abstract class Config {
     @NotNull
     private final String moduleId;
 
+    private boolean deadCodeEliminationEnabled = false;
+    private boolean minificationEnabled = false;
+    private boolean sourceMapEnabled = false;
+    @Nullable
+    private String outputPrefix = null;
+
     public Config(@NotNull Project project, @NotNull String moduleId, @NotNull EcmaVersion ecmaVersion) {
         this.project = project;
         this.target = ecmaVersion;
@@ -167,6 +173,52 @@ public abstract class Config {
         return moduleId;
     }
 
+    /**
+     * Whether declarations unreachable from the call to main should be removed from the generated program.
+     * Members exported through the module definition are removed as well, unless main reaches them.
+     */
+    public boolean isDeadCodeEliminationEnabled() {
+        return deadCodeEliminationEnabled;
+    }
+
+    public void setDeadCodeEliminationEnabled(boolean deadCodeEliminationEnabled) {
+        this.deadCodeEliminationEnabled = deadCodeEliminationEnabled;
+    }
+
+    /**
+     * Whether local names should be shortened and optional whitespace omitted in the generated file.
+     */
+    public boolean isMinificationEnabled() {
+        return minificationEnabled;
+    }
+
+    public void setMinificationEnabled(boolean minificationEnabled) {
+        this.minificationEnabled = minificationEnabled;
+    }
+
+    /**
+     * Whether a source map should be written next to the generated file.
+     */
+    public boolean isSourceMapEnabled() {
+        return sourceMapEnabled;
+    }
+
+    public void setSourceMapEnabled(boolean sourceMapEnabled) {
+        this.sourceMapEnabled = sourceMapEnabled;
+    }
+
+    /**
+     * The text written to the generated file before the program, e.g. the Kotlin JS library.
+     */
+    @Nullable
+    public String getOutputPrefix() {
+        return outputPrefix;
+    }
+
+    public void setOutputPrefix(@Nullable String outputPrefix) {
+        this.outputPrefix = outputPrefix;
+    }
+
     @NotNull
     protected abstract List<JetFile> generateLibFiles();
 
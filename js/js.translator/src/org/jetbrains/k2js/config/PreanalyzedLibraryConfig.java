@@ -0,0 +1,201 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.config;
+
+import com.google.common.base.Predicates;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Comparing;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.diagnostics.Severity;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
+import org.jetbrains.k2js.translate.test.JSTester;
+
+import java.util.List;
+
+/**
+ * A Config which analyzes the library files of another config once and lets every later analysis
+ * of the module reuse the resulting binding context instead of re-analyzing the library sources.
+ * <p/>
+ * The analysis is kept on the project together with the library files it was made for, and is reused by any later
+ * config of the same project whose library files have the same names and text. The binding context refers to
+ * the PSI of the project, so it lives as long as the project does: K2JSCompiler, and the Maven plugin through it,
+ * create a project per compilation and analyze the library once per compilation.
+ */
+public class PreanalyzedLibraryConfig extends Config {
+
+    private static final Key<LibraryAnalysis> LIBRARY_ANALYSIS = Key.create("JS_LIBRARY_ANALYSIS");
+
+    private static final class LibraryAnalysis {
+        @NotNull
+        private final EcmaVersion target;
+        @NotNull
+        private final List<JetFile> files;
+        @Nullable
+        private final BindingContext context;
+
+        private LibraryAnalysis(@NotNull EcmaVersion target, @NotNull List<JetFile> files, @Nullable BindingContext context) {
+            this.target = target;
+            this.files = files;
+            this.context = context;
+        }
+
+        private boolean isFor(@NotNull EcmaVersion target, @NotNull List<JetFile> files) {
+            if (this.target != target || this.files.size() != files.size()) {
+                return false;
+            }
+            for (int i = 0; i < files.size(); i++) {
+                JetFile analyzed = this.files.get(i);
+                JetFile file = files.get(i);
+                if (analyzed != file && !(analyzed.getName().equals(file.getName())
+                                          && Comparing.equal(analyzed.getUserData(LibrarySourcesConfig.EXTERNAL_MODULE_NAME),
+                                                             file.getUserData(LibrarySourcesConfig.EXTERNAL_MODULE_NAME))
+                                          && analyzed.getText().equals(file.getText()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return the config itself if it already provides analyzed library files
+     */
+    @NotNull
+    public static Config wrap(@NotNull Config config) {
+        if (config instanceof PreanalyzedLibraryConfig || config.getLibraryBindingContext() != null) {
+            return config;
+        }
+        return new PreanalyzedLibraryConfig(config);
+    }
+
+    @NotNull
+    private final Config delegate;
+    @Nullable
+    private LibraryAnalysis libraryAnalysis = null;
+
+    public PreanalyzedLibraryConfig(@NotNull Config delegate) {
+        super(delegate.getProject(), delegate.getModuleId(), delegate.getTarget());
+        this.delegate = delegate;
+    }
+
+    @NotNull
+    @Override
+    protected List<JetFile> generateLibFiles() {
+        return getLibraryAnalysis().files;
+    }
+
+    @Nullable
+    @Override
+    public BindingContext getLibraryBindingContext() {
+        return getLibraryAnalysis().context;
+    }
+
+    @Override
+    public boolean isDeadCodeEliminationEnabled() {
+        return delegate.isDeadCodeEliminationEnabled();
+    }
+
+    @Override
+    public void setDeadCodeEliminationEnabled(boolean deadCodeEliminationEnabled) {
+        delegate.setDeadCodeEliminationEnabled(deadCodeEliminationEnabled);
+    }
+
+    @Override
+    public boolean isMinificationEnabled() {
+        return delegate.isMinificationEnabled();
+    }
+
+    @Override
+    public void setMinificationEnabled(boolean minificationEnabled) {
+        delegate.setMinificationEnabled(minificationEnabled);
+    }
+
+    @Override
+    public boolean isSourceMapEnabled() {
+        return delegate.isSourceMapEnabled();
+    }
+
+    @Override
+    public void setSourceMapEnabled(boolean sourceMapEnabled) {
+        delegate.setSourceMapEnabled(sourceMapEnabled);
+    }
+
+    @Nullable
+    @Override
+    public String getOutputPrefix() {
+        return delegate.getOutputPrefix();
+    }
+
+    @Override
+    public void setOutputPrefix(@Nullable String outputPrefix) {
+        delegate.setOutputPrefix(outputPrefix);
+    }
+
+    @Nullable
+    @Override
+    public JSTester getTester() {
+        return delegate.getTester();
+    }
+
+    @NotNull
+    private LibraryAnalysis getLibraryAnalysis() {
+        if (libraryAnalysis == null) {
+            libraryAnalysis = findOrAnalyzeLibrary(getProject(), getTarget(), delegate.getLibFiles());
+        }
+        return libraryAnalysis;
+    }
+
+    @NotNull
+    private static synchronized LibraryAnalysis findOrAnalyzeLibrary(@NotNull Project project, @NotNull EcmaVersion target,
+            @NotNull List<JetFile> libFiles) {
+        LibraryAnalysis analysis = project.getUserData(LIBRARY_ANALYSIS);
+        if (analysis != null && analysis.isFor(target, libFiles)) {
+            return analysis;
+        }
+        analysis = new LibraryAnalysis(target, libFiles, analyzeLibrary(project, target, libFiles));
+        project.putUserData(LIBRARY_ANALYSIS, analysis);
+        return analysis;
+    }
+
+    @Nullable
+    private static BindingContext analyzeLibrary(@NotNull Project project, @NotNull EcmaVersion target,
+            @NotNull List<JetFile> libFiles) {
+        if (libFiles.isEmpty()) {
+            return null;
+        }
+        BindingContext context = AnalyzerFacadeForJS.analyzeFiles(libFiles, Predicates.<PsiFile>alwaysTrue(),
+                                                                   getEmptyConfig(project, target)).getBindingContext();
+        // let library errors be reported by the usual analysis of the module
+        return hasErrors(context) ? null : context;
+    }
+
+    private static boolean hasErrors(@NotNull BindingContext context) {
+        for (Diagnostic diagnostic : context.getDiagnostics()) {
+            if (diagnostic.getSeverity() == Severity.ERROR) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -16,16 +16,20 @@
 
 package org.jetbrains.k2js.facade;
 
+import com.google.dart.compiler.backend.js.ast.JsProgram;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.k2js.generate.SourceMapBuilder;
+import org.jetbrains.k2js.optimize.JsMinifyingNamer;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.StringTokenizer;
 
+import static org.jetbrains.k2js.generate.CodeGenerator.generateProgramToWriter;
+
 /**
  * @author Pavel Talanov
  */
@@ -34,18 +38,66 @@ public final class FacadeUtils {
     private FacadeUtils() {
     }
 
-    public static void writeCodeToFile(@NotNull String outputPath, @NotNull String programCode) throws IOException {
-        File file = new File(outputPath);
-        FileUtil.createParentDirs(file);
-        FileWriter writer = new FileWriter(file);
+    public static void writeProgramToFile(@NotNull String outputPath, @NotNull String prefix, @NotNull JsProgram program,
+            @NotNull String suffix, boolean compact) throws IOException {
+        Writer writer = createFileWriter(outputPath);
+        try {
+            writer.write(prefix);
+            generateProgramToWriter(program, writer, compact);
+            writer.write(suffix);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the program and its source map, the program ends with a comment linking the source map.
+     * Mappings are shifted by the lines of the prefix, which is ended with a line break if it lacks one.
+     */
+    public static void writeProgramWithSourceMapToFile(@NotNull String outputPath, @NotNull String sourceMapPath,
+            @NotNull String prefix, @NotNull JsProgram program, boolean compact) throws IOException {
+        if (!prefix.isEmpty() && !prefix.endsWith("\n")) {
+            prefix += "\n";
+        }
+        SourceMapBuilder sourceMapBuilder = new SourceMapBuilder(StringUtil.countNewLines(prefix));
+        Writer writer = createFileWriter(outputPath);
+        try {
+            writer.write(prefix);
+            generateProgramToWriter(program, writer, compact, sourceMapBuilder);
+            writer.write("\n//# sourceMappingURL=" + new File(sourceMapPath).getName() + "\n");
+        }
+        finally {
+            writer.close();
+        }
+
+        File sourceMapFile = new File(sourceMapPath);
+        Writer sourceMapWriter = createFileWriter(sourceMapPath);
+        try {
+            sourceMapBuilder.write(sourceMapWriter, new File(outputPath).getName(), sourceMapFile.getAbsoluteFile().getParentFile());
+        }
+        finally {
+            sourceMapWriter.close();
+        }
+    }
+
+    public static void writeNameMapToFile(@NotNull String outputPath, @NotNull JsMinifyingNamer namer) throws IOException {
+        Writer writer = createFileWriter(outputPath);
         try {
-            writer.write(programCode);
+            namer.writeNameMap(writer);
         }
         finally {
             writer.close();
         }
     }
 
+    @NotNull
+    private static Writer createFileWriter(@NotNull String outputPath) throws IOException {
+        File file = new File(outputPath);
+        FileUtil.createParentDirs(file);
+        return new BufferedWriter(new FileWriter(file));
+    }
+
     @NotNull
     public static List<String> parseString(@NotNull String argumentString) {
         List<String> result = new ArrayList<String>();
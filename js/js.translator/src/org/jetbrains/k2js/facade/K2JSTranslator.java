@@ -19,12 +19,16 @@ package org.jetbrains.k2js.facade;
 import com.google.dart.compiler.backend.js.ast.JsProgram;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.types.lang.JetStandardLibrary;
 import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
 import org.jetbrains.k2js.config.Config;
+import org.jetbrains.k2js.config.PreanalyzedLibraryConfig;
 import org.jetbrains.k2js.facade.exceptions.TranslationException;
+import org.jetbrains.k2js.optimize.DeadCodeEliminator;
+import org.jetbrains.k2js.optimize.JsMinifyingNamer;
 import org.jetbrains.k2js.translate.general.Translation;
 import org.jetbrains.k2js.utils.JetFileUtils;
 
@@ -34,7 +38,9 @@ import java.util.List;
 
 import static org.jetbrains.k2js.config.Config.withJsLibAdded;
 import static org.jetbrains.k2js.facade.FacadeUtils.parseString;
-import static org.jetbrains.k2js.facade.FacadeUtils.writeCodeToFile;
+import static org.jetbrains.k2js.facade.FacadeUtils.writeNameMapToFile;
+import static org.jetbrains.k2js.facade.FacadeUtils.writeProgramToFile;
+import static org.jetbrains.k2js.facade.FacadeUtils.writeProgramWithSourceMapToFile;
 import static org.jetbrains.k2js.generate.CodeGenerator.generateProgramToString;
 
 /**
@@ -46,22 +52,43 @@ public final class K2JSTranslator {
 
     public static final String FLUSH_SYSTEM_OUT = "Kotlin.System.flush();\n";
     public static final String GET_SYSTEM_OUT = "Kotlin.System.output();\n";
+    public static final String NAME_MAP_SUFFIX = ".names";
+    public static final String SOURCE_MAP_SUFFIX = ".map";
 
-    public static void translateWithMainCallParametersAndSaveToFile(@NotNull MainCallParameters mainCall,
+    /**
+     * @return the size of the code removed by dead code elimination
+     */
+    public static int translateWithMainCallParametersAndSaveToFile(@NotNull MainCallParameters mainCall,
             @NotNull List<JetFile> files,
             @NotNull String outputPath,
             @NotNull Config config) throws TranslationException, IOException {
         K2JSTranslator translator = new K2JSTranslator(config);
-        String programCode = translator.generateProgramCode(files, mainCall) + "\n";
-        writeCodeToFile(outputPath, programCode);
+        boolean minify = config.isMinificationEnabled();
+        JsMinifyingNamer namer = minify ? new JsMinifyingNamer() : null;
+        JsProgram program = translator.generateProgram(files, mainCall, namer);
+        if (namer != null) {
+            writeNameMapToFile(outputPath + NAME_MAP_SUFFIX, namer);
+        }
+        String prefix = config.getOutputPrefix() != null ? config.getOutputPrefix() : "";
+        if (config.isSourceMapEnabled()) {
+            writeProgramWithSourceMapToFile(outputPath, outputPath + SOURCE_MAP_SUFFIX, prefix, program, minify);
+        }
+        else {
+            writeProgramToFile(outputPath, prefix, program, "\n", minify);
+        }
+        return translator.getEliminatedCodeSize();
     }
 
     @NotNull
     private final Config config;
+    private int eliminatedCodeSize = 0;
 
 
+    /**
+     * @param config analyzed library files are kept on its project and are reused by later translators of the project
+     */
     public K2JSTranslator(@NotNull Config config) {
-        this.config = config;
+        this.config = PreanalyzedLibraryConfig.wrap(config);
     }
 
     //NOTE: web demo related method
@@ -90,9 +117,27 @@ public final class K2JSTranslator {
     public JsProgram generateProgram(@NotNull List<JetFile> filesToTranslate,
             @NotNull MainCallParameters mainCallParameters)
             throws TranslationException {
+        return generateProgram(filesToTranslate, mainCallParameters, null);
+    }
+
+    @NotNull
+    private JsProgram generateProgram(@NotNull List<JetFile> filesToTranslate,
+            @NotNull MainCallParameters mainCallParameters, @Nullable JsMinifyingNamer minifyingNamer)
+            throws TranslationException {
         JetStandardLibrary.initialize(config.getProject());
         BindingContext bindingContext = AnalyzerFacadeForJS.analyzeFilesAndCheckErrors(filesToTranslate, config);
-        return Translation.generateAst(bindingContext, withJsLibAdded(filesToTranslate, config), mainCallParameters, config);
+        DeadCodeEliminator deadCodeEliminator = new DeadCodeEliminator();
+        JsProgram program = Translation.generateAst(bindingContext, withJsLibAdded(filesToTranslate, config), mainCallParameters,
+                                                    config, deadCodeEliminator, minifyingNamer);
+        eliminatedCodeSize = deadCodeEliminator.getEliminatedCodeSize();
+        return program;
+    }
+
+    /**
+     * @return the size of the code removed by dead code elimination from the last generated program
+     */
+    public int getEliminatedCodeSize() {
+        return eliminatedCodeSize;
     }
 
     @NotNull
@@ -16,11 +16,19 @@
 
 package org.jetbrains.k2js.generate;
 
+import com.google.dart.compiler.Source;
 import com.google.dart.compiler.backend.js.JsSourceGenerationVisitor;
+import com.google.dart.compiler.backend.js.ast.JsContext;
+import com.google.dart.compiler.backend.js.ast.JsNode;
 import com.google.dart.compiler.backend.js.ast.JsProgram;
+import com.google.dart.compiler.backend.js.ast.JsVisitable;
 import com.google.dart.compiler.util.DefaultTextOutput;
+import com.google.dart.compiler.util.TextOutput;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.Writer;
+
 /**
  * @author Pavel.Talanov
  */
@@ -36,4 +44,58 @@ public final class CodeGenerator {
         program.traverse(sourceGenerator, null);
         return output.toString();
     }
+
+    public static void generateProgramToWriter(@NotNull JsProgram program, @NotNull Writer writer) throws IOException {
+        generateProgramToWriter(program, writer, false);
+    }
+
+    /**
+     * @param compact whether optional whitespace and line breaks should be omitted
+     */
+    public static void generateProgramToWriter(@NotNull JsProgram program, @NotNull Writer writer, boolean compact)
+            throws IOException {
+        WriterTextOutput output = new WriterTextOutput(writer, compact);
+        JsSourceGenerationVisitor sourceGenerator = new JsSourceGenerationVisitor(output);
+        program.traverse(sourceGenerator, null);
+        output.flush();
+    }
+
+    /**
+     * @param sourceMapBuilder receives positions of the generated nodes which refer to Kotlin sources
+     */
+    public static void generateProgramToWriter(@NotNull JsProgram program, @NotNull Writer writer, boolean compact,
+            @NotNull SourceMapBuilder sourceMapBuilder) throws IOException {
+        WriterTextOutput output = new WriterTextOutput(writer, compact);
+        JsSourceGenerationVisitor sourceGenerator = new SourceMappingGenerationVisitor(output, sourceMapBuilder);
+        program.traverse(sourceGenerator, null);
+        output.flush();
+    }
+
+    private static final class SourceMappingGenerationVisitor extends JsSourceGenerationVisitor {
+
+        @NotNull
+        private final TextOutput output;
+        @NotNull
+        private final SourceMapBuilder sourceMapBuilder;
+
+        private SourceMappingGenerationVisitor(@NotNull TextOutput output, @NotNull SourceMapBuilder sourceMapBuilder) {
+            super(output);
+            this.output = output;
+            this.sourceMapBuilder = sourceMapBuilder;
+        }
+
+        @Override
+        public void doTraverse(JsVisitable node, JsContext ctx) {
+            if (node instanceof JsNode) {
+                JsNode jsNode = (JsNode) node;
+                Source source = jsNode.getSource();
+                if (source instanceof JetFileSource) {
+                    // nodes keep one based lines
+                    sourceMapBuilder.addMapping(output.getLine(), output.getColumn(), (JetFileSource) source,
+                                                jsNode.getSourceLine() - 1, jsNode.getSourceColumn());
+                }
+            }
+            super.doTraverse(node, ctx);
+        }
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.generate;
+
+import com.google.dart.compiler.Source;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.Arrays;
+
+/**
+ * A Kotlin source file which generated JS nodes refer to.
+ * <p/>
+ * Nodes are only given positions in the file if a source map is requested.
+ */
+public final class JetFileSource implements Source {
+
+    @NotNull
+    private final PsiFile file;
+
+    @Nullable
+    private int[] lineStartOffsets = null;
+
+    public JetFileSource(@NotNull PsiFile file) {
+        this.file = file;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long getLastModified() {
+        return file.getModificationStamp();
+    }
+
+    /**
+     * @return name of the file; source maps locate local files by {@link #getUri()} relative to the map
+     */
+    @NotNull
+    @Override
+    public String getName() {
+        return file.getName();
+    }
+
+    @NotNull
+    @Override
+    public Reader getSourceReader() {
+        return new StringReader(file.getText());
+    }
+
+    @Nullable
+    @Override
+    public URI getUri() {
+        VirtualFile virtualFile = file.getOriginalFile().getVirtualFile();
+        if (virtualFile != null && virtualFile.isInLocalFileSystem()) {
+            return new File(virtualFile.getPath()).toURI();
+        }
+        return null;
+    }
+
+    /**
+     * @return zero based line number containing the given offset
+     */
+    public int getLine(int offset) {
+        int[] lineStarts = getLineStartOffsets();
+        int index = Arrays.binarySearch(lineStarts, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * @return zero based column of the given offset in the given line
+     */
+    public int getColumn(int offset, int line) {
+        return offset - getLineStartOffsets()[line];
+    }
+
+    @NotNull
+    private int[] getLineStartOffsets() {
+        if (lineStartOffsets == null) {
+            lineStartOffsets = computeLineStartOffsets(file.getText());
+        }
+        return lineStartOffsets;
+    }
+
+    @NotNull
+    private static int[] computeLineStartOffsets(@NotNull String text) {
+        int lineCount = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lineCount++;
+            }
+        }
+        int[] result = new int[lineCount];
+        int line = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                result[line++] = i + 1;
+            }
+        }
+        return result;
+    }
+}
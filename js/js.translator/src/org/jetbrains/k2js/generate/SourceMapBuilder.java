@@ -0,0 +1,195 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.generate;
+
+import com.google.common.collect.Lists;
+import com.intellij.openapi.util.io.FileUtil;
+import gnu.trove.TIntArrayList;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Collects mappings from generated code positions to Kotlin sources and writes them
+ * in the source map revision 3 format.
+ */
+public final class SourceMapBuilder {
+
+    private static final char[] BASE64_DIGITS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int VLQ_BASE_SHIFT = 5;
+    private static final int VLQ_BASE_MASK = (1 << VLQ_BASE_SHIFT) - 1;
+    private static final int VLQ_CONTINUATION_BIT = 1 << VLQ_BASE_SHIFT;
+
+    private final int generatedLineOffset;
+
+    @NotNull
+    private final List<JetFileSource> sources = Lists.newArrayList();
+    @NotNull
+    private final TObjectIntHashMap<JetFileSource> sourceIndices = new TObjectIntHashMap<JetFileSource>();
+
+    // mappings are stored in parallel lists ordered by generated position
+    @NotNull
+    private final TIntArrayList generatedLines = new TIntArrayList();
+    @NotNull
+    private final TIntArrayList generatedColumns = new TIntArrayList();
+    @NotNull
+    private final TIntArrayList sourceIndexes = new TIntArrayList();
+    @NotNull
+    private final TIntArrayList sourceLines = new TIntArrayList();
+    @NotNull
+    private final TIntArrayList sourceColumns = new TIntArrayList();
+
+    /**
+     * @param generatedLineOffset number of lines written to the generated file before the program, e.g. by an output prefix
+     */
+    public SourceMapBuilder(int generatedLineOffset) {
+        this.generatedLineOffset = generatedLineOffset;
+    }
+
+    /**
+     * @param generatedLine zero based line of the program
+     * @param sourceLine    zero based line in the source
+     */
+    public void addMapping(int generatedLine, int generatedColumn, @NotNull JetFileSource source, int sourceLine, int sourceColumn) {
+        int line = generatedLine + generatedLineOffset;
+        int size = generatedLines.size();
+        if (size > 0 && generatedLines.get(size - 1) == line && generatedColumns.get(size - 1) == generatedColumn) {
+            // the outermost node starting at a position describes it
+            return;
+        }
+        generatedLines.add(line);
+        generatedColumns.add(generatedColumn);
+        sourceIndexes.add(getSourceIndex(source));
+        sourceLines.add(sourceLine);
+        sourceColumns.add(sourceColumn);
+    }
+
+    /**
+     * @param baseDirectory directory the local source paths are made relative to, the one containing the map
+     */
+    public void write(@NotNull Writer writer, @NotNull String generatedFileName, @NotNull File baseDirectory) throws IOException {
+        writer.write("{\"version\":3,\"file\":");
+        writeString(writer, generatedFileName);
+        writer.write(",\"sources\":[");
+        for (int i = 0; i < sources.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeString(writer, getSourcePath(sources.get(i), baseDirectory));
+        }
+        writer.write("],\"names\":[],\"mappings\":\"");
+        writeMappings(writer);
+        writer.write("\"}\n");
+    }
+
+    private int getSourceIndex(@NotNull JetFileSource source) {
+        if (sourceIndices.containsKey(source)) {
+            return sourceIndices.get(source);
+        }
+        int index = sources.size();
+        sources.add(source);
+        sourceIndices.put(source, index);
+        return index;
+    }
+
+    private void writeMappings(@NotNull Writer writer) throws IOException {
+        StringBuilder segment = new StringBuilder();
+        int currentLine = 0;
+        int previousColumn = 0;
+        int previousSourceIndex = 0;
+        int previousSourceLine = 0;
+        int previousSourceColumn = 0;
+        boolean lineHasSegments = false;
+        for (int i = 0; i < generatedLines.size(); i++) {
+            int generatedLine = generatedLines.get(i);
+            while (currentLine < generatedLine) {
+                writer.write(';');
+                currentLine++;
+                previousColumn = 0;
+                lineHasSegments = false;
+            }
+
+            segment.setLength(0);
+            if (lineHasSegments) {
+                segment.append(',');
+            }
+            appendVlq(segment, generatedColumns.get(i) - previousColumn);
+            appendVlq(segment, sourceIndexes.get(i) - previousSourceIndex);
+            appendVlq(segment, sourceLines.get(i) - previousSourceLine);
+            appendVlq(segment, sourceColumns.get(i) - previousSourceColumn);
+            writer.append(segment);
+
+            lineHasSegments = true;
+            previousColumn = generatedColumns.get(i);
+            previousSourceIndex = sourceIndexes.get(i);
+            previousSourceLine = sourceLines.get(i);
+            previousSourceColumn = sourceColumns.get(i);
+        }
+    }
+
+    private static void appendVlq(@NotNull StringBuilder builder, int value) {
+        int vlq = value < 0 ? ((-value) << 1) | 1 : value << 1;
+        do {
+            int digit = vlq & VLQ_BASE_MASK;
+            vlq >>>= VLQ_BASE_SHIFT;
+            if (vlq > 0) {
+                digit |= VLQ_CONTINUATION_BIT;
+            }
+            builder.append(BASE64_DIGITS[digit]);
+        }
+        while (vlq > 0);
+    }
+
+    @NotNull
+    private static String getSourcePath(@NotNull JetFileSource source, @NotNull File baseDirectory) {
+        URI uri = source.getUri();
+        if (uri == null) {
+            return source.getName();
+        }
+        String relativePath = FileUtil.getRelativePath(baseDirectory.getAbsoluteFile(), new File(uri));
+        if (relativePath != null) {
+            return FileUtil.toSystemIndependentName(relativePath);
+        }
+        // e.g. on another drive
+        return uri.toString();
+    }
+
+    private static void writeString(@NotNull Writer writer, @NotNull String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            }
+            else if (c < ' ') {
+                writer.write(String.format("\\u%04x", (int) c));
+            }
+            else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
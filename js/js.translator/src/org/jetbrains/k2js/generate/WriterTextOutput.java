@@ -0,0 +1,48 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.generate;
+
+import com.google.dart.compiler.util.AbstractTextOutput;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+/**
+ * Adapts {@link com.google.dart.compiler.util.TextOutput} to a {@link Writer}, so the generated code
+ * is not accumulated in memory.
+ */
+public final class WriterTextOutput extends AbstractTextOutput {
+
+    @NotNull
+    private final PrintWriter out;
+
+    public WriterTextOutput(@NotNull Writer writer, boolean compact) {
+        super(compact);
+        out = new PrintWriter(writer);
+        setPrintWriter(out);
+    }
+
+    public void flush() throws IOException {
+        // PrintWriter swallows exceptions, report them here
+        if (out.checkError()) {
+            throw new IOException("Failed to write generated code");
+        }
+    }
+}
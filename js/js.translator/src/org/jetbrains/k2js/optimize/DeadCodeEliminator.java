@@ -0,0 +1,219 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.optimize;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.compiler.backend.js.JsSourceGenerationVisitor;
+import com.google.dart.compiler.backend.js.ast.*;
+import com.google.dart.compiler.util.DefaultTextOutput;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+import static com.google.dart.compiler.backend.js.ast.JsVars.JsVar;
+
+/**
+ * Removes namespace members and class definitions which are not reachable from the rest of the program.
+ * <p/>
+ * Translators register removable declarations by name. Namespace initializers, the call to main and test calls are roots.
+ * The module definition is not: it exports the namespace object as a whole, and treating all of its members as roots
+ * would leave nothing to remove. A program compiled with elimination is therefore closed, members which only other
+ * modules could use are removed.
+ * <p/>
+ * Reachability is computed by name: a declaration is kept if any reachable code contains a reference or a string literal
+ * with its name. That is conservative with respect to overloads and to members with the same name in different namespaces.
+ */
+public final class DeadCodeEliminator {
+
+    @NotNull
+    private final Map<String, List<JsNode>> declarationsByName = Maps.newHashMap();
+    @NotNull
+    private final Set<JsNode> declarations = Sets.newHashSet();
+    private int eliminatedCodeSize = 0;
+
+    public void addDeclaration(@NotNull JsPropertyInitializer declaration) {
+        String name = getName(declaration.getLabelExpr());
+        if (name != null) {
+            addDeclaration(name, declaration);
+        }
+    }
+
+    public void addDeclaration(@NotNull JsVar declaration) {
+        addDeclaration(declaration.getName().getIdent(), declaration);
+    }
+
+    private void addDeclaration(@NotNull String name, @NotNull JsNode declaration) {
+        List<JsNode> list = declarationsByName.get(name);
+        if (list == null) {
+            list = Lists.newArrayList();
+            declarationsByName.put(name, list);
+        }
+        list.add(declaration);
+        declarations.add(declaration);
+    }
+
+    public void eliminate(@NotNull JsProgram program) {
+        Set<JsNode> reachable = new ReachabilityVisitor().collect(program);
+        RemovingVisitor removingVisitor = new RemovingVisitor(reachable);
+        removingVisitor.accept(program);
+        eliminatedCodeSize += removingVisitor.removedSize;
+    }
+
+    /**
+     * @return the size in characters of the generated code which was removed
+     */
+    public int getEliminatedCodeSize() {
+        return eliminatedCodeSize;
+    }
+
+    @Nullable
+    private static String getName(@NotNull JsExpression label) {
+        if (label instanceof JsNameRef) {
+            return ((JsNameRef) label).getIdent();
+        }
+        if (label instanceof JsStringLiteral) {
+            return ((JsStringLiteral) label).getValue();
+        }
+        return null;
+    }
+
+    private static int getGeneratedSize(@NotNull JsNode node) {
+        DefaultTextOutput output = new DefaultTextOutput(false);
+        new JsSourceGenerationVisitor(output).accept(node);
+        return output.getPosition();
+    }
+
+    private final class ReachabilityVisitor extends JsVisitor {
+        @NotNull
+        private final Set<String> referencedNames = Sets.newHashSet();
+        @NotNull
+        private final Set<JsNode> reachable = Sets.newHashSet();
+        @NotNull
+        private final Deque<JsNode> queue = new ArrayDeque<JsNode>();
+
+        @NotNull
+        public Set<JsNode> collect(@NotNull JsProgram program) {
+            accept(program);
+            while (!queue.isEmpty()) {
+                JsNode declaration = queue.poll();
+                JsExpression value = declaration instanceof JsVar
+                                     ? ((JsVar) declaration).getInitExpr()
+                                     : ((JsPropertyInitializer) declaration).getValueExpr();
+                if (value != null) {
+                    accept(value);
+                }
+            }
+            return reachable;
+        }
+
+        private void reference(@NotNull String name) {
+            if (!referencedNames.add(name)) {
+                return;
+            }
+            List<JsNode> list = declarationsByName.get(name);
+            if (list == null) {
+                return;
+            }
+            for (JsNode declaration : list) {
+                if (reachable.add(declaration)) {
+                    queue.add(declaration);
+                }
+            }
+        }
+
+        @Override
+        public boolean visit(JsPropertyInitializer x, JsContext ctx) {
+            // values of registered declarations are visited once they are found to be reachable
+            return !declarations.contains(x);
+        }
+
+        @Override
+        public boolean visit(JsVar x, JsContext ctx) {
+            return !declarations.contains(x);
+        }
+
+        @Override
+        public boolean visit(JsNameRef x, JsContext ctx) {
+            String ident = x.getIdent();
+            if (ident != null) {
+                reference(ident);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean visit(JsStringLiteral x, JsContext ctx) {
+            reference(x.getValue());
+            return true;
+        }
+    }
+
+    private final class RemovingVisitor extends JsVisitor {
+        @NotNull
+        private final Set<JsNode> reachable;
+        @NotNull
+        private final Set<JsVars> emptiedVars = Sets.newHashSet();
+        private int removedSize = 0;
+
+        private RemovingVisitor(@NotNull Set<JsNode> reachable) {
+            this.reachable = reachable;
+        }
+
+        private boolean shouldRemove(@NotNull JsNode node) {
+            if (declarations.contains(node) && !reachable.contains(node)) {
+                removedSize += getGeneratedSize(node);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean visit(JsObjectLiteral x, JsContext ctx) {
+            for (Iterator<JsPropertyInitializer> iterator = x.getPropertyInitializers().iterator(); iterator.hasNext(); ) {
+                if (shouldRemove(iterator.next())) {
+                    iterator.remove();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean visit(JsVars x, JsContext ctx) {
+            boolean removed = false;
+            for (Iterator<JsVar> iterator = x.iterator(); iterator.hasNext(); ) {
+                if (shouldRemove(iterator.next())) {
+                    iterator.remove();
+                    removed = true;
+                }
+            }
+            if (removed && x.isEmpty()) {
+                emptiedVars.add(x);
+            }
+            return true;
+        }
+
+        @Override
+        public void endVisit(JsBlock x, JsContext ctx) {
+            // a var statement without variables is not valid
+            x.getStatements().removeAll(emptiedVars);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.optimize;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.compiler.backend.js.JsNamer;
+import com.google.dart.compiler.backend.js.JsReservedIdentifiers;
+import com.google.dart.compiler.backend.js.ast.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gives the shortest possible names to local variables, parameters and local functions, and to the private members
+ * of classes the translator reports with {@link #addPrivateMemberNames}. Global names are kept.
+ * <p/>
+ * Other names used as property names (with a qualifier or as an object literal label) are kept, since such properties
+ * can be accessed from outside of the generated code. Private members are only referred to through their names, so all
+ * references change together. A class scope is the parent of the scopes of its subclasses, and idents used as properties
+ * elsewhere are reserved, so a renamed member does not clash with another member of the same object.
+ * Members do not get idents starting with '$', which the runtime library uses for its own fields.
+ * Like {@link com.google.dart.compiler.backend.js.JsPrettyNamer} a scope never reuses names claimed by its child scopes,
+ * so renaming does not introduce shadowing. Must be run after the names are made unique.
+ */
+public final class JsMinifyingNamer implements JsNamer {
+
+    private static final String FIRST_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_$";
+    private static final String NEXT_CHARS = FIRST_CHARS + "0123456789";
+
+    @NotNull
+    private final Map<JsName, String> originalIdents = Maps.newLinkedHashMap();
+    @NotNull
+    private final Set<JsName> propertyNames = Sets.newHashSet();
+    @NotNull
+    private final Set<JsScope> globalScopes = Sets.newHashSet();
+    @NotNull
+    private final Set<String> unboundIdents = Sets.newHashSet();
+    @NotNull
+    private final Set<String> reservedIdents = Sets.newHashSet();
+    @NotNull
+    private final Set<JsName> privateMemberNames = Sets.newHashSet();
+
+    public void addPrivateMemberNames(@NotNull Collection<JsName> names) {
+        privateMemberNames.addAll(names);
+    }
+
+    @Override
+    public void exec(@NotNull JsProgram program) {
+        globalScopes.add(program.getRootScope());
+        globalScopes.add(program.getScope());
+        new PropertyNamesCollector().accept(program);
+        reserveNamesWhichAreKept(program.getRootScope());
+        rename(program.getRootScope());
+    }
+
+    /**
+     * Writes "original -> short" pairs for all renamed names.
+     */
+    public void writeNameMap(@NotNull Writer writer) throws IOException {
+        for (Map.Entry<JsName, String> entry : originalIdents.entrySet()) {
+            JsName name = entry.getKey();
+            writer.write(entry.getValue() + " -> " + name.getShortIdent() + " in " + name.getEnclosing() + "\n");
+        }
+    }
+
+    private boolean canRename(@NotNull JsScope scope, @NotNull JsName name) {
+        // a name referenced by its ident without binding must keep it
+        return !globalScopes.contains(scope) && name.isObfuscatable()
+               && (!propertyNames.contains(name) || privateMemberNames.contains(name))
+               && !unboundIdents.contains(name.getShortIdent());
+    }
+
+    private void reserveNamesWhichAreKept(@NotNull JsScope scope) {
+        for (Iterator<JsName> it = scope.getAllNames(); it.hasNext(); ) {
+            JsName name = it.next();
+            if (!canRename(scope, name)) {
+                reservedIdents.add(name.getShortIdent());
+            }
+        }
+        for (JsScope child : scope.getChildren()) {
+            reserveNamesWhichAreKept(child);
+        }
+    }
+
+    /**
+     * @return idents used by this scope and all its children
+     */
+    @NotNull
+    private Set<String> rename(@NotNull JsScope scope) {
+        Set<String> claimedIdents = Sets.newHashSet();
+        for (JsScope child : scope.getChildren()) {
+            claimedIdents.addAll(rename(child));
+        }
+
+        int index = 0;
+        for (Iterator<JsName> it = scope.getAllNames(); it.hasNext(); ) {
+            JsName name = it.next();
+            if (!canRename(scope, name)) {
+                continue;
+            }
+            String newIdent;
+            do {
+                newIdent = generateIdent(index++);
+            }
+            while (!isLegal(newIdent, claimedIdents) || (privateMemberNames.contains(name) && newIdent.charAt(0) == '$'));
+            originalIdents.put(name, name.getShortIdent());
+            name.setShortIdent(newIdent);
+            claimedIdents.add(newIdent);
+        }
+        return claimedIdents;
+    }
+
+    private boolean isLegal(@NotNull String ident, @NotNull Set<String> claimedIdents) {
+        return !JsReservedIdentifiers.isKeyword(ident)
+               && !JsReservedIdentifiers.isReservedGlobalSymbol(ident)
+               && !reservedIdents.contains(ident)
+               && !claimedIdents.contains(ident);
+    }
+
+    @NotNull
+    private static String generateIdent(int index) {
+        StringBuilder result = new StringBuilder();
+        result.append(FIRST_CHARS.charAt(index % FIRST_CHARS.length()));
+        index /= FIRST_CHARS.length();
+        while (index > 0) {
+            index--;
+            result.append(NEXT_CHARS.charAt(index % NEXT_CHARS.length()));
+            index /= NEXT_CHARS.length();
+        }
+        return result.toString();
+    }
+
+    private final class PropertyNamesCollector extends JsVisitor {
+        @Override
+        public boolean visit(JsNameRef x, JsContext ctx) {
+            JsName name = x.getName();
+            if (name == null) {
+                // a global or a property which is not declared in the program
+                if (x.getQualifier() == null) {
+                    unboundIdents.add(x.getIdent());
+                }
+                reservedIdents.add(x.getIdent());
+            }
+            else if (x.getQualifier() != null) {
+                propertyNames.add(name);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean visit(JsPropertyInitializer x, JsContext ctx) {
+            JsExpression label = x.getLabelExpr();
+            if (label instanceof JsNameRef) {
+                JsName name = ((JsNameRef) label).getName();
+                if (name != null) {
+                    propertyNames.add(name);
+                }
+                else {
+                    reservedIdents.add(((JsNameRef) label).getIdent());
+                }
+            }
+            else if (label instanceof JsStringLiteral) {
+                reservedIdents.add(((JsStringLiteral) label).getValue());
+            }
+            return true;
+        }
+    }
+}
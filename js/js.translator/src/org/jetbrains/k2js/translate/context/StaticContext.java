@@ -17,13 +17,19 @@
 package org.jetbrains.k2js.translate.context;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.dart.compiler.backend.js.ast.*;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.descriptors.*;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.resolve.DescriptorUtils;
 import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.generate.JetFileSource;
+import org.jetbrains.k2js.optimize.DeadCodeEliminator;
 import org.jetbrains.k2js.translate.context.generator.Generator;
 import org.jetbrains.k2js.translate.context.generator.Rule;
 import org.jetbrains.k2js.translate.intrinsic.Intrinsics;
@@ -33,6 +39,7 @@ import org.jetbrains.k2js.translate.utils.JsDescriptorUtils;
 import org.jetbrains.k2js.translate.utils.PredefinedAnnotation;
 
 import java.util.Map;
+import java.util.Set;
 
 import static org.jetbrains.k2js.translate.utils.AnnotationsUtils.*;
 import static org.jetbrains.k2js.translate.utils.JsDescriptorUtils.*;
@@ -44,14 +51,16 @@ import static org.jetbrains.k2js.translate.utils.JsDescriptorUtils.*;
  */
 public final class StaticContext {
 
-    public static StaticContext generateStaticContext(@NotNull BindingContext bindingContext, @NotNull EcmaVersion ecmaVersion) {
+    public static StaticContext generateStaticContext(@NotNull BindingContext bindingContext, @NotNull EcmaVersion ecmaVersion,
+            @NotNull DeadCodeEliminator deadCodeEliminator, boolean sourceMapEnabled) {
         JsProgram program = new JsProgram("main");
         JsRootScope jsRootScope = program.getRootScope();
         Namer namer = Namer.newInstance(jsRootScope);
         NamingScope scope = NamingScope.rootScope(jsRootScope);
         Intrinsics intrinsics = new Intrinsics();
         StandardClasses standardClasses = StandardClasses.bindImplementations(namer.getKotlinScope());
-        return new StaticContext(program, bindingContext, namer, intrinsics, standardClasses, scope, ecmaVersion);
+        return new StaticContext(program, bindingContext, namer, intrinsics, standardClasses, scope, ecmaVersion, deadCodeEliminator,
+                                 sourceMapEnabled);
     }
 
     @NotNull
@@ -81,14 +90,24 @@ public final class StaticContext {
     private final Generator<Boolean> qualifierIsNull = new QualifierIsNullGenerator();
     @NotNull
     private final Map<NamingScope, JsFunction> scopeToFunction = Maps.newHashMap();
+    @NotNull
+    private final Map<PsiFile, JetFileSource> sources = Maps.newHashMap();
+    @NotNull
+    private final Set<JsName> privateMemberNames = Sets.newHashSet();
 
     @NotNull
     private final EcmaVersion ecmaVersion;
 
+    @NotNull
+    private final DeadCodeEliminator deadCodeEliminator;
+
+    private final boolean sourceMapEnabled;
+
     //TODO: too many parameters in constructor
     private StaticContext(@NotNull JsProgram program, @NotNull BindingContext bindingContext,
             @NotNull Namer namer, @NotNull Intrinsics intrinsics,
-            @NotNull StandardClasses standardClasses, @NotNull NamingScope rootScope, @NotNull EcmaVersion ecmaVersion) {
+            @NotNull StandardClasses standardClasses, @NotNull NamingScope rootScope, @NotNull EcmaVersion ecmaVersion,
+            @NotNull DeadCodeEliminator deadCodeEliminator, boolean sourceMapEnabled) {
         this.program = program;
         this.bindingContext = bindingContext;
         this.namer = namer;
@@ -96,12 +115,18 @@ public final class StaticContext {
         this.rootScope = rootScope;
         this.standardClasses = standardClasses;
         this.ecmaVersion = ecmaVersion;
+        this.deadCodeEliminator = deadCodeEliminator;
+        this.sourceMapEnabled = sourceMapEnabled;
     }
 
     public boolean isEcma5() {
         return ecmaVersion == EcmaVersion.v5;
     }
 
+    public boolean isSourceMapEnabled() {
+        return sourceMapEnabled;
+    }
+
     @NotNull
     public EcmaVersion getEcmaVersion() {
         return ecmaVersion;
@@ -127,6 +152,28 @@ public final class StaticContext {
         return namer;
     }
 
+    @NotNull
+    public DeadCodeEliminator getDeadCodeEliminator() {
+        return deadCodeEliminator;
+    }
+
+    public void setSourceInfo(@NotNull JsNode node, @NotNull PsiElement element) {
+        PsiFile file = element.getContainingFile();
+        if (file == null) {
+            return;
+        }
+        JetFileSource source = sources.get(file);
+        if (source == null) {
+            source = new JetFileSource(file);
+            sources.put(file, source);
+        }
+        TextRange range = element.getTextRange();
+        int offset = range.getStartOffset();
+        int line = source.getLine(offset);
+        // the Dart AST keeps one based lines and zero based columns
+        node.setSourceLocation(source, line + 1, source.getColumn(offset, line), offset, range.getLength());
+    }
+
     @NotNull
     public NamingScope getRootScope() {
         return rootScope;
@@ -154,6 +201,26 @@ public final class StaticContext {
         return name;
     }
 
+    /**
+     * @return names of the private members of classes, which can only be referred to from the generated code
+     */
+    @NotNull
+    public Set<JsName> getPrivateMemberNames() {
+        return privateMemberNames;
+    }
+
+    private static boolean isPrivateMember(@NotNull DeclarationDescriptor descriptor) {
+        if (descriptor instanceof ClassDescriptor || descriptor instanceof ConstructorDescriptor
+            || !(descriptor instanceof DeclarationDescriptorWithVisibility)
+            || ((DeclarationDescriptorWithVisibility) descriptor).getVisibility() != Visibilities.PRIVATE) {
+            return false;
+        }
+        DeclarationDescriptor containingDeclaration = getContainingDeclaration(descriptor);
+        // members of traits are copied to the classes implementing them, whose scopes are not below the trait's one
+        return containingDeclaration instanceof ClassDescriptor
+               && ((ClassDescriptor) containingDeclaration).getKind() != ClassKind.TRAIT;
+    }
+
     private final class NameGenerator extends Generator<JsName> {
         private JsName declareName(DeclarationDescriptor descriptor, String name) {
             NamingScope scope = getEnclosingScope(descriptor);
@@ -163,6 +230,16 @@ public final class StaticContext {
             return isEcma5() ? scope.declareUnobfuscatableName(name) : scope.declareObfuscatableName(name);
         }
 
+        @Nullable
+        @Override
+        public JsName get(@NotNull DeclarationDescriptor descriptor) {
+            JsName name = super.get(descriptor);
+            if (name != null && isPrivateMember(descriptor)) {
+                privateMemberNames.add(name);
+            }
+            return name;
+        }
+
         public NameGenerator() {
             Rule<JsName> namesForStandardClasses = new Rule<JsName>() {
                 @Override
@@ -25,6 +25,7 @@ import org.jetbrains.jet.lang.descriptors.DeclarationDescriptor;
 import org.jetbrains.jet.lang.psi.JetExpression;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.optimize.DeadCodeEliminator;
 import org.jetbrains.k2js.translate.intrinsic.Intrinsics;
 
 import java.util.Map;
@@ -172,6 +173,11 @@ public final class TranslationContext {
         return staticContext.getIntrinsics();
     }
 
+    @NotNull
+    public DeadCodeEliminator deadCodeEliminator() {
+        return staticContext.getDeadCodeEliminator();
+    }
+
     @NotNull
     public JsProgram program() {
         return staticContext.getProgram();
@@ -195,4 +201,16 @@ public final class TranslationContext {
     public void addStatementToCurrentBlock(@NotNull JsStatement statement) {
         dynamicContext.jsBlock().getStatements().add(statement);
     }
+
+    /**
+     * Remembers the position of the element the node was generated from, if a source map is requested and the node has
+     * no position yet. Literals and name references are not marked since the same instances are shared across the program.
+     */
+    @NotNull
+    public <T extends JsNode> T setSourceInfo(@NotNull T node, @NotNull PsiElement element) {
+        if (staticContext.isSourceMapEnabled() && node.getSource() == null && !(node instanceof JsLiteral) && !(node instanceof JsNameRef)) {
+            staticContext.setSourceInfo(node, element);
+        }
+        return node;
+    }
 }
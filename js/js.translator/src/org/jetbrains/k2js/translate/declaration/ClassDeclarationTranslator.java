@@ -165,7 +165,7 @@ public final class ClassDeclarationTranslator extends AbstractTranslator {
         }
     }
 
-    private static void generate(@NotNull ListItem item,
+    private void generate(@NotNull ListItem item,
             @NotNull List<JsPropertyInitializer> propertyInitializers,
             @NotNull JsExpression definition,
             @NotNull JsVars vars) {
@@ -175,11 +175,15 @@ public final class ClassDeclarationTranslator extends AbstractTranslator {
         }
         else {
             assert item.label.getName() != null;
-            vars.add(new JsVar(item.label.getName(), definition));
+            JsVar var = new JsVar(item.label.getName(), definition);
+            context().deadCodeEliminator().addDeclaration(var);
+            vars.add(var);
             value = item.label;
         }
 
-        propertyInitializers.add(new JsPropertyInitializer(item.label, value));
+        JsPropertyInitializer initializer = new JsPropertyInitializer(item.label, value);
+        context().deadCodeEliminator().addDeclaration(initializer);
+        propertyInitializers.add(initializer);
     }
 
     @NotNull
@@ -108,7 +108,12 @@ public final class NamespaceTranslator extends AbstractTranslator {
     }
 
     private List<JsPropertyInitializer> getFunctionsAndClasses() {
-        return new DeclarationBodyVisitor(classDeclarationTranslator).traverseNamespace(descriptor, context());
+        List<JsPropertyInitializer> declarations =
+                new DeclarationBodyVisitor(classDeclarationTranslator).traverseNamespace(descriptor, context());
+        for (JsPropertyInitializer declaration : declarations) {
+            context().deadCodeEliminator().addDeclaration(declaration);
+        }
+        return declarations;
     }
 
     @NotNull
@@ -190,6 +190,7 @@ public final class FunctionTranslator extends AbstractTranslator {
     }
 
     private void generateFunctionObject() {
+        context().setSourceInfo(functionObject, functionDeclaration);
         setParameters(functionObject, translateParameters());
         translateBody();
     }
@@ -33,6 +33,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.jetbrains.jet.lang.resolve.DescriptorUtils.getClassDescriptorForType;
+import static org.jetbrains.k2js.translate.intrinsic.functions.factories.ArrayFIF.ARRAYS;
 import static org.jetbrains.k2js.translate.utils.JsAstUtils.*;
 import static org.jetbrains.k2js.translate.utils.PsiUtils.getLoopRange;
 import static org.jetbrains.k2js.translate.utils.TemporariesUtils.temporariesInitialization;
@@ -54,8 +55,7 @@ public final class ArrayForTranslator extends ForTranslator {
         JetType rangeType = BindingUtils.getTypeForExpression(context.bindingContext(), loopRange);
         //TODO: better check
         //TODO: IMPORTANT!
-        return getClassDescriptorForType(rangeType).getName().getName().equals("Array")
-               || getClassDescriptorForType(rangeType).getName().getName().equals("IntArray");
+        return ARRAYS.apply(getClassDescriptorForType(rangeType).getName());
     }
 
     @NotNull
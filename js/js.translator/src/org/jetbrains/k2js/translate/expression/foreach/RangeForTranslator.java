@@ -16,19 +16,26 @@
 
 package org.jetbrains.k2js.translate.expression.foreach;
 
-import com.google.common.collect.Lists;
 import com.google.dart.compiler.backend.js.ast.*;
 import com.google.dart.compiler.util.AstUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
+import org.jetbrains.jet.lang.descriptors.DeclarationDescriptor;
+import org.jetbrains.jet.lang.descriptors.PropertyDescriptor;
+import org.jetbrains.jet.lang.psi.JetDotQualifiedExpression;
 import org.jetbrains.jet.lang.psi.JetExpression;
 import org.jetbrains.jet.lang.psi.JetForExpression;
+import org.jetbrains.jet.lang.psi.JetSimpleNameExpression;
 import org.jetbrains.jet.lang.types.JetType;
 import org.jetbrains.k2js.translate.context.TemporaryVariable;
 import org.jetbrains.k2js.translate.context.TranslationContext;
 import org.jetbrains.k2js.translate.general.Translation;
+import org.jetbrains.k2js.translate.intrinsic.functions.factories.ArrayFIF;
+import org.jetbrains.k2js.translate.intrinsic.functions.patterns.NamePredicate;
 import org.jetbrains.k2js.translate.utils.BindingUtils;
 
-import java.util.List;
+import java.util.Collections;
 
 import static org.jetbrains.jet.lang.resolve.DescriptorUtils.getClassDescriptorForType;
 import static org.jetbrains.k2js.translate.utils.JsAstUtils.*;
@@ -37,9 +44,14 @@ import static org.jetbrains.k2js.translate.utils.TemporariesUtils.temporariesIni
 
 /**
  * @author Pavel Talanov
+ *         <p/>
+ *         Translates loops over integral ranges to counted loops. For array.indices no range object is created.
  */
 public final class RangeForTranslator extends ForTranslator {
 
+    @NotNull
+    private static final NamePredicate INTEGRAL_RANGES = new NamePredicate("IntRange", "ByteRange", "ShortRange", "LongRange");
+
     @NotNull
     public static JsStatement doTranslate(@NotNull JetForExpression expression,
                                           @NotNull TranslationContext context) {
@@ -51,57 +63,79 @@ public final class RangeForTranslator extends ForTranslator {
         JetExpression loopRange = getLoopRange(expression);
         JetType rangeType = BindingUtils.getTypeForExpression(context.bindingContext(), loopRange);
         //TODO: better check
-        //TODO: long range?
-        return getClassDescriptorForType(rangeType).getName().getName().equals("IntRange");
+        return INTEGRAL_RANGES.apply(getClassDescriptorForType(rangeType).getName());
     }
 
     @NotNull
-    private final TemporaryVariable rangeExpression;
+    private final TemporaryVariable rangeOrArray;
     @NotNull
     private final TemporaryVariable incrVar;
     @NotNull
-    private final TemporaryVariable start;
+    private final TemporaryVariable count;
     @NotNull
-    private final TemporaryVariable end;
+    private final JsExpression start;
 
     private RangeForTranslator(@NotNull JetForExpression forExpression, @NotNull TranslationContext context) {
         super(forExpression, context);
-        rangeExpression = context.declareTemporary(Translation.translateAsExpression(getLoopRange(expression), context));
-        JsExpression isReversed = callFunction("get_reversed");
-        JsConditional incrVarValue = new JsConditional(isReversed,
-                                                       program().getNumberLiteral(-1),
-                                                       program().getNumberLiteral(1));
-        incrVar = context().declareTemporary(incrVarValue);
-        start = context().declareTemporary(callFunction("get_start"));
-        end = context().declareTemporary(sum(callFunction("get_end"), incrVar.reference()));
+        JetExpression arrayExpression = getArrayForIndices(getLoopRange(expression), context);
+        if (arrayExpression != null) {
+            rangeOrArray = context.declareTemporary(Translation.translateAsExpression(arrayExpression, context));
+            incrVar = context().declareTemporary(program().getNumberLiteral(1));
+            count = context().declareTemporary(ArrayFIF.ARRAY_LENGTH_INTRINSIC.apply(rangeOrArray.reference(),
+                                                                                     Collections.<JsExpression>emptyList(),
+                                                                                     context()));
+            start = program().getNumberLiteral(0);
+        }
+        else {
+            rangeOrArray = context.declareTemporary(Translation.translateAsExpression(getLoopRange(expression), context));
+            JsExpression isReversed = callFunction("get_reversed");
+            JsConditional incrVarValue = new JsConditional(isReversed,
+                                                           program().getNumberLiteral(-1),
+                                                           program().getNumberLiteral(1));
+            incrVar = context().declareTemporary(incrVarValue);
+            count = context().declareTemporary(callFunction("get_size"));
+            start = callFunction("get_start");
+        }
     }
 
-    @NotNull
-    private JsBlock translate() {
-        List<JsStatement> blockStatements = Lists.newArrayList();
-        blockStatements.add(temporariesInitialization(rangeExpression, incrVar, start, end).makeStmt());
-        blockStatements.add(generateForExpression());
-        return newBlock(blockStatements);
+    @Nullable
+    private static JetExpression getArrayForIndices(@NotNull JetExpression loopRange, @NotNull TranslationContext context) {
+        if (!(loopRange instanceof JetDotQualifiedExpression)) {
+            return null;
+        }
+        JetDotQualifiedExpression qualifiedExpression = (JetDotQualifiedExpression) loopRange;
+        JetExpression selector = qualifiedExpression.getSelectorExpression();
+        if (!(selector instanceof JetSimpleNameExpression)) {
+            return null;
+        }
+        DeclarationDescriptor descriptor =
+                BindingUtils.getNullableDescriptorForReferenceExpression(context.bindingContext(), (JetSimpleNameExpression) selector);
+        if (!(descriptor instanceof PropertyDescriptor) || !descriptor.getName().getName().equals("indices")) {
+            return null;
+        }
+        DeclarationDescriptor containingDeclaration = descriptor.getContainingDeclaration();
+        if (!(containingDeclaration instanceof ClassDescriptor) || !ArrayFIF.ARRAYS.apply(containingDeclaration.getName())) {
+            return null;
+        }
+        return qualifiedExpression.getReceiverExpression();
     }
 
     @NotNull
-    private JsFor generateForExpression() {
-        JsFor result = new JsFor();
-        result.setInitVars(initExpression());
-        result.setCondition(getCondition());
-        result.setIncrExpr(getIncrExpression());
-        result.setBody(translateOriginalBodyExpression());
-        return result;
+    private JsBlock translate() {
+        return AstUtil.newBlock(temporariesInitialization(rangeOrArray, incrVar, count).makeStmt(),
+                                generateForExpression(initExpression(), getCondition(), getIncrExpression(),
+                                                      translateOriginalBodyExpression()));
     }
 
     @NotNull
     private JsVars initExpression() {
-        return newVar(parameterName, start.reference());
+        return newVar(parameterName, start);
     }
 
     @NotNull
     private JsExpression getCondition() {
-        return inequality(parameterName.makeRef(), end.reference());
+        JsPostfixOperation decrement = new JsPostfixOperation(JsUnaryOperator.DEC, count.reference());
+        return new JsBinaryOperation(JsBinaryOperator.GT, decrement, program().getNumberLiteral(0));
     }
 
     @NotNull
@@ -112,7 +146,7 @@ public final class RangeForTranslator extends ForTranslator {
     @NotNull
     private JsExpression getField(@NotNull String fieldName) {
         JsNameRef nameRef = AstUtil.newQualifiedNameRef(fieldName);
-        setQualifier(nameRef, rangeExpression.reference());
+        setQualifier(nameRef, rangeOrArray.reference());
         return nameRef;
     }
 
@@ -74,8 +74,7 @@ public final class RangeLiteralForTranslator extends ForTranslator {
 
     @NotNull
     private JsExpression getRangeEnd(@NotNull JetBinaryExpression loopRangeAsBinary) {
-        JsExpression rightExpression = translateRightExpression(context(), loopRangeAsBinary);
-        return new JsBinaryOperation(JsBinaryOperator.ADD, rightExpression, program().getNumberLiteral(1));
+        return translateRightExpression(context(), loopRangeAsBinary);
     }
 
     @NotNull
@@ -94,9 +93,10 @@ public final class RangeLiteralForTranslator extends ForTranslator {
         return newVar(parameterName, rangeStart);
     }
 
+    // a range with the end less than the start is empty
     @NotNull
     private JsExpression getCondition() {
-        return inequality(parameterName.makeRef(), rangeEnd.reference());
+        return new JsBinaryOperation(JsBinaryOperator.LTE, parameterName.makeRef(), rangeEnd.reference());
     }
 
     @NotNull
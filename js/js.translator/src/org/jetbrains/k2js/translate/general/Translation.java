@@ -31,6 +31,8 @@ import org.jetbrains.k2js.facade.exceptions.MainFunctionNotFoundException;
 import org.jetbrains.k2js.facade.exceptions.TranslationException;
 import org.jetbrains.k2js.facade.exceptions.TranslationInternalException;
 import org.jetbrains.k2js.facade.exceptions.UnsupportedFeatureException;
+import org.jetbrains.k2js.optimize.DeadCodeEliminator;
+import org.jetbrains.k2js.optimize.JsMinifyingNamer;
 import org.jetbrains.k2js.translate.context.StaticContext;
 import org.jetbrains.k2js.translate.context.TranslationContext;
 import org.jetbrains.k2js.translate.declaration.ClassAliasingMap;
@@ -101,9 +103,9 @@ public final class Translation {
         }
         DangerousData data = collect(expression, context);
         if (data.shouldBeTranslated()) {
-            return DangerousTranslator.translate(data, context);
+            return context.setSourceInfo(DangerousTranslator.translate(data, context), expression);
         }
-        return doTranslateExpression(expression, context);
+        return context.setSourceInfo(doTranslateExpression(expression, context), expression);
     }
 
     //NOTE: use with care
@@ -121,7 +123,7 @@ public final class Translation {
     @NotNull
     public static JsStatement translateAsStatement(@NotNull JetExpression expression,
             @NotNull TranslationContext context) {
-        return convertToStatement(translateExpression(expression, context));
+        return context.setSourceInfo(convertToStatement(translateExpression(expression, context)), expression);
     }
 
     @NotNull
@@ -148,10 +150,21 @@ public final class Translation {
     @NotNull
     public static JsProgram generateAst(@NotNull BindingContext bindingContext,
             @NotNull Collection<JetFile> files, @NotNull MainCallParameters mainCallParameters,
-            @NotNull Config config)
+            @NotNull Config config, @NotNull DeadCodeEliminator deadCodeEliminator)
+            throws TranslationException {
+        return generateAst(bindingContext, files, mainCallParameters, config, deadCodeEliminator, null);
+    }
+
+    /**
+     * @param minifyingNamer renames the local names and the private members of the program, if given
+     */
+    @NotNull
+    public static JsProgram generateAst(@NotNull BindingContext bindingContext,
+            @NotNull Collection<JetFile> files, @NotNull MainCallParameters mainCallParameters,
+            @NotNull Config config, @NotNull DeadCodeEliminator deadCodeEliminator, @Nullable JsMinifyingNamer minifyingNamer)
             throws TranslationException {
         try {
-            return doGenerateAst(bindingContext, files, mainCallParameters, config);
+            return doGenerateAst(bindingContext, files, mainCallParameters, config, deadCodeEliminator, minifyingNamer);
         }
         catch (UnsupportedOperationException e) {
             throw new UnsupportedFeatureException("Unsupported feature used.", e);
@@ -164,9 +177,11 @@ public final class Translation {
     @NotNull
     private static JsProgram doGenerateAst(@NotNull BindingContext bindingContext, @NotNull Collection<JetFile> files,
             @NotNull MainCallParameters mainCallParameters,
-            @NotNull Config config) throws MainFunctionNotFoundException {
+            @NotNull Config config, @NotNull DeadCodeEliminator deadCodeEliminator, @Nullable JsMinifyingNamer minifyingNamer)
+            throws MainFunctionNotFoundException {
         //TODO: move some of the code somewhere
-        StaticContext staticContext = StaticContext.generateStaticContext(bindingContext, config.getTarget());
+        StaticContext staticContext = StaticContext.generateStaticContext(bindingContext, config.getTarget(), deadCodeEliminator,
+                                                                          config.isSourceMapEnabled());
         JsProgram program = staticContext.getProgram();
         JsBlock block = program.getGlobalBlock();
 
@@ -179,14 +194,23 @@ public final class Translation {
         statements.addAll(translateFiles(files, context));
         TranslationUtils.defineModule(context, statements, config.getModuleId());
 
+        JsStatement callToMain = null;
         if (mainCallParameters.shouldBeGenerated()) {
-            JsStatement statement = generateCallToMain(context, files, mainCallParameters.arguments());
-            if (statement != null) {
-                statements.add(statement);
+            callToMain = generateCallToMain(context, files, mainCallParameters.arguments());
+            if (callToMain != null) {
+                statements.add(callToMain);
             }
         }
         mayBeGenerateTests(files, config, rootBlock, context);
+        // without a call to main every declaration may be used from outside, so there is nothing to eliminate
+        if (config.isDeadCodeEliminationEnabled() && callToMain != null) {
+            deadCodeEliminator.eliminate(program);
+        }
         performSimpleNameMangling(context.program());
+        if (minifyingNamer != null) {
+            minifyingNamer.addPrivateMemberNames(staticContext.getPrivateMemberNames());
+            minifyingNamer.exec(context.program());
+        }
         return context.program();
     }
 
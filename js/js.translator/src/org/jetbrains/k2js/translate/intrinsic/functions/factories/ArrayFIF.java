@@ -40,7 +40,7 @@ import static org.jetbrains.k2js.translate.intrinsic.functions.patterns.PatternB
 public final class ArrayFIF extends CompositeFIF {
 
     @NotNull
-    private static final NamePredicate ARRAYS;
+    public static final NamePredicate ARRAYS;
 
     static {
         List<Name> arrayTypeNames = Lists.newArrayList();
@@ -93,6 +93,17 @@ public final class ArrayFIF extends CompositeFIF {
         add(pattern(ARRAYS, "<get-size>"), ARRAY_LENGTH_INTRINSIC);
         add(pattern(ARRAYS, "<get-indices>"), new CallStandardMethodIntrinsic("Kotlin.arrayIndices", true, 0));
         add(pattern(ARRAYS, "iterator"), new CallStandardMethodIntrinsic("Kotlin.arrayIterator", true, 0));
-        add(pattern(ARRAYS, "<init>"), new CallStandardMethodIntrinsic("Kotlin.arrayFromFun", false, 2));
+        add(pattern(new NamePredicate("Array"), "<init>"), new CallStandardMethodIntrinsic("Kotlin.arrayFromFun", false, 2));
+        for (PrimitiveType type : PrimitiveType.values()) {
+            add(pattern(new NamePredicate(type.getArrayTypeName()), "<init>"),
+                new CallStandardMethodIntrinsic(getFactoryMethodName(type), false, 1));
+        }
+    }
+
+    // numeric arrays are backed by typed arrays (Int32Array etc.) where the engine supports them, see kotlin_lib.js
+    @NotNull
+    private static String getFactoryMethodName(@NotNull PrimitiveType type) {
+        String typeName = type.getTypeName().getName();
+        return "Kotlin." + Character.toLowerCase(typeName.charAt(0)) + typeName.substring(1) + "ArrayOfSize";
     }
 }
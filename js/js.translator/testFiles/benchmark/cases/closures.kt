@@ -0,0 +1,17 @@
+package foo
+
+fun applyRepeatedly(times : Int, f : (Int) -> Int) : Int {
+    var result = 0
+    for (i in 1..times) {
+        result = f(result)
+    }
+    return result
+}
+
+fun box() : Boolean {
+    var sum = 0
+    for (step in 1..10) {
+        sum += applyRepeatedly(100) { it + step }
+    }
+    return sum == 5500
+}
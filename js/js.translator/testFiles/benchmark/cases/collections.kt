@@ -0,0 +1,19 @@
+package foo
+
+import java.util.*
+
+fun box() : Boolean {
+    val list = ArrayList<Int>()
+    for (i in 0..999) {
+        list.add(i)
+    }
+    val map = HashMap<Int, Int>()
+    for (value in list) {
+        map.put(value % 100, value)
+    }
+    var sum = 0
+    for (key in 0..99) {
+        sum += map.get(key)!!
+    }
+    return list.size() == 1000 && sum == 94950
+}
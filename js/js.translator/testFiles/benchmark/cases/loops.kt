@@ -0,0 +1,15 @@
+package foo
+
+fun box() : Boolean {
+    val numbers = IntArray(1000)
+    for (i in numbers.indices) {
+        numbers[i] = i % 7
+    }
+    var sum = 0
+    for (round in 0..9) {
+        for (number in numbers) {
+            sum += number * round
+        }
+    }
+    return sum == 134865
+}
@@ -0,0 +1,10 @@
+package foo
+
+fun box() : Boolean {
+    val builder = StringBuilder()
+    for (i in 0..499) {
+        builder.append("$i,")
+    }
+    val result = builder.toString()
+    return result.length == 1890
+}
@@ -0,0 +1,7 @@
+package foo
+
+public fun exportedButUnused() = "exported"
+
+fun main(args : Array<String>) {
+    print("main")
+}
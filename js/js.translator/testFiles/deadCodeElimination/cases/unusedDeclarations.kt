@@ -0,0 +1,19 @@
+package foo
+
+fun used(s : String) = "used " + s
+
+fun unusedFunction() = "unused"
+
+class UsedClass(val name : String) {
+    fun greet() = used(name)
+}
+
+open class UnusedBase() {
+    fun unusedMember() = 1
+}
+
+class UnusedDerived() : UnusedBase()
+
+fun main(args : Array<String>) {
+    print(UsedClass("class").greet())
+}
@@ -405,15 +405,47 @@ var kotlin = {set:function (receiver, key, value) {
         return str.split(regex);
     };
 
-    Kotlin.nullArray = function (size) {
+    var filledArray = function (size, value) {
         var res = [];
         var i = size;
         while (i > 0) {
-            res[--i] = null;
+            res[--i] = value;
         }
         return res;
     };
 
+    Kotlin.nullArray = function (size) {
+        return filledArray(size, null);
+    };
+
+    // typed arrays are zero-initialized and keep their elements unboxed, engines without them get plain arrays
+    var numberArrayFactory = function (typedArray) {
+        if (typedArray === undefined) {
+            return function (size) {
+                return filledArray(size, 0);
+            };
+        }
+        return function (size) {
+            return new typedArray(size);
+        };
+    };
+
+    Kotlin.byteArrayOfSize = numberArrayFactory(typeof Int8Array !== "undefined" ? Int8Array : undefined);
+    Kotlin.shortArrayOfSize = numberArrayFactory(typeof Int16Array !== "undefined" ? Int16Array : undefined);
+    Kotlin.intArrayOfSize = numberArrayFactory(typeof Int32Array !== "undefined" ? Int32Array : undefined);
+    Kotlin.floatArrayOfSize = numberArrayFactory(typeof Float32Array !== "undefined" ? Float32Array : undefined);
+    Kotlin.doubleArrayOfSize = numberArrayFactory(typeof Float64Array !== "undefined" ? Float64Array : undefined);
+    // there is no typed array for 64-bit integers
+    Kotlin.longArrayOfSize = numberArrayFactory(undefined);
+
+    Kotlin.charArrayOfSize = function (size) {
+        return filledArray(size, "\0");
+    };
+
+    Kotlin.booleanArrayOfSize = function (size) {
+        return filledArray(size, false);
+    };
+
     Kotlin.arrayFromFun = function (size, initFun) {
         var res = [];
         var i = size;
@@ -0,0 +1,15 @@
+package foo
+
+fun sumOfSquares(numbers : Array<Int>) : Int {
+    var accumulatedValue = 0
+    for (currentNumber in numbers) {
+        val squaredNumber = currentNumber * currentNumber
+        accumulatedValue += squaredNumber
+    }
+    return accumulatedValue
+}
+
+fun main(args : Array<String>) {
+    val numbersToSum = Array<Int>(3) { it + 1 }
+    print(sumOfSquares(numbersToSum))
+}
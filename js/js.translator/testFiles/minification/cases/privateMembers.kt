@@ -0,0 +1,27 @@
+package foo
+
+open class Counter(start : Int) {
+    private var currentCount = start
+
+    private fun incrementedCount() : Int = currentCount + 1
+
+    fun increment() : Int {
+        currentCount = incrementedCount()
+        return currentCount
+    }
+}
+
+class TwoCounters(start : Int) : Counter(start) {
+    private var secondCount = start
+
+    fun incrementBoth() : Int {
+        secondCount = secondCount + 2
+        return increment() * 100 + secondCount
+    }
+}
+
+fun main(args : Array<String>) {
+    val counters = TwoCounters(1)
+    counters.incrementBoth()
+    print(counters.incrementBoth())
+}
@@ -0,0 +1,26 @@
+package foo
+
+fun box() : Boolean {
+    val array = Array<Int>(4) { it * 2 }
+    var indexSum = 0
+    for (i in array.indices) {
+        indexSum += array[i]
+    }
+    if (indexSum != 12) return false
+
+    var emptyRangeIterations = 0
+    for (i in 5..1) {
+        emptyRangeIterations++
+    }
+    if (emptyRangeIterations != 0) return false
+
+    val range = 1..3
+    var rangeSum = 0
+    for (i in range) {
+        rangeSum += i
+    }
+    for (i in range) {
+        rangeSum += i
+    }
+    return rangeSum == 12
+}
@@ -0,0 +1,10 @@
+package foo
+
+fun square(value : Int) : Int {
+    return value * value
+}
+
+fun main(args : Array<String>) {
+    val squared = square(7)
+    print(squared)
+}
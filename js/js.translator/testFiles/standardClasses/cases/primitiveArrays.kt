@@ -0,0 +1,25 @@
+package foo
+
+fun box() : Boolean {
+    val ints = IntArray(3)
+    ints[0] = 1
+    ints[2] = 3
+    var sum = 0
+    for (i in ints) {
+        sum += i
+    }
+    if (sum != 4 || ints[1] != 0 || ints.size != 3) return false
+
+    val doubles = DoubleArray(2)
+    doubles[1] = 0.5
+    var doubleSum = 0.0
+    for (d in doubles) {
+        doubleSum += d
+    }
+    if (doubleSum != 0.5) return false
+
+    val bytes = ByteArray(1)
+    val longs = LongArray(2)
+    val booleans = BooleanArray(2)
+    return bytes[0] == 0.toByte() && longs[1] == 0.toLong() && !booleans[0]
+}
@@ -84,22 +84,28 @@ public class K2JSCompilerMojo extends KotlinCompileMojo {
      */
     private Boolean verbose;
 
+    /**
+     * Whether to skip the compilation when the sources, libraries and options are unchanged since the previous build.
+     *
+     * @parameter default-value="false"
+     * @parameter expression="${incremental}"
+     */
+    private Boolean incremental;
+
+    /**
+     * The library text written by the compiler at the beginning of the output, so that the incremental compilation
+     * digest covers the whole output file.
+     */
+    private File outputPrefixFile;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        super.execute();
-        if (appendLibraryJS != null && appendLibraryJS.booleanValue()) {
-            try {
-                Charset charset = Charset.defaultCharset();
-                File file = new File(outputFile);
-                String text = Files.toString(file, charset);
-                StringBuilder builder = new StringBuilder();
-                appendFile(KOTLIN_JS_LIB_ECMA3, builder);
-                appendFile(KOTLIN_JS_LIB, builder);
-                builder.append("\n");
-                builder.append(text);
-                Files.write(builder.toString(), file, charset);
-            } catch (IOException e) {
-                throw new MojoExecutionException(e.getMessage(), e);
+        try {
+            super.execute();
+        } finally {
+            if (outputPrefixFile != null) {
+                outputPrefixFile.delete();
+                outputPrefixFile = null;
             }
         }
         if (copyLibraryJS != null && copyLibraryJS.booleanValue()) {
@@ -111,6 +117,20 @@ public class K2JSCompilerMojo extends KotlinCompileMojo {
         }
     }
 
+    private String writeOutputPrefix() throws MojoExecutionException {
+        StringBuilder builder = new StringBuilder();
+        appendFile(KOTLIN_JS_LIB_ECMA3, builder);
+        appendFile(KOTLIN_JS_LIB, builder);
+        builder.append("\n");
+        try {
+            outputPrefixFile = File.createTempFile("kotlin-lib", ".js");
+            Files.write(builder.toString(), outputPrefixFile, Charset.defaultCharset());
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        return outputPrefixFile.getPath();
+    }
+
     protected void appendFile(String jsLib, StringBuilder builder) throws MojoExecutionException {
         // lets copy the kotlin library into the output directory
         try {
@@ -163,6 +183,12 @@ public class K2JSCompilerMojo extends KotlinCompileMojo {
             if (verbose != null) {
                 k2jsArgs.verbose = verbose;
             }
+            if (incremental != null) {
+                k2jsArgs.incremental = incremental;
+            }
+            if (appendLibraryJS != null && appendLibraryJS.booleanValue()) {
+                k2jsArgs.outputPrefix = writeOutputPrefix();
+            }
             if (sources.size() > 0) {
                 k2jsArgs.sourceFiles = sources.toArray(new String[sources.size()]);
             }
@@ -18,6 +18,8 @@ package jet;
 
 import org.jetbrains.jet.rt.annotation.AssertInvisibleInResolver;
 
+import java.util.NoSuchElementException;
+
 @AssertInvisibleInResolver
 public final class ByteRange implements Range<Byte>, ByteIterable {
     private final byte start;
@@ -25,6 +27,40 @@ public final class ByteRange implements Range<Byte>, ByteIterable {
 
     public static final ByteRange empty = new ByteRange((byte) 0,0);
 
+    private static final ByteIterator EMPTY_ITERATOR = new ByteIterator() {
+        @Override
+        public boolean getHasNext() {
+            return false;
+        }
+
+        @Override
+        public byte nextByte() {
+            throw new NoSuchElementException();
+        }
+    };
+
+    private static final int SINGLETON_CACHE_LOW = Byte.MIN_VALUE;
+    private static final ByteRange[] SINGLETON_CACHE = new ByteRange[256];
+
+    static {
+        for (int i = 0; i < SINGLETON_CACHE.length; i++) {
+            SINGLETON_CACHE[i] = new ByteRange((byte) (SINGLETON_CACHE_LOW + i), 1);
+        }
+    }
+
+    /**
+     * Returns a range with the given start and count, the empty and small one element ranges are shared instances.
+     */
+    public static ByteRange valueOf(byte startValue, int count) {
+        if (count == 0) {
+            return empty;
+        }
+        if (count == 1 && startValue >= SINGLETON_CACHE_LOW && startValue < SINGLETON_CACHE_LOW + SINGLETON_CACHE.length) {
+            return SINGLETON_CACHE[startValue - SINGLETON_CACHE_LOW];
+        }
+        return new ByteRange(startValue, count);
+    }
+
     public ByteRange(byte startValue, int count) {
         this.start = startValue;
         this.count = count;
@@ -32,7 +68,10 @@ public final class ByteRange implements Range<Byte>, ByteIterable {
 
     @Override
     public boolean contains(Byte item) {
-        if (item == null) return false;
+        return item != null && contains(item.byteValue());
+    }
+
+    public boolean contains(byte item) {
         if (count >= 0) {
             return item >= start && item < start + count;
         }
@@ -60,6 +99,8 @@ public final class ByteRange implements Range<Byte>, ByteIterable {
     }
 
     public ByteIterator step(int step) {
+        if (count == 0)
+            return EMPTY_ITERATOR;
         if (step < 0)
             return new MyIterator(getEnd(), -count, -step);
         else
@@ -72,7 +113,7 @@ public final class ByteRange implements Range<Byte>, ByteIterable {
 
     @Override
     public ByteIterator iterator() {
-        return new MyIterator(start, count, 1);
+        return count == 0 ? EMPTY_ITERATOR : new MyIterator(start, count, 1);
     }
 
     public static ByteRange count(int length) {
@@ -18,6 +18,8 @@ package jet;
 
 import org.jetbrains.jet.rt.annotation.AssertInvisibleInResolver;
 
+import java.util.NoSuchElementException;
+
 @AssertInvisibleInResolver
 public final class CharRange implements Range<Character>, CharIterable {
     private final char start;
@@ -25,6 +27,40 @@ public final class CharRange implements Range<Character>, CharIterable {
 
     public static final CharRange empty = new CharRange((char) 0,0);
 
+    private static final CharIterator EMPTY_ITERATOR = new CharIterator() {
+        @Override
+        public boolean getHasNext() {
+            return false;
+        }
+
+        @Override
+        public char nextChar() {
+            throw new NoSuchElementException();
+        }
+    };
+
+    private static final int SINGLETON_CACHE_LOW = 0;
+    private static final CharRange[] SINGLETON_CACHE = new CharRange[128];
+
+    static {
+        for (int i = 0; i < SINGLETON_CACHE.length; i++) {
+            SINGLETON_CACHE[i] = new CharRange((char) (SINGLETON_CACHE_LOW + i), 1);
+        }
+    }
+
+    /**
+     * Returns a range with the given start and count, the empty and small one element ranges are shared instances.
+     */
+    public static CharRange valueOf(char startValue, int count) {
+        if (count == 0) {
+            return empty;
+        }
+        if (count == 1 && startValue >= SINGLETON_CACHE_LOW && startValue < SINGLETON_CACHE_LOW + SINGLETON_CACHE.length) {
+            return SINGLETON_CACHE[startValue - SINGLETON_CACHE_LOW];
+        }
+        return new CharRange(startValue, count);
+    }
+
     public CharRange(char startValue, int count) {
         this.start = startValue;
         this.count = count;
@@ -32,7 +68,10 @@ public final class CharRange implements Range<Character>, CharIterable {
 
     @Override
     public boolean contains(Character item) {
-        if (item == null) return false;
+        return item != null && contains(item.charValue());
+    }
+
+    public boolean contains(char item) {
         if (count >= 0) {
             return item >= start && item < start + count;
         }
@@ -64,6 +103,8 @@ public final class CharRange implements Range<Character>, CharIterable {
     }
 
     public CharIterator step(int step) {
+        if (count == 0)
+            return EMPTY_ITERATOR;
         if (step < 0)
             return new MyIterator(getEnd(), -count, -step);
         else
@@ -72,7 +113,7 @@ public final class CharRange implements Range<Character>, CharIterable {
 
     @Override
     public CharIterator iterator() {
-        return new MyIterator(start, count, 1);
+        return count == 0 ? EMPTY_ITERATOR : new MyIterator(start, count, 1);
     }
 
     public static CharRange count(int length) {
@@ -30,7 +30,10 @@ public final class DoubleRange implements Range<Double> {
 
     @Override
     public boolean contains(Double item) {
-        if (item == null) return false;
+        return item != null && contains(item.doubleValue());
+    }
+
+    public boolean contains(double item) {
         if (size >= 0) {
             return item >= start && item < start + size;
         }
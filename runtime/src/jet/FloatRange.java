@@ -30,7 +30,10 @@ public final class FloatRange implements Range<Float> {
 
     @Override
     public boolean contains(Float item) {
-        if (item == null) return false;
+        return item != null && contains(item.floatValue());
+    }
+
+    public boolean contains(float item) {
         if (size >= 0) {
             return item >= start && item < start + size;
         }
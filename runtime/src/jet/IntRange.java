@@ -18,6 +18,8 @@ package jet;
 
 import org.jetbrains.jet.rt.annotation.AssertInvisibleInResolver;
 
+import java.util.NoSuchElementException;
+
 @AssertInvisibleInResolver
 public final class IntRange implements Range<Integer>, IntIterable {
     private final int start;
@@ -25,6 +27,40 @@ public final class IntRange implements Range<Integer>, IntIterable {
 
     public static final IntRange empty = new IntRange(0,0);
 
+    private static final IntIterator EMPTY_ITERATOR = new IntIterator() {
+        @Override
+        public boolean getHasNext() {
+            return false;
+        }
+
+        @Override
+        public int nextInt() {
+            throw new NoSuchElementException();
+        }
+    };
+
+    private static final int SINGLETON_CACHE_LOW = -128;
+    private static final IntRange[] SINGLETON_CACHE = new IntRange[256];
+
+    static {
+        for (int i = 0; i < SINGLETON_CACHE.length; i++) {
+            SINGLETON_CACHE[i] = new IntRange(SINGLETON_CACHE_LOW + i, 1);
+        }
+    }
+
+    /**
+     * Returns a range with the given start and count, the empty and small one element ranges are shared instances.
+     */
+    public static IntRange valueOf(int startValue, int count) {
+        if (count == 0) {
+            return empty;
+        }
+        if (count == 1 && startValue >= SINGLETON_CACHE_LOW && startValue < SINGLETON_CACHE_LOW + SINGLETON_CACHE.length) {
+            return SINGLETON_CACHE[startValue - SINGLETON_CACHE_LOW];
+        }
+        return new IntRange(startValue, count);
+    }
+
     public IntRange(int startValue, int count) {
         this.start = startValue;
         this.count = count;
@@ -32,7 +68,10 @@ public final class IntRange implements Range<Integer>, IntIterable {
 
     @Override
     public boolean contains(Integer item) {
-        if (item == null) return false;
+        return item != null && contains(item.intValue());
+    }
+
+    public boolean contains(int item) {
         if (count >= 0) {
             return item >= start && item < start + count;
         }
@@ -40,6 +79,8 @@ public final class IntRange implements Range<Integer>, IntIterable {
     }
 
     public IntIterator step(int step) {
+        if (count == 0)
+            return EMPTY_ITERATOR;
         if (step < 0)
             return new MyIterator(getEnd(), -count, -step);
         else
@@ -72,7 +113,7 @@ public final class IntRange implements Range<Integer>, IntIterable {
 
     @Override
     public IntIterator iterator() {
-        return new MyIterator(start, count, 1);
+        return count == 0 ? EMPTY_ITERATOR : new MyIterator(start, count, 1);
     }
 
     public static IntRange count(int length) {
@@ -18,6 +18,8 @@ package jet;
 
 import org.jetbrains.jet.rt.annotation.AssertInvisibleInResolver;
 
+import java.util.NoSuchElementException;
+
 @AssertInvisibleInResolver
 public final class LongRange implements Range<Long>, LongIterable {
     private final long start;
@@ -25,12 +27,48 @@ public final class LongRange implements Range<Long>, LongIterable {
 
     public static final LongRange empty = new LongRange(0L,0L);
 
+    private static final LongIterator EMPTY_ITERATOR = new LongIterator() {
+        @Override
+        public boolean getHasNext() {
+            return false;
+        }
+
+        @Override
+        public long nextLong() {
+            throw new NoSuchElementException();
+        }
+    };
+
+    private static final int SINGLETON_CACHE_LOW = -128;
+    private static final LongRange[] SINGLETON_CACHE = new LongRange[256];
+
+    static {
+        for (int i = 0; i < SINGLETON_CACHE.length; i++) {
+            SINGLETON_CACHE[i] = new LongRange(SINGLETON_CACHE_LOW + i, 1);
+        }
+    }
+
+    /**
+     * Returns a range with the given start and count, the empty and small one element ranges are shared instances.
+     */
+    public static LongRange valueOf(long startValue, long count) {
+        if (count == 0) {
+            return empty;
+        }
+        if (count == 1 && startValue >= SINGLETON_CACHE_LOW && startValue < SINGLETON_CACHE_LOW + SINGLETON_CACHE.length) {
+            return SINGLETON_CACHE[(int) (startValue - SINGLETON_CACHE_LOW)];
+        }
+        return new LongRange(startValue, count);
+    }
+
     public LongRange(long startValue, long count) {
         this.start = startValue;
         this.count = count;
     }
 
     public LongIterator step(long step) {
+        if (count == 0)
+            return EMPTY_ITERATOR;
         if (step < 0)
             return new MyIterator(getEnd(), -count, -step);
         else
@@ -39,7 +77,10 @@ public final class LongRange implements Range<Long>, LongIterable {
 
     @Override
     public boolean contains(Long item) {
-        if (item == null) return false;
+        return item != null && contains(item.longValue());
+    }
+
+    public boolean contains(long item) {
         if (count >= 0) {
             return item >= start && item < start + count;
         }
@@ -72,7 +113,7 @@ public final class LongRange implements Range<Long>, LongIterable {
 
     @Override
     public LongIterator iterator() {
-        return new MyIterator(start, count, 1);
+        return count == 0 ? EMPTY_ITERATOR : new MyIterator(start, count, 1);
     }
 
     public static LongRange count(int length) {
@@ -18,6 +18,8 @@ package jet;
 
 import org.jetbrains.jet.rt.annotation.AssertInvisibleInResolver;
 
+import java.util.NoSuchElementException;
+
 @AssertInvisibleInResolver
 public final class ShortRange implements Range<Short>, ShortIterable {
     private final short start;
@@ -25,12 +27,48 @@ public final class ShortRange implements Range<Short>, ShortIterable {
 
     public static final ShortRange empty = new ShortRange((short) 0,0);
 
+    private static final ShortIterator EMPTY_ITERATOR = new ShortIterator() {
+        @Override
+        public boolean getHasNext() {
+            return false;
+        }
+
+        @Override
+        public short nextShort() {
+            throw new NoSuchElementException();
+        }
+    };
+
+    private static final int SINGLETON_CACHE_LOW = -128;
+    private static final ShortRange[] SINGLETON_CACHE = new ShortRange[256];
+
+    static {
+        for (int i = 0; i < SINGLETON_CACHE.length; i++) {
+            SINGLETON_CACHE[i] = new ShortRange((short) (SINGLETON_CACHE_LOW + i), 1);
+        }
+    }
+
+    /**
+     * Returns a range with the given start and count, the empty and small one element ranges are shared instances.
+     */
+    public static ShortRange valueOf(short startValue, int count) {
+        if (count == 0) {
+            return empty;
+        }
+        if (count == 1 && startValue >= SINGLETON_CACHE_LOW && startValue < SINGLETON_CACHE_LOW + SINGLETON_CACHE.length) {
+            return SINGLETON_CACHE[startValue - SINGLETON_CACHE_LOW];
+        }
+        return new ShortRange(startValue, count);
+    }
+
     public ShortRange(short startValue, int count) {
         this.start = startValue;
         this.count = count;
     }
 
     public ShortIterator step(int step) {
+        if (count == 0)
+            return EMPTY_ITERATOR;
         if (step < 0)
             return new MyIterator(getEnd(), -count, -step);
         else
@@ -39,7 +77,10 @@ public final class ShortRange implements Range<Short>, ShortIterable {
 
     @Override
     public boolean contains(Short item) {
-        if (item == null) return false;
+        return item != null && contains(item.shortValue());
+    }
+
+    public boolean contains(short item) {
         if (count >= 0) {
             return item >= start && item < start + count;
         }
@@ -72,7 +113,7 @@ public final class ShortRange implements Range<Short>, ShortIterable {
 
     @Override
     public ShortIterator iterator() {
-        return new MyIterator(start, count, 1);
+        return count == 0 ? EMPTY_ITERATOR : new MyIterator(start, count, 1);
     }
 
     public static ShortRange count(int length) {
@@ -85,35 +85,398 @@ public class Intrinsics {
         }
     }
 
-    public static class SpreadBuilder extends ArrayList {
+    private static final Object[] EMPTY_SPREAD = new Object[0];
+
+    /**
+     * Collects the arguments of a vararg call that mixes single elements and <tt>*spread</tt> arrays.
+     * Spread arrays are only remembered until {@link #toArray(Object[])}, which copies them into
+     * the exactly sized result with {@link System#arraycopy}.
+     */
+    public static class SpreadBuilder {
+        private final Object[] values;
+        private final Object[][] spreads;
+        private int position;
+        private int size;
+
+        public SpreadBuilder(int argumentCount) {
+            values = new Object[argumentCount];
+            spreads = new Object[argumentCount][];
+        }
+
+        public void add(Object element) {
+            values[position++] = element;
+            size++;
+        }
+
         public void addSpread(Object array) {
+            Object[] arr;
+            if (array == null) {
+                arr = EMPTY_SPREAD;
+            }
+            else if (array instanceof Object[]) {
+                arr = (Object[]) array;
+            }
+            else if (array instanceof Collection) {
+                arr = ((Collection) array).toArray();
+            }
+            else if (array instanceof Iterable) {
+                arr = toArray(((Iterable) array).iterator());
+            }
+            else if (array instanceof Iterator) {
+                arr = toArray((Iterator) array);
+            }
+            else {
+                throw new UnsupportedOperationException("Don't know how to spread " + array.getClass());
+            }
+            spreads[position++] = arr;
+            size += arr.length;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Object[] toArray(Object[] result) {
+            int index = 0;
+            for (int i = 0; i < position; i++) {
+                Object[] spread = spreads[i];
+                if (spread != null) {
+                    System.arraycopy(spread, 0, result, index, spread.length);
+                    index += spread.length;
+                }
+                else {
+                    result[index++] = values[i];
+                }
+            }
+            return result;
+        }
+
+        private static Object[] toArray(Iterator iterator) {
+            ArrayList list = new ArrayList();
+            while (iterator.hasNext()) {
+                list.add(iterator.next());
+            }
+            return list.toArray();
+        }
+    }
+
+    public static class ByteSpreadBuilder {
+        private final byte[] values;
+        private final byte[][] spreads;
+        private int position;
+        private int size;
+
+        public ByteSpreadBuilder(int argumentCount) {
+            values = new byte[argumentCount];
+            spreads = new byte[argumentCount][];
+        }
+
+        public void add(byte element) {
+            values[position++] = element;
+            size++;
+        }
+
+        public void addSpread(byte[] array) {
+            if (array != null) {
+                spreads[position++] = array;
+                size += array.length;
+            }
+        }
+
+        public byte[] toArray() {
+            byte[] result = new byte[size];
+            int index = 0;
+            for (int i = 0; i < position; i++) {
+                byte[] spread = spreads[i];
+                if (spread != null) {
+                    System.arraycopy(spread, 0, result, index, spread.length);
+                    index += spread.length;
+                }
+                else {
+                    result[index++] = values[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    public static class ShortSpreadBuilder {
+        private final short[] values;
+        private final short[][] spreads;
+        private int position;
+        private int size;
+
+        public ShortSpreadBuilder(int argumentCount) {
+            values = new short[argumentCount];
+            spreads = new short[argumentCount][];
+        }
+
+        public void add(short element) {
+            values[position++] = element;
+            size++;
+        }
+
+        public void addSpread(short[] array) {
             if (array != null) {
-                if (array instanceof Object[]) {
-                    Object[] arr = (Object[]) array;
-                    if (arr.length > 0) {
-                        ensureCapacity(size() + arr.length);
-                        for (int i = 0; i < arr.length; i++) {
-                            add(arr[i]);
-                        }
-                    }
-                }
-                else if (array instanceof Collection) {
-                    addAll((Collection) array);
-                }
-                else if (array instanceof Iterable) {
-                    for(Iterator iterator = ((Iterable) array).iterator(); iterator.hasNext(); ) {
-                        add(iterator.next());
-                    }
-                }
-                else if (array instanceof Iterator) {
-                    for(Iterator iterator = ((Iterator) array); iterator.hasNext(); ) {
-                        add(iterator.next());
-                    }
+                spreads[position++] = array;
+                size += array.length;
+            }
+        }
+
+        public short[] toArray() {
+            short[] result = new short[size];
+            int index = 0;
+            for (int i = 0; i < position; i++) {
+                short[] spread = spreads[i];
+                if (spread != null) {
+                    System.arraycopy(spread, 0, result, index, spread.length);
+                    index += spread.length;
+                }
+                else {
+                    result[index++] = values[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    public static class CharSpreadBuilder {
+        private final char[] values;
+        private final char[][] spreads;
+        private int position;
+        private int size;
+
+        public CharSpreadBuilder(int argumentCount) {
+            values = new char[argumentCount];
+            spreads = new char[argumentCount][];
+        }
+
+        public void add(char element) {
+            values[position++] = element;
+            size++;
+        }
+
+        public void addSpread(char[] array) {
+            if (array != null) {
+                spreads[position++] = array;
+                size += array.length;
+            }
+        }
+
+        public char[] toArray() {
+            char[] result = new char[size];
+            int index = 0;
+            for (int i = 0; i < position; i++) {
+                char[] spread = spreads[i];
+                if (spread != null) {
+                    System.arraycopy(spread, 0, result, index, spread.length);
+                    index += spread.length;
+                }
+                else {
+                    result[index++] = values[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    public static class IntSpreadBuilder {
+        private final int[] values;
+        private final int[][] spreads;
+        private int position;
+        private int size;
+
+        public IntSpreadBuilder(int argumentCount) {
+            values = new int[argumentCount];
+            spreads = new int[argumentCount][];
+        }
+
+        public void add(int element) {
+            values[position++] = element;
+            size++;
+        }
+
+        public void addSpread(int[] array) {
+            if (array != null) {
+                spreads[position++] = array;
+                size += array.length;
+            }
+        }
+
+        public int[] toArray() {
+            int[] result = new int[size];
+            int index = 0;
+            for (int i = 0; i < position; i++) {
+                int[] spread = spreads[i];
+                if (spread != null) {
+                    System.arraycopy(spread, 0, result, index, spread.length);
+                    index += spread.length;
+                }
+                else {
+                    result[index++] = values[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    public static class LongSpreadBuilder {
+        private final long[] values;
+        private final long[][] spreads;
+        private int position;
+        private int size;
+
+        public LongSpreadBuilder(int argumentCount) {
+            values = new long[argumentCount];
+            spreads = new long[argumentCount][];
+        }
+
+        public void add(long element) {
+            values[position++] = element;
+            size++;
+        }
+
+        public void addSpread(long[] array) {
+            if (array != null) {
+                spreads[position++] = array;
+                size += array.length;
+            }
+        }
+
+        public long[] toArray() {
+            long[] result = new long[size];
+            int index = 0;
+            for (int i = 0; i < position; i++) {
+                long[] spread = spreads[i];
+                if (spread != null) {
+                    System.arraycopy(spread, 0, result, index, spread.length);
+                    index += spread.length;
+                }
+                else {
+                    result[index++] = values[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    public static class FloatSpreadBuilder {
+        private final float[] values;
+        private final float[][] spreads;
+        private int position;
+        private int size;
+
+        public FloatSpreadBuilder(int argumentCount) {
+            values = new float[argumentCount];
+            spreads = new float[argumentCount][];
+        }
+
+        public void add(float element) {
+            values[position++] = element;
+            size++;
+        }
+
+        public void addSpread(float[] array) {
+            if (array != null) {
+                spreads[position++] = array;
+                size += array.length;
+            }
+        }
+
+        public float[] toArray() {
+            float[] result = new float[size];
+            int index = 0;
+            for (int i = 0; i < position; i++) {
+                float[] spread = spreads[i];
+                if (spread != null) {
+                    System.arraycopy(spread, 0, result, index, spread.length);
+                    index += spread.length;
+                }
+                else {
+                    result[index++] = values[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    public static class DoubleSpreadBuilder {
+        private final double[] values;
+        private final double[][] spreads;
+        private int position;
+        private int size;
+
+        public DoubleSpreadBuilder(int argumentCount) {
+            values = new double[argumentCount];
+            spreads = new double[argumentCount][];
+        }
+
+        public void add(double element) {
+            values[position++] = element;
+            size++;
+        }
+
+        public void addSpread(double[] array) {
+            if (array != null) {
+                spreads[position++] = array;
+                size += array.length;
+            }
+        }
+
+        public double[] toArray() {
+            double[] result = new double[size];
+            int index = 0;
+            for (int i = 0; i < position; i++) {
+                double[] spread = spreads[i];
+                if (spread != null) {
+                    System.arraycopy(spread, 0, result, index, spread.length);
+                    index += spread.length;
+                }
+                else {
+                    result[index++] = values[i];
+                }
+            }
+            return result;
+        }
+    }
+
+    public static class BooleanSpreadBuilder {
+        private final boolean[] values;
+        private final boolean[][] spreads;
+        private int position;
+        private int size;
+
+        public BooleanSpreadBuilder(int argumentCount) {
+            values = new boolean[argumentCount];
+            spreads = new boolean[argumentCount][];
+        }
+
+        public void add(boolean element) {
+            values[position++] = element;
+            size++;
+        }
+
+        public void addSpread(boolean[] array) {
+            if (array != null) {
+                spreads[position++] = array;
+                size += array.length;
+            }
+        }
+
+        public boolean[] toArray() {
+            boolean[] result = new boolean[size];
+            int index = 0;
+            for (int i = 0; i < position; i++) {
+                boolean[] spread = spreads[i];
+                if (spread != null) {
+                    System.arraycopy(spread, 0, result, index, spread.length);
+                    index += spread.length;
                 }
                 else {
-                    throw new UnsupportedOperationException("Don't know how to spread " + array.getClass());
+                    result[index++] = values[i];
                 }
             }
+            return result;
         }
     }
 }
@@ -33,12 +33,12 @@ public class Ranges {
             return ByteRange.empty;
         }
         else {
-            return new ByteRange(from, to - from + 1);
+            return ByteRange.valueOf(from, to - from + 1);
         }
     }
 
     public static ByteRange downTo(byte from, byte to) {
-        if (from > to) {
+        if (from >= to) {
             return new ByteRange(from, to - from - 1);
         }
         else {
@@ -51,12 +51,12 @@ public class Ranges {
             return ShortRange.empty;
         }
         else {
-            return new ShortRange(from, to - from + 1);
+            return ShortRange.valueOf(from, to - from + 1);
         }
     }
 
     public static ShortRange downTo(byte from, short to) {
-        if (from > to) {
+        if (from >= to) {
             return new ShortRange(from, to - from - 1);
         }
         else {
@@ -69,12 +69,12 @@ public class Ranges {
             return IntRange.empty;
         }
         else {
-            return new IntRange(from, to - from + 1);
+            return IntRange.valueOf(from, to - from + 1);
         }
     }
 
     public static IntRange downTo(byte from, int to) {
-        if (from > to) {
+        if (from >= to) {
             return new IntRange(from, to - from - 1);
         }
         else {
@@ -87,12 +87,12 @@ public class Ranges {
             return LongRange.empty;
         }
         else {
-            return new LongRange(from, to - from + 1);
+            return LongRange.valueOf(from, to - from + 1);
         }
     }
 
     public static LongRange downTo(byte from, long to) {
-        if (from > to) {
+        if (from >= to) {
             return new LongRange(from, to - from - 1);
         }
         else {
@@ -121,12 +121,12 @@ public class Ranges {
             return CharRange.empty;
         }
         else {
-            return new CharRange((char) from, to - from + 1);
+            return CharRange.valueOf((char) from, to - from + 1);
         }
     }
 
     public static CharRange downTo(byte from, char to) {
-        if (from > to) {
+        if (from >= to) {
             return new CharRange((char) from, to - from - 1);
         }
         else {
@@ -139,12 +139,12 @@ public class Ranges {
             return ShortRange.empty;
         }
         else {
-            return new ShortRange(from, to - from + 1);
+            return ShortRange.valueOf(from, to - from + 1);
         }
     }
 
     public static ShortRange downTo(short from, byte to) {
-        if (from > to) {
+        if (from >= to) {
             return new ShortRange(from, to - from - 1);
         }
         else {
@@ -157,12 +157,12 @@ public class Ranges {
             return ShortRange.empty;
         }
         else {
-            return new ShortRange(from, to - from + 1);
+            return ShortRange.valueOf(from, to - from + 1);
         }
     }
 
     public static ShortRange downTo(short from, short to) {
-        if (from > to) {
+        if (from >= to) {
             return new ShortRange(from, to - from - 1);
         }
         else {
@@ -175,12 +175,12 @@ public class Ranges {
             return IntRange.empty;
         }
         else {
-            return new IntRange(from, to - from + 1);
+            return IntRange.valueOf(from, to - from + 1);
         }
     }
 
     public static IntRange downTo(short from, int to) {
-        if (from > to) {
+        if (from >= to) {
             return new IntRange(from, to - from - 1);
         }
         else {
@@ -193,12 +193,12 @@ public class Ranges {
             return LongRange.empty;
         }
         else {
-            return new LongRange(from, to - from + 1);
+            return LongRange.valueOf(from, to - from + 1);
         }
     }
 
     public static LongRange downTo(short from, long to) {
-        if (from > to) {
+        if (from >= to) {
             return new LongRange(from, to - from - 1);
         }
         else {
@@ -227,12 +227,12 @@ public class Ranges {
             return ShortRange.empty;
         }
         else {
-            return new ShortRange(from, to - from + 1);
+            return ShortRange.valueOf(from, to - from + 1);
         }
     }
 
     public static ShortRange downTo(short from, char to) {
-        if (from > to) {
+        if (from >= to) {
             return new ShortRange(from, to - from - 1);
         }
         else {
@@ -245,12 +245,12 @@ public class Ranges {
             return IntRange.empty;
         }
         else {
-            return new IntRange(from, to - from + 1);
+            return IntRange.valueOf(from, to - from + 1);
         }
     }
 
     public static IntRange downTo(int from, byte to) {
-        if (from > to) {
+        if (from >= to) {
             return new IntRange(from, to - from - 1);
         }
         else {
@@ -263,12 +263,12 @@ public class Ranges {
             return IntRange.empty;
         }
         else {
-            return new IntRange(from, to - from + 1);
+            return IntRange.valueOf(from, to - from + 1);
         }
     }
 
     public static IntRange downTo(int from, short to) {
-        if (from > to) {
+        if (from >= to) {
             return new IntRange(from, to - from - 1);
         }
         else {
@@ -281,12 +281,12 @@ public class Ranges {
             return IntRange.empty;
         }
         else {
-            return new IntRange(from, to - from + 1);
+            return IntRange.valueOf(from, to - from + 1);
         }
     }
 
     public static IntRange downTo(int from, int to) {
-        if (from > to) {
+        if (from >= to) {
             return new IntRange(from, to - from - 1);
         }
         else {
@@ -299,12 +299,12 @@ public class Ranges {
             return LongRange.empty;
         }
         else {
-            return new LongRange(from, to - from + 1);
+            return LongRange.valueOf(from, to - from + 1);
         }
     }
 
     public static LongRange downTo(int from, long to) {
-        if (from > to) {
+        if (from >= to) {
             return new LongRange(from, to - from - 1);
         }
         else {
@@ -333,12 +333,12 @@ public class Ranges {
             return IntRange.empty;
         }
         else {
-            return new IntRange(from, to - from + 1);
+            return IntRange.valueOf(from, to - from + 1);
         }
     }
 
     public static IntRange downTo(int from, char to) {
-        if (from > to) {
+        if (from >= to) {
             return new IntRange(from, to - from - 1);
         }
         else {
@@ -351,12 +351,12 @@ public class Ranges {
             return LongRange.empty;
         }
         else {
-            return new LongRange(from, to - from + 1);
+            return LongRange.valueOf(from, to - from + 1);
         }
     }
 
     public static LongRange downTo(long from, byte to) {
-        if (from > to) {
+        if (from >= to) {
             return new LongRange(from, to - from - 1);
         }
         else {
@@ -369,12 +369,12 @@ public class Ranges {
             return LongRange.empty;
         }
         else {
-            return new LongRange(from, to - from + 1);
+            return LongRange.valueOf(from, to - from + 1);
         }
     }
 
     public static LongRange downTo(long from, short to) {
-        if (from > to) {
+        if (from >= to) {
             return new LongRange(from, to - from - 1);
         }
         else {
@@ -387,12 +387,12 @@ public class Ranges {
             return LongRange.empty;
         }
         else {
-            return new LongRange(from, to - from + 1);
+            return LongRange.valueOf(from, to - from + 1);
         }
     }
 
     public static LongRange downTo(long from, int to) {
-        if (from > to) {
+        if (from >= to) {
             return new LongRange(from, to - from - 1);
         }
         else {
@@ -405,12 +405,12 @@ public class Ranges {
             return LongRange.empty;
         }
         else {
-            return new LongRange(from, to - from + 1);
+            return LongRange.valueOf(from, to - from + 1);
         }
     }
 
     public static LongRange downTo(long from, long to) {
-        if (from > to) {
+        if (from >= to) {
             return new LongRange(from, to - from - 1);
         }
         else {
@@ -439,12 +439,12 @@ public class Ranges {
             return LongRange.empty;
         }
         else {
-            return new LongRange(from, to - from + 1);
+            return LongRange.valueOf(from, to - from + 1);
         }
     }
 
     public static LongRange downTo(long from, char to) {
-        if (from > to) {
+        if (from >= to) {
             return new LongRange(from, to - from - 1);
         }
         else {
@@ -569,12 +569,12 @@ public class Ranges {
             return CharRange.empty;
         }
         else {
-            return new CharRange(from, to - from + 1);
+            return CharRange.valueOf(from, to - from + 1);
         }
     }
 
     public static CharRange downTo(char from, byte to) {
-        if (from > to) {
+        if (from >= to) {
             return new CharRange(from, to - from - 1);
         }
         else {
@@ -587,12 +587,12 @@ public class Ranges {
             return ShortRange.empty;
         }
         else {
-            return new ShortRange((short) from, to - from + 1);
+            return ShortRange.valueOf((short) from, to - from + 1);
         }
     }
 
     public static ShortRange downTo(char from, short to) {
-        if (from > to) {
+        if (from >= to) {
             return new ShortRange((short) from, to - from - 1);
         }
         else {
@@ -605,12 +605,12 @@ public class Ranges {
             return IntRange.empty;
         }
         else {
-            return new IntRange(from, to - from + 1);
+            return IntRange.valueOf(from, to - from + 1);
         }
     }
 
     public static IntRange downTo(char from, int to) {
-        if (from > to) {
+        if (from >= to) {
             return new IntRange(from, to - from - 1);
         }
         else {
@@ -623,12 +623,12 @@ public class Ranges {
             return LongRange.empty;
         }
         else {
-            return new LongRange(from, to - from + 1);
+            return LongRange.valueOf(from, to - from + 1);
         }
     }
 
     public static LongRange downTo(char from, long to) {
-        if (from > to) {
+        if (from >= to) {
             return new LongRange(from, to - from - 1);
         }
         else {
@@ -657,12 +657,12 @@ public class Ranges {
             return CharRange.empty;
         }
         else {
-            return new CharRange(from, to - from + 1);
+            return CharRange.valueOf(from, to - from + 1);
         }
     }
 
     public static CharRange downTo(char from, char to) {
-        if (from > to) {
+        if (from >= to) {
             return new CharRange(from, to - from - 1);
         }
         else {
@@ -670,6 +670,52 @@ public class Ranges {
         }
     }
 
+    /**
+     * Returns the last element of the progression from start towards end (inclusive) with the given step.
+     * Used by compiled for-loops over progressions; does not overflow near MIN_VALUE/MAX_VALUE.
+     */
+    public static int getProgressionFinalElement(int start, int end, int step) {
+        if (step > 0) {
+            return start >= end ? end : end - differenceModulo(end, start, step);
+        }
+        else if (step < 0) {
+            return start <= end ? end : end + differenceModulo(start, end, -step);
+        }
+        else {
+            throw new IllegalArgumentException("Step is zero");
+        }
+    }
+
+    public static long getProgressionFinalElement(long start, long end, long step) {
+        if (step > 0) {
+            return start >= end ? end : end - differenceModulo(end, start, step);
+        }
+        else if (step < 0) {
+            return start <= end ? end : end + differenceModulo(start, end, -step);
+        }
+        else {
+            throw new IllegalArgumentException("Step is zero");
+        }
+    }
+
+    private static int differenceModulo(int a, int b, int c) {
+        return mod(mod(a, c) - mod(b, c), c);
+    }
+
+    private static long differenceModulo(long a, long b, long c) {
+        return mod(mod(a, c) - mod(b, c), c);
+    }
+
+    private static int mod(int a, int b) {
+        int mod = a % b;
+        return mod >= 0 ? mod : mod + b;
+    }
+
+    private static long mod(long a, long b) {
+        long mod = a % b;
+        return mod >= 0 ? mod : mod + b;
+    }
+
     public static void main(String[] args) {
         List<String> strings = Arrays.asList("byte", "short", "int", "long", "float", "double", "char");
         for (String t1 : strings) {
@@ -715,7 +761,7 @@ public class Ranges {
                                        "  }\n" +
                                        "}");
                     System.out.println("\npublic static " + resType + " downTo(" + t1 + " from, " + t2 + " to) {" +
-                                       "\n  if(from > to) {\n" +
+                                       "\n  if(from >= to) {\n" +
                                        "    return new " + resType + "(from, to-from-1);\n" +
                                        "  }\n" +
                                        "  else {\n" +